@@ -0,0 +1,109 @@
+package com.apollographql.apollo.cache.normalized.sql;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.apollographql.apollo.cache.CacheHeaders;
+import com.apollographql.apollo.cache.normalized.CacheReference;
+import com.apollographql.apollo.cache.normalized.NormalizedCache;
+import com.apollographql.apollo.cache.normalized.Record;
+import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
+import com.squareup.moshi.Moshi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(AndroidJUnit4.class)
+public class ApolloSqlHelperTest {
+
+  private static final String DATABASE_NAME = "apollo_upgrade_test.db";
+  private final RecordFieldAdapter recordFieldAdapter = RecordFieldAdapter.create(new Moshi.Builder().build());
+  private Context context;
+
+  @Before
+  public void setUp() {
+    context = InstrumentationRegistry.getTargetContext();
+    context.deleteDatabase(DATABASE_NAME);
+    createVersion1Database();
+  }
+
+  @After
+  public void tearDown() {
+    context.deleteDatabase(DATABASE_NAME);
+  }
+
+  @Test
+  public void testUpgrade_recordSchema() {
+    SqlNormalizedCache sqlStore = new SqlNormalizedCacheFactory(ApolloSqlHelper.create(context, DATABASE_NAME))
+        .createNormalizedCache(recordFieldAdapter);
+    assertUpgradedRecords(sqlStore);
+    assertThat(sqlStore.stats().get().recordCount()).isEqualTo(2);
+    sqlStore.close();
+  }
+
+  @Test
+  public void testUpgrade_fieldSchema() {
+    FieldSqlNormalizedCache sqlStore = new FieldSqlNormalizedCacheFactory(ApolloSqlHelper.create(context,
+        DATABASE_NAME)).createNormalizedCache(recordFieldAdapter);
+    assertUpgradedRecords(sqlStore);
+    assertThat(sqlStore.stats().get().recordCount()).isEqualTo(2);
+    sqlStore.close();
+  }
+
+  private static void assertUpgradedRecords(NormalizedCache sqlStore) {
+    // the record written last for a duplicated key is kept
+    Record record = sqlStore.loadRecord("key", CacheHeaders.NONE);
+    assertThat(record.field("fieldKey")).isEqualTo("newValue");
+
+    Record otherRecord = sqlStore.loadRecord("other", CacheHeaders.NONE);
+    assertThat(otherRecord.field("reference")).isEqualTo(new CacheReference("key"));
+    assertThat(otherRecord.field("flag")).isEqualTo(true);
+
+    assertThat(sqlStore.loadRecord("broken", CacheHeaders.NONE)).isNull();
+  }
+
+  /**
+   * Creates the database with the schema of version 1: keys are not unique and records are stored as JSON.
+   */
+  private void createVersion1Database() {
+    SQLiteOpenHelper helper = new SQLiteOpenHelper(context, DATABASE_NAME, null, 1) {
+      @Override public void onCreate(SQLiteDatabase db) {
+        db.execSQL("create table records( _id integer primary key autoincrement, key text not null, "
+            + "record text not null);");
+        db.execSQL("CREATE INDEX idx_records_key ON records (key)");
+      }
+
+      @Override public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+      }
+    };
+    SQLiteDatabase db = helper.getWritableDatabase();
+    insertJsonRecord(db, "key", fields("fieldKey", "oldValue"));
+    insertJsonRecord(db, "key", fields("fieldKey", "newValue"));
+    Map<String, Object> otherFields = fields("reference", new CacheReference("key"));
+    otherFields.put("flag", true);
+    insertJsonRecord(db, "other", otherFields);
+    db.execSQL("INSERT INTO records (key, record) VALUES (?, ?)", new Object[]{"broken", "{not json"});
+    helper.close();
+  }
+
+  private void insertJsonRecord(SQLiteDatabase db, String key, Map<String, Object> fields) {
+    db.execSQL("INSERT INTO records (key, record) VALUES (?, ?)",
+        new Object[]{key, recordFieldAdapter.toJson(fields)});
+  }
+
+  private static Map<String, Object> fields(String fieldKey, Object value) {
+    Map<String, Object> fields = new LinkedHashMap<>();
+    fields.put(fieldKey, value);
+    return fields;
+  }
+}
@@ -0,0 +1,159 @@
+package com.apollographql.apollo.cache.normalized.sql;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.apollographql.apollo.cache.ApolloCacheHeaders;
+import com.apollographql.apollo.cache.CacheHeaders;
+import com.apollographql.apollo.cache.normalized.BinaryRecordCodec;
+import com.apollographql.apollo.cache.normalized.CacheKey;
+import com.apollographql.apollo.cache.normalized.CacheReference;
+import com.apollographql.apollo.cache.normalized.Record;
+import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
+import com.squareup.moshi.Moshi;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(AndroidJUnit4.class)
+public class FieldSqlNormalizedCacheTest {
+
+  private static final String STANDARD_KEY = "key";
+  private static final String QUERY_ROOT_KEY = "QUERY_ROOT";
+  private static final String IN_MEMORY_DB = null; //null means db is memory only
+  private ApolloSqlHelper apolloSqlHelper;
+  private RecordFieldAdapter recordFieldAdapter;
+  private FieldSqlNormalizedCache sqlStore;
+
+  @Before
+  public void setUp() {
+    apolloSqlHelper = ApolloSqlHelper.create(InstrumentationRegistry.getTargetContext(), IN_MEMORY_DB);
+    recordFieldAdapter = RecordFieldAdapter.create(new Moshi.Builder().build());
+    sqlStore = new FieldSqlNormalizedCacheFactory(apolloSqlHelper).createNormalizedCache(recordFieldAdapter);
+  }
+
+  @Test
+  public void testRecordMerge() {
+    Set<String> changedKeys = sqlStore.merge(Record.builder(STANDARD_KEY)
+        .addField("fieldKey", "value")
+        .addField("reference", new CacheReference(QUERY_ROOT_KEY)).build(), CacheHeaders.NONE);
+    assertThat(changedKeys).isEmpty();
+
+    changedKeys = sqlStore.merge(Record.builder(STANDARD_KEY)
+        .addField("fieldKey", "valueUpdated")
+        .addField("newFieldKey", true).build(), CacheHeaders.NONE);
+    assertThat(changedKeys).containsExactly(STANDARD_KEY + ".fieldKey", STANDARD_KEY + ".newFieldKey");
+
+    Record record = sqlStore.loadRecord(STANDARD_KEY, CacheHeaders.NONE);
+    assertThat(record.field("fieldKey")).isEqualTo("valueUpdated");
+    assertThat(record.field("newFieldKey")).isEqualTo(true);
+    assertThat(record.field("reference")).isEqualTo(new CacheReference(QUERY_ROOT_KEY));
+  }
+
+  @Test
+  public void testRecordMerge_multipleRecords() {
+    sqlStore.merge(Record.builder(STANDARD_KEY).addField("fieldKey", "value").build(), CacheHeaders.NONE);
+    Set<String> changedKeys = sqlStore.merge(Arrays.asList(
+        Record.builder(STANDARD_KEY).addField("fieldKey", "valueUpdated").build(),
+        Record.builder(QUERY_ROOT_KEY).addField("fieldKey", "value").build(),
+        Record.builder(STANDARD_KEY).addField("fieldKey", "valueUpdatedAgain").build()), CacheHeaders.NONE);
+    assertThat(changedKeys).containsExactly(STANDARD_KEY + ".fieldKey");
+    assertThat(sqlStore.loadRecord(STANDARD_KEY, CacheHeaders.NONE).field("fieldKey"))
+        .isEqualTo("valueUpdatedAgain");
+    assertThat(sqlStore.loadRecord(QUERY_ROOT_KEY, CacheHeaders.NONE).field("fieldKey")).isEqualTo("value");
+  }
+
+  @Test
+  public void testRecordsSelection_multipleKeys() {
+    sqlStore.merge(Arrays.asList(
+        Record.builder(STANDARD_KEY).addField("fieldKey", "value").build(),
+        Record.builder(QUERY_ROOT_KEY).addField("fieldKey", "value").build()), CacheHeaders.NONE);
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      keys.add("missing" + i);
+    }
+    keys.add(QUERY_ROOT_KEY);
+    keys.add(STANDARD_KEY);
+    Collection<Record> records = sqlStore.loadRecords(keys, CacheHeaders.NONE);
+    assertThat(records).hasSize(2);
+    assertThat(records.iterator().next().key()).isEqualTo(QUERY_ROOT_KEY);
+  }
+
+  @Test
+  public void testRecordRemove() {
+    sqlStore.merge(Record.builder(STANDARD_KEY).addField("fieldKey", "value").build(), CacheHeaders.NONE);
+    assertThat(sqlStore.remove(CacheKey.from(STANDARD_KEY))).isTrue();
+    assertThat(sqlStore.loadRecord(STANDARD_KEY, CacheHeaders.NONE)).isNull();
+    assertThat(sqlStore.remove(CacheKey.from(STANDARD_KEY))).isFalse();
+  }
+
+  @Test
+  public void testRecordKeys() {
+    sqlStore.merge(Arrays.asList(
+        Record.builder(STANDARD_KEY).addField("fieldKey", "value").addField("otherFieldKey", "value").build(),
+        Record.builder(QUERY_ROOT_KEY).addField("fieldKey", "value").build()), CacheHeaders.NONE);
+    assertThat(sqlStore.recordKeys().get()).containsExactly(STANDARD_KEY, QUERY_ROOT_KEY);
+  }
+
+  @Test
+  public void testReceivedAt() {
+    sqlStore.merge(Record.builder(STANDARD_KEY).addField("fieldKey", "value").receivedAtMillis(1000).build(),
+        CacheHeaders.NONE);
+    sqlStore.merge(Record.builder(STANDARD_KEY).addField("fieldKey", "value").receivedAtMillis(2000).build(),
+        CacheHeaders.NONE);
+    Record record = sqlStore.loadRecord(STANDARD_KEY, CacheHeaders.NONE);
+    assertThat(record.fields()).containsExactly("fieldKey", "value");
+    assertThat(record.receivedAtMillis()).isEqualTo(2000);
+  }
+
+  @Test
+  public void testClearAll() {
+    sqlStore.merge(Arrays.asList(
+        Record.builder(STANDARD_KEY).addField("fieldKey", "value").build(),
+        Record.builder(QUERY_ROOT_KEY).addField("fieldKey", "value").build()), CacheHeaders.NONE);
+    sqlStore.clearAll();
+    assertThat(sqlStore.loadRecord(STANDARD_KEY, CacheHeaders.NONE)).isNull();
+    assertThat(sqlStore.loadRecord(QUERY_ROOT_KEY, CacheHeaders.NONE)).isNull();
+  }
+
+  @Test
+  public void testMigrationFromRecordsTable() {
+    SqlNormalizedCache recordStore = new SqlNormalizedCacheFactory(apolloSqlHelper)
+        .createNormalizedCache(recordFieldAdapter);
+    recordStore.createRecord(STANDARD_KEY, BinaryRecordCodec.create(recordFieldAdapter)
+        .encode(Collections.<String, Object>singletonMap("fieldKey", "value")));
+
+    FieldSqlNormalizedCache migratedStore = new FieldSqlNormalizedCacheFactory(apolloSqlHelper)
+        .createNormalizedCache(recordFieldAdapter);
+    assertThat(migratedStore.loadRecord(STANDARD_KEY, CacheHeaders.NONE).field("fieldKey")).isEqualTo("value");
+    assertThat(recordStore.selectRecordForKey(STANDARD_KEY).isPresent()).isFalse();
+  }
+
+  // Tests for StandardCacheHeader compliance
+
+  @Test
+  public void testHeader_evictAfterRead() {
+    sqlStore.merge(Record.builder(STANDARD_KEY).addField("fieldKey", "value").build(), CacheHeaders.NONE);
+    CacheHeaders evictAfterRead = CacheHeaders.builder().addHeader(ApolloCacheHeaders.EVICT_AFTER_READ, "true")
+        .build();
+    assertThat(sqlStore.loadRecord(STANDARD_KEY, evictAfterRead)).isNotNull();
+    assertThat(sqlStore.loadRecord(STANDARD_KEY, evictAfterRead)).isNull();
+  }
+
+  @Test
+  public void testHeader_noCache() {
+    sqlStore.merge(Record.builder(STANDARD_KEY).addField("fieldKey", "value").build(),
+        CacheHeaders.builder().addHeader(ApolloCacheHeaders.DO_NOT_STORE, "true").build());
+    assertThat(sqlStore.loadRecord(STANDARD_KEY, CacheHeaders.NONE)).isNull();
+  }
+}
@@ -6,6 +6,9 @@ import android.support.test.runner.AndroidJUnit4;
 import com.apollographql.apollo.api.internal.Optional;
 import com.apollographql.apollo.cache.ApolloCacheHeaders;
 import com.apollographql.apollo.cache.CacheHeaders;
+import com.apollographql.apollo.cache.normalized.BinaryRecordCodec;
+import com.apollographql.apollo.cache.normalized.CacheKey;
+import com.apollographql.apollo.cache.normalized.NormalizedCacheStats;
 import com.apollographql.apollo.cache.normalized.Record;
 import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
 import com.squareup.moshi.Moshi;
@@ -14,6 +17,14 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import static com.google.common.truth.Truth.assertThat;
 
 @RunWith(AndroidJUnit4.class)
@@ -21,7 +32,7 @@ public class SqlNormalizedCacheTest {
 
   public static final String STANDARD_KEY = "key";
   public static final String QUERY_ROOT_KEY = "QUERY_ROOT";
-  public static final String FIELDS = "{\"fieldKey\": \"value\"}";
+  public static final Map<String, Object> FIELDS = Collections.<String, Object>singletonMap("fieldKey", "value");
   public static final String IN_MEMORY_DB = null; //null means db is memory only
   private SqlNormalizedCache sqlStore;
 
@@ -75,6 +86,33 @@ public class SqlNormalizedCacheTest {
     assertThat(record.get().fields().get("newFieldKey")).isEqualTo(true);
   }
 
+  @Test
+  public void testRecordMerge_multipleRecords() {
+    createRecord(STANDARD_KEY);
+    Set<String> changedKeys = sqlStore.merge(Arrays.asList(
+        Record.builder(STANDARD_KEY).addField("fieldKey", "valueUpdated").build(),
+        Record.builder(QUERY_ROOT_KEY).addField("fieldKey", "value").build(),
+        Record.builder(STANDARD_KEY).addField("fieldKey", "valueUpdatedAgain").build()), CacheHeaders.NONE);
+    assertThat(changedKeys).containsExactly(STANDARD_KEY + ".fieldKey");
+    assertThat(sqlStore.selectRecordForKey(STANDARD_KEY).get().field("fieldKey")).isEqualTo("valueUpdatedAgain");
+    assertThat(sqlStore.selectRecordForKey(QUERY_ROOT_KEY).get().field("fieldKey")).isEqualTo("value");
+  }
+
+  @Test
+  public void testRecordsSelection_multipleKeys() {
+    createRecord(STANDARD_KEY);
+    createRecord(QUERY_ROOT_KEY);
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      keys.add("missing" + i);
+    }
+    keys.add(QUERY_ROOT_KEY);
+    keys.add(STANDARD_KEY);
+    Collection<Record> records = sqlStore.loadRecords(keys, CacheHeaders.NONE);
+    assertThat(records).hasSize(2);
+    assertThat(records.iterator().next().key()).isEqualTo(QUERY_ROOT_KEY);
+  }
+
   @Test
   public void testRecordDelete() {
     createRecord(STANDARD_KEY);
@@ -86,6 +124,16 @@ public class SqlNormalizedCacheTest {
     assertThat(record.isPresent()).isFalse();
   }
 
+  @Test
+  public void testRecordDelete_multipleKeys() {
+    createRecord(STANDARD_KEY);
+    createRecord(QUERY_ROOT_KEY);
+    assertThat(sqlStore.remove(Arrays.asList(CacheKey.from(STANDARD_KEY), CacheKey.from(QUERY_ROOT_KEY),
+        CacheKey.from("missing")))).isEqualTo(2);
+    assertThat(sqlStore.loadRecords(Arrays.asList(STANDARD_KEY, QUERY_ROOT_KEY), CacheHeaders.NONE)).isEmpty();
+    assertThat(sqlStore.stats().get().recordCount()).isEqualTo(0);
+  }
+
   @Test
   public void testClearAll() {
     createRecord(QUERY_ROOT_KEY);
@@ -117,7 +165,31 @@ public class SqlNormalizedCacheTest {
     assertThat(record).isNull();
   }
 
+  @Test
+  public void testRecordKeys() {
+    createRecord(QUERY_ROOT_KEY);
+    createRecord(STANDARD_KEY);
+    assertThat(sqlStore.recordKeys().get()).containsExactly(QUERY_ROOT_KEY, STANDARD_KEY);
+  }
+
+  @Test
+  public void testStats() {
+    sqlStore.merge(Arrays.asList(
+        Record.builder(STANDARD_KEY).addField("fieldKey", "value").build(),
+        Record.builder(QUERY_ROOT_KEY).addField("fieldKey", "value").build()), CacheHeaders.NONE);
+    sqlStore.remove(CacheKey.from(QUERY_ROOT_KEY));
+    assertThat(sqlStore.loadRecords(Arrays.asList(STANDARD_KEY, QUERY_ROOT_KEY), CacheHeaders.NONE)).hasSize(1);
+
+    NormalizedCacheStats stats = sqlStore.stats().get();
+    assertThat(stats.recordCount()).isEqualTo(1);
+    assertThat(stats.hitCount()).isEqualTo(1);
+    assertThat(stats.missCount()).isEqualTo(1);
+    assertThat(stats.loadLatency().count()).isEqualTo(1);
+    assertThat(stats.sizeEstimateBytes()).isGreaterThan(0L);
+  }
+
   private long createRecord(String key) {
-    return sqlStore.createRecord(key, FIELDS);
+    return sqlStore.createRecord(key, BinaryRecordCodec.create(RecordFieldAdapter.create(new Moshi.Builder().build()))
+        .encode(FIELDS));
   }
 }
@@ -0,0 +1,138 @@
+package com.apollographql.apollo.cache.normalized.sql;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.apollographql.apollo.cache.CacheHeaders;
+import com.apollographql.apollo.cache.normalized.BinaryRecordCodec;
+import com.apollographql.apollo.cache.normalized.CacheReference;
+import com.apollographql.apollo.cache.normalized.NormalizedCache;
+import com.apollographql.apollo.cache.normalized.Record;
+import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
+import com.squareup.moshi.Moshi;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Compares {@link SqlNormalizedCache} and {@link FieldSqlNormalizedCache} when a single field of a record of about
+ * 2KB is flipped repeatedly, the typical shape of a mutation updating a boolean. Both schemas are measured the same
+ * way: the database runs in write-ahead log mode without automatic checkpoints, so the bytes appended to the log are
+ * the pages the merges wrote. Logs these bytes and the time spent merging for both schemas.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SqlWriteAmplificationBenchmark {
+  private static final String TAG = "SqlWriteAmplification";
+  private static final String KEY = "Character:1000";
+  private static final int ITERATIONS = 500;
+  private static final String RECORD_DATABASE = "write_amplification_records.db";
+  private static final String FIELD_DATABASE = "write_amplification_fields.db";
+
+  private final RecordFieldAdapter recordFieldAdapter = RecordFieldAdapter.create(new Moshi.Builder().build());
+  private final BinaryRecordCodec codec = BinaryRecordCodec.create(recordFieldAdapter);
+
+  @Test
+  public void flipSingleField() {
+    Record record = largeRecord();
+
+    ApolloSqlHelper recordHelper = createHelper(RECORD_DATABASE);
+    SqlNormalizedCache recordStore = new SqlNormalizedCacheFactory(recordHelper)
+        .createNormalizedCache(recordFieldAdapter);
+    WriteVolume recordVolume = flipRepeatedly(recordStore, recordHelper, RECORD_DATABASE, record);
+
+    ApolloSqlHelper fieldHelper = createHelper(FIELD_DATABASE);
+    FieldSqlNormalizedCache fieldStore = new FieldSqlNormalizedCacheFactory(fieldHelper)
+        .createNormalizedCache(recordFieldAdapter);
+    WriteVolume fieldVolume = flipRepeatedly(fieldStore, fieldHelper, FIELD_DATABASE, record);
+
+    Log.i(TAG, String.format("record schema: %d bytes, %d ms; field schema: %d bytes, %d ms (%d iterations)",
+        recordVolume.bytes, recordVolume.nanos / 1000000, fieldVolume.bytes, fieldVolume.nanos / 1000000,
+        ITERATIONS));
+    assertThat(fieldStore.loadRecord(KEY, CacheHeaders.NONE).fields())
+        .containsExactlyEntriesIn(recordStore.loadRecord(KEY, CacheHeaders.NONE).fields());
+    assertThat(fieldVolume.bytes).isLessThan(recordVolume.bytes);
+
+    recordStore.close();
+    fieldStore.close();
+    deleteDatabase(RECORD_DATABASE);
+    deleteDatabase(FIELD_DATABASE);
+  }
+
+  private static WriteVolume flipRepeatedly(NormalizedCache store, ApolloSqlHelper helper, String name,
+      Record record) {
+    disableAutoCheckpoint(helper.getWritableDatabase());
+    store.merge(record, CacheHeaders.NONE);
+
+    File log = new File(InstrumentationRegistry.getTargetContext().getDatabasePath(name).getPath() + "-wal");
+    long startLength = log.length();
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      store.merge(flip(i), CacheHeaders.NONE);
+    }
+    long nanos = System.nanoTime() - start;
+    return new WriteVolume(log.length() - startLength, nanos);
+  }
+
+  private static void disableAutoCheckpoint(SQLiteDatabase database) {
+    // a transaction runs on the primary connection, the one merges write with
+    database.beginTransaction();
+    try {
+      Cursor cursor = database.rawQuery("PRAGMA wal_autocheckpoint=0", null);
+      try {
+        cursor.moveToFirst();
+      } finally {
+        cursor.close();
+      }
+      database.setTransactionSuccessful();
+    } finally {
+      database.endTransaction();
+    }
+  }
+
+  private static ApolloSqlHelper createHelper(String name) {
+    deleteDatabase(name);
+    ApolloSqlHelper helper = ApolloSqlHelper.create(InstrumentationRegistry.getTargetContext(), name);
+    helper.setWriteAheadLoggingEnabled(true);
+    return helper;
+  }
+
+  private static void deleteDatabase(String name) {
+    InstrumentationRegistry.getTargetContext().deleteDatabase(name);
+  }
+
+  private Record largeRecord() {
+    Record.Builder builder = Record.builder(KEY)
+        .addField("__typename", "Human")
+        .addField("isFavorite", false);
+    int size = 0;
+    for (int i = 0; size < 2048; i++) {
+      builder.addField("friend" + i, new CacheReference("Character:" + (2000 + i)));
+      builder.addField("description" + i, "A field holding a medium sized description number " + i);
+      Map<String, Object> fields = builder.build().fields();
+      size = codec.encode(fields).length;
+    }
+    return builder.build();
+  }
+
+  private static Record flip(int iteration) {
+    return Record.builder(KEY).addField("isFavorite", iteration % 2 == 0).build();
+  }
+
+  private static class WriteVolume {
+    final long bytes;
+    final long nanos;
+
+    WriteVolume(long bytes, long nanos) {
+      this.bytes = bytes;
+      this.nanos = nanos;
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package com.apollographql.apollo.cache.normalized.sql;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.apollographql.apollo.api.internal.Optional;
+import com.apollographql.apollo.cache.CacheHeaders;
+import com.apollographql.apollo.cache.normalized.BinaryRecordCodec;
+import com.apollographql.apollo.cache.normalized.CacheKey;
+import com.apollographql.apollo.cache.normalized.NormalizedCache;
+import com.apollographql.apollo.cache.normalized.NormalizedCacheStats;
+import com.apollographql.apollo.cache.normalized.Record;
+import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static com.apollographql.apollo.api.internal.Utils.checkNotNull;
+import static com.apollographql.apollo.cache.ApolloCacheHeaders.EVICT_AFTER_READ;
+import static com.apollographql.apollo.cache.normalized.sql.ApolloSqlHelper.COLUMN_KEY;
+import static com.apollographql.apollo.cache.normalized.sql.ApolloSqlHelper.MAX_PARAMETERS_PER_QUERY;
+
+/**
+ * Reads, removes and counts records for the SQL normalized caches, which differ in how they store records in rows of
+ * a table keyed by record key.
+ */
+abstract class AbstractSqlNormalizedCache extends NormalizedCache {
+  SQLiteDatabase database;
+  private final ApolloSqlHelper dbHelper;
+  final BinaryRecordCodec recordCodec;
+  private final SQLiteStatement deleteStatement;
+  private final SQLiteStatement deleteAllRecordsStatement;
+  final SqlCacheCounters counters;
+
+  /**
+   * @param table          the table the records are stored in
+   * @param countStatement a query counting the records of the table
+   */
+  AbstractSqlNormalizedCache(RecordFieldAdapter recordFieldAdapter, ApolloSqlHelper dbHelper, String table,
+      String countStatement) {
+    super(recordFieldAdapter);
+    this.dbHelper = dbHelper;
+    this.recordCodec = BinaryRecordCodec.create(recordFieldAdapter);
+    database = dbHelper.getWritableDatabase();
+    deleteStatement = database.compileStatement(String.format("DELETE FROM %s WHERE %s=?", table, COLUMN_KEY));
+    deleteAllRecordsStatement = database.compileStatement(String.format("DELETE FROM %s", table));
+    counters = new SqlCacheCounters(database, countStatement);
+  }
+
+  /**
+   * Selects the stored records with the given keys, in chunks of {@link #chunks(Collection)}.
+   *
+   * @return the records found, by key
+   */
+  abstract Map<String, Record> selectRecords(Collection<String> keys);
+
+  @Nullable Record selectRecord(String key) {
+    return selectRecords(Collections.singletonList(key)).get(key);
+  }
+
+  @Nullable @Override public Record loadRecord(@Nonnull String key, @Nonnull CacheHeaders cacheHeaders) {
+    long startNanos = System.nanoTime();
+    Record record = selectRecord(key);
+    counters.recordLoad(startNanos, 1, record != null ? 1 : 0);
+    if (record != null && cacheHeaders.hasHeader(EVICT_AFTER_READ) && deleteRecord(key)) {
+      counters.recordCount.decrementAndGet();
+    }
+    return record;
+  }
+
+  /**
+   * Loads records with {@code IN} queries of up to {@value ApolloSqlHelper#MAX_PARAMETERS_PER_QUERY} keys each.
+   */
+  @Nonnull @Override public Collection<Record> loadRecords(@Nonnull Collection<String> keys,
+      @Nonnull CacheHeaders cacheHeaders) {
+    long startNanos = System.nanoTime();
+    Map<String, Record> records = selectRecords(keys);
+    List<Record> result = inKeyOrder(keys, records);
+    counters.recordLoad(startNanos, keys.size(), result.size());
+    if (cacheHeaders.hasHeader(EVICT_AFTER_READ) && !records.isEmpty()) {
+      List<CacheKey> cacheKeys = new ArrayList<>(records.size());
+      for (String key : records.keySet()) {
+        cacheKeys.add(CacheKey.from(key));
+      }
+      remove(cacheKeys);
+    }
+    return result;
+  }
+
+  /**
+   * Reads the records without counting hits and misses.
+   */
+  @Nonnull @Override public Collection<Record> peekRecords(@Nonnull Collection<String> keys) {
+    return inKeyOrder(keys, selectRecords(keys));
+  }
+
+  /**
+   * @return The hits, misses and load durations of this cache, the number of records and the size of the database.
+   */
+  @Nonnull @Override public Optional<NormalizedCacheStats> stats() {
+    return Optional.of(counters.snapshot());
+  }
+
+  @Override public void clearAll() {
+    deleteAllRecordsStatement.execute();
+    counters.recordCount.set(0);
+  }
+
+  @Override public boolean remove(@Nonnull CacheKey cacheKey) {
+    checkNotNull(cacheKey, "cacheKey == null");
+    if (deleteRecord(cacheKey.key())) {
+      counters.recordCount.decrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Removes the records in a single transaction.
+   */
+  @Override public int remove(@Nonnull Collection<CacheKey> cacheKeys) {
+    checkNotNull(cacheKeys, "cacheKeys == null");
+    int deletedCount = 0;
+    try {
+      database.beginTransaction();
+      for (CacheKey cacheKey : cacheKeys) {
+        if (deleteRecord(cacheKey.key())) {
+          deletedCount++;
+        }
+      }
+      database.setTransactionSuccessful();
+    } finally {
+      database.endTransaction();
+    }
+    counters.recordCount.addAndGet(-deletedCount);
+    return deletedCount;
+  }
+
+  public void close() {
+    counters.close();
+    deleteStatement.close();
+    deleteAllRecordsStatement.close();
+    dbHelper.close();
+  }
+
+  boolean deleteRecord(String key) {
+    deleteStatement.bindString(1, key);
+    return deleteStatement.executeUpdateDelete() > 0;
+  }
+
+  /**
+   * Splits distinct keys into chunks small enough to be bound to a single query.
+   */
+  static List<List<String>> chunks(Collection<String> keys) {
+    List<String> keyList = new ArrayList<>(new LinkedHashSet<>(keys));
+    List<List<String>> chunks = new ArrayList<>();
+    for (int start = 0; start < keyList.size(); start += MAX_PARAMETERS_PER_QUERY) {
+      chunks.add(keyList.subList(start, Math.min(start + MAX_PARAMETERS_PER_QUERY, keyList.size())));
+    }
+    return chunks;
+  }
+
+  /**
+   * @return a selection of the rows with one of {@code count} keys bound as arguments
+   */
+  static String keyInSelection(int count) {
+    StringBuilder selection = new StringBuilder(COLUMN_KEY).append(" IN (");
+    for (int i = 0; i < count; i++) {
+      selection.append(i == 0 ? "?" : ",?");
+    }
+    return selection.append(')').toString();
+  }
+
+  private static List<Record> inKeyOrder(Collection<String> keys, Map<String, Record> records) {
+    List<Record> result = new ArrayList<>(records.size());
+    for (String key : keys) {
+      Record record = records.get(key);
+      if (record != null) {
+        result.add(record);
+      }
+    }
+    return result;
+  }
+}
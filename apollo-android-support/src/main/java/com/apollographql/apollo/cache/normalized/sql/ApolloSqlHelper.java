@@ -1,8 +1,16 @@
 package com.apollographql.apollo.cache.normalized.sql;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import com.apollographql.apollo.cache.normalized.BinaryRecordCodec;
+import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
+import com.squareup.moshi.Moshi;
+
+import java.io.IOException;
 
 public class ApolloSqlHelper extends SQLiteOpenHelper {
 
@@ -10,18 +18,40 @@ public class ApolloSqlHelper extends SQLiteOpenHelper {
   public static final String COLUMN_ID = "_id";
   public static final String COLUMN_RECORD = "record";
   public static final String COLUMN_KEY = "key";
+  public static final String TABLE_RECORD_FIELDS = "record_fields";
+  public static final String COLUMN_FIELD = "field";
+  public static final String COLUMN_VALUE = "value";
+
+  /**
+   * The most host parameters the normalized caches bind in a single statement, chunking longer key lists. It stays
+   * below {@code SQLITE_MAX_VARIABLE_NUMBER}, which defaults to 999 before SQLite 3.32.
+   */
+  static final int MAX_PARAMETERS_PER_QUERY = 500;
 
   private static final String DATABASE_NAME = "apollo.db";
-  private static final int DATABASE_VERSION = 1;
+  private static final int DATABASE_VERSION = 4;
 
-  // Database creation sql statement
+  // Database creation sql statement, records are encoded with BinaryRecordCodec
   private static final String DATABASE_CREATE = String.format(
-      "create table %s( %s integer primary key autoincrement, %s text not null, %s text not null);",
+      "create table %s( %s integer primary key autoincrement, %s text not null, %s blob not null);",
       TABLE_RECORDS, COLUMN_ID, COLUMN_KEY, COLUMN_RECORD);
+  private static final String TABLE_JSON_RECORDS = "json_records";
+  // field granular schema used by FieldSqlNormalizedCache, values are encoded with BinaryRecordCodec
+  private static final String RECORD_FIELDS_CREATE = String.format(
+      "create table %s( %s text not null, %s text not null, %s blob not null);",
+      TABLE_RECORD_FIELDS, COLUMN_KEY, COLUMN_FIELD, COLUMN_VALUE);
 
   public static final String IDX_RECORDS_KEY = "idx_records_key";
   private static final String CREATE_KEY_INDEX =
-      String.format("CREATE INDEX %s ON %s (%s)", IDX_RECORDS_KEY, TABLE_RECORDS, COLUMN_KEY);
+      String.format("CREATE UNIQUE INDEX %s ON %s (%s)", IDX_RECORDS_KEY, TABLE_RECORDS, COLUMN_KEY);
+  public static final String IDX_RECORD_FIELDS_KEY = "idx_record_fields_key";
+  private static final String CREATE_RECORD_FIELDS_KEY_INDEX =
+      String.format("CREATE UNIQUE INDEX %s ON %s (%s, %s)", IDX_RECORD_FIELDS_KEY, TABLE_RECORD_FIELDS, COLUMN_KEY,
+          COLUMN_FIELD);
+  private static final String DROP_KEY_INDEX = String.format("DROP INDEX IF EXISTS %s", IDX_RECORDS_KEY);
+  private static final String DELETE_DUPLICATE_KEYS =
+      String.format("DELETE FROM %s WHERE %s NOT IN (SELECT MAX(%s) FROM %s GROUP BY %s)", TABLE_RECORDS, COLUMN_ID,
+          COLUMN_ID, TABLE_RECORDS, COLUMN_KEY);
 
   private ApolloSqlHelper(Context context) {
     super(context, DATABASE_NAME, null, DATABASE_VERSION);
@@ -43,11 +73,91 @@ public class ApolloSqlHelper extends SQLiteOpenHelper {
   public void onCreate(SQLiteDatabase database) {
     database.execSQL(DATABASE_CREATE);
     database.execSQL(CREATE_KEY_INDEX);
+    database.execSQL(RECORD_FIELDS_CREATE);
+    database.execSQL(CREATE_RECORD_FIELDS_KEY_INDEX);
   }
 
+  /**
+   * Upgrades the database one version at a time. Each step runs in a transaction of its own, nested in the one the
+   * upgrade runs in, so a step that fails leaves the database at the version before the upgrade.
+   */
   @Override
   public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-    db.execSQL("DROP TABLE IF EXISTS " + TABLE_RECORDS);
-    onCreate(db);
+    if (oldVersion < 2) {
+      makeKeysUnique(db);
+    }
+    if (oldVersion < 3) {
+      migrateJsonRecords(db);
+    }
+    if (oldVersion < 4) {
+      createRecordFieldsTable(db);
+    }
+  }
+
+  /**
+   * Keeps the last written record of every key and makes keys unique, so that records can be written with INSERT OR
+   * REPLACE.
+   */
+  private static void makeKeysUnique(SQLiteDatabase db) {
+    db.beginTransaction();
+    try {
+      db.execSQL(DELETE_DUPLICATE_KEYS);
+      db.execSQL(DROP_KEY_INDEX);
+      db.execSQL(CREATE_KEY_INDEX);
+      db.setTransactionSuccessful();
+    } finally {
+      db.endTransaction();
+    }
+  }
+
+  /**
+   * Re-encodes records stored as JSON with {@link BinaryRecordCodec}. Records that can't be read are dropped.
+   */
+  private static void migrateJsonRecords(SQLiteDatabase db) {
+    db.beginTransaction();
+    try {
+      db.execSQL(DROP_KEY_INDEX);
+      db.execSQL(String.format("ALTER TABLE %s RENAME TO %s", TABLE_RECORDS, TABLE_JSON_RECORDS));
+      db.execSQL(DATABASE_CREATE);
+      db.execSQL(CREATE_KEY_INDEX);
+
+      RecordFieldAdapter jsonAdapter = RecordFieldAdapter.create(new Moshi.Builder().build());
+      BinaryRecordCodec recordCodec = BinaryRecordCodec.create(jsonAdapter);
+      SQLiteStatement insertStatement = db.compileStatement(String.format("INSERT INTO %s (%s,%s) VALUES (?,?)",
+          TABLE_RECORDS, COLUMN_KEY, COLUMN_RECORD));
+      Cursor cursor = db.query(TABLE_JSON_RECORDS, new String[]{COLUMN_KEY, COLUMN_RECORD}, null, null, null, null,
+          null);
+      try {
+        while (cursor.moveToNext()) {
+          byte[] fields;
+          try {
+            fields = recordCodec.encode(jsonAdapter.from(cursor.getString(1)));
+          } catch (IOException e) {
+            continue;
+          }
+          insertStatement.bindString(1, cursor.getString(0));
+          insertStatement.bindBlob(2, fields);
+          insertStatement.executeInsert();
+        }
+      } finally {
+        cursor.close();
+        insertStatement.close();
+      }
+      db.execSQL("DROP TABLE " + TABLE_JSON_RECORDS);
+      db.setTransactionSuccessful();
+    } finally {
+      db.endTransaction();
+    }
+  }
+
+  private static void createRecordFieldsTable(SQLiteDatabase db) {
+    db.beginTransaction();
+    try {
+      db.execSQL(RECORD_FIELDS_CREATE);
+      db.execSQL(CREATE_RECORD_FIELDS_KEY_INDEX);
+      db.setTransactionSuccessful();
+    } finally {
+      db.endTransaction();
+    }
   }
 }
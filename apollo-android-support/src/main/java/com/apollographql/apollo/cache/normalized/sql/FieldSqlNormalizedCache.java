@@ -0,0 +1,243 @@
+package com.apollographql.apollo.cache.normalized.sql;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
+
+import com.apollographql.apollo.api.internal.Optional;
+import com.apollographql.apollo.cache.CacheHeaders;
+import com.apollographql.apollo.cache.normalized.NormalizedCache;
+import com.apollographql.apollo.cache.normalized.Record;
+import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import static com.apollographql.apollo.cache.ApolloCacheHeaders.DO_NOT_STORE;
+import static com.apollographql.apollo.cache.normalized.sql.ApolloSqlHelper.COLUMN_FIELD;
+import static com.apollographql.apollo.cache.normalized.sql.ApolloSqlHelper.COLUMN_KEY;
+import static com.apollographql.apollo.cache.normalized.sql.ApolloSqlHelper.COLUMN_RECORD;
+import static com.apollographql.apollo.cache.normalized.sql.ApolloSqlHelper.COLUMN_VALUE;
+import static com.apollographql.apollo.cache.normalized.sql.ApolloSqlHelper.TABLE_RECORDS;
+import static com.apollographql.apollo.cache.normalized.sql.ApolloSqlHelper.TABLE_RECORD_FIELDS;
+
+/**
+ * A {@link NormalizedCache} that stores every field of a record in a row of its own, keyed by record key and field
+ * key. Merges write only the fields that {@link Record#mergeWith(Record, Set)} reports as changed, instead of the
+ * whole record.
+ *
+ * <p>Records stored by {@link SqlNormalizedCache} in the same database are moved to the field granular table when the
+ * cache is created. Records without fields are not stored. The time a record was received is stored in a row with an
+ * empty field key, that no GraphQL field has.</p>
+ */
+public final class FieldSqlNormalizedCache extends AbstractSqlNormalizedCache {
+  private static final String INSERT_OR_REPLACE_STATEMENT =
+      String.format("INSERT OR REPLACE INTO %s (%s,%s,%s) VALUES (?,?,?)",
+          TABLE_RECORD_FIELDS,
+          COLUMN_KEY,
+          COLUMN_FIELD,
+          COLUMN_VALUE);
+  private static final String COUNT_STATEMENT = String.format("SELECT COUNT(DISTINCT %s) FROM %s", COLUMN_KEY,
+      TABLE_RECORD_FIELDS);
+  private static final String[] COLUMNS = {COLUMN_KEY, COLUMN_FIELD, COLUMN_VALUE};
+  private static final String RECEIVED_AT_FIELD = "";
+
+  private final SQLiteStatement insertOrReplaceStatement;
+
+  FieldSqlNormalizedCache(RecordFieldAdapter recordFieldAdapter, ApolloSqlHelper dbHelper) {
+    super(recordFieldAdapter, dbHelper, TABLE_RECORD_FIELDS, COUNT_STATEMENT);
+    insertOrReplaceStatement = database.compileStatement(INSERT_OR_REPLACE_STATEMENT);
+    migrateRecords();
+  }
+
+  @Nonnull @Override public Set<String> merge(@Nonnull Record apolloRecord, @Nonnull CacheHeaders cacheHeaders) {
+    return merge(Collections.singletonList(apolloRecord), cacheHeaders);
+  }
+
+  /**
+   * Merges records in a single transaction: fields of existing records are selected in bulk and merged in memory,
+   * then only new and changed fields are written.
+   */
+  @Nonnull @Override public Set<String> merge(@Nonnull Collection<Record> recordSet,
+      @Nonnull CacheHeaders cacheHeaders) {
+    if (cacheHeaders.hasHeader(DO_NOT_STORE)) {
+      return Collections.emptySet();
+    }
+    Set<String> changedKeys = new LinkedHashSet<>();
+    int createdCount = 0;
+    try {
+      database.beginTransaction();
+      List<String> keys = new ArrayList<>(recordSet.size());
+      for (Record record : recordSet) {
+        keys.add(record.key());
+      }
+      Map<String, Record> oldRecords = selectRecords(keys);
+      Set<String> recordChangedKeys = new LinkedHashSet<>();
+      for (Record record : recordSet) {
+        Record oldRecord = oldRecords.get(record.key());
+        if (oldRecord == null) {
+          for (Map.Entry<String, Object> field : record.fields().entrySet()) {
+            insertOrReplaceField(record.key(), field.getKey(), field.getValue());
+          }
+          if (!record.fields().isEmpty()) {
+            insertReceivedAt(record);
+            oldRecords.put(record.key(), record);
+            createdCount++;
+          }
+          continue;
+        }
+
+        recordChangedKeys.clear();
+        Record mergedRecord = oldRecord.mergeWith(record, recordChangedKeys);
+        int fieldKeyStart = record.key().length() + 1;
+        for (String changedKey : recordChangedKeys) {
+          String fieldKey = changedKey.substring(fieldKeyStart);
+          insertOrReplaceField(record.key(), fieldKey, mergedRecord.field(fieldKey));
+        }
+        if (mergedRecord.receivedAtMillis() != oldRecord.receivedAtMillis()) {
+          insertReceivedAt(mergedRecord);
+        }
+        changedKeys.addAll(recordChangedKeys);
+        oldRecords.put(record.key(), mergedRecord);
+      }
+      database.setTransactionSuccessful();
+    } finally {
+      database.endTransaction();
+    }
+    counters.recordCount.addAndGet(createdCount);
+    return changedKeys;
+  }
+
+  @Nonnull @Override public Optional<Set<String>> recordKeys() {
+    Set<String> keys = new HashSet<>();
+    Cursor cursor = database.query(TABLE_RECORD_FIELDS, new String[]{COLUMN_KEY}, null, null, COLUMN_KEY, null,
+        null);
+    if (cursor != null) {
+      try {
+        while (cursor.moveToNext()) {
+          keys.add(cursor.getString(0));
+        }
+      } finally {
+        cursor.close();
+      }
+    }
+    return Optional.<Set<String>>of(keys);
+  }
+
+  void insertOrReplaceField(String key, String fieldKey, Object value) {
+    insertOrReplaceStatement.bindString(1, key);
+    insertOrReplaceStatement.bindString(2, fieldKey);
+    insertOrReplaceStatement.bindBlob(3, recordCodec.encodeValue(value));
+
+    insertOrReplaceStatement.executeInsert();
+  }
+
+  private void insertReceivedAt(Record record) {
+    if (record.receivedAtMillis() != Record.UNKNOWN_RECEIVED_AT) {
+      insertOrReplaceField(record.key(), RECEIVED_AT_FIELD, record.receivedAtMillis());
+    } else {
+      // merging a record without a received time into an older one makes the time unknown
+      database.delete(TABLE_RECORD_FIELDS, COLUMN_KEY + "=? AND " + COLUMN_FIELD + "=?",
+          new String[]{record.key(), RECEIVED_AT_FIELD});
+    }
+  }
+
+  @Override Map<String, Record> selectRecords(Collection<String> keys) {
+    Map<String, Record.Builder> builders = new LinkedHashMap<>();
+    Map<String, Long> receivedAtMillis = new HashMap<>();
+    for (List<String> chunk : chunks(keys)) {
+      Cursor cursor = database.query(TABLE_RECORD_FIELDS, COLUMNS, keyInSelection(chunk.size()),
+          chunk.toArray(new String[chunk.size()]), null, null, null);
+      if (cursor == null) {
+        continue;
+      }
+      try {
+        while (cursor.moveToNext()) {
+          String key = cursor.getString(0);
+          Object value;
+          try {
+            value = recordCodec.decodeValue(cursor.getBlob(2));
+          } catch (IOException ignored) {
+            // unreadable fields are treated as missing
+            continue;
+          }
+          String fieldKey = cursor.getString(1);
+          if (RECEIVED_AT_FIELD.equals(fieldKey)) {
+            if (value instanceof Long) {
+              receivedAtMillis.put(key, (Long) value);
+            }
+            continue;
+          }
+          Record.Builder builder = builders.get(key);
+          if (builder == null) {
+            builder = Record.builder(key);
+            builders.put(key, builder);
+          }
+          builder.addField(fieldKey, value);
+        }
+      } finally {
+        cursor.close();
+      }
+    }
+
+    Map<String, Record> records = new HashMap<>();
+    for (Record.Builder builder : builders.values()) {
+      Long recordReceivedAtMillis = receivedAtMillis.get(builder.key());
+      if (recordReceivedAtMillis != null) {
+        builder.receivedAtMillis(recordReceivedAtMillis);
+      }
+      records.put(builder.key(), builder.build());
+    }
+    return records;
+  }
+
+  /**
+   * Moves records stored by {@link SqlNormalizedCache} to the field granular table.
+   */
+  private void migrateRecords() {
+    Cursor cursor = database.query(TABLE_RECORDS, new String[]{COLUMN_KEY, COLUMN_RECORD}, null, null, null, null,
+        null);
+    if (cursor == null) {
+      return;
+    }
+    try {
+      if (cursor.getCount() == 0) {
+        return;
+      }
+      database.beginTransaction();
+      try {
+        while (cursor.moveToNext()) {
+          Record record;
+          try {
+            record = recordCodec.decode(cursor.getString(0), cursor.getBlob(1));
+          } catch (IOException e) {
+            continue;
+          }
+          for (Map.Entry<String, Object> field : record.fields().entrySet()) {
+            insertOrReplaceField(record.key(), field.getKey(), field.getValue());
+          }
+          if (!record.fields().isEmpty()) {
+            insertReceivedAt(record);
+          }
+        }
+        database.execSQL("DELETE FROM " + TABLE_RECORDS);
+        database.setTransactionSuccessful();
+      } finally {
+        database.endTransaction();
+      }
+      counters.countRecords();
+    } finally {
+      cursor.close();
+    }
+  }
+}
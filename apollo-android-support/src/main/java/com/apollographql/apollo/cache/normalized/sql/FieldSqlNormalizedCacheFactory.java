@@ -0,0 +1,22 @@
+package com.apollographql.apollo.cache.normalized.sql;
+
+import com.apollographql.apollo.cache.normalized.NormalizedCacheFactory;
+import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
+
+import static com.apollographql.apollo.api.internal.Utils.checkNotNull;
+
+/**
+ * Factory of {@link FieldSqlNormalizedCache}, the field granular alternative to {@link SqlNormalizedCacheFactory}.
+ */
+public final class FieldSqlNormalizedCacheFactory implements NormalizedCacheFactory<FieldSqlNormalizedCache> {
+
+  private final ApolloSqlHelper helper;
+
+  public FieldSqlNormalizedCacheFactory(ApolloSqlHelper helper) {
+    this.helper = checkNotNull(helper, "helper == null");
+  }
+
+  @Override public FieldSqlNormalizedCache createNormalizedCache(RecordFieldAdapter recordFieldAdapter) {
+    return new FieldSqlNormalizedCache(recordFieldAdapter, helper);
+  }
+}
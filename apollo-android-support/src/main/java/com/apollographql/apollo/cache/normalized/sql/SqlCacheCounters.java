@@ -0,0 +1,64 @@
+package com.apollographql.apollo.cache.normalized.sql;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.apollographql.apollo.cache.normalized.NormalizedCacheStats;
+import com.apollographql.apollo.internal.cache.normalized.LatencyRecorder;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of a SQL normalized cache. The record count is queried once and then kept up to date by the cache, and the
+ * size is the size of the database, so a snapshot does not scan the table.
+ */
+final class SqlCacheCounters {
+  private final SQLiteDatabase database;
+  private final SQLiteStatement countStatement;
+  private final SQLiteStatement pageCountStatement;
+  final AtomicLong hitCount = new AtomicLong();
+  final AtomicLong missCount = new AtomicLong();
+  final AtomicLong recordCount = new AtomicLong();
+  final LatencyRecorder loadLatency = new LatencyRecorder();
+
+  SqlCacheCounters(SQLiteDatabase database, String countStatement) {
+    this.database = database;
+    this.countStatement = database.compileStatement(countStatement);
+    this.pageCountStatement = database.compileStatement("PRAGMA page_count");
+    countRecords();
+  }
+
+  /**
+   * Queries the record count again, after records were written without being counted.
+   */
+  void countRecords() {
+    recordCount.set(countStatement.simpleQueryForLong());
+  }
+
+  void recordLoad(long startNanos, int requestedCount, int foundCount) {
+    hitCount.addAndGet(foundCount);
+    missCount.addAndGet(requestedCount - foundCount);
+    loadLatency.recordSince(startNanos);
+  }
+
+  NormalizedCacheStats snapshot() {
+    long pageCount;
+    synchronized (pageCountStatement) {
+      pageCount = pageCountStatement.simpleQueryForLong();
+    }
+    return NormalizedCacheStats.builder()
+        .hitCount(hitCount.get())
+        .missCount(missCount.get())
+        .recordCount(recordCount.get())
+        .sizeEstimateBytes(pageCount * database.getPageSize())
+        .loadLatency(loadLatency.snapshot())
+        .build();
+  }
+
+  void close() {
+    countStatement.close();
+    synchronized (pageCountStatement) {
+      pageCountStatement.close();
+    }
+  }
+}
@@ -1,135 +1,130 @@
 package com.apollographql.apollo.cache.normalized.sql;
 
 import android.database.Cursor;
-import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteStatement;
 
 import com.apollographql.apollo.api.internal.Optional;
 import com.apollographql.apollo.cache.CacheHeaders;
-import com.apollographql.apollo.cache.normalized.CacheKey;
-import com.apollographql.apollo.cache.normalized.NormalizedCache;
 import com.apollographql.apollo.cache.normalized.Record;
 import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
-import static com.apollographql.apollo.api.internal.Utils.checkNotNull;
-import static com.apollographql.apollo.cache.ApolloCacheHeaders.EVICT_AFTER_READ;
 import static com.apollographql.apollo.cache.ApolloCacheHeaders.DO_NOT_STORE;
 import static com.apollographql.apollo.cache.normalized.sql.ApolloSqlHelper.COLUMN_KEY;
 import static com.apollographql.apollo.cache.normalized.sql.ApolloSqlHelper.COLUMN_RECORD;
 import static com.apollographql.apollo.cache.normalized.sql.ApolloSqlHelper.TABLE_RECORDS;
 
-public final class SqlNormalizedCache extends NormalizedCache {
+public final class SqlNormalizedCache extends AbstractSqlNormalizedCache {
   private static final String INSERT_STATEMENT =
       String.format("INSERT INTO %s (%s,%s) VALUES (?,?)",
           TABLE_RECORDS,
           COLUMN_KEY,
           COLUMN_RECORD);
-  private static final String UPDATE_STATEMENT =
-      String.format("UPDATE %s SET %s=?, %s=? WHERE %s=?",
+  private static final String INSERT_OR_REPLACE_STATEMENT =
+      String.format("INSERT OR REPLACE INTO %s (%s,%s) VALUES (?,?)",
           TABLE_RECORDS,
           COLUMN_KEY,
-          COLUMN_RECORD,
-          COLUMN_KEY);
-  private static final String DELETE_STATEMENT =
-      String.format("DELETE FROM %s WHERE %s=?",
-          TABLE_RECORDS,
-          COLUMN_KEY);
-  private static final String DELETE_ALL_RECORD_STATEMENT = String.format("DELETE FROM %s", TABLE_RECORDS);
-  SQLiteDatabase database;
-  private final ApolloSqlHelper dbHelper;
+          COLUMN_RECORD);
+  private static final String COUNT_STATEMENT = String.format("SELECT COUNT(*) FROM %s", TABLE_RECORDS);
   private final String[] allColumns = {ApolloSqlHelper.COLUMN_ID,
       ApolloSqlHelper.COLUMN_KEY,
       ApolloSqlHelper.COLUMN_RECORD};
 
   private final SQLiteStatement insertStatement;
-  private final SQLiteStatement updateStatement;
-  private final SQLiteStatement deleteStatement;
-  private final SQLiteStatement deleteAllRecordsStatement;
+  private final SQLiteStatement insertOrReplaceStatement;
 
   SqlNormalizedCache(RecordFieldAdapter recordFieldAdapter, ApolloSqlHelper dbHelper) {
-    super(recordFieldAdapter);
-    this.dbHelper = dbHelper;
-    database = dbHelper.getWritableDatabase();
+    super(recordFieldAdapter, dbHelper, TABLE_RECORDS, COUNT_STATEMENT);
     insertStatement = database.compileStatement(INSERT_STATEMENT);
-    updateStatement = database.compileStatement(UPDATE_STATEMENT);
-    deleteStatement = database.compileStatement(DELETE_STATEMENT);
-    deleteAllRecordsStatement = database.compileStatement(DELETE_ALL_RECORD_STATEMENT);
-  }
-
-  @Nullable public Record loadRecord(@Nonnull String key, @Nonnull CacheHeaders cacheHeaders) {
-    Record record = selectRecordForKey(key).orNull();
-    if (cacheHeaders.hasHeader(EVICT_AFTER_READ) && record != null) {
-      deleteRecord(key);
-    }
-    return record;
+    insertOrReplaceStatement = database.compileStatement(INSERT_OR_REPLACE_STATEMENT);
   }
 
   @Nonnull public Set<String> merge(@Nonnull Record apolloRecord, @Nonnull CacheHeaders cacheHeaders) {
-    if (cacheHeaders.hasHeader(DO_NOT_STORE)) {
-      return Collections.emptySet();
-    }
-    Optional<Record> optionalOldRecord = selectRecordForKey(apolloRecord.key());
-    Set<String> changedKeys;
-    if (!optionalOldRecord.isPresent()) {
-      createRecord(apolloRecord.key(), recordAdapter().toJson(apolloRecord.fields()));
-      changedKeys = Collections.emptySet();
-    } else {
-      Record oldRecord = optionalOldRecord.get();
-      changedKeys = oldRecord.mergeWith(apolloRecord);
-      if (!changedKeys.isEmpty()) {
-        updateRecord(oldRecord.key(), recordAdapter().toJson(oldRecord.fields()));
-      }
-    }
-    return changedKeys;
+    return merge(Collections.singletonList(apolloRecord), cacheHeaders);
   }
 
+  /**
+   * Merges records in a single transaction: existing records are selected in bulk and merged in memory, then only
+   * new and changed records are written with {@code INSERT OR REPLACE}.
+   */
   @Nonnull @Override public Set<String> merge(@Nonnull Collection<Record> recordSet,
       @Nonnull CacheHeaders cacheHeaders) {
     if (cacheHeaders.hasHeader(DO_NOT_STORE)) {
       return Collections.emptySet();
     }
-    Set<String> changedKeys = Collections.emptySet();
+    Set<String> changedKeys = new LinkedHashSet<>();
+    int createdCount = 0;
     try {
       database.beginTransaction();
-      changedKeys = super.merge(recordSet, cacheHeaders);
+      List<String> keys = new ArrayList<>(recordSet.size());
+      for (Record record : recordSet) {
+        keys.add(record.key());
+      }
+      Map<String, Record> oldRecords = selectRecords(keys);
+      for (Record record : recordSet) {
+        Record oldRecord = oldRecords.get(record.key());
+        Record mergedRecord = oldRecord != null ? oldRecord.mergeWith(record, changedKeys) : record;
+        if (mergedRecord != oldRecord) {
+          insertOrReplaceRecord(mergedRecord.key(), recordCodec.encode(mergedRecord));
+          oldRecords.put(mergedRecord.key(), mergedRecord);
+          if (oldRecord == null) {
+            createdCount++;
+          }
+        }
+      }
       database.setTransactionSuccessful();
     } finally {
       database.endTransaction();
     }
+    counters.recordCount.addAndGet(createdCount);
     return changedKeys;
   }
 
-  @Override public void clearAll() {
-    deleteAllRecordsStatement.execute();
+  @Nonnull @Override public Optional<Set<String>> recordKeys() {
+    Set<String> keys = new HashSet<>();
+    Cursor cursor = database.query(TABLE_RECORDS, new String[]{COLUMN_KEY}, null, null, null, null, null);
+    if (cursor != null) {
+      try {
+        while (cursor.moveToNext()) {
+          keys.add(cursor.getString(0));
+        }
+      } finally {
+        cursor.close();
+      }
+    }
+    return Optional.<Set<String>>of(keys);
   }
 
-  long createRecord(String key, String fields) {
+  long createRecord(String key, byte[] fields) {
     insertStatement.bindString(1, key);
-    insertStatement.bindString(2, fields);
+    insertStatement.bindBlob(2, fields);
 
     long recordId = insertStatement.executeInsert();
     return recordId;
   }
 
-  void updateRecord(String key, String fields) {
-    updateStatement.bindString(1, key);
-    updateStatement.bindString(2, fields);
-    updateStatement.bindString(3, key);
+  void insertOrReplaceRecord(String key, byte[] fields) {
+    insertOrReplaceStatement.bindString(1, key);
+    insertOrReplaceStatement.bindBlob(2, fields);
 
-    updateStatement.executeInsert();
+    insertOrReplaceStatement.executeInsert();
   }
 
-  boolean deleteRecord(String key) {
-    deleteStatement.bindString(1, key);
-    return deleteStatement.executeUpdateDelete() > 0;
+  @Nullable @Override Record selectRecord(String key) {
+    return selectRecordForKey(key).orNull();
   }
 
   Optional<Record> selectRecordForKey(String key) {
@@ -148,18 +143,32 @@ public final class SqlNormalizedCache extends NormalizedCache {
     }
   }
 
-  Record cursorToRecord(Cursor cursor) throws IOException {
-    String key = cursor.getString(1);
-    String jsonOfFields = cursor.getString(2);
-    return new Record(key, recordAdapter().from(jsonOfFields));
-  }
-
-  public void close() {
-    dbHelper.close();
+  @Override Map<String, Record> selectRecords(Collection<String> keys) {
+    Map<String, Record> records = new HashMap<>();
+    for (List<String> chunk : chunks(keys)) {
+      Cursor cursor = database.query(ApolloSqlHelper.TABLE_RECORDS, allColumns, keyInSelection(chunk.size()),
+          chunk.toArray(new String[chunk.size()]), null, null, null);
+      if (cursor == null) {
+        continue;
+      }
+      try {
+        while (cursor.moveToNext()) {
+          try {
+            Record record = cursorToRecord(cursor);
+            records.put(record.key(), record);
+          } catch (IOException ignored) {
+            // unreadable records are treated as missing, the same way as by selectRecordForKey
+          }
+        }
+      } finally {
+        cursor.close();
+      }
+    }
+    return records;
   }
 
-  @Override public boolean remove(@Nonnull CacheKey cacheKey) {
-    checkNotNull(cacheKey, "cacheKey == null");
-    return deleteRecord(cacheKey.key());
+  Record cursorToRecord(Cursor cursor) throws IOException {
+    String key = cursor.getString(1);
+    return recordCodec.decode(key, cursor.getBlob(2));
   }
 }
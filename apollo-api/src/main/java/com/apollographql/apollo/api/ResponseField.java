@@ -1,5 +1,6 @@
 package com.apollographql.apollo.api;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -23,6 +24,11 @@ public class ResponseField {
   private final String fieldName;
   private final Map<String, Object> arguments;
   private final boolean optional;
+  private final boolean variableArguments;
+  private ResponseFieldTable table;
+  private int ordinal = -1;
+  private volatile String constantCacheKey;
+  private volatile VariablesCacheKey variablesCacheKey;
 
   private static final String VARIABLE_IDENTIFIER_KEY = "kind";
   private static final String VARIABLE_IDENTIFIER_VALUE = "Variable";
@@ -215,6 +221,8 @@ public class ResponseField {
     this.arguments = arguments == null ? Collections.<String, Object>emptyMap()
         : Collections.unmodifiableMap(arguments);
     this.optional = optional;
+    this.variableArguments = hasVariableArguments(this.arguments);
+    this.constantCacheKey = this.arguments.isEmpty() ? fieldName : null;
   }
 
   public Type type() {
@@ -237,11 +245,58 @@ public class ResponseField {
     return optional;
   }
 
+  /**
+   * @return table of the selection set this field belongs to, {@code null} if the field is not part of a generated
+   * selection set
+   */
+  @Nullable public ResponseFieldTable table() {
+    return table;
+  }
+
+  /**
+   * @return ordinal of this field in its {@link #table()}, {@code -1} if the field is not part of a generated selection
+   * set
+   */
+  public int ordinal() {
+    return ordinal;
+  }
+
+  void bind(ResponseFieldTable table, int ordinal) {
+    if (this.table != null && this.table != table) {
+      throw new IllegalStateException("Field `" + responseName + "` already belongs to another table");
+    }
+    this.table = table;
+    this.ordinal = ordinal;
+  }
+
+  /**
+   * Resolves the key of this field in a cache record. Keys of fields without arguments referencing variables are
+   * computed once, keys of other fields are memoized for the last provided variables instance.
+   *
+   * @param variables values of operation variables
+   * @return cache key of the field
+   */
   public String cacheKey(Operation.Variables variables) {
-    if (arguments.isEmpty()) {
-      return fieldName();
+    String cacheKey = constantCacheKey;
+    if (cacheKey != null) {
+      return cacheKey;
+    }
+    if (!variableArguments) {
+      cacheKey = argumentsCacheKey(variables);
+      constantCacheKey = cacheKey;
+      return cacheKey;
     }
-    return String.format("%s(%s)", fieldName(), orderIndependentKey(arguments, variables));
+    VariablesCacheKey lastCacheKey = variablesCacheKey;
+    if (lastCacheKey != null && lastCacheKey.variables.get() == variables) {
+      return lastCacheKey.cacheKey;
+    }
+    cacheKey = argumentsCacheKey(variables);
+    variablesCacheKey = new VariablesCacheKey(variables, cacheKey);
+    return cacheKey;
+  }
+
+  private String argumentsCacheKey(Operation.Variables variables) {
+    return fieldName + "(" + orderIndependentKey(arguments, variables) + ")";
   }
 
   /**
@@ -305,6 +360,18 @@ public class ResponseField {
     return independentKey.toString();
   }
 
+  @SuppressWarnings("unchecked") private boolean hasVariableArguments(Map<String, Object> objectMap) {
+    if (isArgumentValueVariableType(objectMap)) {
+      return true;
+    }
+    for (Object value : objectMap.values()) {
+      if (value instanceof Map && hasVariableArguments((Map<String, Object>) value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private boolean isArgumentValueVariableType(Map<String, Object> objectMap) {
     return objectMap.containsKey(VARIABLE_IDENTIFIER_KEY)
         && objectMap.get(VARIABLE_IDENTIFIER_KEY).equals(VARIABLE_IDENTIFIER_VALUE)
@@ -325,6 +392,20 @@ public class ResponseField {
     }
   }
 
+  /**
+   * The key resolved for a variables instance. Fields are usually static and shared by all operations, so the instance
+   * is only weakly referenced, the memo must not keep the variables of the last operation reachable.
+   */
+  private static final class VariablesCacheKey {
+    final WeakReference<Operation.Variables> variables;
+    final String cacheKey;
+
+    VariablesCacheKey(Operation.Variables variables, String cacheKey) {
+      this.variables = new WeakReference<>(variables);
+      this.cacheKey = cacheKey;
+    }
+  }
+
   /**
    * An abstraction for the field types
    */
@@ -0,0 +1,75 @@
+package com.apollographql.apollo.api;
+
+import java.util.Arrays;
+
+import static com.apollographql.apollo.api.internal.Utils.checkNotNull;
+
+/**
+ * Table of the response names of a generated selection set. Each distinct response name is assigned an integer
+ * ordinal, so response readers can address field values by index instead of looking them up by name.
+ *
+ * <p>Generated code implements {@link #ordinal(String)} as a {@code switch} over the response names of the
+ * selection set. Creating a table binds every provided {@link ResponseField} to it, see
+ * {@link ResponseField#table()} and {@link ResponseField#ordinal()}.</p>
+ */
+public abstract class ResponseFieldTable {
+  private final String[] responseNames;
+  private volatile Object readerOptions;
+
+  protected ResponseFieldTable(ResponseField[] fields) {
+    checkNotNull(fields, "fields == null");
+    String[] responseNames = new String[fields.length];
+    int size = 0;
+    for (ResponseField field : fields) {
+      int ordinal = ordinal(field.responseName());
+      if (ordinal < 0 || ordinal >= fields.length) {
+        throw new IllegalArgumentException("Invalid ordinal " + ordinal + " for field `" + field.responseName() + "`");
+      }
+      responseNames[ordinal] = field.responseName();
+      size = Math.max(size, ordinal + 1);
+      field.bind(this, ordinal);
+    }
+    this.responseNames = Arrays.copyOf(responseNames, size);
+  }
+
+  /**
+   * Resolves ordinal of the field with provided response name.
+   *
+   * @param responseName response name of the field
+   * @return ordinal of the field or {@code -1} if the selection set doesn't have a field with provided response name
+   */
+  public abstract int ordinal(String responseName);
+
+  /**
+   * @return number of distinct response names in this table
+   */
+  public int size() {
+    return responseNames.length;
+  }
+
+  /**
+   * @param ordinal ordinal of the field
+   * @return response name of the field with provided ordinal
+   */
+  public String responseName(int ordinal) {
+    return responseNames[ordinal];
+  }
+
+  /**
+   * @return the options a response reader built to match the response names of this table, {@code null} until
+   * {@link #readerOptions(Object)} is called
+   */
+  public Object readerOptions() {
+    return readerOptions;
+  }
+
+  /**
+   * Keeps the options a response reader built to match the response names of this table, so that they are built once
+   * per table and live as long as it does. Not meant to be called by generated code.
+   *
+   * @param readerOptions options built by the response reader
+   */
+  public void readerOptions(Object readerOptions) {
+    this.readerOptions = checkNotNull(readerOptions, "readerOptions == null");
+  }
+}
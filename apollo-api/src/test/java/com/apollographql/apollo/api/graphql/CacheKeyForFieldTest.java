@@ -6,6 +6,7 @@ import com.apollographql.apollo.api.internal.UnmodifiableMapBuilder;
 
 import org.junit.Test;
 
+import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -91,6 +92,47 @@ public class CacheKeyForFieldTest {
     assertThat(field.cacheKey(variables)).isEqualTo("hero(episode:JEDI)");
   }
 
+  @Test
+  public void testFieldWithVariableArgumentMemoizedPerVariables() {
+    //noinspection unchecked
+    ResponseField field = ResponseField.forString("hero", "hero", new UnmodifiableMapBuilder<String, Object>(1)
+        .put("episode", new UnmodifiableMapBuilder<String, Object>(2)
+            .put("kind", "Variable")
+            .put("variableName", "episode")
+            .build())
+        .build(), false);
+
+    Operation.Variables jediVariables = episodeVariables("JEDI");
+    Operation.Variables empireVariables = episodeVariables("EMPIRE");
+    String cacheKey = field.cacheKey(jediVariables);
+    assertThat(cacheKey).isEqualTo("hero(episode:JEDI)");
+    assertThat(field.cacheKey(jediVariables)).isSameAs(cacheKey);
+    assertThat(field.cacheKey(empireVariables)).isEqualTo("hero(episode:EMPIRE)");
+    assertThat(field.cacheKey(jediVariables)).isEqualTo("hero(episode:JEDI)");
+  }
+
+  @Test
+  public void testFieldWithVariableArgumentDoesNotRetainVariables() throws Exception {
+    //noinspection unchecked
+    ResponseField field = ResponseField.forString("hero", "hero", new UnmodifiableMapBuilder<String, Object>(1)
+        .put("episode", new UnmodifiableMapBuilder<String, Object>(2)
+            .put("kind", "Variable")
+            .put("variableName", "episode")
+            .build())
+        .build(), false);
+
+    Operation.Variables variables = episodeVariables("JEDI");
+    assertThat(field.cacheKey(variables)).isEqualTo("hero(episode:JEDI)");
+    WeakReference<Operation.Variables> variablesReference = new WeakReference<>(variables);
+    //noinspection UnusedAssignment
+    variables = null;
+    for (int i = 0; i < 10 && variablesReference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertThat(variablesReference.get()).isNull();
+  }
+
   @Test
   public void testFieldWithVariableArgumentNull() {
     //noinspection unchecked
@@ -193,4 +235,14 @@ public class CacheKeyForFieldTest {
     assertThat(field.cacheKey(variables)).isEqualTo("hero(episode:JEDI,nested:[bar:2,foo:1])");
   }
 
+
+  private static Operation.Variables episodeVariables(final String episode) {
+    return new Operation.Variables() {
+      @Nonnull @Override public Map<String, Object> valueMap() {
+        HashMap<String, Object> map = new HashMap<>();
+        map.put("episode", episode);
+        return map;
+      }
+    };
+  }
 }
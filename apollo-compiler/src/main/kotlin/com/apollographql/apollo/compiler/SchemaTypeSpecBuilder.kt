@@ -30,6 +30,7 @@ class SchemaTypeSpecBuilder(
         .addFragments()
         .addType(responseMapperSpec(responseFieldSpecs))
         .addField(fieldArray(responseFieldSpecs))
+        .addField(fieldTable(responseFieldSpecs))
         .addMethod(responseMarshallerSpec(responseFieldSpecs))
         .build()
         .withValueInitConstructor(context.nullableValueType)
@@ -297,6 +298,32 @@ class SchemaTypeSpecBuilder(
         .build()
   }
 
+  private fun fieldTable(responseFieldSpecs: List<ResponseFieldSpec>): FieldSpec {
+    val responseNames = responseFieldSpecs.map { it.irField.responseName }.distinct()
+    val ordinalMethodSpec = MethodSpec.methodBuilder("ordinal")
+        .addModifiers(Modifier.PUBLIC)
+        .addAnnotation(Override::class.java)
+        .addParameter(String::class.java, RESPONSE_NAME_PARAM_NAME)
+        .returns(TypeName.INT)
+        .beginControlFlow("switch (\$L)", RESPONSE_NAME_PARAM_NAME)
+        .addCode(responseNames
+            .mapIndexed { i, responseName -> CodeBlock.of("case \$S: return \$L;\n", responseName, i) }
+            .fold(CodeBlock.builder(), CodeBlock.Builder::add)
+            .build())
+        .addStatement("default: return -1")
+        .endControlFlow()
+        .build()
+    val fieldTableType = TypeSpec.anonymousClassBuilder("\$L", RESPONSE_FIELDS_PARAM.name)
+        .addSuperinterface(ResponseFieldTable::class.java)
+        .addMethod(ordinalMethodSpec)
+        .build()
+    return FieldSpec
+        .builder(ResponseFieldTable::class.java, RESPONSE_FIELD_TABLE_NAME)
+        .addModifiers(Modifier.STATIC, Modifier.FINAL)
+        .initializer("\$L", fieldTableType)
+        .build()
+  }
+
   private fun responseMapperSpec(responseFieldSpecs: List<ResponseFieldSpec>): TypeSpec {
     fun mapperFields(): List<FieldSpec> {
       return responseFieldSpecs
@@ -383,6 +410,8 @@ class SchemaTypeSpecBuilder(
     private val RESPONSE_WRITER_PARAM =
         ParameterSpec.builder(ResponseWriter::class.java, "writer").build()
     private const val RESPONSE_MARSHALLER_PARAM_NAME = "marshaller"
+    private const val RESPONSE_FIELD_TABLE_NAME = "\$responseFieldTable"
+    private const val RESPONSE_NAME_PARAM_NAME = "responseName"
     val FRAGMENTS_FIELD: FieldSpec =
         FieldSpec.builder(ClassName.get("", "Fragments").annotated(Annotations.NONNULL), "fragments").build()
   }
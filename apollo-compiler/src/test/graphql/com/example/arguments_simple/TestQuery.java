@@ -6,6 +6,7 @@ import com.apollographql.apollo.api.Query;
 import com.apollographql.apollo.api.ResponseField;
 import com.apollographql.apollo.api.ResponseFieldMapper;
 import com.apollographql.apollo.api.ResponseFieldMarshaller;
+import com.apollographql.apollo.api.ResponseFieldTable;
 import com.apollographql.apollo.api.ResponseReader;
 import com.apollographql.apollo.api.ResponseWriter;
 import com.apollographql.apollo.api.internal.Optional;
@@ -136,6 +137,16 @@ public final class TestQuery implements Query<TestQuery.Data, Optional<TestQuery
       .build(), true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "hero": return 0;
+          default: return -1;
+        }
+      }
+    };
+
     final Optional<Hero> hero;
 
     private volatile String $toString;
@@ -217,6 +228,17 @@ public final class TestQuery implements Query<TestQuery.Data, Optional<TestQuery
       ResponseField.forString("name", "name", null, true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "name": return 1;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final Optional<String> name;
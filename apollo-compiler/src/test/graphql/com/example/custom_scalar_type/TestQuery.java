@@ -6,6 +6,7 @@ import com.apollographql.apollo.api.Query;
 import com.apollographql.apollo.api.ResponseField;
 import com.apollographql.apollo.api.ResponseFieldMapper;
 import com.apollographql.apollo.api.ResponseFieldMarshaller;
+import com.apollographql.apollo.api.ResponseFieldTable;
 import com.apollographql.apollo.api.ResponseReader;
 import com.apollographql.apollo.api.ResponseWriter;
 import com.apollographql.apollo.api.internal.Optional;
@@ -92,6 +93,16 @@ public final class TestQuery implements Query<TestQuery.Data, Optional<TestQuery
       ResponseField.forObject("hero", "hero", null, true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "hero": return 0;
+          default: return -1;
+        }
+      }
+    };
+
     final Optional<Hero> hero;
 
     private volatile String $toString;
@@ -178,6 +189,22 @@ public final class TestQuery implements Query<TestQuery.Data, Optional<TestQuery
       ResponseField.forCustomList("links", "links", null, false)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "name": return 1;
+          case "birthDate": return 2;
+          case "appearanceDates": return 3;
+          case "fieldWithUnsupportedType": return 4;
+          case "profileLink": return 5;
+          case "links": return 6;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final @Nonnull String name;
@@ -7,6 +7,7 @@ import com.apollographql.apollo.api.Query;
 import com.apollographql.apollo.api.ResponseField;
 import com.apollographql.apollo.api.ResponseFieldMapper;
 import com.apollographql.apollo.api.ResponseFieldMarshaller;
+import com.apollographql.apollo.api.ResponseFieldTable;
 import com.apollographql.apollo.api.ResponseReader;
 import com.apollographql.apollo.api.ResponseWriter;
 import com.apollographql.apollo.api.internal.Optional;
@@ -100,6 +101,16 @@ public final class AllStarships implements Query<AllStarships.Data, Optional<All
       .build(), true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "allStarships": return 0;
+          default: return -1;
+        }
+      }
+    };
+
     final Optional<AllStarships1> allStarships;
 
     private volatile String $toString;
@@ -181,6 +192,17 @@ public final class AllStarships implements Query<AllStarships.Data, Optional<All
       ResponseField.forObjectList("edges", "edges", null, true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "edges": return 1;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final Optional<List<Edge>> edges;
@@ -293,6 +315,17 @@ public final class AllStarships implements Query<AllStarships.Data, Optional<All
       ResponseField.forObject("node", "node", null, true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "node": return 1;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final Optional<Node> node;
@@ -393,6 +426,16 @@ public final class AllStarships implements Query<AllStarships.Data, Optional<All
       ResponseField.forFragment("__typename", "__typename", Arrays.asList("Starship"))
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     private final @Nonnull Fragments fragments;
@@ -4,6 +4,7 @@ import com.apollographql.apollo.api.GraphqlFragment;
 import com.apollographql.apollo.api.ResponseField;
 import com.apollographql.apollo.api.ResponseFieldMapper;
 import com.apollographql.apollo.api.ResponseFieldMarshaller;
+import com.apollographql.apollo.api.ResponseFieldTable;
 import com.apollographql.apollo.api.ResponseReader;
 import com.apollographql.apollo.api.ResponseWriter;
 import com.apollographql.apollo.api.internal.Optional;
@@ -26,6 +27,18 @@ public class PilotFragment implements GraphqlFragment {
     ResponseField.forObject("homeworld", "homeworld", null, true)
   };
 
+  static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+    @Override
+    public int ordinal(String responseName) {
+      switch (responseName) {
+        case "__typename": return 0;
+        case "name": return 1;
+        case "homeworld": return 2;
+        default: return -1;
+      }
+    }
+  };
+
   public static final String FRAGMENT_DEFINITION = "fragment pilotFragment on Person {\n"
       + "  __typename\n"
       + "  name\n"
@@ -153,6 +166,17 @@ public class PilotFragment implements GraphqlFragment {
       ResponseField.forString("name", "name", null, true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "name": return 1;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final Optional<String> name;
@@ -5,6 +5,7 @@ import com.apollographql.apollo.api.GraphqlFragment;
 import com.apollographql.apollo.api.ResponseField;
 import com.apollographql.apollo.api.ResponseFieldMapper;
 import com.apollographql.apollo.api.ResponseFieldMarshaller;
+import com.apollographql.apollo.api.ResponseFieldTable;
 import com.apollographql.apollo.api.ResponseReader;
 import com.apollographql.apollo.api.ResponseWriter;
 import com.apollographql.apollo.api.internal.Optional;
@@ -28,6 +29,19 @@ public class StarshipFragment implements GraphqlFragment {
     ResponseField.forObject("pilotConnection", "pilotConnection", null, true)
   };
 
+  static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+    @Override
+    public int ordinal(String responseName) {
+      switch (responseName) {
+        case "__typename": return 0;
+        case "id": return 1;
+        case "name": return 2;
+        case "pilotConnection": return 3;
+        default: return -1;
+      }
+    }
+  };
+
   public static final String FRAGMENT_DEFINITION = "fragment starshipFragment on Starship {\n"
       + "  __typename\n"
       + "  id\n"
@@ -178,6 +192,17 @@ public class StarshipFragment implements GraphqlFragment {
       ResponseField.forObjectList("edges", "edges", null, true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "edges": return 1;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final Optional<List<Edge>> edges;
@@ -290,6 +315,17 @@ public class StarshipFragment implements GraphqlFragment {
       ResponseField.forObject("node", "node", null, true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "node": return 1;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final Optional<Node> node;
@@ -390,6 +426,16 @@ public class StarshipFragment implements GraphqlFragment {
       ResponseField.forFragment("__typename", "__typename", Arrays.asList("Person"))
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     private final @Nonnull Fragments fragments;
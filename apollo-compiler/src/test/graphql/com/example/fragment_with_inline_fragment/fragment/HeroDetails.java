@@ -4,6 +4,7 @@ import com.apollographql.apollo.api.GraphqlFragment;
 import com.apollographql.apollo.api.ResponseField;
 import com.apollographql.apollo.api.ResponseFieldMapper;
 import com.apollographql.apollo.api.ResponseFieldMarshaller;
+import com.apollographql.apollo.api.ResponseFieldTable;
 import com.apollographql.apollo.api.ResponseReader;
 import com.apollographql.apollo.api.ResponseWriter;
 import com.apollographql.apollo.api.internal.Optional;
@@ -28,6 +29,18 @@ public class HeroDetails implements GraphqlFragment {
     ResponseField.forInlineFragment("__typename", "__typename", Arrays.asList("Droid"))
   };
 
+  static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+    @Override
+    public int ordinal(String responseName) {
+      switch (responseName) {
+        case "__typename": return 0;
+        case "name": return 1;
+        case "friendsConnection": return 2;
+        default: return -1;
+      }
+    }
+  };
+
   public static final String FRAGMENT_DEFINITION = "fragment HeroDetails on Character {\n"
       + "  __typename\n"
       + "  name\n"
@@ -197,6 +210,18 @@ public class HeroDetails implements GraphqlFragment {
       ResponseField.forObjectList("edges", "edges", null, true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "totalCount": return 1;
+          case "edges": return 2;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final Optional<Integer> totalCount;
@@ -326,6 +351,17 @@ public class HeroDetails implements GraphqlFragment {
       ResponseField.forObject("node", "node", null, true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "node": return 1;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final Optional<Node> node;
@@ -426,6 +462,17 @@ public class HeroDetails implements GraphqlFragment {
       ResponseField.forString("name", "name", null, false)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "name": return 1;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final @Nonnull String name;
@@ -524,6 +571,19 @@ public class HeroDetails implements GraphqlFragment {
       ResponseField.forString("primaryFunction", "primaryFunction", null, true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "name": return 1;
+          case "friendsConnection": return 2;
+          case "primaryFunction": return 3;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final @Nonnull String name;
@@ -664,6 +724,18 @@ public class HeroDetails implements GraphqlFragment {
       ResponseField.forObjectList("edges", "edges", null, true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "totalCount": return 1;
+          case "edges": return 2;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final Optional<Integer> totalCount;
@@ -793,6 +865,17 @@ public class HeroDetails implements GraphqlFragment {
       ResponseField.forObject("node", "node", null, true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "node": return 1;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final Optional<Node1> node;
@@ -893,6 +976,17 @@ public class HeroDetails implements GraphqlFragment {
       ResponseField.forString("name", "name", null, false)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "name": return 1;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final @Nonnull String name;
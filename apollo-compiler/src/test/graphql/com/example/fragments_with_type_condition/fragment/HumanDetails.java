@@ -4,6 +4,7 @@ import com.apollographql.apollo.api.GraphqlFragment;
 import com.apollographql.apollo.api.ResponseField;
 import com.apollographql.apollo.api.ResponseFieldMapper;
 import com.apollographql.apollo.api.ResponseFieldMarshaller;
+import com.apollographql.apollo.api.ResponseFieldTable;
 import com.apollographql.apollo.api.ResponseReader;
 import com.apollographql.apollo.api.ResponseWriter;
 import com.apollographql.apollo.api.internal.Optional;
@@ -27,6 +28,18 @@ public class HumanDetails implements GraphqlFragment {
     ResponseField.forDouble("height", "height", null, true)
   };
 
+  static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+    @Override
+    public int ordinal(String responseName) {
+      switch (responseName) {
+        case "__typename": return 0;
+        case "name": return 1;
+        case "height": return 2;
+        default: return -1;
+      }
+    }
+  };
+
   public static final String FRAGMENT_DEFINITION = "fragment HumanDetails on Human {\n"
       + "  __typename\n"
       + "  name\n"
@@ -6,6 +6,7 @@ import com.apollographql.apollo.api.OperationName;
 import com.apollographql.apollo.api.ResponseField;
 import com.apollographql.apollo.api.ResponseFieldMapper;
 import com.apollographql.apollo.api.ResponseFieldMarshaller;
+import com.apollographql.apollo.api.ResponseFieldTable;
 import com.apollographql.apollo.api.ResponseReader;
 import com.apollographql.apollo.api.ResponseWriter;
 import com.apollographql.apollo.api.internal.Optional;
@@ -148,6 +149,16 @@ public final class TestQuery implements Mutation<TestQuery.Data, Optional<TestQu
       .build(), true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "createReview": return 0;
+          default: return -1;
+        }
+      }
+    };
+
     final Optional<CreateReview> createReview;
 
     private volatile String $toString;
@@ -230,6 +241,18 @@ public final class TestQuery implements Mutation<TestQuery.Data, Optional<TestQu
       ResponseField.forString("commentary", "commentary", null, true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "stars": return 1;
+          case "commentary": return 2;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final int stars;
@@ -6,6 +6,7 @@ import com.apollographql.apollo.api.Query;
 import com.apollographql.apollo.api.ResponseField;
 import com.apollographql.apollo.api.ResponseFieldMapper;
 import com.apollographql.apollo.api.ResponseFieldMarshaller;
+import com.apollographql.apollo.api.ResponseFieldTable;
 import com.apollographql.apollo.api.ResponseReader;
 import com.apollographql.apollo.api.ResponseWriter;
 import com.apollographql.apollo.api.internal.Optional;
@@ -126,6 +127,65 @@ public final class TestQuery implements Query<TestQuery.Data, Optional<TestQuery
       ResponseField.forString("while", "while", null, true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "abstract": return 0;
+          case "assert": return 1;
+          case "boolean": return 2;
+          case "break": return 3;
+          case "byte": return 4;
+          case "case": return 5;
+          case "catch": return 6;
+          case "char": return 7;
+          case "class": return 8;
+          case "const": return 9;
+          case "continue": return 10;
+          case "default": return 11;
+          case "do": return 12;
+          case "double": return 13;
+          case "else": return 14;
+          case "enum": return 15;
+          case "extends": return 16;
+          case "final": return 17;
+          case "finally": return 18;
+          case "float": return 19;
+          case "for": return 20;
+          case "goto": return 21;
+          case "if": return 22;
+          case "implements": return 23;
+          case "import": return 24;
+          case "instanceof": return 25;
+          case "int": return 26;
+          case "interface": return 27;
+          case "long": return 28;
+          case "native": return 29;
+          case "new": return 30;
+          case "package": return 31;
+          case "private": return 32;
+          case "protected": return 33;
+          case "public": return 34;
+          case "return": return 35;
+          case "short": return 36;
+          case "static": return 37;
+          case "strictfp": return 38;
+          case "super": return 39;
+          case "switch": return 40;
+          case "synchronized": return 41;
+          case "this": return 42;
+          case "throw": return 43;
+          case "throws": return 44;
+          case "transient": return 45;
+          case "try": return 46;
+          case "void": return 47;
+          case "volatile": return 48;
+          case "while": return 49;
+          default: return -1;
+        }
+      }
+    };
+
     final Optional<String> abstract_;
 
     final Optional<String> assert_;
@@ -6,6 +6,7 @@ import com.apollographql.apollo.api.Query;
 import com.apollographql.apollo.api.ResponseField;
 import com.apollographql.apollo.api.ResponseFieldMapper;
 import com.apollographql.apollo.api.ResponseFieldMarshaller;
+import com.apollographql.apollo.api.ResponseFieldTable;
 import com.apollographql.apollo.api.ResponseReader;
 import com.apollographql.apollo.api.ResponseWriter;
 import com.apollographql.apollo.api.internal.Optional;
@@ -93,6 +94,26 @@ public final class TestQuery implements Query<TestQuery.Data, Optional<TestQuery
       ResponseField.forObjectList("graphQlListOfObjects", "graphQlListOfObjects", null, true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "graphQlString": return 0;
+          case "graphQlIdNullable": return 1;
+          case "graphQlIdNonNullable": return 2;
+          case "graphQlIntNullable": return 3;
+          case "graphQlIntNonNullable": return 4;
+          case "graphQlFloatNullable": return 5;
+          case "graphQlFloatNonNullable": return 6;
+          case "graphQlBooleanNullable": return 7;
+          case "graphQlBooleanNonNullable": return 8;
+          case "graphQlListOfInt": return 9;
+          case "graphQlListOfObjects": return 10;
+          default: return -1;
+        }
+      }
+    };
+
     final Optional<String> graphQlString;
 
     final Optional<String> graphQlIdNullable;
@@ -335,6 +356,16 @@ public final class TestQuery implements Query<TestQuery.Data, Optional<TestQuery
       ResponseField.forInt("someField", "someField", null, false)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "someField": return 0;
+          default: return -1;
+        }
+      }
+    };
+
     final int someField;
 
     private volatile String $toString;
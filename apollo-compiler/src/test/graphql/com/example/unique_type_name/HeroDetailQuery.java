@@ -7,6 +7,7 @@ import com.apollographql.apollo.api.Query;
 import com.apollographql.apollo.api.ResponseField;
 import com.apollographql.apollo.api.ResponseFieldMapper;
 import com.apollographql.apollo.api.ResponseFieldMarshaller;
+import com.apollographql.apollo.api.ResponseFieldTable;
 import com.apollographql.apollo.api.ResponseReader;
 import com.apollographql.apollo.api.ResponseWriter;
 import com.apollographql.apollo.api.internal.Optional;
@@ -107,6 +108,16 @@ public final class HeroDetailQuery implements Query<HeroDetailQuery.Data, Option
       ResponseField.forObject("heroDetailQuery", "heroDetailQuery", null, true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "heroDetailQuery": return 0;
+          default: return -1;
+        }
+      }
+    };
+
     final Optional<HeroDetailQuery1> heroDetailQuery;
 
     private volatile String $toString;
@@ -190,6 +201,18 @@ public final class HeroDetailQuery implements Query<HeroDetailQuery.Data, Option
       ResponseField.forInlineFragment("__typename", "__typename", Arrays.asList("Human"))
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "name": return 1;
+          case "friends": return 2;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final @Nonnull String name;
@@ -345,6 +368,17 @@ public final class HeroDetailQuery implements Query<HeroDetailQuery.Data, Option
       ResponseField.forString("name", "name", null, false)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "name": return 1;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final @Nonnull String name;
@@ -443,6 +477,19 @@ public final class HeroDetailQuery implements Query<HeroDetailQuery.Data, Option
       ResponseField.forDouble("height", "height", null, true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "name": return 1;
+          case "friends": return 2;
+          case "height": return 3;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final @Nonnull String name;
@@ -593,6 +640,19 @@ public final class HeroDetailQuery implements Query<HeroDetailQuery.Data, Option
       ResponseField.forObjectList("friends", "friends", null, true)
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "name": return 1;
+          case "appearsIn": return 2;
+          case "friends": return 3;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     final @Nonnull String name;
@@ -757,6 +817,16 @@ public final class HeroDetailQuery implements Query<HeroDetailQuery.Data, Option
       "Droid"))
     };
 
+    static final ResponseFieldTable $responseFieldTable = new ResponseFieldTable($responseFields) {
+      @Override
+      public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          default: return -1;
+        }
+      }
+    };
+
     final @Nonnull String __typename;
 
     private final @Nonnull Fragments fragments;
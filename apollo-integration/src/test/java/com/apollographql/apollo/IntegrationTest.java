@@ -20,7 +20,6 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import java.io.IOException;
-import java.math.BigDecimal;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -171,7 +170,7 @@ public class IntegrationTest {
     Response<AllPlanetsQuery.Data> body = apolloClient.query(new AllPlanetsQuery()).execute();
     assertThat(body.hasErrors()).isTrue();
     assertThat(body.errors().get(0).customAttributes()).hasSize(4);
-    assertThat(body.errors().get(0).customAttributes().get("code")).isEqualTo(new BigDecimal(500));
+    assertThat(body.errors().get(0).customAttributes().get("code")).isEqualTo(500L);
     assertThat(body.errors().get(0).customAttributes().get("status")).isEqualTo("Internal Error");
     assertThat(body.errors().get(0).customAttributes().get("fatal")).isEqualTo(true);
     assertThat(body.errors().get(0).customAttributes().get("path")).isEqualTo(Arrays.asList("query"));
@@ -23,7 +23,6 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
-import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
 
@@ -297,7 +296,7 @@ public class ResponseNormalizationTest {
     Record lukeRecord = normalizedCache
         .loadRecord("hero(episode:JEDI).friends.0", CacheHeaders.NONE);
     assertThat(lukeRecord.field("name")).isEqualTo("Luke Skywalker");
-    assertThat(lukeRecord.field("height(unit:METER)")).isEqualTo(BigDecimal.valueOf(1.72));
+    assertThat(lukeRecord.field("height(unit:METER)")).isEqualTo(1.72);
 
     final List<Object> friends = (List<Object>) normalizedCache
         .loadRecord("hero(episode:JEDI)", CacheHeaders.NONE).field("friends");
@@ -320,7 +319,7 @@ public class ResponseNormalizationTest {
     Record lukeRecord = normalizedCache
         .loadRecord("hero(episode:EMPIRE).friends.0", CacheHeaders.NONE);
     assertThat(lukeRecord.field("name")).isEqualTo("Han Solo");
-    assertThat(lukeRecord.field("height(unit:FOOT)")).isEqualTo(BigDecimal.valueOf(5.905512));
+    assertThat(lukeRecord.field("height(unit:FOOT)")).isEqualTo(5.905512);
   }
 
 }
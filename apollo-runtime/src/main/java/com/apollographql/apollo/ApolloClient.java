@@ -21,8 +21,11 @@ import com.apollographql.apollo.internal.RealApolloCall;
 import com.apollographql.apollo.internal.RealApolloPrefetch;
 import com.apollographql.apollo.internal.ResponseFieldMapperFactory;
 import com.apollographql.apollo.internal.cache.http.HttpCache;
+import com.apollographql.apollo.internal.cache.normalized.PendingCacheWrites;
+import com.apollographql.apollo.internal.cache.normalized.PendingRevalidations;
 import com.apollographql.apollo.internal.cache.normalized.RealApolloStore;
 import com.apollographql.apollo.internal.util.ApolloLogger;
+import com.apollographql.apollo.internal.util.DirectExecutor;
 import com.squareup.moshi.JsonAdapter;
 import com.squareup.moshi.JsonWriter;
 import com.squareup.moshi.Moshi;
@@ -33,6 +36,7 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
@@ -77,6 +81,11 @@ public final class ApolloClient implements ApolloQueryCall.Factory, ApolloMutati
   private final Moshi moshi;
   private final ResponseFieldMapperFactory responseFieldMapperFactory = new ResponseFieldMapperFactory();
   private final ExecutorService dispatcher;
+  private final Executor parseExecutor;
+  private final Executor cacheExecutor;
+  private final Executor callbackExecutor;
+  private final Optional<PendingCacheWrites> pendingCacheWrites;
+  private final PendingRevalidations pendingRevalidations = new PendingRevalidations();
   private final HttpCachePolicy.Policy defaultHttpCachePolicy;
   private final CacheControl defaultCacheControl;
   private final CacheHeaders defaultCacheHeaders;
@@ -92,6 +101,11 @@ public final class ApolloClient implements ApolloQueryCall.Factory, ApolloMutati
     this.customTypeAdapters = builder.customTypeAdapters;
     this.moshi = builder.moshi;
     this.dispatcher = builder.dispatcher;
+    this.parseExecutor = builder.parseExecutor;
+    this.cacheExecutor = builder.cacheExecutor;
+    this.callbackExecutor = builder.callbackExecutor;
+    this.pendingCacheWrites = builder.writeToCacheAsynchronously ? Optional.of(new PendingCacheWrites())
+        : Optional.<PendingCacheWrites>absent();
     this.defaultHttpCachePolicy = builder.defaultHttpCachePolicy;
     this.defaultCacheHeaders = builder.defaultCacheHeaders;
     this.defaultCacheControl = builder.defaultCacheControl;
@@ -188,6 +202,11 @@ public final class ApolloClient implements ApolloQueryCall.Factory, ApolloMutati
         .cacheControl(defaultCacheControl)
         .cacheHeaders(defaultCacheHeaders)
         .dispatcher(dispatcher)
+        .parseExecutor(parseExecutor)
+        .cacheExecutor(cacheExecutor)
+        .callbackExecutor(callbackExecutor)
+        .pendingCacheWrites(pendingCacheWrites)
+        .pendingRevalidations(pendingRevalidations)
         .logger(logger)
         .applicationInterceptors(applicationInterceptors)
         .tracker(tracker)
@@ -210,6 +229,10 @@ public final class ApolloClient implements ApolloQueryCall.Factory, ApolloMutati
     private final Moshi.Builder moshiBuilder = new Moshi.Builder();
     Moshi moshi;
     ExecutorService dispatcher;
+    Executor parseExecutor = DirectExecutor.INSTANCE;
+    Executor cacheExecutor = DirectExecutor.INSTANCE;
+    Executor callbackExecutor = DirectExecutor.INSTANCE;
+    boolean writeToCacheAsynchronously;
     Optional<Logger> logger = Optional.absent();
     HttpCache httpCache;
     ApolloLogger apolloLogger;
@@ -322,6 +345,52 @@ public final class ApolloClient implements ApolloQueryCall.Factory, ApolloMutati
       return this;
     }
 
+    /**
+     * The {@link Executor} to use for parsing network responses into models and normalizing them into records.
+     * By default responses are parsed on the thread that delivers the http response.
+     *
+     * @return The {@link Builder} object to be used for chaining method calls
+     */
+    public Builder parseExecutor(@Nonnull Executor parseExecutor) {
+      this.parseExecutor = checkNotNull(parseExecutor, "parseExecutor == null");
+      return this;
+    }
+
+    /**
+     * The {@link Executor} to use for reading from and writing to the normalized cache. By default cache reads run
+     * on the {@link #dispatcher} and cache writes run on the thread that parsed the network response.
+     *
+     * @return The {@link Builder} object to be used for chaining method calls
+     */
+    public Builder cacheExecutor(@Nonnull Executor cacheExecutor) {
+      this.cacheExecutor = checkNotNull(cacheExecutor, "cacheExecutor == null");
+      return this;
+    }
+
+    /**
+     * The {@link Executor} to use for delivering results to {@link ApolloCall.Callback}. By default callbacks are
+     * invoked on the thread that produced the result.
+     *
+     * @return The {@link Builder} object to be used for chaining method calls
+     */
+    public Builder callbackExecutor(@Nonnull Executor callbackExecutor) {
+      this.callbackExecutor = checkNotNull(callbackExecutor, "callbackExecutor == null");
+      return this;
+    }
+
+    /**
+     * Whether network responses should be delivered before their records are written to the normalized cache. If
+     * enabled, records are merged into the cache on the {@link #dispatcher} after the response has been delivered.
+     * Cache reads of calls created by this client still wait for pending writes, but direct reads from the
+     * {@link ApolloStore} might not see them yet. Disabled by default.
+     *
+     * @return The {@link Builder} object to be used for chaining method calls
+     */
+    public Builder writeToCacheAsynchronously(boolean writeToCacheAsynchronously) {
+      this.writeToCacheAsynchronously = writeToCacheAsynchronously;
+      return this;
+    }
+
     /**
      * Sets the http cache policy to be used as default for all GraphQL {@link Query} operations. Will be ignored for
      * any {@link Mutation} operations. By default http cache policy is set to {@link HttpCachePolicy#NETWORK_ONLY}.
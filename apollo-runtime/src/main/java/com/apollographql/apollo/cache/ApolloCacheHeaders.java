@@ -16,4 +16,11 @@ public final class ApolloCacheHeaders {
    * Records from this request should be evicted after being read.
    */
   public static final String EVICT_AFTER_READ = "evict-after-read";
+
+  /**
+   * Records received from the network more than this number of seconds ago, or at an unknown time, are read as
+   * missing from the {@link com.apollographql.apollo.cache.normalized.ApolloStore}, see
+   * {@link com.apollographql.apollo.cache.normalized.Record#receivedAtMillis()}.
+   */
+  public static final String MAX_AGE = "max-age";
 }
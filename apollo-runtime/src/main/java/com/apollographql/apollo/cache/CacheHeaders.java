@@ -38,6 +38,11 @@ public final class CacheHeaders {
       return this;
     }
 
+    public Builder removeHeader(String headerName) {
+      headerMap.remove(headerName);
+      return this;
+    }
+
     public CacheHeaders build() {
       return new CacheHeaders(headerMap);
     }
@@ -11,6 +11,8 @@ import com.apollographql.apollo.internal.cache.normalized.ResponseNormalizer;
 import com.apollographql.apollo.internal.cache.normalized.Transaction;
 import com.apollographql.apollo.internal.cache.normalized.WriteableStore;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -39,6 +41,15 @@ public interface ApolloStore {
 
   void subscribe(RecordChangeSubscriber subscriber);
 
+  /**
+   * Subscribes to changes of the provided keys only, replacing keys of any previous subscription of the subscriber.
+   * Unlike {@link #subscribe(RecordChangeSubscriber)}, the subscriber is not notified about changes of other keys.
+   *
+   * @param subscriber    subscriber to notify
+   * @param dependentKeys keys of {@link Record}s and {@link Record} fields the subscriber depends on
+   */
+  void subscribe(RecordChangeSubscriber subscriber, Set<String> dependentKeys);
+
   void unsubscribe(RecordChangeSubscriber subscriber);
 
   /**
@@ -67,6 +78,56 @@ public interface ApolloStore {
    */
   int remove(@Nonnull List<CacheKey> cacheKeys);
 
+  /**
+   * Removes records that can not be reached from the {@link CacheKeyResolver#QUERY_ROOT_KEY} and
+   * {@link CacheKeyResolver#MUTATION_ROOT_KEY} records through {@link CacheReference} fields, such as the records of
+   * root fields that have since been written with other arguments or other objects. Records read only by their key,
+   * for example with a fragment, are removed too unless a reachable record references them. Holds the write lock
+   * until done, see {@link #incrementalGc()} for a collection that runs in slices. Stops a collection started by
+   * {@link #incrementalGc()}. Removes nothing if the {@link NormalizedCache} can not list its keys, see
+   * {@link NormalizedCache#recordKeys()}.
+   *
+   * @return the count of records removed
+   */
+  int gc();
+
+  /**
+   * Starts a collection like {@link #gc()}, that runs in slices of {@link GarbageCollection#runFor(long,
+   * java.util.concurrent.TimeUnit)}. Records written between slices are kept if they reference records, or are
+   * themselves records, that the collection would otherwise remove. Starting a collection stops the previous one.
+   *
+   * @return the collection, that does nothing until it is run
+   */
+  GarbageCollection incrementalGc();
+
+  /**
+   * Writes the records the {@link NormalizedCache} keeps in memory to a file, so that {@link #loadSnapshot(File)} can
+   * load them after a restart in one sequential read instead of reading them one by one from persistent storage. The
+   * file is written to a temporary file first, and replaces the previous snapshot once complete. Writes nothing, and
+   * deletes the previous snapshot, if the normalized cache has no records to write or does not write snapshots, see
+   * {@link NormalizedCache#writeSnapshot(java.io.OutputStream)}.
+   *
+   * <p>The snapshot should be written once no more records are written to the store, for example when the application
+   * goes to the background. A snapshot loaded after records were written to the persistent storage would put the older
+   * records in memory in front of the newer ones, so the store deletes the file when records are written or removed
+   * after it, or while it is being written.</p>
+   *
+   * @param file the file to write the snapshot to
+   * @return the count of records written, {@code 0} if the snapshot was deleted because records were written meanwhile
+   */
+  int writeSnapshot(@Nonnull File file) throws IOException;
+
+  /**
+   * Loads the records of a snapshot written by {@link #writeSnapshot(File)} in the memory of the
+   * {@link NormalizedCache}, and deletes the file so that a snapshot is never loaded twice. Should be called when the
+   * store is created, before it is read.
+   *
+   * @param file the file to read the snapshot from
+   * @return the count of records loaded, {@code 0} if the file does not exist
+   * @throws IOException if the snapshot can not be read, in which case no record is loaded
+   */
+  int loadSnapshot(@Nonnull File file) throws IOException;
+
   /**
    * @return The {@link ResponseNormalizer} used to generate normalized records from the network.
    */
@@ -78,16 +139,17 @@ public interface ApolloStore {
   ResponseNormalizer<Record> cacheResponseNormalizer();
 
   /**
-   * Run a operation inside a read-lock. Blocks until read-lock is acquired.
+   * Run a read operation against a consistent version of the store. Does not block on concurrent writes, which
+   * are not visible to the operation.
    *
-   * @param transaction A code block to run once the read lock is acquired.
+   * @param transaction A code block to run against the current version of the store.
    * @param <R>         The result type of this read operation.
    * @return A result from the read operation.
    */
   <R> R readTransaction(Transaction<ReadableStore, R> transaction);
 
   /**
-   * Run a operation inside a write-lock. Blocks until write-lock is acquired.
+   * Run a operation inside a write-lock. Blocks until write-lock is acquired. Writes only block other writes.
    *
    * @param transaction A code block to run once the write lock is acquired.
    * @param <R>         The result type of this write operation.
@@ -105,6 +167,12 @@ public interface ApolloStore {
    */
   CacheKeyResolver cacheKeyResolver();
 
+  /**
+   * @return A snapshot of the transaction timings of this ApolloStore and of the counters of its
+   * {@link NormalizedCache}. Cheap enough to be taken periodically.
+   */
+  ApolloStoreStats stats();
+
   /**
    * Read GraphQL operation from store.
    *
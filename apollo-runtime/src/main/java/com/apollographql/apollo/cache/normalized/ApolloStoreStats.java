@@ -0,0 +1,59 @@
+package com.apollographql.apollo.cache.normalized;
+
+import com.apollographql.apollo.api.internal.Optional;
+
+import static com.apollographql.apollo.api.internal.Utils.checkNotNull;
+
+/**
+ * A snapshot of the transaction timings of an {@link ApolloStore} and of the counters of its {@link NormalizedCache},
+ * see {@link ApolloStore#stats()}.
+ *
+ * <p>Read transactions do not take a lock, they read a snapshot of the store, so only their duration is recorded.
+ * Write transactions are serialized by a lock, and both the time spent waiting for it and the time it is held are
+ * recorded. Nested transactions are recorded as part of the outermost one.</p>
+ */
+public final class ApolloStoreStats {
+  public static final ApolloStoreStats EMPTY = new ApolloStoreStats(LatencyHistogram.EMPTY, LatencyHistogram.EMPTY,
+      LatencyHistogram.EMPTY, Optional.<NormalizedCacheStats>absent());
+
+  private final LatencyHistogram readTransactionTime;
+  private final LatencyHistogram writeLockWaitTime;
+  private final LatencyHistogram writeLockHoldTime;
+  private final Optional<NormalizedCacheStats> normalizedCacheStats;
+
+  public ApolloStoreStats(LatencyHistogram readTransactionTime, LatencyHistogram writeLockWaitTime,
+      LatencyHistogram writeLockHoldTime, Optional<NormalizedCacheStats> normalizedCacheStats) {
+    this.readTransactionTime = checkNotNull(readTransactionTime, "readTransactionTime == null");
+    this.writeLockWaitTime = checkNotNull(writeLockWaitTime, "writeLockWaitTime == null");
+    this.writeLockHoldTime = checkNotNull(writeLockHoldTime, "writeLockHoldTime == null");
+    this.normalizedCacheStats = checkNotNull(normalizedCacheStats, "normalizedCacheStats == null");
+  }
+
+  public LatencyHistogram readTransactionTime() {
+    return readTransactionTime;
+  }
+
+  public LatencyHistogram writeLockWaitTime() {
+    return writeLockWaitTime;
+  }
+
+  public LatencyHistogram writeLockHoldTime() {
+    return writeLockHoldTime;
+  }
+
+  /**
+   * @return The counters of the normalized cache, if it keeps any.
+   */
+  public Optional<NormalizedCacheStats> normalizedCacheStats() {
+    return normalizedCacheStats;
+  }
+
+  @Override public String toString() {
+    return "ApolloStoreStats{"
+        + "readTransactionTime=" + readTransactionTime
+        + ", writeLockWaitTime=" + writeLockWaitTime
+        + ", writeLockHoldTime=" + writeLockHoldTime
+        + ", normalizedCacheStats=" + normalizedCacheStats.orNull()
+        + '}';
+  }
+}
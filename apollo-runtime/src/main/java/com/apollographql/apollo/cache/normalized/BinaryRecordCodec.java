@@ -0,0 +1,361 @@
+package com.apollographql.apollo.cache.normalized;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.apollographql.apollo.api.internal.Utils.checkNotNull;
+
+/**
+ * Compact binary encoding of {@link Record} fields for persistent caches, an alternative to the JSON of
+ * {@link RecordFieldAdapter}. Every value is prefixed with a type tag, {@link CacheReference}s have a tag of their
+ * own, and strings, including field keys, are prefixed with their length. Decoding neither tokenizes JSON nor matches
+ * strings against the serialized cache reference form, and preserves the types of numbers. Values of other types,
+ * such as custom scalars, are stored as JSON written by the {@link RecordFieldAdapter} and are read back the same way
+ * as from JSON records.
+ *
+ * <p>Records are encoded as a format version, the time the record was received, the number of fields and the fields,
+ * each as its key followed by its value. Lengths and counts are unsigned varints, longs are zig-zag encoded varints.
+ * Records of the first format version have no received time, and are decoded with
+ * {@link Record#UNKNOWN_RECEIVED_AT}. Single values are encoded as a format version followed by the value.</p>
+ */
+public final class BinaryRecordCodec {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int FORMAT_VERSION = 2;
+  private static final int FORMAT_VERSION_WITHOUT_RECEIVED_AT = 1;
+  private static final int VALUE_FORMAT_VERSION = 1;
+
+  private static final int TAG_NULL = 0;
+  private static final int TAG_STRING = 1;
+  private static final int TAG_TRUE = 2;
+  private static final int TAG_FALSE = 3;
+  private static final int TAG_LONG = 4;
+  private static final int TAG_DOUBLE = 5;
+  private static final int TAG_BIG_DECIMAL = 6;
+  private static final int TAG_CACHE_REFERENCE = 7;
+  private static final int TAG_LIST = 8;
+  private static final int TAG_MAP = 9;
+  private static final int TAG_JSON = 10;
+
+  private final RecordFieldAdapter recordFieldAdapter;
+
+  private BinaryRecordCodec(RecordFieldAdapter recordFieldAdapter) {
+    this.recordFieldAdapter = recordFieldAdapter;
+  }
+
+  /**
+   * @param recordFieldAdapter adapter used for values of types without a binary encoding, such as custom scalars
+   */
+  public static BinaryRecordCodec create(RecordFieldAdapter recordFieldAdapter) {
+    return new BinaryRecordCodec(checkNotNull(recordFieldAdapter, "recordFieldAdapter == null"));
+  }
+
+  /**
+   * @param record the record
+   * @return the encoded fields and received time of the record
+   */
+  public byte[] encode(Record record) {
+    return encode(record.fields(), record.receivedAtMillis());
+  }
+
+  /**
+   * @param fields fields of a record
+   * @return the encoded fields, with an unknown received time
+   */
+  public byte[] encode(Map<String, Object> fields) {
+    return encode(fields, Record.UNKNOWN_RECEIVED_AT);
+  }
+
+  private byte[] encode(Map<String, Object> fields, long receivedAtMillis) {
+    Output output = new Output();
+    output.writeByte(FORMAT_VERSION);
+    output.writeSignedVarint(receivedAtMillis);
+    writeFields(output, fields);
+    return output.toByteArray();
+  }
+
+  /**
+   * @param key   key of the record
+   * @param bytes record encoded with {@link #encode(Record)}
+   * @return the decoded record
+   * @throws IOException if the bytes are not valid encoded fields
+   */
+  public Record decode(String key, byte[] bytes) throws IOException {
+    return decode(key, bytes, 0, bytes.length);
+  }
+
+  /**
+   * @param key    key of the record
+   * @param bytes  buffer holding a record encoded with {@link #encode(Record)}
+   * @param offset offset of the encoded record in the buffer
+   * @param length length of the encoded record
+   * @return the decoded record
+   * @throws IOException if the bytes are not valid encoded fields
+   */
+  public Record decode(String key, byte[] bytes, int offset, int length) throws IOException {
+    Input input = new Input(bytes, offset, offset + length);
+    int formatVersion = input.readByte();
+    Record.Builder builder = Record.builder(key);
+    if (formatVersion == FORMAT_VERSION) {
+      builder.receivedAtMillis(input.readSignedVarint());
+    } else if (formatVersion != FORMAT_VERSION_WITHOUT_RECEIVED_AT) {
+      throw new IOException("Unsupported record format version: " + formatVersion);
+    }
+    for (int count = input.readCount(); count > 0; count--) {
+      builder.addField(input.readString(), readValue(input));
+    }
+    if (input.position != input.limit) {
+      throw new IOException("Unexpected bytes after record fields");
+    }
+    return builder.build();
+  }
+
+  /**
+   * @param value value of a single record field
+   * @return the encoded value
+   */
+  public byte[] encodeValue(Object value) {
+    Output output = new Output();
+    output.writeByte(VALUE_FORMAT_VERSION);
+    writeValue(output, value);
+    return output.toByteArray();
+  }
+
+  /**
+   * @param bytes value encoded with {@link #encodeValue(Object)}
+   * @return the decoded value
+   * @throws IOException if the bytes are not a valid encoded value
+   */
+  public Object decodeValue(byte[] bytes) throws IOException {
+    Input input = new Input(bytes, 0, bytes.length);
+    int formatVersion = input.readByte();
+    if (formatVersion != VALUE_FORMAT_VERSION) {
+      throw new IOException("Unsupported value format version: " + formatVersion);
+    }
+    Object value = readValue(input);
+    if (input.position != input.limit) {
+      throw new IOException("Unexpected bytes after field value");
+    }
+    return value;
+  }
+
+  private void writeFields(Output output, Map<?, ?> fields) {
+    output.writeVarint(fields.size());
+    for (Map.Entry<?, ?> field : fields.entrySet()) {
+      output.writeString((String) field.getKey());
+      writeValue(output, field.getValue());
+    }
+  }
+
+  private void writeValue(Output output, Object value) {
+    if (value == null) {
+      output.writeByte(TAG_NULL);
+    } else if (value instanceof String) {
+      output.writeByte(TAG_STRING);
+      output.writeString((String) value);
+    } else if (value instanceof Boolean) {
+      output.writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+    } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      output.writeByte(TAG_LONG);
+      output.writeSignedVarint(((Number) value).longValue());
+    } else if (value instanceof Double || value instanceof Float) {
+      output.writeByte(TAG_DOUBLE);
+      output.writeFixed64(Double.doubleToLongBits(((Number) value).doubleValue()));
+    } else if (value instanceof Number) {
+      BigDecimal decimal = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+      output.writeByte(TAG_BIG_DECIMAL);
+      output.writeSignedVarint(decimal.scale());
+      byte[] unscaledValue = decimal.unscaledValue().toByteArray();
+      output.writeVarint(unscaledValue.length);
+      output.writeBytes(unscaledValue);
+    } else if (value instanceof CacheReference) {
+      output.writeByte(TAG_CACHE_REFERENCE);
+      output.writeString(((CacheReference) value).key());
+    } else if (value instanceof List) {
+      List<?> list = (List<?>) value;
+      output.writeByte(TAG_LIST);
+      output.writeVarint(list.size());
+      for (Object item : list) {
+        writeValue(output, item);
+      }
+    } else if (value instanceof Map) {
+      output.writeByte(TAG_MAP);
+      writeFields(output, (Map<?, ?>) value);
+    } else {
+      output.writeByte(TAG_JSON);
+      output.writeString(recordFieldAdapter.valueToJson(value));
+    }
+  }
+
+  private Object readValue(Input input) throws IOException {
+    int tag = input.readByte();
+    switch (tag) {
+      case TAG_NULL:
+        return null;
+      case TAG_STRING:
+        return input.readString();
+      case TAG_TRUE:
+        return Boolean.TRUE;
+      case TAG_FALSE:
+        return Boolean.FALSE;
+      case TAG_LONG:
+        return input.readSignedVarint();
+      case TAG_DOUBLE:
+        return Double.longBitsToDouble(input.readFixed64());
+      case TAG_BIG_DECIMAL:
+        int scale = (int) input.readSignedVarint();
+        return new BigDecimal(new BigInteger(input.readBytes(input.readCount())), scale);
+      case TAG_CACHE_REFERENCE:
+        return new CacheReference(input.readString());
+      case TAG_LIST:
+        int size = input.readCount();
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          list.add(readValue(input));
+        }
+        return list;
+      case TAG_MAP:
+        int count = input.readCount();
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+          map.put(input.readString(), readValue(input));
+        }
+        return map;
+      case TAG_JSON:
+        return recordFieldAdapter.valueFromJson(input.readString());
+      default:
+        throw new IOException("Unknown field type tag: " + tag);
+    }
+  }
+
+  private static final class Output {
+    private byte[] bytes = new byte[256];
+    private int size;
+
+    void writeByte(int value) {
+      ensureCapacity(1);
+      bytes[size++] = (byte) value;
+    }
+
+    void writeBytes(byte[] value) {
+      ensureCapacity(value.length);
+      System.arraycopy(value, 0, bytes, size, value.length);
+      size += value.length;
+    }
+
+    void writeVarint(long value) {
+      ensureCapacity(10);
+      while ((value & ~0x7FL) != 0) {
+        bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      bytes[size++] = (byte) value;
+    }
+
+    void writeSignedVarint(long value) {
+      writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    void writeFixed64(long value) {
+      ensureCapacity(8);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        bytes[size++] = (byte) (value >>> shift);
+      }
+    }
+
+    void writeString(String value) {
+      byte[] utf8 = value.getBytes(UTF_8);
+      writeVarint(utf8.length);
+      writeBytes(utf8);
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(bytes, size);
+    }
+
+    private void ensureCapacity(int count) {
+      if (size + count > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + count));
+      }
+    }
+  }
+
+  private static final class Input {
+    private final byte[] bytes;
+    private final int limit;
+    private int position;
+
+    Input(byte[] bytes, int position, int limit) {
+      this.bytes = bytes;
+      this.position = position;
+      this.limit = limit;
+    }
+
+    int readByte() throws IOException {
+      require(1);
+      return bytes[position++] & 0xFF;
+    }
+
+    byte[] readBytes(int count) throws IOException {
+      require(count);
+      byte[] value = Arrays.copyOfRange(bytes, position, position + count);
+      position += count;
+      return value;
+    }
+
+    long readVarint() throws IOException {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        int b = readByte();
+        value |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IOException("Malformed varint");
+    }
+
+    long readSignedVarint() throws IOException {
+      long value = readVarint();
+      return (value >>> 1) ^ -(value & 1);
+    }
+
+    int readCount() throws IOException {
+      long count = readVarint();
+      if (count > limit - position) {
+        // every counted element takes at least one byte
+        throw new EOFException();
+      }
+      return (int) count;
+    }
+
+    long readFixed64() throws IOException {
+      require(8);
+      long value = 0;
+      for (int i = 0; i < 8; i++) {
+        value = (value << 8) | (bytes[position++] & 0xFF);
+      }
+      return value;
+    }
+
+    String readString() throws IOException {
+      int length = readCount();
+      String value = new String(bytes, position, length, UTF_8);
+      position += length;
+      return value;
+    }
+
+    private void require(int count) throws IOException {
+      if (count > limit - position) {
+        throw new EOFException();
+      }
+    }
+  }
+}
@@ -34,4 +34,13 @@ public enum CacheControl {
    * exception is thrown.
    */
   NETWORK_ONLY,
+  /**
+   * Signals the apollo client to fetch the data from the normalized cache, and to fetch it from the network only if
+   * the cached data is missing or stale. Cached data is fresh if none of its records is older than the
+   * {@link com.apollographql.apollo.cache.ApolloCacheHeaders#MAX_AGE} header, without this header all cached data is
+   * stale. Stale data is returned immediately, while a single request revalidates it in the background and writes the
+   * network response to the normalized cache, so that query watchers receive the revalidated data. Missing data is
+   * fetched from the network, as with {@link #CACHE_FIRST}.
+   */
+  STALE_WHILE_REVALIDATE,
 }
@@ -0,0 +1,37 @@
+package com.apollographql.apollo.cache.normalized;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A garbage collection of an {@link ApolloStore} that runs in slices, see {@link ApolloStore#incrementalGc()}. Every
+ * slice holds the write lock of the store, so a collection can run on a background thread in slices short enough not
+ * to delay other writes.
+ */
+public interface GarbageCollection {
+
+  /**
+   * Marks reachable records and removes unreachable ones for about the given time. Does some work even if the time is
+   * shorter than a single batch of records. Unreachable records that a read transaction in progress may still read
+   * stay visible to it until it ends.
+   *
+   * @param time the time the slice should take
+   * @param unit the unit of the time
+   * @return {@code true} if the collection is complete
+   */
+  boolean runFor(long time, TimeUnit unit);
+
+  /**
+   * @return {@code true} if every unreachable record has been removed, or the normalized cache can not list its keys
+   */
+  boolean isComplete();
+
+  /**
+   * @return the count of records removed so far
+   */
+  int removedCount();
+
+  /**
+   * Stops the collection. Records not removed yet are kept.
+   */
+  void cancel();
+}
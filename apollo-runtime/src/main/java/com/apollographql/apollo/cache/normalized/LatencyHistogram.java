@@ -0,0 +1,122 @@
+package com.apollographql.apollo.cache.normalized;
+
+import java.util.Arrays;
+
+import static com.apollographql.apollo.api.internal.Utils.checkNotNull;
+
+/**
+ * A snapshot of the distribution of durations, in buckets that double in size: bucket {@code 0} counts durations of
+ * {@code 0} nanoseconds and bucket {@code i} counts durations from {@code 2^(i-1)} to {@code 2^i - 1} nanoseconds.
+ * Percentiles are reported as the upper bound of their bucket, so they are at most twice the exact value.
+ */
+public final class LatencyHistogram {
+  public static final int BUCKET_COUNT = 48;
+  public static final LatencyHistogram EMPTY = new LatencyHistogram(new long[BUCKET_COUNT], 0);
+
+  private final long[] bucketCounts;
+  private final long totalNanos;
+  private final long count;
+
+  /**
+   * @param bucketCounts The number of durations in each of the {@link #BUCKET_COUNT} buckets.
+   * @param totalNanos   The sum of all durations.
+   */
+  public LatencyHistogram(long[] bucketCounts, long totalNanos) {
+    checkNotNull(bucketCounts, "bucketCounts == null");
+    if (bucketCounts.length != BUCKET_COUNT) {
+      throw new IllegalArgumentException("bucketCounts.length != " + BUCKET_COUNT);
+    }
+    this.bucketCounts = bucketCounts.clone();
+    this.totalNanos = totalNanos;
+    long count = 0;
+    for (long bucketCount : bucketCounts) {
+      count += bucketCount;
+    }
+    this.count = count;
+  }
+
+  /**
+   * @return The bucket that counts a duration.
+   */
+  public static int bucketOf(long nanos) {
+    return Math.min(BUCKET_COUNT - 1, Long.SIZE - Long.numberOfLeadingZeros(Math.max(0, nanos)));
+  }
+
+  /**
+   * @return The longest duration counted by a bucket.
+   */
+  public static long bucketUpperBoundNanos(int bucket) {
+    return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+  }
+
+  public long count() {
+    return count;
+  }
+
+  public long totalNanos() {
+    return totalNanos;
+  }
+
+  public long meanNanos() {
+    return count == 0 ? 0 : totalNanos / count;
+  }
+
+  public long bucketCount(int bucket) {
+    return bucketCounts[bucket];
+  }
+
+  /**
+   * @param percentile The percentile, from 0 to 100.
+   * @return The upper bound of the bucket that holds the percentile, or {@code 0} if no duration was counted.
+   */
+  public long percentileNanos(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("percentile must be between 0 and 100");
+    }
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      seen += bucketCounts[bucket];
+      if (seen >= rank) {
+        return bucketUpperBoundNanos(bucket);
+      }
+    }
+    return bucketUpperBoundNanos(BUCKET_COUNT - 1);
+  }
+
+  /**
+   * @return The durations counted by this histogram and not by an earlier snapshot of it, to report an interval.
+   */
+  public LatencyHistogram since(LatencyHistogram earlier) {
+    long[] counts = new long[BUCKET_COUNT];
+    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      counts[bucket] = bucketCounts[bucket] - earlier.bucketCounts[bucket];
+    }
+    return new LatencyHistogram(counts, totalNanos - earlier.totalNanos);
+  }
+
+  @Override public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof LatencyHistogram)) return false;
+
+    LatencyHistogram that = (LatencyHistogram) o;
+
+    return totalNanos == that.totalNanos && Arrays.equals(bucketCounts, that.bucketCounts);
+  }
+
+  @Override public int hashCode() {
+    return 31 * Arrays.hashCode(bucketCounts) + (int) (totalNanos ^ (totalNanos >>> 32));
+  }
+
+  @Override public String toString() {
+    return "LatencyHistogram{"
+        + "count=" + count
+        + ", meanNanos=" + meanNanos()
+        + ", p50Nanos=" + percentileNanos(50)
+        + ", p99Nanos=" + percentileNanos(99)
+        + '}';
+  }
+}
@@ -1,9 +1,13 @@
 package com.apollographql.apollo.cache.normalized;
 
 import com.apollographql.apollo.ApolloClient;
+import com.apollographql.apollo.api.internal.Optional;
 import com.apollographql.apollo.cache.CacheHeaders;
 import com.apollographql.apollo.cache.ApolloCacheHeaders;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashSet;
@@ -70,10 +74,22 @@ public abstract class NormalizedCache {
     return records;
   }
 
+  /**
+   * Calls through to {@link NormalizedCache#loadRecords(Collection, CacheHeaders)}. Used by an {@link ApolloStore} to
+   * read records a write is about to replace, which are not requested by any operation. Implementations should
+   * override this method if loading records has side effects, such as copying them to faster storage, counting hits
+   * and misses or deciding which records to evict, so that these reads do not affect them.
+   *
+   * @param keys The set of {@link Record} keys to read.
+   */
+  @Nonnull public Collection<Record> peekRecords(@Nonnull Collection<String> keys) {
+    return loadRecords(keys, CacheHeaders.NONE);
+  }
+
   /**
    * @param record       The {@link Record} to merge.
    * @param cacheHeaders The {@link CacheHeaders} associated with the request which generated this record.
-   * @return A set of record field keys that have changed. This set is returned by {@link Record#mergeWith(Record)}.
+   * @return A set of record field keys that have changed. This set is filled by {@link Record#mergeWith(Record, Set)}.
    */
   @Nonnull public abstract Set<String> merge(@Nonnull Record record, @Nonnull CacheHeaders cacheHeaders);
 
@@ -84,7 +100,7 @@ public abstract class NormalizedCache {
    *
    * @param recordSet    The set of Records to merge.
    * @param cacheHeaders The {@link CacheHeaders} associated with the request which generated this record.
-   * @return A set of record field keys that have changed. This set is returned by {@link Record#mergeWith(Record)}.
+   * @return A set of record field keys that have changed. This set is filled by {@link Record#mergeWith(Record, Set)}.
    */
   @Nonnull public Set<String> merge(@Nonnull Collection<Record> recordSet, @Nonnull CacheHeaders cacheHeaders) {
     Set<String> aggregatedDependentKeys = new LinkedHashSet<>();
@@ -94,6 +110,52 @@ public abstract class NormalizedCache {
     return aggregatedDependentKeys;
   }
 
+  /**
+   * Lists the keys of all records in the cache. A
+   * {@link com.apollographql.apollo.cache.normalized.lru.LruNormalizedCache} calls this once on its secondary cache,
+   * to skip reading keys it knows are missing. Implementations should override this method if the underlying storage
+   * technology can list its keys.
+   *
+   * @return The keys of all records in the cache, or {@link Optional#absent()} if they can not be listed.
+   */
+  @Nonnull public Optional<Set<String>> recordKeys() {
+    return Optional.absent();
+  }
+
+  /**
+   * Writes the records the cache keeps in memory, so that {@link #readSnapshot(InputStream)} can bulk load them after
+   * a restart instead of reading them one by one from persistent storage. Implementations should override this method
+   * if they keep records in memory in front of slower storage.
+   *
+   * @param out The stream to write the snapshot to.
+   * @return The number of records written, {@code 0} if the cache does not write snapshots.
+   */
+  public int writeSnapshot(@Nonnull OutputStream out) throws IOException {
+    return 0;
+  }
+
+  /**
+   * Loads the records of a snapshot written by {@link #writeSnapshot(OutputStream)} in memory, without writing them to
+   * persistent storage. Records already in memory are kept.
+   *
+   * @param in The stream to read the snapshot from.
+   * @return The number of records loaded, {@code 0} if the cache does not read snapshots.
+   * @throws IOException if the snapshot can not be read, in which case no record is loaded
+   */
+  public int readSnapshot(@Nonnull InputStream in) throws IOException {
+    return 0;
+  }
+
+  /**
+   * Reports the counters of the cache. Implementations should override this method if they keep counters, and keep
+   * taking a snapshot cheap enough to be done every second.
+   *
+   * @return A snapshot of the counters of the cache, or {@link Optional#absent()} if it keeps none.
+   */
+  @Nonnull public Optional<NormalizedCacheStats> stats() {
+    return Optional.absent();
+  }
+
   /**
    * Clears all records from the cache.
    *
@@ -109,4 +171,21 @@ public abstract class NormalizedCache {
    * @return {@code true} if record with such key was successfully removed, {@code false} otherwise
    */
   public abstract boolean remove(@Nonnull CacheKey cacheKey);
+
+  /**
+   * Calls through to {@link NormalizedCache#remove(CacheKey)}. Implementations should override this method if the
+   * underlying storage technology can offer an optimized manner to remove multiple records.
+   *
+   * @param cacheKeys keys of records to be removed
+   * @return the count of records removed
+   */
+  public int remove(@Nonnull Collection<CacheKey> cacheKeys) {
+    int count = 0;
+    for (CacheKey cacheKey : cacheKeys) {
+      if (remove(cacheKey)) {
+        count++;
+      }
+    }
+    return count;
+  }
 }
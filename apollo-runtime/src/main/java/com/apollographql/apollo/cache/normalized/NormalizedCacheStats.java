@@ -0,0 +1,151 @@
+package com.apollographql.apollo.cache.normalized;
+
+import com.apollographql.apollo.api.internal.Optional;
+
+import static com.apollographql.apollo.api.internal.Utils.checkNotNull;
+
+/**
+ * A snapshot of the counters of a {@link NormalizedCache}, see {@link NormalizedCache#stats()}. Counts only grow, so
+ * the activity during an interval is the difference between two snapshots.
+ *
+ * <p>A cache with a secondary cache, like {@link com.apollographql.apollo.cache.normalized.lru.LruNormalizedCache},
+ * reports the counters of its own tier, and the counters of the secondary cache in {@link #secondaryCacheStats()}.
+ * A record missing from the first tier is counted as a miss there, and as a hit or a miss in the next.</p>
+ */
+public final class NormalizedCacheStats {
+  public static final long UNKNOWN = -1;
+
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final long recordCount;
+  private final long sizeEstimateBytes;
+  private final LatencyHistogram loadLatency;
+  private final Optional<NormalizedCacheStats> secondaryCacheStats;
+
+  /**
+   * @return The number of records found by loads.
+   */
+  public long hitCount() {
+    return hitCount;
+  }
+
+  /**
+   * @return The number of records requested by loads and not found.
+   */
+  public long missCount() {
+    return missCount;
+  }
+
+  /**
+   * @return The number of records the cache dropped to stay within its limits, or that expired.
+   */
+  public long evictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * @return The number of records in the cache, or {@link #UNKNOWN}.
+   */
+  public long recordCount() {
+    return recordCount;
+  }
+
+  /**
+   * @return The estimated number of bytes the records take up, or {@link #UNKNOWN}.
+   */
+  public long sizeEstimateBytes() {
+    return sizeEstimateBytes;
+  }
+
+  /**
+   * @return The durations of calls to {@link NormalizedCache#loadRecord(String,
+   * com.apollographql.apollo.cache.CacheHeaders)} and {@link NormalizedCache#loadRecords(java.util.Collection,
+   * com.apollographql.apollo.cache.CacheHeaders)}, including the loads from a secondary cache.
+   */
+  public LatencyHistogram loadLatency() {
+    return loadLatency;
+  }
+
+  public Optional<NormalizedCacheStats> secondaryCacheStats() {
+    return secondaryCacheStats;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @Override public String toString() {
+    return "NormalizedCacheStats{"
+        + "hitCount=" + hitCount
+        + ", missCount=" + missCount
+        + ", evictionCount=" + evictionCount
+        + ", recordCount=" + recordCount
+        + ", sizeEstimateBytes=" + sizeEstimateBytes
+        + ", loadLatency=" + loadLatency
+        + ", secondaryCacheStats=" + secondaryCacheStats.orNull()
+        + '}';
+  }
+
+  public static final class Builder {
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long recordCount = UNKNOWN;
+    private long sizeEstimateBytes = UNKNOWN;
+    private LatencyHistogram loadLatency = LatencyHistogram.EMPTY;
+    private Optional<NormalizedCacheStats> secondaryCacheStats = Optional.absent();
+
+    private Builder() {
+    }
+
+    public Builder hitCount(long hitCount) {
+      this.hitCount = hitCount;
+      return this;
+    }
+
+    public Builder missCount(long missCount) {
+      this.missCount = missCount;
+      return this;
+    }
+
+    public Builder evictionCount(long evictionCount) {
+      this.evictionCount = evictionCount;
+      return this;
+    }
+
+    public Builder recordCount(long recordCount) {
+      this.recordCount = recordCount;
+      return this;
+    }
+
+    public Builder sizeEstimateBytes(long sizeEstimateBytes) {
+      this.sizeEstimateBytes = sizeEstimateBytes;
+      return this;
+    }
+
+    public Builder loadLatency(LatencyHistogram loadLatency) {
+      this.loadLatency = checkNotNull(loadLatency, "loadLatency == null");
+      return this;
+    }
+
+    public Builder secondaryCacheStats(Optional<NormalizedCacheStats> secondaryCacheStats) {
+      this.secondaryCacheStats = checkNotNull(secondaryCacheStats, "secondaryCacheStats == null");
+      return this;
+    }
+
+    public NormalizedCacheStats build() {
+      return new NormalizedCacheStats(this);
+    }
+  }
+
+  private NormalizedCacheStats(Builder builder) {
+    this.hitCount = builder.hitCount;
+    this.missCount = builder.missCount;
+    this.evictionCount = builder.evictionCount;
+    this.recordCount = builder.recordCount;
+    this.sizeEstimateBytes = builder.sizeEstimateBytes;
+    this.loadLatency = builder.loadLatency;
+    this.secondaryCacheStats = builder.secondaryCacheStats;
+  }
+}
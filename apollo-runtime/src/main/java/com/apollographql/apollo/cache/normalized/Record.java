@@ -10,38 +10,74 @@ import java.util.Set;
 /**
  * A normalized entry that corresponds to a response object. Object fields are stored
  * if they are a GraphQL Scalars. If a field is a GraphQL Object a {@link CacheReference} will be stored instead.
+ *
+ * <p>Records are treated as immutable: merging creates a new record and leaves the merged ones untouched, so a record
+ * read from the cache can be used without holding any lock while other records are written. Records never share
+ * their field maps, so the deprecated ways of modifying a record in place only affect that record.</p>
+ *
+ * <p>A record carries the time its fields were last received from the network, see {@link #receivedAtMillis()}, that
+ * cache reads compare to {@link com.apollographql.apollo.cache.ApolloCacheHeaders#MAX_AGE}.</p>
  */
 public final class Record {
+  public static final long UNKNOWN_RECEIVED_AT = -1;
 
   private final String key;
   private final Map<String, Object> fields;
   private static final int UNKNOWN_SIZE_ESTIMATE = -1;
   private volatile int sizeInBytes = UNKNOWN_SIZE_ESTIMATE;
+  private volatile long receivedAtMillis;
 
   public static class Builder {
-    private final Map<String, Object> fields;
+    private Map<String, Object> fields;
     private final String key;
+    private boolean fieldsShared;
+    private long receivedAtMillis = UNKNOWN_RECEIVED_AT;
 
     public Builder(String key) {
-      this(key, new LinkedHashMap<String, Object>());
+      this.key = key;
+      this.fields = new LinkedHashMap<>();
     }
 
     public Builder(String key, Map<String, Object> fields) {
       this.key = key;
-      this.fields = fields;
+      this.fields = new LinkedHashMap<>(fields);
+    }
+
+    Builder(Record record) {
+      this.key = record.key;
+      this.fields = new LinkedHashMap<>(record.fields);
+      this.receivedAtMillis = record.receivedAtMillis;
     }
 
     public Builder addField(String key, Object value) {
+      if (fieldsShared) {
+        fields = new LinkedHashMap<>(fields);
+        fieldsShared = false;
+      }
       fields.put(key, value);
       return this;
     }
 
+    /**
+     * @param receivedAtMillis The time, in milliseconds since the epoch, the fields were received from the network, or
+     *                         {@link #UNKNOWN_RECEIVED_AT}.
+     */
+    public Builder receivedAtMillis(long receivedAtMillis) {
+      this.receivedAtMillis = receivedAtMillis;
+      return this;
+    }
+
     public String key() {
       return key;
     }
 
     public Record build() {
-      return new Record(key, fields);
+      // the built record owns the fields, the builder copies them if it is used again
+      if (fieldsShared) {
+        fields = new LinkedHashMap<>(fields);
+      }
+      fieldsShared = true;
+      return new Record(key, fields, UNKNOWN_SIZE_ESTIMATE, receivedAtMillis);
     }
   }
 
@@ -50,17 +86,22 @@ public final class Record {
   }
 
   public Builder toBuilder() {
-    return new Builder(key(), this.fields);
+    return new Builder(this);
   }
 
   public Record(String cacheKey) {
-    this.key = cacheKey;
-    fields = new LinkedHashMap<>();
+    this(cacheKey, new LinkedHashMap<String, Object>(), UNKNOWN_SIZE_ESTIMATE, UNKNOWN_RECEIVED_AT);
   }
 
   public Record(String key, Map<String, Object> fields) {
+    this(key, new LinkedHashMap<>(fields), UNKNOWN_SIZE_ESTIMATE, UNKNOWN_RECEIVED_AT);
+  }
+
+  private Record(String key, Map<String, Object> fields, int sizeInBytes, long receivedAtMillis) {
     this.key = key;
     this.fields = fields;
+    this.sizeInBytes = sizeInBytes;
+    this.receivedAtMillis = receivedAtMillis;
   }
 
   public Object field(String fieldKey) {
@@ -76,47 +117,110 @@ public final class Record {
   }
 
   /**
+   * Merges the fields of another record with the fields of this record. Neither record is modified.
+   *
    * @param otherRecord The record to merge into this record.
-   * @return A set of field keys which have changed, or were added. A field key incorporates any GraphQL arguments in
-   * addition to the field name.
+   * @param changedKeys The set to add field keys which have changed, or were added, to. A field key incorporates any
+   *                    GraphQL arguments in addition to the field name.
+   * @return The merged record, or this record if no field has changed and the received time is the same. The merged
+   * record was received at the later time of the two records if the other record has every field of this record, at
+   * the earlier time otherwise.
    */
-  public Set<String> mergeWith(Record otherRecord) {
-    Set<String> changedKeys = new HashSet<>();
+  public Record mergeWith(Record otherRecord, Set<String> changedKeys) {
+    Map<String, Object> mergedFields = null;
+    int sizeChange = 0;
+    boolean sizeKnown = sizeInBytes != UNKNOWN_SIZE_ESTIMATE;
     for (Map.Entry<String, Object> field : otherRecord.fields.entrySet()) {
       Object newFieldValue = field.getValue();
       Object oldFieldValue = this.fields.get(field.getKey());
       if ((oldFieldValue == null && newFieldValue != null)
           || (oldFieldValue != null && !oldFieldValue.equals(newFieldValue))) {
-        this.fields.put(field.getKey(), newFieldValue);
+        if (mergedFields == null) {
+          mergedFields = new LinkedHashMap<>(fields);
+        }
+        mergedFields.put(field.getKey(), newFieldValue);
         changedKeys.add(key() + "." + field.getKey());
-        adjustSizeEstimate(newFieldValue, oldFieldValue);
+        if (sizeKnown) {
+          sizeChange += oldFieldValue == null && !fields.containsKey(field.getKey())
+              ? RecordWeigher.fieldBytes(field.getKey(), newFieldValue)
+              : RecordWeigher.byteChange(newFieldValue, oldFieldValue);
+        }
       }
     }
+    // fields the other record does not have keep their age, so only a record with every field can make this fresher
+    long mergedReceivedAtMillis = otherRecord.fields.keySet().containsAll(fields.keySet())
+        ? Math.max(receivedAtMillis, otherRecord.receivedAtMillis)
+        : Math.min(receivedAtMillis, otherRecord.receivedAtMillis);
+    if (mergedFields == null) {
+      return mergedReceivedAtMillis == receivedAtMillis ? this
+          : new Record(key, new LinkedHashMap<>(fields), sizeInBytes, mergedReceivedAtMillis);
+    }
+    if (!sizeKnown) {
+      return new Record(key, mergedFields, UNKNOWN_SIZE_ESTIMATE, mergedReceivedAtMillis);
+    }
+    sizeChange += RecordWeigher.fieldCountChange(fields.size(), mergedFields.size());
+    return new Record(key, mergedFields, sizeInBytes + sizeChange, mergedReceivedAtMillis);
+  }
+
+  /**
+   * Merges the fields of another record into this record, modifying it.
+   *
+   * @param otherRecord The record to merge into this record.
+   * @return A set of field keys which have changed, or were added. A field key incorporates any GraphQL arguments in
+   * addition to the field name.
+   * @deprecated A record stored in a cache may be read concurrently by an {@link ApolloStore} without holding a lock,
+   * use {@link #mergeWith(Record, Set)} and store the merged record instead.
+   */
+  @Deprecated public Set<String> mergeWith(Record otherRecord) {
+    Set<String> changedKeys = new HashSet<>();
+    Record mergedRecord = mergeWith(otherRecord, changedKeys);
+    if (mergedRecord != this) {
+      fields.putAll(mergedRecord.fields);
+      sizeInBytes = mergedRecord.sizeInBytes;
+      receivedAtMillis = mergedRecord.receivedAtMillis;
+    }
     return changedKeys;
   }
 
   /**
    * @return A map of fieldName to fieldValue. Where fieldValue is a GraphQL Scalar or {@link CacheReference} if it is a
-   * GraphQL Object type.
+   * GraphQL Object type. The map should be treated as read only: it can still be modified for compatibility, but that
+   * is deprecated for the same reason as {@link #mergeWith(Record)}, use {@link #toBuilder()} instead.
    */
   public Map<String, Object> fields() {
     return fields;
   }
 
   /**
-   * @return An approximate number of bytes this Record takes up.
+   * @return The time, in milliseconds since the epoch, the fields of this record were last received from the network,
+   * or {@link #UNKNOWN_RECEIVED_AT} if the record was written before received times were kept.
    */
-  public int sizeEstimateBytes() {
-    if (sizeInBytes == UNKNOWN_SIZE_ESTIMATE) {
-      sizeInBytes = RecordWeigher.calculateBytes(this);
-    }
-    return sizeInBytes;
+  public long receivedAtMillis() {
+    return receivedAtMillis;
   }
 
-  private void adjustSizeEstimate(Object newFieldValue, Object oldFieldValue) {
-    if (sizeInBytes != UNKNOWN_SIZE_ESTIMATE) {
-      sizeInBytes += RecordWeigher.byteChange(newFieldValue, oldFieldValue);
+  /**
+   * @return Whether this record was received more than {@code maxAgeMillis} before {@code nowMillis}. A record with
+   * an unknown received time is always stale.
+   */
+  public boolean isStale(long nowMillis, long maxAgeMillis) {
+    return receivedAtMillis == UNKNOWN_RECEIVED_AT || nowMillis - receivedAtMillis > maxAgeMillis;
+  }
+
+  /**
+   * @return An approximate number of bytes of heap this Record retains, including its key, field keys and field values.
+   * Computed on first use without allocating, then carried over to merged records incrementally.
+   */
+  public int sizeEstimateBytes() {
+    int size = sizeInBytes;
+    if (size == UNKNOWN_SIZE_ESTIMATE) {
+      size = RecordWeigher.recordBytes(key, fields.size());
+      for (Map.Entry<String, Object> field : fields.entrySet()) {
+        size += RecordWeigher.fieldBytes(field.getKey(), field.getValue());
+      }
+      sizeInBytes = size;
     }
+    return size;
   }
 
 }
@@ -11,6 +11,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
+import java.util.Collections;
 import java.util.Map;
 
 import okio.BufferedSource;
@@ -21,9 +22,15 @@ import static com.apollographql.apollo.internal.json.ApolloJsonReader.cacheJsonS
 
 /**
  * An adapter used to serialize and deserialize Record fields. Record object types will be serialized to
- * {@link CacheReference}.
+ * {@link CacheReference}. Numbers are read back as {@link Long} or {@link Double}, or as {@link BigDecimal} if they
+ * can't be represented by either of them without loss of precision.
+ *
+ * <p>Doubles are written without a trailing zero or the exponent {@link Double#toString(double)} uses for large
+ * values, so that a double parsed from a response is read back as a double, and custom type adapters are given the
+ * same text for it whether it is read from the network or from the cache.</p>
  */
 public final class RecordFieldAdapter {
+  private static final String SINGLE_VALUE_KEY = "value";
   private final JsonAdapter<Map<String, Object>> serializationAdapter;
 
   private RecordFieldAdapter(Moshi moshi) {
@@ -35,6 +42,7 @@ public final class RecordFieldAdapter {
     Moshi moshi = baseMoshi.newBuilder()
         .add(CacheReference.class, new CacheReferenceAdapter())
         .add(BigDecimal.class, new BigDecimalAdapter())
+        .add(Double.class, new DoubleAdapter())
         .build();
     return new RecordFieldAdapter(moshi);
   }
@@ -54,6 +62,14 @@ public final class RecordFieldAdapter {
     return from(bufferSource);
   }
 
+  String valueToJson(Object value) {
+    return serializationAdapter.toJson(Collections.singletonMap(SINGLE_VALUE_KEY, value));
+  }
+
+  Object valueFromJson(String json) throws IOException {
+    return from(json).get(SINGLE_VALUE_KEY);
+  }
+
   private static class CacheReferenceAdapter extends JsonAdapter<CacheReference> {
 
     @Override public CacheReference fromJson(JsonReader reader) throws IOException {
@@ -75,4 +91,19 @@ public final class RecordFieldAdapter {
       writer.value(value);
     }
   }
+
+  private static class DoubleAdapter extends JsonAdapter<Double> {
+
+    @Override public Double fromJson(JsonReader reader) throws IOException {
+      throw new IllegalStateException(this.getClass().getName() + " should only be used for serialization.");
+    }
+
+    @Override public void toJson(JsonWriter writer, Double value) throws IOException {
+      if (value.isNaN() || value.isInfinite()) {
+        writer.value(value.doubleValue());
+      } else {
+        writer.value(BigDecimal.valueOf(value).stripTrailingZeros());
+      }
+    }
+  }
 }
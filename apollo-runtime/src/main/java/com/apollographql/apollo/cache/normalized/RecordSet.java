@@ -2,6 +2,7 @@ package com.apollographql.apollo.cache.normalized;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
@@ -20,7 +21,9 @@ public final class RecordSet {
       recordMap.put(apolloRecord.key(), apolloRecord);
       return Collections.emptySet();
     } else {
-      return oldRecord.mergeWith(apolloRecord);
+      Set<String> changedKeys = new HashSet<>();
+      recordMap.put(apolloRecord.key(), oldRecord.mergeWith(apolloRecord, changedKeys));
+      return changedKeys;
     }
   }
 
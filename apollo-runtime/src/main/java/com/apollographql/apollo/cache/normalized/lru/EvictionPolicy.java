@@ -18,6 +18,7 @@ public final class EvictionPolicy {
   private final Optional<TimeUnit> expireAfterAccessTimeUnit;
   private final Optional<Long> expireAfterWrite;
   private final Optional<TimeUnit> expireAfterWriteTimeUnit;
+  private final boolean frequencyAdmission;
 
   Optional<Long> maxSizeBytes() {
     return maxSizeBytes;
@@ -43,6 +44,10 @@ public final class EvictionPolicy {
     return expireAfterWriteTimeUnit;
   }
 
+  boolean frequencyAdmission() {
+    return frequencyAdmission;
+  }
+
   public static EvictionPolicy.Builder builder() {
     return new EvictionPolicy.Builder();
   }
@@ -57,7 +62,12 @@ public final class EvictionPolicy {
     private Optional<TimeUnit> expireAfterAccessTimeUnit = Optional.absent();
     private Optional<Long> expireAfterWrite = Optional.absent();
     private Optional<TimeUnit> expireAfterWriteTimeUnit = Optional.absent();
+    private boolean frequencyAdmission;
 
+    /**
+     * @param maxSizeBytes maximum heap retained by cached records, as estimated by {@link
+     *                     com.apollographql.apollo.cache.normalized.Record#sizeEstimateBytes()}
+     */
     public EvictionPolicy.Builder maxSizeBytes(long maxSizeBytes) {
       this.maxSizeBytes = Optional.of(maxSizeBytes);
       return this;
@@ -80,22 +90,35 @@ public final class EvictionPolicy {
       return this;
     }
 
+    /**
+     * Evicts records with W-TinyLFU instead of LRU. Records of a one-off query, such as a long list of search results,
+     * then only replace records that were read less often, instead of flushing the records read most often. Requires
+     * exactly one of {@link #maxSizeBytes(long)} and {@link #maxEntries(long)}.
+     *
+     * @param frequencyAdmission whether records are admitted by how often they were read
+     */
+    public EvictionPolicy.Builder frequencyAdmission(boolean frequencyAdmission) {
+      this.frequencyAdmission = frequencyAdmission;
+      return this;
+    }
+
     public EvictionPolicy build() {
-      return new EvictionPolicy(maxSizeBytes, maxEntries, expireAfterAccess, expireAfterAccessTimeUnit,
-          expireAfterWrite, expireAfterWriteTimeUnit);
+      if (frequencyAdmission && maxSizeBytes.isPresent() == maxEntries.isPresent()) {
+        throw new IllegalArgumentException("frequencyAdmission requires exactly one of maxSizeBytes and maxEntries");
+      }
+      return new EvictionPolicy(this);
     }
 
   }
 
-  private EvictionPolicy(Optional<Long> maxSizeBytes, Optional<Long> maxEntries, Optional<Long> expireAfterAccess,
-      Optional<TimeUnit> expireAfterAccessTimeUnit, Optional<Long> expireAfterWrite, Optional<TimeUnit>
-      expireAfterWriteTimeUnit) {
-    this.maxSizeBytes = maxSizeBytes;
-    this.maxEntries = maxEntries;
-    this.expireAfterAccess = expireAfterAccess;
-    this.expireAfterAccessTimeUnit = expireAfterAccessTimeUnit;
-    this.expireAfterWrite = expireAfterWrite;
-    this.expireAfterWriteTimeUnit = expireAfterWriteTimeUnit;
+  private EvictionPolicy(Builder builder) {
+    this.maxSizeBytes = builder.maxSizeBytes;
+    this.maxEntries = builder.maxEntries;
+    this.expireAfterAccess = builder.expireAfterAccess;
+    this.expireAfterAccessTimeUnit = builder.expireAfterAccessTimeUnit;
+    this.expireAfterWrite = builder.expireAfterWrite;
+    this.expireAfterWriteTimeUnit = builder.expireAfterWriteTimeUnit;
+    this.frequencyAdmission = builder.frequencyAdmission;
   }
 
 }
@@ -0,0 +1,255 @@
+package com.apollographql.apollo.cache.normalized.lru;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decides which keys a {@link LruNormalizedCache} evicts, with W-TinyLFU. New keys enter a window LRU holding 1% of
+ * the maximum weight. Keys leaving the window are only admitted to the main region if a {@link FrequencySketch} saw
+ * them more often than the key the main region would evict for them, otherwise they are evicted themselves, so a
+ * burst of keys accessed once does not flush the keys accessed often.
+ *
+ * <p>The main region is a segmented LRU: admitted keys enter the probation segment, and move to the protected
+ * segment, holding up to 80% of the main region, when they are accessed again. Keys leaving the protected segment go
+ * back to probation, and victims are taken from probation first.</p>
+ *
+ * <p>Reads do not take the lock of the policy: they are recorded in a ring buffer, that is applied before every write
+ * and removal, or by the reader that fills it if the lock is free. When reads lap the buffer before it is applied,
+ * the oldest ones are lost, which only makes the frequencies and the recency order slightly less accurate.</p>
+ *
+ * <p>Weights are record sizes for a cache bounded by {@link EvictionPolicy.Builder#maxSizeBytes(long)}, and 1 for a
+ * cache bounded by {@link EvictionPolicy.Builder#maxEntries(long)}.</p>
+ */
+final class FrequencyAdmissionPolicy {
+  private static final int WINDOW_PERCENT = 1;
+  private static final int PROTECTED_PERCENT = 80;
+  private static final int INITIAL_SKETCH_CAPACITY = 64;
+  private static final int READ_BUFFER_SIZE = 64;
+  private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+
+  private final long windowMaximum;
+  private final long mainMaximum;
+  private final long protectedMaximum;
+  private final FrequencySketch sketch;
+  // access ordered, from the least to the most recently used
+  private final LinkedHashMap<String, Long> window = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<String, Long> probation = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<String, Long> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+  // guards the segments, their weights and the sketch
+  private final ReentrantLock lock = new ReentrantLock();
+  private final AtomicReferenceArray<String> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+  private final AtomicLong readBufferWriteCount = new AtomicLong();
+  private long windowWeight;
+  private long probationWeight;
+  private long protectedWeight;
+
+  /**
+   * @param maximumWeight the maximum total weight of the keys
+   * @param weighted      whether keys have different weights, in which case the number of keys the sketch counts is
+   *                      grown as the number of keys grows
+   */
+  FrequencyAdmissionPolicy(long maximumWeight, boolean weighted) {
+    this.windowMaximum = maximumWeight * WINDOW_PERCENT / 100;
+    this.mainMaximum = maximumWeight - windowMaximum;
+    this.protectedMaximum = mainMaximum * PROTECTED_PERCENT / 100;
+    this.sketch = new FrequencySketch(weighted ? INITIAL_SKETCH_CAPACITY : maximumWeight);
+  }
+
+  /**
+   * Records a lookup of the key, whether it was found or not. Does not wait for the lock of the policy.
+   */
+  void recordAccess(String key) {
+    long count = readBufferWriteCount.getAndIncrement();
+    readBuffer.lazySet((int) count & READ_BUFFER_MASK, key);
+    // the reader that fills the buffer applies it, unless a write is doing so already
+    if (((int) count & READ_BUFFER_MASK) == READ_BUFFER_MASK && lock.tryLock()) {
+      try {
+        drainReadBuffer();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Records that the key was written with the given weight.
+   *
+   * @return the keys to evict, which are no longer tracked by this policy
+   */
+  List<String> recordWrite(String key, long weight) {
+    lock.lock();
+    try {
+      drainReadBuffer();
+      return write(key, weight);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Records that the key was removed from the cache.
+   */
+  void recordRemoval(String key) {
+    lock.lock();
+    try {
+      drainReadBuffer();
+      remove(key);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the tracked keys, from the first to the last this policy would evict: probation, then protected, then
+   * window keys, each from the least to the most recently used
+   */
+  List<String> keysInEvictionOrder() {
+    lock.lock();
+    try {
+      drainReadBuffer();
+      List<String> keys = new ArrayList<>(probation.size() + protectedSegment.size() + window.size());
+      keys.addAll(probation.keySet());
+      keys.addAll(protectedSegment.keySet());
+      keys.addAll(window.keySet());
+      return keys;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Applies the reads recorded in the buffer, from the oldest to the most recent. Must be called while holding the
+   * lock.
+   */
+  private void drainReadBuffer() {
+    int start = (int) readBufferWriteCount.get() & READ_BUFFER_MASK;
+    for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+      String key = readBuffer.getAndSet((start + i) & READ_BUFFER_MASK, null);
+      if (key != null) {
+        access(key);
+      }
+    }
+  }
+
+  private void access(String key) {
+    sketch.increment(key);
+    if (window.get(key) != null || protectedSegment.get(key) != null) {
+      return;
+    }
+    Long weight = probation.remove(key);
+    if (weight != null) {
+      probationWeight -= weight;
+      protectedSegment.put(key, weight);
+      protectedWeight += weight;
+      demoteProtected();
+    }
+  }
+
+  private List<String> write(String key, long weight) {
+    sketch.increment(key);
+    Long oldWeight;
+    if ((oldWeight = window.get(key)) != null) {
+      window.put(key, weight);
+      windowWeight += weight - oldWeight;
+    } else if ((oldWeight = protectedSegment.get(key)) != null) {
+      protectedSegment.put(key, weight);
+      protectedWeight += weight - oldWeight;
+      demoteProtected();
+    } else if ((oldWeight = probation.remove(key)) != null) {
+      probationWeight -= oldWeight;
+      protectedSegment.put(key, weight);
+      protectedWeight += weight;
+      demoteProtected();
+    } else {
+      window.put(key, weight);
+      windowWeight += weight;
+      sketch.ensureCapacity(window.size() + probation.size() + protectedSegment.size());
+    }
+    return evict();
+  }
+
+  private void remove(String key) {
+    Long weight;
+    if ((weight = window.remove(key)) != null) {
+      windowWeight -= weight;
+    } else if ((weight = probation.remove(key)) != null) {
+      probationWeight -= weight;
+    } else if ((weight = protectedSegment.remove(key)) != null) {
+      protectedWeight -= weight;
+    }
+  }
+
+  private List<String> evict() {
+    List<String> evictedKeys = new ArrayList<>();
+    while (windowWeight > windowMaximum) {
+      Map.Entry<String, Long> candidate = removeEldest(window);
+      windowWeight -= candidate.getValue();
+      admit(candidate.getKey(), candidate.getValue(), evictedKeys);
+    }
+    // a key of the main region can grow when written again
+    while (probationWeight + protectedWeight > mainMaximum) {
+      evictedKeys.add(removeMainVictim());
+    }
+    return evictedKeys;
+  }
+
+  private void admit(String key, long weight, List<String> evictedKeys) {
+    if (weight > mainMaximum) {
+      evictedKeys.add(key);
+      return;
+    }
+    int frequency = sketch.frequency(key);
+    while (probationWeight + protectedWeight + weight > mainMaximum) {
+      String victim = eldestMainKey();
+      // ties keep the victim, a key seen as often as the victim is not worth the churn
+      if (frequency <= sketch.frequency(victim)) {
+        evictedKeys.add(key);
+        return;
+      }
+      evictedKeys.add(removeMainVictim());
+    }
+    probation.put(key, weight);
+    probationWeight += weight;
+  }
+
+  private String eldestMainKey() {
+    LinkedHashMap<String, Long> segment = probation.isEmpty() ? protectedSegment : probation;
+    return segment.keySet().iterator().next();
+  }
+
+  private String removeMainVictim() {
+    Map.Entry<String, Long> victim;
+    if (!probation.isEmpty()) {
+      victim = removeEldest(probation);
+      probationWeight -= victim.getValue();
+    } else {
+      victim = removeEldest(protectedSegment);
+      protectedWeight -= victim.getValue();
+    }
+    return victim.getKey();
+  }
+
+  private void demoteProtected() {
+    while (protectedWeight > protectedMaximum) {
+      Map.Entry<String, Long> demoted = removeEldest(protectedSegment);
+      protectedWeight -= demoted.getValue();
+      probation.put(demoted.getKey(), demoted.getValue());
+      probationWeight += demoted.getValue();
+    }
+  }
+
+  private static Map.Entry<String, Long> removeEldest(LinkedHashMap<String, Long> segment) {
+    Iterator<Map.Entry<String, Long>> iterator = segment.entrySet().iterator();
+    Map.Entry<String, Long> eldest = iterator.next();
+    Map.Entry<String, Long> removed = new AbstractMap.SimpleImmutableEntry<>(eldest);
+    iterator.remove();
+    return removed;
+  }
+}
@@ -0,0 +1,102 @@
+package com.apollographql.apollo.cache.normalized.lru;
+
+/**
+ * A count-min sketch of how often keys were accessed, for the admission of {@link FrequencyAdmissionPolicy}. Every
+ * key has four 4 bit counters in different rows of the table, and its frequency is the smallest of them, so it is
+ * over estimated when keys collide but never under estimated. Counters saturate at 15.
+ *
+ * <p>Once the number of increments reaches ten times the capacity, all counters are halved, so that keys which were
+ * popular a long time ago do not keep their frequency forever.</p>
+ */
+final class FrequencySketch {
+  private static final int MAX_CAPACITY = 1 << 26;
+  private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+      0xcbf29ce484222325L};
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long ONE_MASK = 0x1111111111111111L;
+
+  private long[] table;
+  private int sampleSize;
+  private int size;
+
+  FrequencySketch(long capacity) {
+    table = new long[tableSize(capacity)];
+    sampleSize = 10 * table.length;
+  }
+
+  /**
+   * Grows the table so that it counts the given number of keys with few collisions, keeping the frequencies counted
+   * so far. Table sizes are powers of two, so the slots a key hashes to in the larger table are copies of the slots
+   * it hashed to in the smaller one: frequencies are kept exactly, along with their over estimation.
+   */
+  void ensureCapacity(long capacity) {
+    if (Math.min(capacity, MAX_CAPACITY) <= table.length) {
+      return;
+    }
+    long[] oldTable = table;
+    table = new long[tableSize(capacity)];
+    for (int i = 0; i < table.length; i++) {
+      table[i] = oldTable[i & (oldTable.length - 1)];
+    }
+    sampleSize = 10 * table.length;
+  }
+
+  int frequency(String key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < SEEDS.length; i++) {
+      int count = (int) ((table[indexOf(hash, i)] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  void increment(String key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    boolean incremented = false;
+    for (int i = 0; i < SEEDS.length; i++) {
+      incremented |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (incremented && ++size >= sampleSize) {
+      reset();
+    }
+  }
+
+  private static int tableSize(long capacity) {
+    return Integer.highestOneBit((int) Math.max(Math.min(capacity, MAX_CAPACITY) - 1, 1)) << 1;
+  }
+
+  private boolean incrementAt(int index, int counter) {
+    int offset = counter << 2;
+    long mask = 0xfL << offset;
+    if ((table[index] & mask) == mask) {
+      return false;
+    }
+    table[index] += 1L << offset;
+    return true;
+  }
+
+  private void reset() {
+    int oddCount = 0;
+    for (int i = 0; i < table.length; i++) {
+      oddCount += Long.bitCount(table[i] & ONE_MASK);
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    // halving drops the odd remainder of the counters, and each increment is counted by four of them
+    size = Math.max(0, (size >>> 1) - (oddCount >>> 2));
+  }
+
+  private int indexOf(int hash, int row) {
+    long index = (hash + SEEDS[row]) * SEEDS[row];
+    index += index >>> 32;
+    return (int) index & (table.length - 1);
+  }
+
+  private static int spread(int hash) {
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    return (hash >>> 16) ^ hash;
+  }
+}
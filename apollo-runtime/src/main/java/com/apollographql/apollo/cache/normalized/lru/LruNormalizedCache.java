@@ -4,18 +4,39 @@ import com.apollographql.apollo.api.internal.Function;
 import com.apollographql.apollo.api.internal.Optional;
 import com.apollographql.apollo.cache.ApolloCacheHeaders;
 import com.apollographql.apollo.cache.CacheHeaders;
+import com.apollographql.apollo.cache.normalized.BinaryRecordCodec;
 import com.apollographql.apollo.cache.normalized.CacheKey;
 import com.apollographql.apollo.cache.normalized.NormalizedCache;
 import com.apollographql.apollo.cache.normalized.NormalizedCacheFactory;
+import com.apollographql.apollo.cache.normalized.NormalizedCacheStats;
 import com.apollographql.apollo.cache.normalized.Record;
 import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
+import com.apollographql.apollo.internal.cache.normalized.LatencyRecorder;
+import com.apollographql.apollo.internal.cache.normalized.RecordWeigher;
 import com.nytimes.android.external.cache.Cache;
 import com.nytimes.android.external.cache.CacheBuilder;
+import com.nytimes.android.external.cache.RemovalListener;
+import com.nytimes.android.external.cache.RemovalNotification;
 import com.nytimes.android.external.cache.Weigher;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -27,31 +48,102 @@ import static com.apollographql.apollo.api.internal.Utils.checkNotNull;
  * {@link NormalizedCache}, which will be used as a backup if a {@link Record} is not present in the primary cache.
  *
  * A common configuration is to have secondary SQL cache.
+ *
+ * If the secondary cache can list its keys with {@link NormalizedCache#recordKeys()}, they are put in a Bloom filter
+ * when this cache is created, and keys which were never merged into the secondary cache are not read from it. Records
+ * should then be written to the secondary cache only through this cache.
+ *
+ * With {@link EvictionPolicy.Builder#frequencyAdmission(boolean)}, records are evicted by a
+ * {@link FrequencyAdmissionPolicy} instead of the LRU order of the underlying cache.
  */
 public final class LruNormalizedCache extends NormalizedCache {
+  // entry, weighted value reference and table slot of the underlying cache
+  private static final int SIZE_OF_CACHE_ENTRY = 96;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int SNAPSHOT_MAGIC = 0x41504c53;
+  private static final int SNAPSHOT_FORMAT_VERSION = 1;
+  // the record count of a snapshot is not trusted to size the list
+  private static final int SNAPSHOT_INITIAL_CAPACITY = 1024;
 
   private final Cache<String, Record> lruCache;
   private final Optional<NormalizedCache> secondaryCache;
+  private final Optional<WriteBehindQueue> writeBehindQueue;
+  private final Optional<RecordKeyFilter> secondaryKeyFilter;
+  private final Optional<FrequencyAdmissionPolicy> admissionPolicy;
+  // the underlying cache does not expose its LRU order, without an admission policy it is kept as access ticks
+  private final Optional<ConcurrentMap<String, Long>> accessTicks;
+  private final AtomicLong accessTick = new AtomicLong();
+  private final boolean weighted;
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  // every removal is notified, the ones this cache does not make itself are evictions
+  private final AtomicLong removalCount = new AtomicLong();
+  private final AtomicLong explicitRemovalCount = new AtomicLong();
+  private final AtomicLong sizeEstimateBytes = new AtomicLong();
+  private final LatencyRecorder loadLatency = new LatencyRecorder();
 
   LruNormalizedCache(final RecordFieldAdapter recordFieldAdapter,
       EvictionPolicy evictionPolicy,
       Optional<NormalizedCacheFactory> secondaryNormalizedCache) {
+    this(recordFieldAdapter, evictionPolicy, secondaryNormalizedCache, Optional.<WriteBehindPolicy>absent());
+  }
+
+  LruNormalizedCache(final RecordFieldAdapter recordFieldAdapter,
+      EvictionPolicy evictionPolicy,
+      Optional<NormalizedCacheFactory> secondaryNormalizedCache,
+      Optional<WriteBehindPolicy> writeBehindPolicy) {
     super(recordFieldAdapter);
     this.secondaryCache = secondaryNormalizedCache.transform(new Function<NormalizedCacheFactory, NormalizedCache>() {
       @Nonnull @Override public NormalizedCache apply(@Nonnull NormalizedCacheFactory normalizedCacheFactory) {
         return normalizedCacheFactory.createNormalizedCache(recordFieldAdapter);
       }
     });
+    if (secondaryCache.isPresent() && writeBehindPolicy.isPresent()) {
+      this.writeBehindQueue = Optional.of(new WriteBehindQueue(secondaryCache.get(), writeBehindPolicy.get()));
+    } else {
+      this.writeBehindQueue = Optional.absent();
+    }
+    Optional<Set<String>> secondaryKeys = secondaryCache.isPresent() ? secondaryCache.get().recordKeys()
+        : Optional.<Set<String>>absent();
+    this.secondaryKeyFilter = secondaryKeys.transform(new Function<Set<String>, RecordKeyFilter>() {
+      @Nonnull @Override public RecordKeyFilter apply(@Nonnull Set<String> keys) {
+        return new RecordKeyFilter(keys);
+      }
+    });
+    this.weighted = evictionPolicy.maxSizeBytes().isPresent();
+    if (evictionPolicy.frequencyAdmission()) {
+      long maximumWeight = weighted ? evictionPolicy.maxSizeBytes().get() : evictionPolicy.maxEntries().get();
+      this.admissionPolicy = Optional.of(new FrequencyAdmissionPolicy(maximumWeight, weighted));
+      this.accessTicks = Optional.absent();
+    } else {
+      this.admissionPolicy = Optional.absent();
+      this.accessTicks = Optional.<ConcurrentMap<String, Long>>of(new ConcurrentHashMap<String, Long>());
+    }
     final CacheBuilder<Object, Object> lruCacheBuilder = CacheBuilder.newBuilder();
-    if (evictionPolicy.maxSizeBytes().isPresent()) {
+    lruCacheBuilder.removalListener(new RemovalListener<String, Record>() {
+      @Override public void onRemoval(RemovalNotification<String, Record> notification) {
+        removalCount.incrementAndGet();
+        sizeEstimateBytes.addAndGet(-weigh(notification.getKey(), notification.getValue()));
+        // replaced records are notified too, the key is still present then
+        if (!lruCache.asMap().containsKey(notification.getKey())) {
+          if (admissionPolicy.isPresent()) {
+            admissionPolicy.get().recordRemoval(notification.getKey());
+          } else {
+            accessTicks.get().remove(notification.getKey());
+          }
+        }
+      }
+    });
+    // with an admission policy, the policy bounds the cache and evicts records itself
+    if (evictionPolicy.maxSizeBytes().isPresent() && !admissionPolicy.isPresent()) {
       lruCacheBuilder.maximumWeight(evictionPolicy.maxSizeBytes().get())
           .weigher(new Weigher<String, Record>() {
             @Override public int weigh(String key, Record value) {
-              return key.getBytes().length + value.sizeEstimateBytes();
+              return LruNormalizedCache.weigh(key, value);
             }
           });
     }
-    if (evictionPolicy.maxEntries().isPresent()) {
+    if (evictionPolicy.maxEntries().isPresent() && !admissionPolicy.isPresent()) {
       lruCacheBuilder.maximumSize(evictionPolicy.maxEntries().get());
     }
     if (evictionPolicy.expireAfterAccess().isPresent()) {
@@ -69,53 +161,251 @@ public final class LruNormalizedCache extends NormalizedCache {
     return secondaryCache.get();
   }
 
-  @Nullable @Override public Record loadRecord(@Nonnull final String key, @Nonnull final CacheHeaders cacheHeaders) {
-    final Record record;
-    if (secondaryCache.isPresent()) {
-      try {
-        record = lruCache.get(key, new Callable<Record>() {
-          @Override public Record call() throws Exception {
-            Record record = secondaryCache.get().loadRecord(key, cacheHeaders);
-            // get(key, callable) requires non-null. If null, an exception should be
-            //thrown, which will be converted to null in the catch clause.
-            if (record == null) {
-              throw new Exception(String.format("Record{key=%s} not present in secondary cache", key));
-            }
-            return record;
-          }
-        });
-      } catch (Exception e) {
-        return null;
+  @Nullable @Override public Record loadRecord(@Nonnull String key, @Nonnull CacheHeaders cacheHeaders) {
+    long startNanos = System.nanoTime();
+    Record record = lruCache.getIfPresent(key);
+    if (admissionPolicy.isPresent()) {
+      admissionPolicy.get().recordAccess(key);
+    } else if (record != null) {
+      accessTicks.get().put(key, accessTick.incrementAndGet());
+    }
+    (record != null ? hitCount : missCount).incrementAndGet();
+    if (record == null && secondaryCache.isPresent()) {
+      record = loadSecondaryRecord(key, cacheHeaders);
+      if (record != null) {
+        // a record merged while this one was read is newer
+        Record mergedRecord = putRecordIfAbsent(key, record);
+        if (mergedRecord != null) {
+          record = mergedRecord;
+        }
       }
-    } else {
-      record = lruCache.getIfPresent(key);
     }
     if (record != null && cacheHeaders.hasHeader(ApolloCacheHeaders.EVICT_AFTER_READ)) {
-      lruCache.invalidate(key);
+      removeRecord(key);
     }
+    loadLatency.recordSince(startNanos);
     return record;
   }
 
+  @Nonnull @Override public Collection<Record> loadRecords(@Nonnull Collection<String> keys,
+      @Nonnull CacheHeaders cacheHeaders) {
+    long startNanos = System.nanoTime();
+    Map<String, Record> records = new HashMap<>(lruCache.getAllPresent(keys));
+    if (admissionPolicy.isPresent()) {
+      for (String key : keys) {
+        admissionPolicy.get().recordAccess(key);
+      }
+    } else {
+      for (String key : records.keySet()) {
+        accessTicks.get().put(key, accessTick.incrementAndGet());
+      }
+    }
+    hitCount.addAndGet(records.size());
+    missCount.addAndGet(keys.size() - records.size());
+    if (secondaryCache.isPresent() && records.size() < keys.size()) {
+      List<String> missingKeys = new ArrayList<>(keys.size() - records.size());
+      for (String key : keys) {
+        if (!records.containsKey(key) && mightBeInSecondaryCache(key)) {
+          missingKeys.add(key);
+        }
+      }
+      for (Record record : loadSecondaryRecords(missingKeys, cacheHeaders)) {
+        // a record merged while this one was read is newer
+        Record presentRecord = putRecordIfAbsent(record.key(), record);
+        records.put(record.key(), presentRecord != null ? presentRecord : record);
+      }
+    }
+
+    List<Record> result = new ArrayList<>(records.size());
+    for (String key : keys) {
+      Record record = records.get(key);
+      if (record != null) {
+        result.add(record);
+      }
+    }
+    if (cacheHeaders.hasHeader(ApolloCacheHeaders.EVICT_AFTER_READ)) {
+      for (String key : records.keySet()) {
+        removeRecord(key);
+      }
+    }
+    loadLatency.recordSince(startNanos);
+    return result;
+  }
+
+  /**
+   * Reads the records from the in-memory LRU cache, and those it does not hold from the secondary cache, without
+   * putting them in the in-memory LRU cache, counting hits and misses or recording accesses for the eviction policy.
+   */
+  @Nonnull @Override public Collection<Record> peekRecords(@Nonnull Collection<String> keys) {
+    checkNotNull(keys, "keys == null");
+    Map<String, Record> records = new HashMap<>(lruCache.getAllPresent(keys));
+    if (secondaryCache.isPresent() && records.size() < keys.size()) {
+      List<String> missingKeys = new ArrayList<>(keys.size() - records.size());
+      for (String key : keys) {
+        if (!records.containsKey(key) && mightBeInSecondaryCache(key)) {
+          missingKeys.add(key);
+        }
+      }
+      Map<String, Record> pendingWrites = pendingWrites(missingKeys);
+      Collection<Record> storedRecords = secondaryCache.get().peekRecords(missingKeys);
+      for (Record record : withPendingWrites(missingKeys, storedRecords, pendingWrites)) {
+        records.put(record.key(), record);
+      }
+    }
+    List<Record> result = new ArrayList<>(records.size());
+    for (String key : keys) {
+      Record record = records.get(key);
+      if (record != null) {
+        result.add(record);
+      }
+    }
+    return result;
+  }
+
   @Nonnull @Override public Set<String> merge(@Nonnull Record apolloRecord, @Nonnull CacheHeaders cacheHeaders) {
     if (cacheHeaders.hasHeader(ApolloCacheHeaders.DO_NOT_STORE)) {
       return Collections.emptySet();
     }
-    if (secondaryCache.isPresent()) {
+    if (secondaryKeyFilter.isPresent()) {
+      secondaryKeyFilter.get().add(apolloRecord.key());
+    }
+    if (writeBehindQueue.isPresent()) {
+      writeBehindQueue.get().add(apolloRecord);
+    } else if (secondaryCache.isPresent()) {
       secondaryCache.get().merge(apolloRecord, cacheHeaders);
     }
     final Record oldRecord = lruCache.getIfPresent(apolloRecord.key());
     if (oldRecord == null) {
-      lruCache.put(apolloRecord.key(), apolloRecord);
+      putRecord(apolloRecord.key(), apolloRecord);
       return Collections.emptySet();
     } else {
-      Set<String> changedKeys = oldRecord.mergeWith(apolloRecord);
-
-      //re-insert to trigger new weight calculation
-      lruCache.put(apolloRecord.key(), oldRecord);
+      Set<String> changedKeys = new HashSet<>();
+      Record mergedRecord = oldRecord.mergeWith(apolloRecord, changedKeys);
+      if (mergedRecord != oldRecord) {
+        putRecord(apolloRecord.key(), mergedRecord);
+      }
       return changedKeys;
     }
   }
 
+  /**
+   * @return The keys of the records in the in-memory LRU cache and the secondary cache, or {@link Optional#absent()}
+   * if the secondary cache can not list its keys.
+   */
+  @Nonnull @Override public Optional<Set<String>> recordKeys() {
+    Set<String> keys = new HashSet<>(lruCache.asMap().keySet());
+    if (secondaryCache.isPresent()) {
+      Optional<Set<String>> secondaryKeys = secondaryCache.get().recordKeys();
+      if (!secondaryKeys.isPresent()) {
+        return Optional.absent();
+      }
+      keys.addAll(secondaryKeys.get());
+    }
+    if (writeBehindQueue.isPresent()) {
+      keys.addAll(writeBehindQueue.get().pendingKeys());
+    }
+    return Optional.<Set<String>>of(keys);
+  }
+
+  /**
+   * @return The counters of the in-memory LRU cache, and those of the secondary cache if it keeps any. A record
+   * missing from the in-memory LRU cache counts as a miss, whether it is then found in the secondary cache or not.
+   */
+  @Nonnull @Override public Optional<NormalizedCacheStats> stats() {
+    Optional<NormalizedCacheStats> secondaryCacheStats = secondaryCache.isPresent() ? secondaryCache.get().stats()
+        : Optional.<NormalizedCacheStats>absent();
+    return Optional.of(NormalizedCacheStats.builder()
+        .hitCount(hitCount.get())
+        .missCount(missCount.get())
+        .evictionCount(removalCount.get() - explicitRemovalCount.get())
+        .recordCount(lruCache.size())
+        .sizeEstimateBytes(sizeEstimateBytes.get())
+        .loadLatency(loadLatency.snapshot())
+        .secondaryCacheStats(secondaryCacheStats)
+        .build());
+  }
+
+  /**
+   * Writes the records of the in-memory LRU cache in the order the cache would evict them, so that reading the
+   * snapshot back keeps the records accessed last when it holds more than the eviction policy allows. With frequency
+   * admission this is the order of the {@link FrequencyAdmissionPolicy}, otherwise records are written from the least
+   * to the most recently read or written.
+   *
+   * <p>The records are read without blocking writes to the cache, a record merged while the snapshot is written may or
+   * may not be part of it.</p>
+   */
+  @Override public int writeSnapshot(@Nonnull OutputStream out) throws IOException {
+    checkNotNull(out, "out == null");
+    final Map<String, Long> order;
+    if (admissionPolicy.isPresent()) {
+      List<String> keys = admissionPolicy.get().keysInEvictionOrder();
+      order = new HashMap<>(keys.size());
+      for (int i = 0; i < keys.size(); i++) {
+        order.put(keys.get(i), (long) i);
+      }
+    } else {
+      // copied, the comparison of two records must not change while they are sorted
+      order = new HashMap<>(accessTicks.get());
+    }
+    // iterating the map of the underlying cache does not count as an access, unlike reading each key in order
+    List<Record> records = new ArrayList<>((int) lruCache.size());
+    for (Record record : lruCache.asMap().values()) {
+      records.add(record);
+    }
+    Collections.sort(records, new Comparator<Record>() {
+      @Override public int compare(Record first, Record second) {
+        long firstOrder = orderOf(order, first.key());
+        long secondOrder = orderOf(order, second.key());
+        return firstOrder < secondOrder ? -1 : (firstOrder == secondOrder ? 0 : 1);
+      }
+    });
+    BinaryRecordCodec recordCodec = BinaryRecordCodec.create(recordAdapter());
+    DataOutputStream output = new DataOutputStream(out);
+    output.writeInt(SNAPSHOT_MAGIC);
+    output.writeByte(SNAPSHOT_FORMAT_VERSION);
+    output.writeInt(records.size());
+    for (Record record : records) {
+      byte[] key = record.key().getBytes(UTF_8);
+      byte[] value = recordCodec.encode(record);
+      output.writeInt(key.length);
+      output.write(key);
+      output.writeInt(value.length);
+      output.write(value);
+    }
+    output.flush();
+    return records.size();
+  }
+
+  /**
+   * Puts the records of the snapshot in the in-memory LRU cache, without writing them to the secondary cache. Records
+   * already in the in-memory LRU cache are kept.
+   */
+  @Override public int readSnapshot(@Nonnull InputStream in) throws IOException {
+    checkNotNull(in, "in == null");
+    DataInputStream input = new DataInputStream(in);
+    if (input.readInt() != SNAPSHOT_MAGIC) {
+      throw new IOException("Not a normalized cache snapshot");
+    }
+    int version = input.readUnsignedByte();
+    if (version != SNAPSHOT_FORMAT_VERSION) {
+      throw new IOException("Unsupported snapshot format version " + version);
+    }
+    int count = input.readInt();
+    if (count < 0) {
+      throw new IOException("Invalid record count " + count);
+    }
+    BinaryRecordCodec recordCodec = BinaryRecordCodec.create(recordAdapter());
+    List<Record> records = new ArrayList<>(Math.min(count, SNAPSHOT_INITIAL_CAPACITY));
+    for (int i = 0; i < count; i++) {
+      String key = new String(readBytes(input), UTF_8);
+      records.add(recordCodec.decode(key, readBytes(input)));
+    }
+    for (Record record : records) {
+      putRecordIfAbsent(record.key(), record);
+    }
+    return records.size();
+  }
+
   @Override public void clearAll() {
     clearPrimaryCache();
     clearSecondaryCache();
@@ -123,19 +413,46 @@ public final class LruNormalizedCache extends NormalizedCache {
 
   @Override public boolean remove(@Nonnull CacheKey cacheKey) {
     checkNotNull(cacheKey, "cacheKey == null");
-    boolean result = false;
-    if (lruCache.getIfPresent(cacheKey.key()) != null) {
-      lruCache.invalidate(cacheKey.key());
-      result = true;
-    }
+    boolean result = removeRecord(cacheKey.key());
 
-    if (secondaryCache.isPresent()) {
+    if (writeBehindQueue.isPresent()) {
+      result |= writeBehindQueue.get().remove(cacheKey);
+    } else if (secondaryCache.isPresent()) {
       result |= secondaryCache.get().remove(cacheKey);
     }
 
     return result;
   }
 
+  /**
+   * Removes the records from the in-memory LRU cache, and from the secondary cache in a single batch.
+   *
+   * @return the larger of the counts of records removed from the in-memory LRU cache and from the secondary cache
+   */
+  @Override public int remove(@Nonnull Collection<CacheKey> cacheKeys) {
+    checkNotNull(cacheKeys, "cacheKeys == null");
+    int count = 0;
+    for (CacheKey cacheKey : cacheKeys) {
+      if (removeRecord(cacheKey.key())) {
+        count++;
+      }
+    }
+
+    if (writeBehindQueue.isPresent()) {
+      int secondaryCount = 0;
+      for (CacheKey cacheKey : cacheKeys) {
+        if (writeBehindQueue.get().remove(cacheKey)) {
+          secondaryCount++;
+        }
+      }
+      count = Math.max(count, secondaryCount);
+    } else if (secondaryCache.isPresent()) {
+      count = Math.max(count, secondaryCache.get().remove(cacheKeys));
+    }
+
+    return count;
+  }
+
   /**
    * Clears all records from the in-memory LRU cache. The secondary cache will *not* be cleared.
    *
@@ -144,7 +461,9 @@ public final class LruNormalizedCache extends NormalizedCache {
    * {@link com.apollographql.apollo.ApolloClient#apolloStore()}.
    */
   public void clearPrimaryCache() {
-    lruCache.invalidateAll();
+    for (String key : lruCache.asMap().keySet()) {
+      removeRecord(key);
+    }
   }
 
   /**
@@ -155,9 +474,141 @@ public final class LruNormalizedCache extends NormalizedCache {
    * {@link com.apollographql.apollo.ApolloClient#apolloStore()}.
    */
   public void clearSecondaryCache() {
-    if (secondaryCache.isPresent()) {
+    if (secondaryKeyFilter.isPresent()) {
+      secondaryKeyFilter.get().clear();
+    }
+    if (writeBehindQueue.isPresent()) {
+      writeBehindQueue.get().clear();
+    } else if (secondaryCache.isPresent()) {
       secondaryCache.get().clearAll();
     }
   }
 
+  /**
+   * Writes the records queued by a {@link WriteBehindPolicy} to the secondary cache on the calling thread. Does
+   * nothing if the cache was not configured with a {@link WriteBehindPolicy}.
+   */
+  public void flush() {
+    if (writeBehindQueue.isPresent()) {
+      writeBehindQueue.get().flush();
+    }
+  }
+
+  /**
+   * Writes the records queued by a {@link WriteBehindPolicy} to the secondary cache on the calling thread, and makes
+   * later merges write to the secondary cache before they return. Does nothing if the cache was not configured with a
+   * {@link WriteBehindPolicy}.
+   */
+  public void shutdown() {
+    if (writeBehindQueue.isPresent()) {
+      writeBehindQueue.get().shutdown();
+    }
+  }
+
+  private void putRecord(String key, Record record) {
+    sizeEstimateBytes.addAndGet(weigh(key, record));
+    if (lruCache.asMap().put(key, record) != null) {
+      explicitRemovalCount.incrementAndGet();
+    }
+    recordWrite(key, record);
+  }
+
+  /**
+   * @return The record already present for the key, if any.
+   */
+  @Nullable private Record putRecordIfAbsent(String key, Record record) {
+    Record presentRecord = lruCache.asMap().putIfAbsent(key, record);
+    if (presentRecord == null) {
+      sizeEstimateBytes.addAndGet(weigh(key, record));
+      recordWrite(key, record);
+    }
+    return presentRecord;
+  }
+
+  private void recordWrite(String key, Record record) {
+    if (!admissionPolicy.isPresent()) {
+      accessTicks.get().put(key, accessTick.incrementAndGet());
+      return;
+    }
+    // evicted keys are no longer tracked by the policy, their removal is counted as an eviction
+    for (String evictedKey : admissionPolicy.get().recordWrite(key, weighted ? weigh(key, record) : 1)) {
+      lruCache.asMap().remove(evictedKey);
+    }
+  }
+
+  private boolean removeRecord(String key) {
+    if (lruCache.asMap().remove(key) != null) {
+      explicitRemovalCount.incrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  private static long orderOf(Map<String, Long> order, String key) {
+    // a record put while the order was read was accessed last
+    Long position = order.get(key);
+    return position != null ? position : Long.MAX_VALUE;
+  }
+
+  private static byte[] readBytes(DataInputStream input) throws IOException {
+    int length = input.readInt();
+    if (length < 0) {
+      throw new IOException("Invalid length " + length);
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  private static int weigh(String key, Record record) {
+    // the cache key is usually the key string of the record, which the record estimate counts already
+    int keyBytes = key == record.key() ? 0 : RecordWeigher.sizeOf(key);
+    return SIZE_OF_CACHE_ENTRY + keyBytes + record.sizeEstimateBytes();
+  }
+
+  private boolean mightBeInSecondaryCache(String key) {
+    return !secondaryKeyFilter.isPresent() || secondaryKeyFilter.get().mightContain(key);
+  }
+
+  @Nullable private Record loadSecondaryRecord(String key, CacheHeaders cacheHeaders) {
+    if (!mightBeInSecondaryCache(key)) {
+      return null;
+    }
+    Map<String, Record> pendingWrites = pendingWrites(Collections.singletonList(key));
+    Record record = secondaryCache.get().loadRecord(key, cacheHeaders);
+    return WriteBehindQueue.applyPendingWrite(record, pendingWrites.get(key));
+  }
+
+  private Collection<Record> loadSecondaryRecords(List<String> keys, CacheHeaders cacheHeaders) {
+    Map<String, Record> pendingWrites = pendingWrites(keys);
+    return withPendingWrites(keys, secondaryCache.get().loadRecords(keys, cacheHeaders), pendingWrites);
+  }
+
+  /**
+   * @return the writes queued for the keys, taken before the secondary cache is read
+   */
+  private Map<String, Record> pendingWrites(List<String> keys) {
+    return writeBehindQueue.isPresent() ? writeBehindQueue.get().pendingWrites(keys)
+        : Collections.<String, Record>emptyMap();
+  }
+
+  private static Collection<Record> withPendingWrites(List<String> keys, Collection<Record> records,
+      Map<String, Record> pendingWrites) {
+    if (pendingWrites.isEmpty()) {
+      return records;
+    }
+    Map<String, Record> storedRecords = new HashMap<>(records.size());
+    for (Record record : records) {
+      storedRecords.put(record.key(), record);
+    }
+    List<Record> result = new ArrayList<>(keys.size());
+    for (String key : keys) {
+      Record record = WriteBehindQueue.applyPendingWrite(storedRecords.get(key), pendingWrites.get(key));
+      if (record != null) {
+        result.add(record);
+      }
+    }
+    return result;
+  }
+
 }
@@ -10,6 +10,7 @@ public final class LruNormalizedCacheFactory implements NormalizedCacheFactory<L
 
   private final EvictionPolicy evictionPolicy;
   private final Optional<NormalizedCacheFactory> optionalSecondaryCache;
+  private final Optional<WriteBehindPolicy> optionalWriteBehindPolicy;
 
   public LruNormalizedCacheFactory(EvictionPolicy evictionPolicy) {
     this(evictionPolicy, null);
@@ -22,9 +23,22 @@ public final class LruNormalizedCacheFactory implements NormalizedCacheFactory<L
   public LruNormalizedCacheFactory(EvictionPolicy evictionPolicy, NormalizedCacheFactory secondaryCacheFactory) {
     this.evictionPolicy = checkNotNull(evictionPolicy, "evictionPolicy == null");
     this.optionalSecondaryCache = Optional.fromNullable(secondaryCacheFactory);
+    this.optionalWriteBehindPolicy = Optional.absent();
+  }
+
+  /**
+   * @param evictionPolicy        The {@link EvictionPolicy} to manage the primary cache.
+   * @param secondaryCacheFactory A {@link NormalizedCacheFactory} to create a secondary cache.
+   * @param writeBehindPolicy     The {@link WriteBehindPolicy} to write records to the secondary cache with.
+   */
+  public LruNormalizedCacheFactory(EvictionPolicy evictionPolicy, NormalizedCacheFactory secondaryCacheFactory,
+      WriteBehindPolicy writeBehindPolicy) {
+    this.evictionPolicy = checkNotNull(evictionPolicy, "evictionPolicy == null");
+    this.optionalSecondaryCache = Optional.of(checkNotNull(secondaryCacheFactory, "secondaryCacheFactory == null"));
+    this.optionalWriteBehindPolicy = Optional.of(checkNotNull(writeBehindPolicy, "writeBehindPolicy == null"));
   }
 
   @Override public LruNormalizedCache createNormalizedCache(RecordFieldAdapter fieldAdapter) {
-    return new LruNormalizedCache(fieldAdapter, evictionPolicy, optionalSecondaryCache);
+    return new LruNormalizedCache(fieldAdapter, evictionPolicy, optionalSecondaryCache, optionalWriteBehindPolicy);
   }
 }
@@ -0,0 +1,104 @@
+package com.apollographql.apollo.cache.normalized.lru;
+
+import java.util.Collection;
+
+/**
+ * A Bloom filter of the keys of the records in a secondary cache, so that a {@link LruNormalizedCache} can skip
+ * reading keys which were never stored. It has no false negatives, and about 1% false positives.
+ *
+ * <p>Keys can not be taken out of the filter, so keys of removed records stay in it until it is cleared. The filter
+ * grows by adding a filter twice as large as the last one once that one is full, and a key is looked up in all of
+ * them.</p>
+ */
+final class RecordKeyFilter {
+  static final int MIN_CAPACITY = 1024;
+  private static final int BITS_PER_KEY = 10;
+  private static final int HASH_COUNT = 7;
+
+  private long[][] filters;
+  private int lastFilterCapacity;
+  private int lastFilterSize;
+
+  RecordKeyFilter(Collection<String> keys) {
+    reset(Math.max(MIN_CAPACITY, keys.size() * 2));
+    for (String key : keys) {
+      add(key);
+    }
+  }
+
+  synchronized boolean mightContain(String key) {
+    long hash = hash(key);
+    for (long[] filter : filters) {
+      if (contains(filter, hash)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  synchronized void add(String key) {
+    long hash = hash(key);
+    long[] lastFilter = filters[filters.length - 1];
+    if (contains(lastFilter, hash)) {
+      return;
+    }
+    if (lastFilterSize == lastFilterCapacity) {
+      lastFilterCapacity = lastFilterCapacity <= Integer.MAX_VALUE / 2 ? lastFilterCapacity * 2 : Integer.MAX_VALUE;
+      lastFilterSize = 0;
+      lastFilter = newFilter(lastFilterCapacity);
+      long[][] grownFilters = new long[filters.length + 1][];
+      System.arraycopy(filters, 0, grownFilters, 0, filters.length);
+      grownFilters[filters.length] = lastFilter;
+      filters = grownFilters;
+    }
+    long bitCount = (long) lastFilter.length * Long.SIZE;
+    int hash1 = (int) hash;
+    int hash2 = (int) (hash >>> 32);
+    for (int i = 0; i < HASH_COUNT; i++) {
+      long bit = ((hash1 + i * hash2) & Integer.MAX_VALUE) % bitCount;
+      lastFilter[(int) (bit >>> 6)] |= 1L << bit;
+    }
+    lastFilterSize++;
+  }
+
+  synchronized void clear() {
+    reset(MIN_CAPACITY);
+  }
+
+  private void reset(int capacity) {
+    filters = new long[][] {newFilter(capacity)};
+    lastFilterCapacity = capacity;
+    lastFilterSize = 0;
+  }
+
+  private static long[] newFilter(int capacity) {
+    return new long[(int) (((long) capacity * BITS_PER_KEY + Long.SIZE - 1) / Long.SIZE)];
+  }
+
+  private static boolean contains(long[] filter, long hash) {
+    long bitCount = (long) filter.length * Long.SIZE;
+    int hash1 = (int) hash;
+    int hash2 = (int) (hash >>> 32);
+    for (int i = 0; i < HASH_COUNT; i++) {
+      long bit = ((hash1 + i * hash2) & Integer.MAX_VALUE) % bitCount;
+      if ((filter[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long hash(String key) {
+    // FNV-1a over the chars, then the MurmurHash3 finalizer to spread them over both halves
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < key.length(); i++) {
+      hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -0,0 +1,68 @@
+package com.apollographql.apollo.cache.normalized.lru;
+
+import com.apollographql.apollo.api.internal.Optional;
+
+import java.util.concurrent.Executor;
+
+import static com.apollographql.apollo.api.internal.Utils.checkNotNull;
+
+/**
+ * Makes a {@link LruNormalizedCache} write merged records to its secondary cache in the background instead of in
+ * the merge. Merges update the in memory cache and queue the records, merging records queued for the same key. The
+ * queue is written to the secondary cache in a single batched merge on the executor. When the queue holds the maximum
+ * number of records, the merge that fills it writes it on the calling thread.
+ *
+ * <p>Queued records are lost if the process exits before they are written. Call {@link LruNormalizedCache#flush()}
+ * to write them or {@link LruNormalizedCache#shutdown()} before exiting.</p>
+ */
+public final class WriteBehindPolicy {
+  public static final int DEFAULT_MAX_PENDING_RECORDS = 1000;
+
+  private final int maxPendingRecords;
+  private final Optional<Executor> executor;
+
+  int maxPendingRecords() {
+    return maxPendingRecords;
+  }
+
+  Optional<Executor> executor() {
+    return executor;
+  }
+
+  public static WriteBehindPolicy.Builder builder() {
+    return new WriteBehindPolicy.Builder();
+  }
+
+  public static class Builder {
+
+    private Builder() { }
+
+    private int maxPendingRecords = DEFAULT_MAX_PENDING_RECORDS;
+    private Optional<Executor> executor = Optional.absent();
+
+    public WriteBehindPolicy.Builder maxPendingRecords(int maxPendingRecords) {
+      if (maxPendingRecords < 1) {
+        throw new IllegalArgumentException("maxPendingRecords < 1");
+      }
+      this.maxPendingRecords = maxPendingRecords;
+      return this;
+    }
+
+    /**
+     * @param executor The executor to write queued records on. A single background thread is used by default.
+     */
+    public WriteBehindPolicy.Builder executor(Executor executor) {
+      this.executor = Optional.of(checkNotNull(executor, "executor == null"));
+      return this;
+    }
+
+    public WriteBehindPolicy build() {
+      return new WriteBehindPolicy(maxPendingRecords, executor);
+    }
+  }
+
+  private WriteBehindPolicy(int maxPendingRecords, Optional<Executor> executor) {
+    this.maxPendingRecords = maxPendingRecords;
+    this.executor = executor;
+  }
+}
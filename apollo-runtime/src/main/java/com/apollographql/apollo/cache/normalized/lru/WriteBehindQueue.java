@@ -0,0 +1,216 @@
+package com.apollographql.apollo.cache.normalized.lru;
+
+import com.apollographql.apollo.cache.CacheHeaders;
+import com.apollographql.apollo.cache.normalized.CacheKey;
+import com.apollographql.apollo.cache.normalized.NormalizedCache;
+import com.apollographql.apollo.cache.normalized.Record;
+import com.apollographql.apollo.internal.util.BackgroundExecutor;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nullable;
+
+/**
+ * Queues records merged into a {@link LruNormalizedCache} and writes them to its secondary cache in batches, see
+ * {@link WriteBehindPolicy}.
+ *
+ * <p>A record queued for a key which already has one is merged into it. A batch taken from the queue stays in flight
+ * until the secondary cache has merged it. Reads take the records in flight and in the queue before reading the
+ * secondary cache and merge them into what they read, so they never miss a write, even one written meanwhile.
+ * Removals and clears wait for the batch in flight, so it can not bring back what they removed.</p>
+ */
+final class WriteBehindQueue {
+  private final NormalizedCache secondaryCache;
+  private final int maxPendingRecords;
+  private final Executor executor;
+  private final Object pendingLock = new Object();
+  // held while the secondary cache is written, so that batches are written one at a time and in order
+  private final ReentrantLock secondaryCacheLock = new ReentrantLock();
+  private Map<String, Record> pendingRecords = new LinkedHashMap<>();
+  private Map<String, Record> inFlightRecords = Collections.emptyMap();
+  private boolean flushScheduled;
+  private boolean shutdown;
+
+  private final Runnable flushTask = new Runnable() {
+    @Override public void run() {
+      synchronized (pendingLock) {
+        flushScheduled = false;
+      }
+      writePendingRecords();
+    }
+  };
+
+  WriteBehindQueue(NormalizedCache secondaryCache, WriteBehindPolicy writeBehindPolicy) {
+    this.secondaryCache = secondaryCache;
+    this.maxPendingRecords = writeBehindPolicy.maxPendingRecords();
+    this.executor = writeBehindPolicy.executor().isPresent() ? writeBehindPolicy.executor().get()
+        : BackgroundExecutor.create("Apollo Cache Write Behind");
+  }
+
+  void add(Record record) {
+    boolean writeNow = false;
+    boolean writeThrough;
+    synchronized (pendingLock) {
+      writeThrough = shutdown;
+      if (!writeThrough) {
+        pendingRecords.put(record.key(), merge(pendingRecords.get(record.key()), record));
+        writeNow = pendingRecords.size() >= maxPendingRecords;
+        if (!writeNow && !flushScheduled) {
+          flushScheduled = true;
+          try {
+            executor.execute(flushTask);
+          } catch (RejectedExecutionException e) {
+            // the queue is written on this thread instead, a later write schedules a flush again
+            flushScheduled = false;
+            writeNow = true;
+          }
+        }
+      }
+    }
+    if (writeThrough) {
+      secondaryCacheLock.lock();
+      try {
+        secondaryCache.merge(record, CacheHeaders.NONE);
+      } finally {
+        secondaryCacheLock.unlock();
+      }
+    } else if (writeNow) {
+      writePendingRecords();
+    }
+  }
+
+  /**
+   * Takes the writes queued or in flight for the keys, to be applied with {@link #applyPendingWrite(Record, Record)}
+   * to the records read from the secondary cache afterwards. A batch written while they are read is then either read
+   * or applied.
+   *
+   * @return the queued writes by key, for the keys which have any
+   */
+  Map<String, Record> pendingWrites(Collection<String> keys) {
+    Map<String, Record> pendingWrites = new HashMap<>();
+    synchronized (pendingLock) {
+      if (inFlightRecords.isEmpty() && pendingRecords.isEmpty()) {
+        return pendingWrites;
+      }
+      for (String key : keys) {
+        Record pendingWrite = merge(inFlightRecords.get(key), pendingRecords.get(key));
+        if (pendingWrite != null) {
+          pendingWrites.put(key, pendingWrite);
+        }
+      }
+    }
+    return pendingWrites;
+  }
+
+  /**
+   * @return the record read from the secondary cache merged with the write taken for its key before it was read
+   */
+  @Nullable static Record applyPendingWrite(@Nullable Record storedRecord, @Nullable Record pendingWrite) {
+    return merge(storedRecord, pendingWrite);
+  }
+
+  /**
+   * @return keys of the queued records, which may be missing from the secondary cache
+   */
+  Set<String> pendingKeys() {
+    synchronized (pendingLock) {
+      Set<String> keys = new HashSet<>(inFlightRecords.keySet());
+      keys.addAll(pendingRecords.keySet());
+      return keys;
+    }
+  }
+
+  boolean remove(CacheKey cacheKey) {
+    boolean pending;
+    synchronized (pendingLock) {
+      pending = pendingRecords.remove(cacheKey.key()) != null || inFlightRecords.containsKey(cacheKey.key());
+    }
+    secondaryCacheLock.lock();
+    try {
+      return secondaryCache.remove(cacheKey) | pending;
+    } finally {
+      secondaryCacheLock.unlock();
+    }
+  }
+
+  void clear() {
+    synchronized (pendingLock) {
+      pendingRecords.clear();
+    }
+    secondaryCacheLock.lock();
+    try {
+      secondaryCache.clearAll();
+    } finally {
+      secondaryCacheLock.unlock();
+    }
+  }
+
+  /**
+   * Writes all queued records to the secondary cache on the calling thread and waits for a batch in flight.
+   */
+  void flush() {
+    while (writePendingRecords()) {
+      // records queued while the batch was written are written too
+    }
+  }
+
+  void shutdown() {
+    synchronized (pendingLock) {
+      shutdown = true;
+    }
+    flush();
+  }
+
+  /**
+   * @return true if a batch was written
+   */
+  private boolean writePendingRecords() {
+    secondaryCacheLock.lock();
+    try {
+      Map<String, Record> batch;
+      synchronized (pendingLock) {
+        if (pendingRecords.isEmpty()) {
+          return false;
+        }
+        batch = pendingRecords;
+        pendingRecords = new LinkedHashMap<>();
+        inFlightRecords = batch;
+      }
+      boolean written = false;
+      try {
+        secondaryCache.merge(batch.values(), CacheHeaders.NONE);
+        written = true;
+      } finally {
+        synchronized (pendingLock) {
+          inFlightRecords = Collections.emptyMap();
+          if (!written) {
+            // queued again ahead of records queued since
+            for (Map.Entry<String, Record> pendingRecord : pendingRecords.entrySet()) {
+              batch.put(pendingRecord.getKey(), merge(batch.get(pendingRecord.getKey()), pendingRecord.getValue()));
+            }
+            pendingRecords = batch;
+          }
+        }
+      }
+      return true;
+    } finally {
+      secondaryCacheLock.unlock();
+    }
+  }
+
+  @Nullable private static Record merge(@Nullable Record record, @Nullable Record newerRecord) {
+    if (record == null) {
+      return newerRecord;
+    }
+    return newerRecord != null ? record.mergeWith(newerRecord, new HashSet<String>()) : record;
+  }
+}
@@ -0,0 +1,553 @@
+package com.apollographql.apollo.cache.normalized.mmap;
+
+import com.apollographql.apollo.api.internal.Optional;
+import com.apollographql.apollo.cache.ApolloCacheHeaders;
+import com.apollographql.apollo.cache.CacheHeaders;
+import com.apollographql.apollo.cache.normalized.BinaryRecordCodec;
+import com.apollographql.apollo.cache.normalized.CacheKey;
+import com.apollographql.apollo.cache.normalized.NormalizedCache;
+import com.apollographql.apollo.cache.normalized.Record;
+import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
+import com.apollographql.apollo.internal.util.Buffers;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static com.apollographql.apollo.api.internal.Utils.checkNotNull;
+
+/**
+ * A persistent {@link NormalizedCache} for the JVM, kept in a directory as a log of memory mapped segment files.
+ *
+ * <p>Every change appends an entry to the active segment: the full merged record, a tombstone for a removed record
+ * or a marker for {@link #clearAll()}. An index on the heap maps record keys to the location of their latest entry,
+ * and records are read straight from the mapped segments. When the active segment is full, a new one is started.
+ * Opening the cache replays all segments in order to rebuild the index, so records are available immediately after a
+ * restart.</p>
+ *
+ * <p>Entries carry a CRC32 checksum. Replay stops at the first entry that is incomplete or does not match its
+ * checksum, as left by a crash in the middle of a write, and later writes overwrite it. Writes reach the file system
+ * through the page cache and survive a crash of the process, {@link #flush()} forces them to the storage device.</p>
+ *
+ * <p>Once at least a segment worth of entries is superseded and they make up half of the log, the sealed segments are
+ * compacted on the compaction executor: live entries are copied to the active segment, then the segment files are
+ * deleted, oldest first. Compaction relies on deleting files that are still mapped, which works on Linux, macOS and
+ * Android.</p>
+ */
+public final class MappedNormalizedCache extends NormalizedCache implements Closeable {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  // entry layout: crc of the rest of the entry, key length, value length, type, key bytes, value bytes
+  private static final int CRC_OFFSET = 0;
+  private static final int KEY_LENGTH_OFFSET = 4;
+  private static final int VALUE_LENGTH_OFFSET = 8;
+  private static final int TYPE_OFFSET = 12;
+  private static final int HEADER_SIZE = 13;
+  private static final byte TYPE_PUT = 1;
+  private static final byte TYPE_DELETE = 2;
+  private static final byte TYPE_CLEAR = 3;
+
+  private final File directory;
+  private final int segmentSizeBytes;
+  private final Executor compactionExecutor;
+  private final BinaryRecordCodec recordCodec;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+  private final Map<String, Long> index = new HashMap<>();
+  private Segment activeSegment;
+  private long totalBytes;
+  private long deadBytes;
+  private boolean compactionScheduled;
+  private boolean closed;
+
+  MappedNormalizedCache(RecordFieldAdapter recordFieldAdapter, File directory, int segmentSizeBytes,
+      Executor compactionExecutor) throws IOException {
+    super(recordFieldAdapter);
+    this.directory = directory;
+    this.segmentSizeBytes = segmentSizeBytes;
+    this.compactionExecutor = compactionExecutor;
+    this.recordCodec = BinaryRecordCodec.create(recordFieldAdapter);
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Failed to create directory " + directory);
+    }
+    recover();
+  }
+
+  @Nullable @Override public Record loadRecord(@Nonnull String key, @Nonnull CacheHeaders cacheHeaders) {
+    Record record;
+    lock.readLock().lock();
+    try {
+      checkOpen();
+      Long location = index.get(key);
+      record = location != null ? readRecord(key, location) : null;
+    } finally {
+      lock.readLock().unlock();
+    }
+    if (record != null && cacheHeaders.hasHeader(ApolloCacheHeaders.EVICT_AFTER_READ)) {
+      remove(CacheKey.from(key));
+    }
+    return record;
+  }
+
+  @Nonnull @Override public Collection<Record> loadRecords(@Nonnull Collection<String> keys,
+      @Nonnull CacheHeaders cacheHeaders) {
+    List<Record> records = new ArrayList<>(keys.size());
+    lock.readLock().lock();
+    try {
+      checkOpen();
+      for (String key : keys) {
+        Long location = index.get(key);
+        Record record = location != null ? readRecord(key, location) : null;
+        if (record != null) {
+          records.add(record);
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    if (cacheHeaders.hasHeader(ApolloCacheHeaders.EVICT_AFTER_READ)) {
+      for (Record record : records) {
+        remove(CacheKey.from(record.key()));
+      }
+    }
+    return records;
+  }
+
+  @Nonnull @Override public Set<String> merge(@Nonnull Record apolloRecord, @Nonnull CacheHeaders cacheHeaders) {
+    return merge(Collections.singletonList(apolloRecord), cacheHeaders);
+  }
+
+  @Nonnull @Override public Set<String> merge(@Nonnull Collection<Record> recordSet,
+      @Nonnull CacheHeaders cacheHeaders) {
+    if (cacheHeaders.hasHeader(ApolloCacheHeaders.DO_NOT_STORE)) {
+      return Collections.emptySet();
+    }
+    Set<String> changedKeys = new LinkedHashSet<>();
+    lock.writeLock().lock();
+    try {
+      checkOpen();
+      for (Record record : recordSet) {
+        Long oldLocation = index.get(record.key());
+        Record oldRecord = oldLocation != null ? readRecord(record.key(), oldLocation) : null;
+        Record mergedRecord = oldRecord != null ? oldRecord.mergeWith(record, changedKeys) : record;
+        if (mergedRecord == oldRecord) {
+          continue;
+        }
+        long location = append(entry(TYPE_PUT, record.key().getBytes(UTF_8),
+            recordCodec.encode(mergedRecord)));
+        index.put(record.key(), location);
+        if (oldLocation != null) {
+          markDead(oldLocation);
+        }
+      }
+      scheduleCompactionIfNeeded();
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to write to normalized cache in " + directory, e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    return changedKeys;
+  }
+
+  @Nonnull @Override public Optional<Set<String>> recordKeys() {
+    lock.readLock().lock();
+    try {
+      checkOpen();
+      return Optional.<Set<String>>of(new HashSet<>(index.keySet()));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override public void clearAll() {
+    lock.writeLock().lock();
+    try {
+      checkOpen();
+      append(entry(TYPE_CLEAR, new byte[0], new byte[0]));
+      index.clear();
+      // entries before the marker are dead, and so are older segments which can go right away
+      for (Segment segment : new ArrayList<>(segments.headMap(activeSegment.id).values())) {
+        deleteSegment(segment);
+      }
+      addDead(activeSegment, activeSegment.size - activeSegment.deadBytes);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to write to normalized cache in " + directory, e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override public boolean remove(@Nonnull CacheKey cacheKey) {
+    checkNotNull(cacheKey, "cacheKey == null");
+    lock.writeLock().lock();
+    try {
+      checkOpen();
+      Long location = index.remove(cacheKey.key());
+      if (location == null) {
+        return false;
+      }
+      markDead(location);
+      byte[] tombstone = entry(TYPE_DELETE, cacheKey.key().getBytes(UTF_8), new byte[0]);
+      append(tombstone);
+      addDead(activeSegment, tombstone.length);
+      scheduleCompactionIfNeeded();
+      return true;
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to write to normalized cache in " + directory, e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Forces all written entries to the storage device.
+   */
+  public void flush() throws IOException {
+    lock.writeLock().lock();
+    try {
+      checkOpen();
+      activeSegment.buffer.force();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Copies the live entries of all segments but the active one to the active segment and deletes those segments.
+   * Readers and writers are blocked while a segment is compacted, not for the whole compaction.
+   */
+  public void compact() throws IOException {
+    List<Integer> sealedSegmentIds;
+    lock.writeLock().lock();
+    try {
+      checkOpen();
+      if (activeSegment.deadBytes > 0) {
+        roll(0);
+      }
+      sealedSegmentIds = new ArrayList<>(segments.headMap(activeSegment.id).keySet());
+    } finally {
+      lock.writeLock().unlock();
+    }
+    // oldest first: tombstones are dropped, which is only safe once no older segment holds the removed record
+    for (Integer segmentId : sealedSegmentIds) {
+      lock.writeLock().lock();
+      try {
+        Segment segment = segments.get(segmentId);
+        if (closed || segment == null) {
+          continue;
+        }
+        copyLiveEntries(segment);
+        activeSegment.buffer.force();
+        deleteSegment(segment);
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  @Override public void close() throws IOException {
+    lock.writeLock().lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      activeSegment.buffer.force();
+      for (Segment segment : segments.values()) {
+        segment.close();
+      }
+      segments.clear();
+      index.clear();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void recover() throws IOException {
+    TreeMap<Integer, File> files = new TreeMap<>();
+    File[] directoryFiles = directory.listFiles();
+    if (directoryFiles != null) {
+      for (File file : directoryFiles) {
+        String name = file.getName();
+        if (name.endsWith(SEGMENT_SUFFIX)) {
+          try {
+            files.put(Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), file);
+          } catch (NumberFormatException ignored) {
+            // not a segment
+          }
+        }
+      }
+    }
+    for (Map.Entry<Integer, File> file : files.entrySet()) {
+      Segment segment = Segment.open(file.getKey(), file.getValue(), 0);
+      segments.put(segment.id, segment);
+      replay(segment);
+    }
+    if (segments.isEmpty()) {
+      activeSegment = createSegment(1, segmentSizeBytes);
+    } else {
+      activeSegment = segments.lastEntry().getValue();
+    }
+  }
+
+  private void replay(Segment segment) {
+    ByteBuffer buffer = segment.buffer;
+    int offset = 0;
+    while (true) {
+      int size = validEntrySize(buffer, offset, segment.capacity);
+      if (size < 0) {
+        break;
+      }
+      int keyLength = buffer.getInt(offset + KEY_LENGTH_OFFSET);
+      String key = new String(readBytes(buffer, offset + HEADER_SIZE, keyLength), UTF_8);
+      switch (buffer.get(offset + TYPE_OFFSET)) {
+        case TYPE_PUT:
+          Long oldLocation = index.put(key, location(segment.id, offset));
+          if (oldLocation != null) {
+            markDead(oldLocation);
+          }
+          break;
+        case TYPE_DELETE:
+          Long removedLocation = index.remove(key);
+          if (removedLocation != null) {
+            markDead(removedLocation);
+          }
+          addDead(segment, size);
+          break;
+        default:
+          index.clear();
+          for (Segment olderSegment : segments.headMap(segment.id).values()) {
+            addDead(olderSegment, olderSegment.size - olderSegment.deadBytes);
+          }
+          addDead(segment, offset + size - segment.deadBytes);
+          break;
+      }
+      offset += size;
+      segment.size = offset;
+      totalBytes += size;
+    }
+    // clears what a torn write left behind, so appended entries are not followed by garbage
+    for (int i = offset; i < segment.capacity; i++) {
+      if (buffer.get(i) != 0) {
+        buffer.put(i, (byte) 0);
+      }
+    }
+  }
+
+  /**
+   * @return the size of the entry at offset, or -1 if there is no complete entry with a matching checksum
+   */
+  private static int validEntrySize(ByteBuffer buffer, int offset, int capacity) {
+    if (capacity - offset < HEADER_SIZE) {
+      return -1;
+    }
+    int keyLength = buffer.getInt(offset + KEY_LENGTH_OFFSET);
+    int valueLength = buffer.getInt(offset + VALUE_LENGTH_OFFSET);
+    byte type = buffer.get(offset + TYPE_OFFSET);
+    if (type < TYPE_PUT || type > TYPE_CLEAR || keyLength < 0 || valueLength < 0
+        || (long) HEADER_SIZE + keyLength + valueLength > capacity - offset) {
+      return -1;
+    }
+    int size = HEADER_SIZE + keyLength + valueLength;
+    CRC32 crc = new CRC32();
+    crc.update(readBytes(buffer, offset + KEY_LENGTH_OFFSET, size - KEY_LENGTH_OFFSET));
+    return buffer.getInt(offset + CRC_OFFSET) == (int) crc.getValue() ? size : -1;
+  }
+
+  private void copyLiveEntries(Segment segment) throws IOException {
+    ByteBuffer buffer = segment.buffer;
+    for (int offset = 0; offset < segment.size; ) {
+      int keyLength = buffer.getInt(offset + KEY_LENGTH_OFFSET);
+      int size = HEADER_SIZE + keyLength + buffer.getInt(offset + VALUE_LENGTH_OFFSET);
+      if (buffer.get(offset + TYPE_OFFSET) == TYPE_PUT) {
+        String key = new String(readBytes(buffer, offset + HEADER_SIZE, keyLength), UTF_8);
+        Long location = index.get(key);
+        if (location != null && location == location(segment.id, offset)) {
+          index.put(key, append(readBytes(buffer, offset, size)));
+        }
+      }
+      offset += size;
+    }
+  }
+
+  @Nullable private Record readRecord(String key, long location) {
+    ByteBuffer buffer = segments.get(segmentId(location)).buffer;
+    int offset = offset(location);
+    int keyLength = buffer.getInt(offset + KEY_LENGTH_OFFSET);
+    int valueLength = buffer.getInt(offset + VALUE_LENGTH_OFFSET);
+    try {
+      return recordCodec.decode(key, readBytes(buffer, offset + HEADER_SIZE + keyLength, valueLength));
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static byte[] entry(byte type, byte[] key, byte[] value) {
+    byte[] entry = new byte[HEADER_SIZE + key.length + value.length];
+    ByteBuffer buffer = ByteBuffer.wrap(entry);
+    buffer.putInt(KEY_LENGTH_OFFSET, key.length);
+    buffer.putInt(VALUE_LENGTH_OFFSET, value.length);
+    buffer.put(TYPE_OFFSET, type);
+    System.arraycopy(key, 0, entry, HEADER_SIZE, key.length);
+    System.arraycopy(value, 0, entry, HEADER_SIZE + key.length, value.length);
+    CRC32 crc = new CRC32();
+    crc.update(entry, KEY_LENGTH_OFFSET, entry.length - KEY_LENGTH_OFFSET);
+    buffer.putInt(CRC_OFFSET, (int) crc.getValue());
+    return entry;
+  }
+
+  private long append(byte[] entry) throws IOException {
+    if (activeSegment.capacity - activeSegment.size < entry.length) {
+      roll(entry.length);
+    }
+    int offset = activeSegment.size;
+    ByteBuffer buffer = activeSegment.buffer.duplicate();
+    Buffers.position(buffer, offset);
+    buffer.put(entry);
+    activeSegment.size += entry.length;
+    totalBytes += entry.length;
+    return location(activeSegment.id, offset);
+  }
+
+  private void roll(int minCapacity) throws IOException {
+    activeSegment.buffer.force();
+    activeSegment = createSegment(activeSegment.id + 1, Math.max(segmentSizeBytes, minCapacity));
+  }
+
+  private Segment createSegment(int id, int capacity) throws IOException {
+    Segment segment = Segment.open(id, new File(directory, String.format("%010d%s", id, SEGMENT_SUFFIX)), capacity);
+    segments.put(id, segment);
+    return segment;
+  }
+
+  private void deleteSegment(Segment segment) throws IOException {
+    segments.remove(segment.id);
+    totalBytes -= segment.size;
+    deadBytes -= segment.deadBytes;
+    segment.close();
+    if (!segment.file.delete()) {
+      throw new IOException("Failed to delete " + segment.file);
+    }
+  }
+
+  private void markDead(long location) {
+    Segment segment = segments.get(segmentId(location));
+    int offset = offset(location);
+    ByteBuffer buffer = segment.buffer;
+    addDead(segment, HEADER_SIZE + buffer.getInt(offset + KEY_LENGTH_OFFSET)
+        + buffer.getInt(offset + VALUE_LENGTH_OFFSET));
+  }
+
+  private void addDead(Segment segment, long bytes) {
+    segment.deadBytes += bytes;
+    deadBytes += bytes;
+  }
+
+  private void scheduleCompactionIfNeeded() {
+    if (compactionScheduled || deadBytes < segmentSizeBytes || deadBytes * 2 < totalBytes) {
+      return;
+    }
+    compactionScheduled = true;
+    compactionExecutor.execute(new Runnable() {
+      @Override public void run() {
+        try {
+          compact();
+        } catch (IOException e) {
+          throw new RuntimeException("Failed to compact normalized cache in " + directory, e);
+        } finally {
+          lock.writeLock().lock();
+          compactionScheduled = false;
+          lock.writeLock().unlock();
+        }
+      }
+    });
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("Normalized cache in " + directory + " is closed");
+    }
+  }
+
+  private static byte[] readBytes(ByteBuffer buffer, int offset, int length) {
+    byte[] bytes = new byte[length];
+    ByteBuffer source = buffer.duplicate();
+    Buffers.position(source, offset);
+    source.get(bytes);
+    return bytes;
+  }
+
+  private static long location(int segmentId, int offset) {
+    return ((long) segmentId << 32) | offset;
+  }
+
+  private static int segmentId(long location) {
+    return (int) (location >>> 32);
+  }
+
+  private static int offset(long location) {
+    return (int) location;
+  }
+
+  private static final class Segment {
+    final int id;
+    final File file;
+    final RandomAccessFile randomAccessFile;
+    final MappedByteBuffer buffer;
+    final int capacity;
+    int size;
+    long deadBytes;
+
+    private Segment(int id, File file, RandomAccessFile randomAccessFile, MappedByteBuffer buffer) {
+      this.id = id;
+      this.file = file;
+      this.randomAccessFile = randomAccessFile;
+      this.buffer = buffer;
+      this.capacity = buffer.capacity();
+    }
+
+    /**
+     * @param capacity the size of a new segment file, 0 to open an existing one
+     */
+    static Segment open(int id, File file, int capacity) throws IOException {
+      RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+      try {
+        if (capacity > 0) {
+          randomAccessFile.setLength(capacity);
+        }
+        MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+            randomAccessFile.length());
+        return new Segment(id, file, randomAccessFile, buffer);
+      } catch (IOException e) {
+        randomAccessFile.close();
+        throw e;
+      }
+    }
+
+    void close() throws IOException {
+      randomAccessFile.close();
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.apollographql.apollo.cache.normalized.mmap;
+
+import com.apollographql.apollo.cache.normalized.NormalizedCacheFactory;
+import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
+import com.apollographql.apollo.internal.util.BackgroundExecutor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import static com.apollographql.apollo.api.internal.Utils.checkNotNull;
+
+/**
+ * Factory of {@link MappedNormalizedCache}, a persistent normalized cache for the JVM. Can be used on its own or as
+ * the secondary cache of a {@link com.apollographql.apollo.cache.normalized.lru.LruNormalizedCacheFactory}. Only one
+ * cache at a time may be open on a directory.
+ */
+public final class MappedNormalizedCacheFactory implements NormalizedCacheFactory<MappedNormalizedCache> {
+  public static final int DEFAULT_SEGMENT_SIZE_BYTES = 4 * 1024 * 1024;
+  private static final int MIN_SEGMENT_SIZE_BYTES = 1024;
+
+  private final File directory;
+  private final int segmentSizeBytes;
+  private final Executor compactionExecutor;
+
+  /**
+   * @param directory The directory to keep the cache in.
+   */
+  public MappedNormalizedCacheFactory(File directory) {
+    this(directory, DEFAULT_SEGMENT_SIZE_BYTES, BackgroundExecutor.create("Apollo Cache Compaction"));
+  }
+
+  /**
+   * @param directory          The directory to keep the cache in.
+   * @param segmentSizeBytes   The size of a segment file. Records larger than a segment get a segment of their own.
+   * @param compactionExecutor The executor to compact the cache on.
+   */
+  public MappedNormalizedCacheFactory(File directory, int segmentSizeBytes, Executor compactionExecutor) {
+    if (segmentSizeBytes < MIN_SEGMENT_SIZE_BYTES) {
+      throw new IllegalArgumentException("segmentSizeBytes must be at least " + MIN_SEGMENT_SIZE_BYTES);
+    }
+    this.directory = checkNotNull(directory, "directory == null");
+    this.segmentSizeBytes = segmentSizeBytes;
+    this.compactionExecutor = checkNotNull(compactionExecutor, "compactionExecutor == null");
+  }
+
+  @Override public MappedNormalizedCache createNormalizedCache(RecordFieldAdapter recordFieldAdapter) {
+    try {
+      return new MappedNormalizedCache(recordFieldAdapter, directory, segmentSizeBytes, compactionExecutor);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to open normalized cache in " + directory, e);
+    }
+  }
+}
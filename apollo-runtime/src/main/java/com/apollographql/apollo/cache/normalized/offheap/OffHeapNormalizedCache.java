@@ -0,0 +1,479 @@
+package com.apollographql.apollo.cache.normalized.offheap;
+
+import com.apollographql.apollo.cache.ApolloCacheHeaders;
+import com.apollographql.apollo.cache.CacheHeaders;
+import com.apollographql.apollo.cache.normalized.BinaryRecordCodec;
+import com.apollographql.apollo.cache.normalized.CacheKey;
+import com.apollographql.apollo.cache.normalized.NormalizedCache;
+import com.apollographql.apollo.cache.normalized.Record;
+import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
+import com.apollographql.apollo.internal.util.Buffers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static com.apollographql.apollo.api.internal.Utils.checkNotNull;
+
+/**
+ * A {@link NormalizedCache} that keeps records outside of the Java heap, so a large cache adds neither objects to
+ * trace nor to copy during garbage collection. Records are encoded with {@link BinaryRecordCodec} into chunks of
+ * direct {@link ByteBuffer} slabs and decoded on every read.
+ *
+ * <p>Every slab is split into chunks of one size class, the smallest class that fits a record holds it. Slabs are
+ * allocated on demand up to the maximum size. Once all are in use, a record of a class without free chunks evicts a
+ * chunk of the same class with the CLOCK algorithm: reading a record marks its chunk as referenced, and the clock hand
+ * evicts the first chunk that has not been referenced since the hand last passed. A class without slabs takes over a
+ * slab of the class that has the most. Records larger than a slab are not stored.</p>
+ *
+ * <p>Records are found through an open addressing hash table on the heap, which maps the hash of a record key to the
+ * address of its chunk. All methods are thread safe.</p>
+ */
+public final class OffHeapNormalizedCache extends NormalizedCache {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final long EMPTY = -1;
+  private static final int MIN_CHUNK_SIZE = 64;
+  private static final int INITIAL_INDEX_CAPACITY = 1024;
+
+  // chunk layout: flags, key hash, key length, value length, key bytes, value bytes
+  private static final int FLAGS_OFFSET = 0;
+  private static final int HASH_OFFSET = 4;
+  private static final int KEY_LENGTH_OFFSET = 8;
+  private static final int VALUE_LENGTH_OFFSET = 12;
+  private static final int HEADER_SIZE = 16;
+  private static final byte FLAG_IN_USE = 1;
+  private static final byte FLAG_REFERENCED = 2;
+
+  private final BinaryRecordCodec recordCodec;
+  private final int slabSizeBytes;
+  private final ByteBuffer[] slabs;
+  private final SizeClass[] slabClasses;
+  private final SizeClass[] sizeClasses;
+  private int assignedSlabCount;
+  private int[] hashes;
+  private long[] addresses;
+  private int indexSize;
+  private byte[] readBuffer = new byte[256];
+
+  OffHeapNormalizedCache(RecordFieldAdapter recordFieldAdapter, long maxSizeBytes, int slabSizeBytes) {
+    super(recordFieldAdapter);
+    this.recordCodec = BinaryRecordCodec.create(recordFieldAdapter);
+    this.slabSizeBytes = slabSizeBytes;
+    int slabCount = (int) (maxSizeBytes / slabSizeBytes);
+    this.slabs = new ByteBuffer[slabCount];
+    this.slabClasses = new SizeClass[slabCount];
+    this.sizeClasses = createSizeClasses(slabSizeBytes);
+    resetIndex(INITIAL_INDEX_CAPACITY);
+  }
+
+  @Nullable @Override public synchronized Record loadRecord(@Nonnull String key, @Nonnull CacheHeaders cacheHeaders) {
+    int hash = hash(key);
+    int slot = find(hash, key.getBytes(UTF_8));
+    if (slot < 0) {
+      return null;
+    }
+    long address = addresses[slot];
+    Record record = readRecord(key, address);
+    if (record == null || cacheHeaders.hasHeader(ApolloCacheHeaders.EVICT_AFTER_READ)) {
+      removeAt(slot);
+      freeChunk(address);
+    } else {
+      ByteBuffer slab = slabs[slabIndex(address)];
+      int offset = offset(address);
+      slab.put(offset + FLAGS_OFFSET, (byte) (slab.get(offset + FLAGS_OFFSET) | FLAG_REFERENCED));
+    }
+    return record;
+  }
+
+  @Nonnull @Override public synchronized Collection<Record> loadRecords(@Nonnull Collection<String> keys,
+      @Nonnull CacheHeaders cacheHeaders) {
+    List<Record> records = new ArrayList<>(keys.size());
+    for (String key : keys) {
+      Record record = loadRecord(key, cacheHeaders);
+      if (record != null) {
+        records.add(record);
+      }
+    }
+    return records;
+  }
+
+  @Nonnull @Override public synchronized Set<String> merge(@Nonnull Record apolloRecord,
+      @Nonnull CacheHeaders cacheHeaders) {
+    if (cacheHeaders.hasHeader(ApolloCacheHeaders.DO_NOT_STORE)) {
+      return Collections.emptySet();
+    }
+    byte[] keyBytes = apolloRecord.key().getBytes(UTF_8);
+    int hash = hash(apolloRecord.key());
+    int slot = find(hash, keyBytes);
+    Set<String> changedKeys = new LinkedHashSet<>();
+    Record record = apolloRecord;
+    if (slot >= 0) {
+      Record oldRecord = readRecord(apolloRecord.key(), addresses[slot]);
+      if (oldRecord != null) {
+        record = oldRecord.mergeWith(apolloRecord, changedKeys);
+        if (record == oldRecord) {
+          return changedKeys;
+        }
+      }
+    }
+    store(slot, hash, keyBytes, recordCodec.encode(record));
+    return changedKeys;
+  }
+
+  @Nonnull @Override public synchronized Set<String> merge(@Nonnull Collection<Record> recordSet,
+      @Nonnull CacheHeaders cacheHeaders) {
+    return super.merge(recordSet, cacheHeaders);
+  }
+
+  @Override public synchronized void clearAll() {
+    for (SizeClass sizeClass : sizeClasses) {
+      sizeClass.reset();
+    }
+    Arrays.fill(slabClasses, null);
+    assignedSlabCount = 0;
+    resetIndex(INITIAL_INDEX_CAPACITY);
+  }
+
+  @Override public synchronized boolean remove(@Nonnull CacheKey cacheKey) {
+    checkNotNull(cacheKey, "cacheKey == null");
+    int slot = find(hash(cacheKey.key()), cacheKey.key().getBytes(UTF_8));
+    if (slot < 0) {
+      return false;
+    }
+    long address = addresses[slot];
+    removeAt(slot);
+    freeChunk(address);
+    return true;
+  }
+
+  private void store(int slot, int hash, byte[] keyBytes, byte[] value) {
+    SizeClass sizeClass = sizeClassFor(HEADER_SIZE + keyBytes.length + value.length);
+    if (slot >= 0) {
+      long oldAddress = addresses[slot];
+      if (sizeClass != null && slabClasses[slabIndex(oldAddress)] == sizeClass) {
+        writeChunk(oldAddress, hash, keyBytes, value, (byte) (FLAG_IN_USE | FLAG_REFERENCED));
+        return;
+      }
+      removeAt(slot);
+      freeChunk(oldAddress);
+    }
+    if (sizeClass == null) {
+      // larger than a slab
+      return;
+    }
+    long address = allocateChunk(sizeClass);
+    writeChunk(address, hash, keyBytes, value, FLAG_IN_USE);
+    insert(hash, address);
+  }
+
+  @Nullable private Record readRecord(String key, long address) {
+    ByteBuffer slab = slabs[slabIndex(address)];
+    int offset = offset(address);
+    int keyLength = slab.getInt(offset + KEY_LENGTH_OFFSET);
+    int valueLength = slab.getInt(offset + VALUE_LENGTH_OFFSET);
+    if (readBuffer.length < valueLength) {
+      readBuffer = new byte[Math.max(valueLength, readBuffer.length * 2)];
+    }
+    Buffers.position(slab, offset + HEADER_SIZE + keyLength);
+    slab.get(readBuffer, 0, valueLength);
+    try {
+      return recordCodec.decode(key, readBuffer, 0, valueLength);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private void writeChunk(long address, int hash, byte[] keyBytes, byte[] value, byte flags) {
+    ByteBuffer slab = slabs[slabIndex(address)];
+    int offset = offset(address);
+    slab.put(offset + FLAGS_OFFSET, flags);
+    slab.putInt(offset + HASH_OFFSET, hash);
+    slab.putInt(offset + KEY_LENGTH_OFFSET, keyBytes.length);
+    slab.putInt(offset + VALUE_LENGTH_OFFSET, value.length);
+    Buffers.position(slab, offset + HEADER_SIZE);
+    slab.put(keyBytes);
+    slab.put(value);
+  }
+
+  private long allocateChunk(SizeClass sizeClass) {
+    if (sizeClass.freeCount > 0) {
+      return sizeClass.popFree();
+    }
+    if (assignedSlabCount < slabs.length) {
+      int slabIndex = assignedSlabCount++;
+      if (slabs[slabIndex] == null) {
+        slabs[slabIndex] = ByteBuffer.allocateDirect(slabSizeBytes);
+      }
+      assignSlab(slabIndex, sizeClass);
+      return sizeClass.popFree();
+    }
+    if (sizeClass.slabCount == 0) {
+      reassignSlab(sizeClass);
+      return sizeClass.popFree();
+    }
+    return evictChunk(sizeClass);
+  }
+
+  /**
+   * Advances the clock hand of a size class, all chunks of which are in use, until it finds a chunk that has not been
+   * referenced since the hand last passed it, then evicts the record in that chunk.
+   */
+  private long evictChunk(SizeClass sizeClass) {
+    while (true) {
+      int slabIndex = sizeClass.slabs[sizeClass.handSlab];
+      int offset = sizeClass.handChunk * sizeClass.chunkSize;
+      if (++sizeClass.handChunk == sizeClass.chunksPerSlab) {
+        sizeClass.handChunk = 0;
+        sizeClass.handSlab = (sizeClass.handSlab + 1) % sizeClass.slabCount;
+      }
+      ByteBuffer slab = slabs[slabIndex];
+      byte flags = slab.get(offset + FLAGS_OFFSET);
+      if ((flags & FLAG_REFERENCED) != 0) {
+        slab.put(offset + FLAGS_OFFSET, (byte) (flags & ~FLAG_REFERENCED));
+        continue;
+      }
+      long address = address(slabIndex, offset);
+      if ((flags & FLAG_IN_USE) != 0) {
+        unindex(address);
+      }
+      slab.put(offset + FLAGS_OFFSET, (byte) 0);
+      return address;
+    }
+  }
+
+  /**
+   * Moves the last slab of the size class with the most slabs to a size class without slabs, evicting the records in
+   * it.
+   */
+  private void reassignSlab(SizeClass sizeClass) {
+    SizeClass victim = null;
+    for (SizeClass candidate : sizeClasses) {
+      if (victim == null || candidate.slabCount > victim.slabCount) {
+        victim = candidate;
+      }
+    }
+    int slabIndex = victim.removeLastSlab();
+    ByteBuffer slab = slabs[slabIndex];
+    for (int chunk = 0; chunk < victim.chunksPerSlab; chunk++) {
+      int offset = chunk * victim.chunkSize;
+      if ((slab.get(offset + FLAGS_OFFSET) & FLAG_IN_USE) != 0) {
+        unindex(address(slabIndex, offset));
+      }
+    }
+    assignSlab(slabIndex, sizeClass);
+  }
+
+  private void assignSlab(int slabIndex, SizeClass sizeClass) {
+    slabClasses[slabIndex] = sizeClass;
+    sizeClass.addSlab(slabIndex);
+    ByteBuffer slab = slabs[slabIndex];
+    // chunks are pushed in reverse so that they are taken from the start of the slab
+    for (int chunk = sizeClass.chunksPerSlab - 1; chunk >= 0; chunk--) {
+      int offset = chunk * sizeClass.chunkSize;
+      slab.put(offset + FLAGS_OFFSET, (byte) 0);
+      sizeClass.pushFree(address(slabIndex, offset));
+    }
+  }
+
+  private void freeChunk(long address) {
+    int slabIndex = slabIndex(address);
+    slabs[slabIndex].put(offset(address) + FLAGS_OFFSET, (byte) 0);
+    slabClasses[slabIndex].pushFree(address);
+  }
+
+  @Nullable private SizeClass sizeClassFor(int size) {
+    for (SizeClass sizeClass : sizeClasses) {
+      if (size <= sizeClass.chunkSize) {
+        return sizeClass;
+      }
+    }
+    return null;
+  }
+
+  private int find(int hash, byte[] keyBytes) {
+    int mask = addresses.length - 1;
+    for (int slot = hash & mask; addresses[slot] != EMPTY; slot = (slot + 1) & mask) {
+      if (hashes[slot] == hash && keyEquals(addresses[slot], keyBytes)) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  private boolean keyEquals(long address, byte[] keyBytes) {
+    ByteBuffer slab = slabs[slabIndex(address)];
+    int offset = offset(address);
+    if (slab.getInt(offset + KEY_LENGTH_OFFSET) != keyBytes.length) {
+      return false;
+    }
+    for (int i = 0; i < keyBytes.length; i++) {
+      if (slab.get(offset + HEADER_SIZE + i) != keyBytes[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void insert(int hash, long address) {
+    if ((indexSize + 1) * 4 > addresses.length * 3) {
+      resizeIndex();
+    }
+    int mask = addresses.length - 1;
+    int slot = hash & mask;
+    while (addresses[slot] != EMPTY) {
+      slot = (slot + 1) & mask;
+    }
+    hashes[slot] = hash;
+    addresses[slot] = address;
+    indexSize++;
+  }
+
+  private void unindex(long address) {
+    int mask = addresses.length - 1;
+    int hash = slabs[slabIndex(address)].getInt(offset(address) + HASH_OFFSET);
+    for (int slot = hash & mask; addresses[slot] != EMPTY; slot = (slot + 1) & mask) {
+      if (addresses[slot] == address) {
+        removeAt(slot);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Removes an entry from the index and shifts back the entries after it that would not be found otherwise, so linear
+   * probing needs no tombstones.
+   */
+  private void removeAt(int slot) {
+    int mask = addresses.length - 1;
+    int next = slot;
+    while (true) {
+      next = (next + 1) & mask;
+      if (addresses[next] == EMPTY) {
+        break;
+      }
+      int home = hashes[next] & mask;
+      boolean movable = slot <= next ? home <= slot || home > next : home <= slot && home > next;
+      if (movable) {
+        hashes[slot] = hashes[next];
+        addresses[slot] = addresses[next];
+        slot = next;
+      }
+    }
+    addresses[slot] = EMPTY;
+    indexSize--;
+  }
+
+  private void resizeIndex() {
+    int[] oldHashes = hashes;
+    long[] oldAddresses = addresses;
+    resetIndex(oldAddresses.length * 2);
+    for (int i = 0; i < oldAddresses.length; i++) {
+      if (oldAddresses[i] != EMPTY) {
+        insert(oldHashes[i], oldAddresses[i]);
+      }
+    }
+  }
+
+  private void resetIndex(int capacity) {
+    hashes = new int[capacity];
+    addresses = new long[capacity];
+    Arrays.fill(addresses, EMPTY);
+    indexSize = 0;
+  }
+
+  private static int hash(String key) {
+    int hash = key.hashCode() * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+
+  private static long address(int slabIndex, int offset) {
+    return ((long) slabIndex << 32) | offset;
+  }
+
+  private static int slabIndex(long address) {
+    return (int) (address >>> 32);
+  }
+
+  private static int offset(long address) {
+    return (int) address;
+  }
+
+  private static SizeClass[] createSizeClasses(int slabSizeBytes) {
+    List<SizeClass> sizeClasses = new ArrayList<>();
+    int chunkSize = MIN_CHUNK_SIZE;
+    while (chunkSize < slabSizeBytes) {
+      sizeClasses.add(new SizeClass(chunkSize, slabSizeBytes / chunkSize));
+      // grow by a quarter, aligned to 8 bytes
+      chunkSize = (chunkSize + chunkSize / 4 + 7) & ~7;
+    }
+    sizeClasses.add(new SizeClass(slabSizeBytes, 1));
+    return sizeClasses.toArray(new SizeClass[sizeClasses.size()]);
+  }
+
+  private static final class SizeClass {
+    final int chunkSize;
+    final int chunksPerSlab;
+    long[] free = new long[16];
+    int freeCount;
+    int[] slabs = new int[4];
+    int slabCount;
+    int handSlab;
+    int handChunk;
+
+    SizeClass(int chunkSize, int chunksPerSlab) {
+      this.chunkSize = chunkSize;
+      this.chunksPerSlab = chunksPerSlab;
+    }
+
+    void pushFree(long address) {
+      if (freeCount == free.length) {
+        free = Arrays.copyOf(free, freeCount * 2);
+      }
+      free[freeCount++] = address;
+    }
+
+    long popFree() {
+      return free[--freeCount];
+    }
+
+    void addSlab(int slabIndex) {
+      if (slabCount == slabs.length) {
+        slabs = Arrays.copyOf(slabs, slabCount * 2);
+      }
+      slabs[slabCount++] = slabIndex;
+    }
+
+    int removeLastSlab() {
+      int slabIndex = slabs[--slabCount];
+      int kept = 0;
+      for (int i = 0; i < freeCount; i++) {
+        if (slabIndex(free[i]) != slabIndex) {
+          free[kept++] = free[i];
+        }
+      }
+      freeCount = kept;
+      if (handSlab >= slabCount) {
+        handSlab = 0;
+        handChunk = 0;
+      }
+      return slabIndex;
+    }
+
+    void reset() {
+      freeCount = 0;
+      slabCount = 0;
+      handSlab = 0;
+      handChunk = 0;
+    }
+  }
+}
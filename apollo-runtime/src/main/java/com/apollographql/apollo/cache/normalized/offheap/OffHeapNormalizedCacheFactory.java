@@ -0,0 +1,45 @@
+package com.apollographql.apollo.cache.normalized.offheap;
+
+import com.apollographql.apollo.cache.normalized.NormalizedCacheFactory;
+import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
+
+/**
+ * Factory of {@link OffHeapNormalizedCache}. Can be used on its own or as the secondary cache of a
+ * {@link com.apollographql.apollo.cache.normalized.lru.LruNormalizedCacheFactory}.
+ */
+public final class OffHeapNormalizedCacheFactory implements NormalizedCacheFactory<OffHeapNormalizedCache> {
+  public static final int DEFAULT_SLAB_SIZE_BYTES = 1024 * 1024;
+  private static final int MIN_SLAB_SIZE_BYTES = 1024;
+  private static final int MAX_SLAB_SIZE_BYTES = 1 << 30;
+
+  private final long maxSizeBytes;
+  private final int slabSizeBytes;
+
+  /**
+   * @param maxSizeBytes The maximum number of bytes of direct memory to allocate, in slabs of
+   *                     {@link #DEFAULT_SLAB_SIZE_BYTES}.
+   */
+  public OffHeapNormalizedCacheFactory(long maxSizeBytes) {
+    this(maxSizeBytes, DEFAULT_SLAB_SIZE_BYTES);
+  }
+
+  /**
+   * @param maxSizeBytes  The maximum number of bytes of direct memory to allocate.
+   * @param slabSizeBytes The size of a slab, which is also the size of the largest record the cache can store.
+   */
+  public OffHeapNormalizedCacheFactory(long maxSizeBytes, int slabSizeBytes) {
+    if (slabSizeBytes < MIN_SLAB_SIZE_BYTES || slabSizeBytes > MAX_SLAB_SIZE_BYTES) {
+      throw new IllegalArgumentException("slabSizeBytes must be between " + MIN_SLAB_SIZE_BYTES + " and "
+          + MAX_SLAB_SIZE_BYTES);
+    }
+    if (maxSizeBytes < slabSizeBytes || maxSizeBytes / slabSizeBytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("maxSizeBytes must hold between 1 and " + Integer.MAX_VALUE + " slabs");
+    }
+    this.maxSizeBytes = maxSizeBytes;
+    this.slabSizeBytes = slabSizeBytes;
+  }
+
+  @Override public OffHeapNormalizedCache createNormalizedCache(RecordFieldAdapter recordFieldAdapter) {
+    return new OffHeapNormalizedCache(recordFieldAdapter, maxSizeBytes, slabSizeBytes);
+  }
+}
@@ -7,12 +7,14 @@ import com.apollographql.apollo.api.OperationName;
 import com.apollographql.apollo.api.Query;
 import com.apollographql.apollo.api.Response;
 import com.apollographql.apollo.api.ScalarType;
+import com.apollographql.apollo.api.internal.Optional;
 import com.apollographql.apollo.cache.CacheHeaders;
 import com.apollographql.apollo.cache.http.HttpCachePolicy;
 import com.apollographql.apollo.cache.normalized.ApolloStore;
 import com.apollographql.apollo.cache.normalized.CacheControl;
 import com.apollographql.apollo.exception.ApolloException;
 import com.apollographql.apollo.interceptor.ApolloInterceptor;
+import com.apollographql.apollo.internal.cache.normalized.PendingCacheWrites;
 import com.apollographql.apollo.internal.util.ApolloLogger;
 import com.squareup.moshi.Moshi;
 
@@ -20,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -60,6 +63,10 @@ final class QueryReFetcher {
           .applicationInterceptors(builder.applicationInterceptors)
           .tracker(builder.callTracker)
           .dispatcher(builder.dispatcher)
+          .parseExecutor(builder.parseExecutor)
+          .cacheExecutor(builder.cacheExecutor)
+          .callbackExecutor(builder.callbackExecutor)
+          .pendingCacheWrites(builder.pendingCacheWrites)
           .build());
     }
     queryWatchers = builder.queryWatchers;
@@ -128,6 +135,10 @@ final class QueryReFetcher {
     Map<ScalarType, CustomTypeAdapter> customTypeAdapters;
     ApolloStore apolloStore;
     ExecutorService dispatcher;
+    Executor parseExecutor;
+    Executor cacheExecutor;
+    Executor callbackExecutor;
+    Optional<PendingCacheWrites> pendingCacheWrites = Optional.absent();
     ApolloLogger logger;
     List<ApolloInterceptor> applicationInterceptors;
     ApolloCallTracker callTracker;
@@ -177,6 +188,26 @@ final class QueryReFetcher {
       return this;
     }
 
+    Builder parseExecutor(Executor parseExecutor) {
+      this.parseExecutor = parseExecutor;
+      return this;
+    }
+
+    Builder cacheExecutor(Executor cacheExecutor) {
+      this.cacheExecutor = cacheExecutor;
+      return this;
+    }
+
+    Builder callbackExecutor(Executor callbackExecutor) {
+      this.callbackExecutor = callbackExecutor;
+      return this;
+    }
+
+    Builder pendingCacheWrites(Optional<PendingCacheWrites> pendingCacheWrites) {
+      this.pendingCacheWrites = pendingCacheWrites;
+      return this;
+    }
+
     Builder logger(ApolloLogger logger) {
       this.logger = logger;
       return this;
@@ -10,6 +10,7 @@ import com.apollographql.apollo.api.Response;
 import com.apollographql.apollo.api.ResponseFieldMapper;
 import com.apollographql.apollo.api.ScalarType;
 import com.apollographql.apollo.api.internal.Optional;
+import com.apollographql.apollo.cache.ApolloCacheHeaders;
 import com.apollographql.apollo.cache.CacheHeaders;
 import com.apollographql.apollo.cache.http.HttpCachePolicy;
 import com.apollographql.apollo.cache.normalized.ApolloStore;
@@ -22,11 +23,15 @@ import com.apollographql.apollo.exception.ApolloParseException;
 import com.apollographql.apollo.interceptor.ApolloInterceptor;
 import com.apollographql.apollo.interceptor.ApolloInterceptorChain;
 import com.apollographql.apollo.internal.cache.http.HttpCache;
+import com.apollographql.apollo.internal.cache.normalized.PendingCacheWrites;
+import com.apollographql.apollo.internal.cache.normalized.PendingRevalidations;
+import com.apollographql.apollo.internal.cache.normalized.ResponseNormalizer;
 import com.apollographql.apollo.internal.interceptor.ApolloCacheInterceptor;
 import com.apollographql.apollo.internal.interceptor.ApolloParseInterceptor;
 import com.apollographql.apollo.internal.interceptor.ApolloServerInterceptor;
 import com.apollographql.apollo.internal.interceptor.RealApolloInterceptorChain;
 import com.apollographql.apollo.internal.util.ApolloLogger;
+import com.apollographql.apollo.internal.util.DirectExecutor;
 import com.squareup.moshi.Moshi;
 
 import java.util.ArrayList;
@@ -34,7 +39,9 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.Nonnull;
@@ -61,6 +68,11 @@ public final class RealApolloCall<T> implements ApolloQueryCall<T>, ApolloMutati
   final CacheHeaders cacheHeaders;
   final ApolloInterceptorChain interceptorChain;
   final ExecutorService dispatcher;
+  final Executor parseExecutor;
+  final Executor cacheExecutor;
+  final Executor callbackExecutor;
+  final Optional<PendingCacheWrites> pendingCacheWrites;
+  final PendingRevalidations pendingRevalidations;
   final ApolloLogger logger;
   final ApolloCallTracker tracker;
   final List<ApolloInterceptor> applicationInterceptors;
@@ -87,6 +99,11 @@ public final class RealApolloCall<T> implements ApolloQueryCall<T>, ApolloMutati
     cacheControl = builder.cacheControl;
     cacheHeaders = builder.cacheHeaders;
     dispatcher = builder.dispatcher;
+    parseExecutor = builder.parseExecutor;
+    cacheExecutor = builder.cacheExecutor;
+    callbackExecutor = builder.callbackExecutor;
+    pendingCacheWrites = builder.pendingCacheWrites;
+    pendingRevalidations = builder.pendingRevalidations;
     logger = builder.logger;
     applicationInterceptors = builder.applicationInterceptors;
     refetchQueryNames = builder.refetchQueryNames;
@@ -105,6 +122,10 @@ public final class RealApolloCall<T> implements ApolloQueryCall<T>, ApolloMutati
           .customTypeAdapters(builder.customTypeAdapters)
           .apolloStore(builder.apolloStore)
           .dispatcher(builder.dispatcher)
+          .parseExecutor(builder.parseExecutor)
+          .cacheExecutor(builder.cacheExecutor)
+          .callbackExecutor(builder.callbackExecutor)
+          .pendingCacheWrites(builder.pendingCacheWrites)
           .logger(builder.logger)
           .applicationInterceptors(builder.applicationInterceptors)
           .callTracker(builder.tracker)
@@ -217,45 +238,69 @@ public final class RealApolloCall<T> implements ApolloQueryCall<T>, ApolloMutati
   private ApolloInterceptor.CallBack interceptorCallbackProxy(final Callback<T> originalCallback) {
     return new ApolloInterceptor.CallBack() {
       @Override public void onResponse(@Nonnull final ApolloInterceptor.InterceptorResponse response) {
-        if (originalCallback == null) return;
         try {
-          if (RealApolloCall.this.canceled) {
-            originalCallback.onCanceledError(new ApolloCanceledException("Canceled"));
-            return;
-          }
-
-          if (queryReFetcher.isPresent()) {
-            queryReFetcher.get().refetch();
-          }
-
-          //noinspection unchecked
-          originalCallback.onResponse(response.parsedResponse.get());
-        } finally {
-          tracker.unregisterCall(RealApolloCall.this);
+          callbackExecutor.execute(new Runnable() {
+            @Override public void run() {
+              deliverResponse(originalCallback, response);
+            }
+          });
+        } catch (RejectedExecutionException e) {
+          deliverFailure(originalCallback, new ApolloException("Callback executor rejected the response", e));
         }
       }
 
-      @Override public void onFailure(@Nonnull ApolloException e) {
-        if (originalCallback == null) return;
+      @Override public void onFailure(@Nonnull final ApolloException e) {
         try {
-          if (RealApolloCall.this.canceled) {
-            originalCallback.onCanceledError(new ApolloCanceledException("Canceled", e));
-          } else if (e instanceof ApolloHttpException) {
-            originalCallback.onHttpError((ApolloHttpException) e);
-          } else if (e instanceof ApolloParseException) {
-            originalCallback.onParseError((ApolloParseException) e);
-          } else if (e instanceof ApolloNetworkException) {
-            originalCallback.onNetworkError((ApolloNetworkException) e);
-          } else {
-            originalCallback.onFailure(e);
-          }
-        } finally {
-          tracker.unregisterCall(RealApolloCall.this);
+          callbackExecutor.execute(new Runnable() {
+            @Override public void run() {
+              deliverFailure(originalCallback, e);
+            }
+          });
+        } catch (RejectedExecutionException rejected) {
+          deliverFailure(originalCallback, new ApolloException("Callback executor rejected the failure", rejected));
         }
       }
     };
   }
 
+  private void deliverResponse(Callback<T> originalCallback, ApolloInterceptor.InterceptorResponse response) {
+    if (originalCallback == null) return;
+    try {
+      if (canceled) {
+        originalCallback.onCanceledError(new ApolloCanceledException("Canceled"));
+        return;
+      }
+
+      if (queryReFetcher.isPresent()) {
+        queryReFetcher.get().refetch();
+      }
+
+      //noinspection unchecked
+      originalCallback.onResponse(response.parsedResponse.get());
+    } finally {
+      tracker.unregisterCall(this);
+    }
+  }
+
+  private void deliverFailure(Callback<T> originalCallback, ApolloException e) {
+    if (originalCallback == null) return;
+    try {
+      if (canceled) {
+        originalCallback.onCanceledError(new ApolloCanceledException("Canceled", e));
+      } else if (e instanceof ApolloHttpException) {
+        originalCallback.onHttpError((ApolloHttpException) e);
+      } else if (e instanceof ApolloParseException) {
+        originalCallback.onParseError((ApolloParseException) e);
+      } else if (e instanceof ApolloNetworkException) {
+        originalCallback.onNetworkError((ApolloNetworkException) e);
+      } else {
+        originalCallback.onFailure(e);
+      }
+    } finally {
+      tracker.unregisterCall(this);
+    }
+  }
+
   public Builder<T> toBuilder() {
     return RealApolloCall.<T>builder()
         .operation(operation)
@@ -270,6 +315,11 @@ public final class RealApolloCall<T> implements ApolloQueryCall<T>, ApolloMutati
         .cacheControl(cacheControl)
         .cacheHeaders(cacheHeaders)
         .dispatcher(dispatcher)
+        .parseExecutor(parseExecutor)
+        .cacheExecutor(cacheExecutor)
+        .callbackExecutor(callbackExecutor)
+        .pendingCacheWrites(pendingCacheWrites)
+        .pendingRevalidations(pendingRevalidations)
         .logger(logger)
         .applicationInterceptors(applicationInterceptors)
         .tracker(tracker)
@@ -284,14 +334,29 @@ public final class RealApolloCall<T> implements ApolloQueryCall<T>, ApolloMutati
 
     interceptors.addAll(applicationInterceptors);
     interceptors.add(new ApolloCacheInterceptor(apolloStore, cacheControl, cacheHeaders, responseFieldMapper,
-        customTypeAdapters, dispatcher, logger));
-    interceptors.add(new ApolloParseInterceptor(httpCache, apolloStore.networkResponseNormalizer(), responseFieldMapper,
-        customTypeAdapters, logger));
+        customTypeAdapters, dispatcher, cacheExecutor, pendingCacheWrites, pendingRevalidations, logger));
+    interceptors.add(new ApolloParseInterceptor(httpCache, networkResponseNormalizer(), responseFieldMapper,
+        customTypeAdapters, parseExecutor, logger));
     interceptors.add(new ApolloServerInterceptor(serverUrl, httpCallFactory, httpCachePolicy, false, moshi, logger));
 
     return new RealApolloInterceptorChain(operation, interceptors);
   }
 
+  /**
+   * Picks the normalizer for the network response. Records of responses that can never reach the store are not
+   * collected, only dependent keys are, as query watchers still subscribe to them.
+   */
+  @SuppressWarnings("unchecked") private ResponseNormalizer<Map<String, Object>> networkResponseNormalizer() {
+    if (apolloStore == ApolloStore.NO_APOLLO_STORE) {
+      return ResponseNormalizer.NO_OP_NORMALIZER;
+    }
+    ResponseNormalizer<Map<String, Object>> normalizer = apolloStore.networkResponseNormalizer();
+    if (cacheHeaders.hasHeader(ApolloCacheHeaders.DO_NOT_STORE)) {
+      return normalizer.dependentKeysNormalizer();
+    }
+    return normalizer;
+  }
+
   public static final class Builder<T> {
     Operation operation;
     HttpUrl serverUrl;
@@ -306,6 +371,11 @@ public final class RealApolloCall<T> implements ApolloQueryCall<T>, ApolloMutati
     CacheHeaders cacheHeaders;
     ApolloInterceptorChain interceptorChain;
     ExecutorService dispatcher;
+    Executor parseExecutor = DirectExecutor.INSTANCE;
+    Executor cacheExecutor = DirectExecutor.INSTANCE;
+    Executor callbackExecutor = DirectExecutor.INSTANCE;
+    Optional<PendingCacheWrites> pendingCacheWrites = Optional.absent();
+    PendingRevalidations pendingRevalidations = new PendingRevalidations();
     ApolloLogger logger;
     List<ApolloInterceptor> applicationInterceptors;
     List<OperationName> refetchQueryNames = emptyList();
@@ -377,6 +447,31 @@ public final class RealApolloCall<T> implements ApolloQueryCall<T>, ApolloMutati
       return this;
     }
 
+    public Builder<T> parseExecutor(Executor parseExecutor) {
+      this.parseExecutor = parseExecutor;
+      return this;
+    }
+
+    public Builder<T> cacheExecutor(Executor cacheExecutor) {
+      this.cacheExecutor = cacheExecutor;
+      return this;
+    }
+
+    public Builder<T> callbackExecutor(Executor callbackExecutor) {
+      this.callbackExecutor = callbackExecutor;
+      return this;
+    }
+
+    public Builder<T> pendingCacheWrites(Optional<PendingCacheWrites> pendingCacheWrites) {
+      this.pendingCacheWrites = pendingCacheWrites;
+      return this;
+    }
+
+    public Builder<T> pendingRevalidations(PendingRevalidations pendingRevalidations) {
+      this.pendingRevalidations = pendingRevalidations;
+      return this;
+    }
+
     public Builder<T> logger(ApolloLogger logger) {
       this.logger = logger;
       return this;
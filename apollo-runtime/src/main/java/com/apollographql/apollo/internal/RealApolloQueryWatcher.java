@@ -4,7 +4,6 @@ import com.apollographql.apollo.ApolloCall;
 import com.apollographql.apollo.ApolloQueryWatcher;
 import com.apollographql.apollo.api.Operation;
 import com.apollographql.apollo.api.Response;
-import com.apollographql.apollo.api.internal.Utils;
 import com.apollographql.apollo.cache.normalized.ApolloStore;
 import com.apollographql.apollo.cache.normalized.CacheControl;
 import com.apollographql.apollo.exception.ApolloCanceledException;
@@ -13,7 +12,6 @@ import com.apollographql.apollo.exception.ApolloHttpException;
 import com.apollographql.apollo.exception.ApolloNetworkException;
 import com.apollographql.apollo.exception.ApolloParseException;
 
-import java.util.Collections;
 import java.util.Set;
 
 import javax.annotation.Nonnull;
@@ -28,13 +26,10 @@ final class RealApolloQueryWatcher<T> implements ApolloQueryWatcher<T> {
   private volatile boolean canceled;
   private boolean executed = false;
   private final ApolloStore apolloStore;
-  private Set<String> dependentKeys = Collections.emptySet();
   private final ApolloCallTracker tracker;
   private final ApolloStore.RecordChangeSubscriber recordChangeSubscriber = new ApolloStore.RecordChangeSubscriber() {
     @Override public void onCacheRecordsChanged(Set<String> changedRecordKeys) {
-      if (!Utils.areDisjoint(dependentKeys, changedRecordKeys)) {
-        refetch();
-      }
+      refetch();
     }
   };
 
@@ -101,8 +96,7 @@ final class RealApolloQueryWatcher<T> implements ApolloQueryWatcher<T> {
     return new ApolloCall.Callback<T>() {
       @Override public void onResponse(@Nonnull Response<T> response) {
         if (canceled) return;
-        dependentKeys = response.dependentKeys();
-        apolloStore.subscribe(recordChangeSubscriber);
+        apolloStore.subscribe(recordChangeSubscriber, response.dependentKeys());
         sourceCallback.onResponse(response);
       }
 
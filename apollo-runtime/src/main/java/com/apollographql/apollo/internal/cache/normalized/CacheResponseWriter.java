@@ -9,7 +9,6 @@ import com.apollographql.apollo.api.ScalarType;
 import com.apollographql.apollo.api.internal.Optional;
 import com.apollographql.apollo.cache.normalized.Record;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -33,15 +32,15 @@ final class CacheResponseWriter implements ResponseWriter {
   }
 
   @Override public void writeInt(ResponseField field, Integer value) {
-    writeScalarFieldValue(field, value != null ? BigDecimal.valueOf(value) : null);
+    writeScalarFieldValue(field, value != null ? Long.valueOf(value) : null);
   }
 
   @Override public void writeLong(ResponseField field, Long value) {
-    writeScalarFieldValue(field, value != null ? BigDecimal.valueOf(value) : null);
+    writeScalarFieldValue(field, value);
   }
 
   @Override public void writeDouble(ResponseField field, Double value) {
-    writeScalarFieldValue(field, value != null ? BigDecimal.valueOf(value) : null);
+    writeScalarFieldValue(field, value);
   }
 
   @Override public void writeBoolean(ResponseField field, Boolean value) {
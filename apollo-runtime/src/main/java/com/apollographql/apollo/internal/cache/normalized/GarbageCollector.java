@@ -0,0 +1,202 @@
+package com.apollographql.apollo.internal.cache.normalized;
+
+import com.apollographql.apollo.api.internal.Optional;
+import com.apollographql.apollo.cache.normalized.CacheKey;
+import com.apollographql.apollo.cache.normalized.CacheKeyResolver;
+import com.apollographql.apollo.cache.normalized.CacheReference;
+import com.apollographql.apollo.cache.normalized.GarbageCollection;
+import com.apollographql.apollo.cache.normalized.NormalizedCache;
+import com.apollographql.apollo.cache.normalized.Record;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mark and sweep collection of the records of a {@link RealApolloStore}. Records reachable from the query and mutation
+ * roots through {@link CacheReference}s are marked, breadth first with a batched {@link
+ * NormalizedCache#peekRecords(Collection)} per step, so marking neither fills a memory cache nor counts as cache
+ * accesses. Then the keys listed by {@link NormalizedCache#recordKeys()} when the collection started that were not
+ * marked are removed in batches, without being read.
+ *
+ * <p>Every slice runs in a write transaction of the store. Between slices, the store reports the records it writes
+ * with {@link #recordsWritten(Collection)}: they are scanned again before any further removal, so a record that a write
+ * made reachable again is marked before it could be removed. Records created after the collection started are never
+ * removed by it.</p>
+ *
+ * <p>A read transaction pinned to an older version of the store may still reach records that are no longer reachable.
+ * While one is in progress, a batch of unreachable records is saved in the store snapshot before it is removed, see
+ * {@link RealApolloStore#saveReplacedRecords(List)}, so a slice never waits for read transactions to end.</p>
+ */
+final class GarbageCollector implements GarbageCollection {
+  private static final int BATCH_SIZE = 100;
+
+  private final RealApolloStore store;
+  private final NormalizedCache normalizedCache;
+  // guarded by the write lock of the store
+  private final Set<String> writtenKeys = new HashSet<>();
+  private final Set<String> markedKeys = new HashSet<>();
+  private final Deque<String> unscannedKeys = new ArrayDeque<>();
+  private List<String> sweptKeys;
+  private int sweepPosition;
+  private volatile int removedCount;
+  private volatile boolean complete;
+  private volatile boolean cancelled;
+
+  GarbageCollector(RealApolloStore store, NormalizedCache normalizedCache) {
+    this.store = store;
+    this.normalizedCache = normalizedCache;
+  }
+
+  @Override public boolean runFor(long time, TimeUnit unit) {
+    final long startNanos = System.nanoTime();
+    // saturates at Long.MAX_VALUE, the elapsed time is compared to it rather than to a deadline that would overflow
+    final long timeNanos = unit.toNanos(time);
+    return store.writeTransaction(new Transaction<WriteableStore, Boolean>() {
+      @Override public Boolean execute(WriteableStore cache) {
+        return run(startNanos, timeNanos);
+      }
+    });
+  }
+
+  @Override public boolean isComplete() {
+    return complete;
+  }
+
+  @Override public int removedCount() {
+    return removedCount;
+  }
+
+  @Override public void cancel() {
+    stop();
+    store.writeTransaction(new Transaction<WriteableStore, Void>() {
+      @Override public Void execute(WriteableStore cache) {
+        store.collectorFinished(GarbageCollector.this);
+        return null;
+      }
+    });
+  }
+
+  /**
+   * Stops the collection, without taking the write lock.
+   */
+  void stop() {
+    cancelled = true;
+  }
+
+  /**
+   * Marks the records as reachable and to be scanned again. Must be called while holding the write lock.
+   */
+  void recordsWritten(Collection<Record> records) {
+    for (Record record : records) {
+      writtenKeys.add(record.key());
+    }
+  }
+
+  /**
+   * Runs the collection until it is complete or the time has elapsed, checked after every batch. Must be called while
+   * holding the write lock.
+   *
+   * @param startNanos {@link System#nanoTime()} when the slice started
+   * @param timeNanos  the time the slice should take, {@link Long#MAX_VALUE} for no limit
+   */
+  boolean run(long startNanos, long timeNanos) {
+    if (complete || cancelled) {
+      return complete;
+    }
+    if (sweptKeys == null && !start()) {
+      finish();
+      return true;
+    }
+
+    for (String key : writtenKeys) {
+      markedKeys.add(key);
+      unscannedKeys.add(key);
+    }
+    writtenKeys.clear();
+
+    while (!unscannedKeys.isEmpty()) {
+      List<String> batch = new ArrayList<>(Math.min(BATCH_SIZE, unscannedKeys.size()));
+      while (batch.size() < BATCH_SIZE && !unscannedKeys.isEmpty()) {
+        batch.add(unscannedKeys.poll());
+      }
+      for (Record record : normalizedCache.peekRecords(batch)) {
+        for (Object value : record.fields().values()) {
+          markReferences(value);
+        }
+      }
+      if (System.nanoTime() - startNanos >= timeNanos) {
+        return false;
+      }
+    }
+
+    while (sweepPosition < sweptKeys.size()) {
+      int end = Math.min(sweepPosition + BATCH_SIZE, sweptKeys.size());
+      List<String> unreachableKeys = new ArrayList<>(end - sweepPosition);
+      List<CacheKey> cacheKeys = new ArrayList<>(end - sweepPosition);
+      for (String key : sweptKeys.subList(sweepPosition, end)) {
+        if (!markedKeys.contains(key)) {
+          unreachableKeys.add(key);
+          cacheKeys.add(CacheKey.from(key));
+        }
+      }
+      if (!cacheKeys.isEmpty()) {
+        store.saveReplacedRecords(unreachableKeys);
+        store.recordsChanged();
+        removedCount += normalizedCache.remove(cacheKeys);
+      }
+      sweepPosition = end;
+      if (System.nanoTime() - startNanos >= timeNanos && sweepPosition < sweptKeys.size()) {
+        return false;
+      }
+    }
+
+    finish();
+    return true;
+  }
+
+  private boolean start() {
+    Optional<Set<String>> recordKeys = normalizedCache.recordKeys();
+    if (!recordKeys.isPresent()) {
+      return false;
+    }
+    sweptKeys = new ArrayList<>(recordKeys.get());
+    mark(CacheKeyResolver.QUERY_ROOT_KEY.key());
+    mark(CacheKeyResolver.MUTATION_ROOT_KEY.key());
+    return true;
+  }
+
+  private void finish() {
+    complete = true;
+    sweptKeys = null;
+    markedKeys.clear();
+    unscannedKeys.clear();
+    store.collectorFinished(this);
+  }
+
+  private void markReferences(Object value) {
+    if (value instanceof CacheReference) {
+      mark(((CacheReference) value).key());
+    } else if (value instanceof List) {
+      for (Object item : (List) value) {
+        markReferences(item);
+      }
+    } else if (value instanceof Map) {
+      for (Object item : ((Map) value).values()) {
+        markReferences(item);
+      }
+    }
+  }
+
+  private void mark(String key) {
+    if (markedKeys.add(key)) {
+      unscannedKeys.add(key);
+    }
+  }
+}
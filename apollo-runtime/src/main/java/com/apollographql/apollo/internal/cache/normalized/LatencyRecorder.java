@@ -0,0 +1,35 @@
+package com.apollographql.apollo.internal.cache.normalized;
+
+import com.apollographql.apollo.cache.normalized.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts durations into the buckets of a {@link LatencyHistogram}. Recording takes two atomic increments, and a
+ * snapshot copies the {@link LatencyHistogram#BUCKET_COUNT} counters.
+ */
+public final class LatencyRecorder {
+  private final AtomicLongArray bucketCounts = new AtomicLongArray(LatencyHistogram.BUCKET_COUNT);
+  private final AtomicLong totalNanos = new AtomicLong();
+
+  public void record(long nanos) {
+    bucketCounts.incrementAndGet(LatencyHistogram.bucketOf(nanos));
+    totalNanos.addAndGet(Math.max(0, nanos));
+  }
+
+  /**
+   * Records the time elapsed since {@code startNanos}, a value of {@link System#nanoTime()}.
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  public LatencyHistogram snapshot() {
+    long[] counts = new long[LatencyHistogram.BUCKET_COUNT];
+    for (int bucket = 0; bucket < counts.length; bucket++) {
+      counts[bucket] = bucketCounts.get(bucket);
+    }
+    return new LatencyHistogram(counts, totalNanos.get());
+  }
+}
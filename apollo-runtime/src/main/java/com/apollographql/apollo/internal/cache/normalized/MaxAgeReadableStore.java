@@ -0,0 +1,78 @@
+package com.apollographql.apollo.internal.cache.normalized;
+
+import com.apollographql.apollo.cache.ApolloCacheHeaders;
+import com.apollographql.apollo.cache.CacheHeaders;
+import com.apollographql.apollo.cache.normalized.Record;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * {@link ReadableStore} that reads records received more than the {@link ApolloCacheHeaders#MAX_AGE} of the cache
+ * headers ago as missing, so that a response built from them is a cache miss.
+ */
+public final class MaxAgeReadableStore implements ReadableStore {
+  public static final long NO_MAX_AGE = -1;
+
+  private final ReadableStore store;
+  private final long nowMillis;
+  private final long maxAgeMillis;
+
+  private MaxAgeReadableStore(ReadableStore store, long nowMillis, long maxAgeMillis) {
+    this.store = store;
+    this.nowMillis = nowMillis;
+    this.maxAgeMillis = maxAgeMillis;
+  }
+
+  /**
+   * @return The store itself if the cache headers have no {@link ApolloCacheHeaders#MAX_AGE}, or a store that reads
+   * only the records that are not older than the max age.
+   */
+  public static ReadableStore wrap(ReadableStore store, CacheHeaders cacheHeaders) {
+    long maxAgeMillis = maxAgeMillis(cacheHeaders);
+    return maxAgeMillis == NO_MAX_AGE ? store
+        : new MaxAgeReadableStore(store, System.currentTimeMillis(), maxAgeMillis);
+  }
+
+  /**
+   * @return The {@link ApolloCacheHeaders#MAX_AGE} of the cache headers in milliseconds, or {@link #NO_MAX_AGE}.
+   * @throws IllegalArgumentException if the max age is not a non-negative number of seconds
+   */
+  public static long maxAgeMillis(CacheHeaders cacheHeaders) {
+    String maxAge = cacheHeaders.headerValue(ApolloCacheHeaders.MAX_AGE);
+    if (maxAge == null) {
+      return NO_MAX_AGE;
+    }
+    long maxAgeSeconds;
+    try {
+      maxAgeSeconds = Long.parseLong(maxAge.trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid " + ApolloCacheHeaders.MAX_AGE + " cache header: " + maxAge);
+    }
+    if (maxAgeSeconds < 0) {
+      throw new IllegalArgumentException("Invalid " + ApolloCacheHeaders.MAX_AGE + " cache header: " + maxAge);
+    }
+    return TimeUnit.SECONDS.toMillis(maxAgeSeconds);
+  }
+
+  @Nullable @Override public Record read(@Nonnull String key, @Nonnull CacheHeaders cacheHeaders) {
+    Record record = store.read(key, cacheHeaders);
+    return record == null || record.isStale(nowMillis, maxAgeMillis) ? null : record;
+  }
+
+  @Override public Collection<Record> read(@Nonnull Collection<String> keys, @Nonnull CacheHeaders cacheHeaders) {
+    Collection<Record> records = store.read(keys, cacheHeaders);
+    List<Record> freshRecords = new ArrayList<>(records.size());
+    for (Record record : records) {
+      if (!record.isStale(nowMillis, maxAgeMillis)) {
+        freshRecords.add(record);
+      }
+    }
+    return freshRecords;
+  }
+}
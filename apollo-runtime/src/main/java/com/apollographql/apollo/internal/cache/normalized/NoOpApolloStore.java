@@ -6,16 +6,20 @@ import com.apollographql.apollo.api.Response;
 import com.apollographql.apollo.api.ResponseFieldMapper;
 import com.apollographql.apollo.cache.CacheHeaders;
 import com.apollographql.apollo.cache.normalized.ApolloStore;
+import com.apollographql.apollo.cache.normalized.ApolloStoreStats;
 import com.apollographql.apollo.cache.normalized.CacheKey;
 import com.apollographql.apollo.cache.normalized.CacheKeyResolver;
+import com.apollographql.apollo.cache.normalized.GarbageCollection;
 import com.apollographql.apollo.cache.normalized.NormalizedCache;
 import com.apollographql.apollo.cache.normalized.Record;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -41,6 +45,9 @@ public final class NoOpApolloStore implements ApolloStore, ReadableStore, Writea
   @Override public void subscribe(RecordChangeSubscriber subscriber) {
   }
 
+  @Override public void subscribe(RecordChangeSubscriber subscriber, Set<String> dependentKeys) {
+  }
+
   @Override public void unsubscribe(RecordChangeSubscriber subscriber) {
   }
 
@@ -58,6 +65,37 @@ public final class NoOpApolloStore implements ApolloStore, ReadableStore, Writea
     return 0;
   }
 
+  @Override public int gc() {
+    return 0;
+  }
+
+  @Override public GarbageCollection incrementalGc() {
+    return new GarbageCollection() {
+      @Override public boolean runFor(long time, TimeUnit unit) {
+        return true;
+      }
+
+      @Override public boolean isComplete() {
+        return true;
+      }
+
+      @Override public int removedCount() {
+        return 0;
+      }
+
+      @Override public void cancel() {
+      }
+    };
+  }
+
+  @Override public int writeSnapshot(@Nonnull File file) {
+    return 0;
+  }
+
+  @Override public int loadSnapshot(@Nonnull File file) {
+    return 0;
+  }
+
   @Override public ResponseNormalizer<Map<String, Object>> networkResponseNormalizer() {
     //noinspection unchecked
     return ResponseNormalizer.NO_OP_NORMALIZER;
@@ -84,6 +122,10 @@ public final class NoOpApolloStore implements ApolloStore, ReadableStore, Writea
     return null;
   }
 
+  @Override public ApolloStoreStats stats() {
+    return ApolloStoreStats.EMPTY;
+  }
+
   @Nullable @Override public <D extends Operation.Data, T, V extends Operation.Variables> T read(
       @Nonnull Operation<D, T, V> operation) {
     return null;
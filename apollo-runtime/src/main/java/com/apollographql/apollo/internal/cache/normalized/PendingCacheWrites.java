@@ -0,0 +1,60 @@
+package com.apollographql.apollo.internal.cache.normalized;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax.annotation.Nonnull;
+
+import static com.apollographql.apollo.api.internal.Utils.checkNotNull;
+
+/**
+ * Writes of network responses to the store that run after the responses have been delivered. Before reading the
+ * store, calls {@link #await()} all pending writes: a write that no thread has started yet is run on the reading
+ * thread, so calls of the same client always read their own writes.
+ */
+public final class PendingCacheWrites {
+  private final Queue<PendingWrite> writes = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Registers a pending write. The returned task must be executed, though any thread awaiting pending writes might
+   * run it first.
+   *
+   * @param write write to the store
+   * @return task to execute the write
+   */
+  @Nonnull public Runnable add(@Nonnull Runnable write) {
+    PendingWrite pendingWrite = new PendingWrite(checkNotNull(write, "write == null"));
+    writes.add(pendingWrite);
+    return pendingWrite;
+  }
+
+  /**
+   * Completes every write registered so far, running writes that have not been started on the current thread and
+   * waiting for the others.
+   */
+  public void await() {
+    for (PendingWrite write : writes) {
+      write.run();
+      try {
+        write.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (ExecutionException ignored) {
+        // failed writes are reported by the write itself
+      }
+    }
+  }
+
+  private final class PendingWrite extends FutureTask<Void> {
+    PendingWrite(Runnable write) {
+      super(write, null);
+    }
+
+    @Override protected void done() {
+      writes.remove(this);
+    }
+  }
+}
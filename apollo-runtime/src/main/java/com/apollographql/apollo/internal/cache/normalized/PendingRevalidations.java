@@ -0,0 +1,57 @@
+package com.apollographql.apollo.internal.cache.normalized;
+
+import com.apollographql.apollo.api.Operation;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import static com.apollographql.apollo.api.internal.Utils.checkNotNull;
+
+/**
+ * Operations whose stale cached responses are being revalidated from the network in the background, see
+ * {@link com.apollographql.apollo.cache.normalized.CacheControl#STALE_WHILE_REVALIDATE}. Calls of the same client that
+ * serve the same stale response share a single revalidation.
+ */
+public final class PendingRevalidations {
+  private final Set<OperationKey> operationKeys = new HashSet<>();
+
+  /**
+   * @return {@code true} if no revalidation of the operation is in progress and the caller should start one, that
+   * must be completed with {@link #finish(Operation)}
+   */
+  public synchronized boolean start(@Nonnull Operation<?, ?, ?> operation) {
+    return operationKeys.add(new OperationKey(checkNotNull(operation, "operation == null")));
+  }
+
+  public synchronized void finish(@Nonnull Operation<?, ?, ?> operation) {
+    operationKeys.remove(new OperationKey(checkNotNull(operation, "operation == null")));
+  }
+
+  /**
+   * Identifies an operation by its document and the values of its variables, compared as maps so that variables
+   * whose string forms collide are told apart.
+   */
+  private static final class OperationKey {
+    private final String queryDocument;
+    private final Map<String, Object> variables;
+
+    OperationKey(Operation<?, ?, ?> operation) {
+      this.queryDocument = operation.queryDocument();
+      this.variables = operation.variables().valueMap();
+    }
+
+    @Override public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof OperationKey)) return false;
+      OperationKey that = (OperationKey) o;
+      return queryDocument.equals(that.queryDocument) && variables.equals(that.variables);
+    }
+
+    @Override public int hashCode() {
+      return 31 * queryDocument.hashCode() + variables.hashCode();
+    }
+  }
+}
@@ -9,36 +9,60 @@ import com.apollographql.apollo.api.ResponseFieldMapper;
 import com.apollographql.apollo.api.ScalarType;
 import com.apollographql.apollo.cache.CacheHeaders;
 import com.apollographql.apollo.cache.normalized.ApolloStore;
+import com.apollographql.apollo.cache.normalized.ApolloStoreStats;
 import com.apollographql.apollo.cache.normalized.CacheKey;
 import com.apollographql.apollo.cache.normalized.CacheKeyResolver;
+import com.apollographql.apollo.cache.normalized.GarbageCollection;
 import com.apollographql.apollo.cache.normalized.NormalizedCache;
 import com.apollographql.apollo.cache.normalized.Record;
 import com.apollographql.apollo.internal.field.CacheFieldValueResolver;
 import com.apollographql.apollo.internal.reader.RealResponseReader;
 import com.apollographql.apollo.internal.util.ApolloLogger;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedHashSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import static com.apollographql.apollo.api.internal.Utils.checkNotNull;
 
+/**
+ * {@link ApolloStore} backed by a {@link NormalizedCache}. Writers are serialized with a lock, while readers don't
+ * take one: every read transaction pins the current {@link StoreSnapshot} and sees the store content as of that
+ * snapshot, regardless of writes completing concurrently. Writes only save the records they replace while a reader is
+ * pinned, a read starting during a write that saved none waits for it. Clearing all records is not isolated from
+ * concurrent reads.
+ */
 public final class RealApolloStore implements ApolloStore, ReadableStore, WriteableStore {
   private final NormalizedCache normalizedCache;
   private final CacheKeyResolver cacheKeyResolver;
   private final Map<ScalarType, CustomTypeAdapter> customTypeAdapters;
-  private final ReadWriteLock lock;
-  private final Set<RecordChangeSubscriber> subscribers;
+  private final ReentrantLock writeLock;
+  private volatile StoreSnapshot snapshot;
+  private final RecordChangeSubscriberIndex subscribers;
   private final ApolloLogger logger;
+  private final LatencyRecorder readTransactionTime = new LatencyRecorder();
+  private final LatencyRecorder writeLockWaitTime = new LatencyRecorder();
+  private final LatencyRecorder writeLockHoldTime = new LatencyRecorder();
+  // guarded by the write lock
+  private GarbageCollector activeCollector;
+  private long writeCount;
+  private File writtenSnapshot;
 
   public RealApolloStore(@Nonnull NormalizedCache normalizedCache, @Nonnull CacheKeyResolver cacheKeyResolver,
       @Nonnull final Map<ScalarType, CustomTypeAdapter> customTypeAdapters, @Nonnull ApolloLogger logger) {
@@ -46,8 +70,9 @@ public final class RealApolloStore implements ApolloStore, ReadableStore, Writea
     this.cacheKeyResolver = checkNotNull(cacheKeyResolver, "cacheKeyResolver == null");
     this.customTypeAdapters = checkNotNull(customTypeAdapters, "customTypeAdapters == null");
     this.logger = checkNotNull(logger, "logger == null");
-    this.lock = new ReentrantReadWriteLock();
-    this.subscribers = Collections.newSetFromMap(new WeakHashMap<RecordChangeSubscriber, Boolean>());
+    this.writeLock = new ReentrantLock();
+    this.snapshot = new StoreSnapshot();
+    this.subscribers = new RecordChangeSubscriberIndex();
   }
 
   @Override public ResponseNormalizer<Map<String, Object>> networkResponseNormalizer() {
@@ -56,6 +81,10 @@ public final class RealApolloStore implements ApolloStore, ReadableStore, Writea
           @Nonnull Map<String, Object> record) {
         return cacheKeyResolver.fromFieldRecordSet(field, record);
       }
+
+      @Override protected long receivedAtMillis() {
+        return System.currentTimeMillis();
+      }
     };
   }
 
@@ -67,12 +96,16 @@ public final class RealApolloStore implements ApolloStore, ReadableStore, Writea
     };
   }
 
-  @Override public synchronized void subscribe(RecordChangeSubscriber subscriber) {
-    subscribers.add(subscriber);
+  @Override public void subscribe(RecordChangeSubscriber subscriber) {
+    subscribers.subscribe(subscriber, null);
+  }
+
+  @Override public void subscribe(RecordChangeSubscriber subscriber, Set<String> dependentKeys) {
+    subscribers.subscribe(subscriber, checkNotNull(dependentKeys, "dependentKeys == null"));
   }
 
-  @Override public synchronized void unsubscribe(RecordChangeSubscriber subscriber) {
-    subscribers.remove(subscriber);
+  @Override public void unsubscribe(RecordChangeSubscriber subscriber) {
+    subscribers.unsubscribe(subscriber);
   }
 
   @Override public void publish(@Nonnull Set<String> changedKeys) {
@@ -80,11 +113,7 @@ public final class RealApolloStore implements ApolloStore, ReadableStore, Writea
     if (changedKeys.isEmpty()) {
       return;
     }
-    Set<RecordChangeSubscriber> iterableSubscribers;
-    synchronized (this) {
-      iterableSubscribers = new LinkedHashSet<>(subscribers);
-    }
-    for (RecordChangeSubscriber subscriber : iterableSubscribers) {
+    for (RecordChangeSubscriber subscriber : subscribers.subscribers(changedKeys)) {
       subscriber.onCacheRecordsChanged(changedKeys);
     }
   }
@@ -92,6 +121,7 @@ public final class RealApolloStore implements ApolloStore, ReadableStore, Writea
   @Override public void clearAll() {
     writeTransaction(new Transaction<WriteableStore, Boolean>() {
       @Override public Boolean execute(WriteableStore cache) {
+        recordsChanged();
         normalizedCache.clearAll();
         return true;
       }
@@ -102,6 +132,8 @@ public final class RealApolloStore implements ApolloStore, ReadableStore, Writea
     checkNotNull(cacheKey, "cacheKey == null");
     return writeTransaction(new Transaction<WriteableStore, Boolean>() {
       @Override public Boolean execute(WriteableStore cache) {
+        saveReplacedRecords(Collections.singletonList(cacheKey.key()));
+        recordsChanged();
         return normalizedCache.remove(cacheKey);
       }
     });
@@ -111,32 +143,176 @@ public final class RealApolloStore implements ApolloStore, ReadableStore, Writea
     checkNotNull(cacheKeys, "cacheKey == null");
     return writeTransaction(new Transaction<WriteableStore, Integer>() {
       @Override public Integer execute(WriteableStore cache) {
-        int count = 0;
+        List<String> keys = new ArrayList<>(cacheKeys.size());
         for (CacheKey cacheKey : cacheKeys) {
-          if (normalizedCache.remove(cacheKey)) {
-            count++;
-          }
+          keys.add(cacheKey.key());
         }
-        return count;
+        saveReplacedRecords(keys);
+        recordsChanged();
+        return normalizedCache.remove(cacheKeys);
       }
     });
   }
 
-  @Override public <R> R readTransaction(Transaction<ReadableStore, R> transaction) {
-    lock.readLock().lock();
+  @Override public int gc() {
+    GarbageCollection collection = incrementalGc();
+    collection.runFor(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    return collection.removedCount();
+  }
+
+  @Override public GarbageCollection incrementalGc() {
+    return writeTransaction(new Transaction<WriteableStore, GarbageCollection>() {
+      @Override public GarbageCollection execute(WriteableStore cache) {
+        if (activeCollector != null) {
+          activeCollector.stop();
+        }
+        activeCollector = new GarbageCollector(RealApolloStore.this, normalizedCache);
+        return activeCollector;
+      }
+    });
+  }
+
+  @Override public int writeSnapshot(@Nonnull final File file) throws IOException {
+    checkNotNull(file, "file == null");
+    final long startWriteCount = writeTransaction(new Transaction<WriteableStore, Long>() {
+      @Override public Long execute(WriteableStore cache) {
+        return writeCount;
+      }
+    });
+    File tempFile = new File(file.getPath() + ".tmp");
+    int count;
+    OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile));
+    try {
+      count = normalizedCache.writeSnapshot(out);
+    } finally {
+      out.close();
+    }
+    if (count == 0) {
+      tempFile.delete();
+      // the previous snapshot holds records that may since have been replaced or removed
+      file.delete();
+      return 0;
+    }
+    if (!tempFile.renameTo(file)) {
+      tempFile.delete();
+      throw new IOException("Failed to rename " + tempFile + " to " + file);
+    }
+    boolean current = writeTransaction(new Transaction<WriteableStore, Boolean>() {
+      @Override public Boolean execute(WriteableStore cache) {
+        if (writeCount != startWriteCount) {
+          // records written meanwhile may be newer in persistent storage than in the snapshot
+          file.delete();
+          return false;
+        }
+        writtenSnapshot = file;
+        return true;
+      }
+    });
+    return current ? count : 0;
+  }
+
+  @Override public int loadSnapshot(@Nonnull File file) throws IOException {
+    checkNotNull(file, "file == null");
+    if (!file.exists()) {
+      return 0;
+    }
+    final byte[] bytes;
+    RandomAccessFile input = new RandomAccessFile(file, "r");
     try {
+      long length = input.length();
+      if (length > Integer.MAX_VALUE) {
+        throw new IOException("Snapshot too large: " + length);
+      }
+      bytes = new byte[(int) length];
+      input.readFully(bytes);
+    } finally {
+      input.close();
+      file.delete();
+    }
+    try {
+      return writeTransaction(new Transaction<WriteableStore, Integer>() {
+        @Override public Integer execute(WriteableStore cache) {
+          try {
+            return normalizedCache.readSnapshot(new ByteArrayInputStream(bytes));
+          } catch (IOException e) {
+            throw new SnapshotReadException(e);
+          }
+        }
+      });
+    } catch (SnapshotReadException e) {
+      throw (IOException) e.getCause();
+    }
+  }
+
+  /**
+   * Deletes the snapshot file written last, which would otherwise put records older than the ones about to be written
+   * in memory if it were loaded after a restart. Must be called while holding the write lock, before records are
+   * written or removed.
+   */
+  void recordsChanged() {
+    writeCount++;
+    if (writtenSnapshot != null) {
+      writtenSnapshot.delete();
+      writtenSnapshot = null;
+    }
+  }
+
+  /**
+   * Stops reporting writes to a collector. Must be called while holding the write lock.
+   */
+  void collectorFinished(GarbageCollector collector) {
+    if (activeCollector == collector) {
+      activeCollector = null;
+    }
+  }
+
+  @Override public <R> R readTransaction(Transaction<ReadableStore, R> transaction) {
+    if (writeLock.isHeldByCurrentThread()) {
       return transaction.execute(RealApolloStore.this);
+    }
+    long startNanos = System.nanoTime();
+    StoreSnapshot pinnedSnapshot = pinSnapshot();
+    try {
+      return transaction.execute(new SnapshotReadableStore(pinnedSnapshot));
     } finally {
-      lock.readLock().unlock();
+      pinnedSnapshot.unpin();
+      readTransactionTime.recordSince(startNanos);
+    }
+  }
+
+  private StoreSnapshot pinSnapshot() {
+    while (true) {
+      StoreSnapshot currentSnapshot = snapshot;
+      if (currentSnapshot.tryPin()) {
+        return currentSnapshot;
+      }
+      if (currentSnapshot.isSealed()) {
+        // the write replaces records without saving them, the next snapshot is published before the lock is released
+        writeLock.lock();
+        writeLock.unlock();
+      }
     }
   }
 
   @Override public <R> R writeTransaction(Transaction<WriteableStore, R> transaction) {
-    lock.writeLock().lock();
+    if (writeLock.isHeldByCurrentThread()) {
+      return transaction.execute(RealApolloStore.this);
+    }
+    long waitStartNanos = System.nanoTime();
+    writeLock.lock();
+    long holdStartNanos = System.nanoTime();
+    writeLockWaitTime.record(holdStartNanos - waitStartNanos);
     try {
       return transaction.execute(RealApolloStore.this);
     } finally {
-      lock.writeLock().unlock();
+      StoreSnapshot currentSnapshot = snapshot;
+      StoreSnapshot nextSnapshot = currentSnapshot.createNext();
+      if (nextSnapshot != currentSnapshot) {
+        snapshot = nextSnapshot;
+        currentSnapshot.retire();
+      }
+      writeLock.unlock();
+      writeLockHoldTime.recordSince(holdStartNanos);
     }
   }
 
@@ -153,13 +329,57 @@ public final class RealApolloStore implements ApolloStore, ReadableStore, Writea
   }
 
   @Nonnull public Set<String> merge(@Nonnull Collection<Record> recordSet, @Nonnull CacheHeaders cacheHeaders) {
-    return normalizedCache.merge(checkNotNull(recordSet, "recordSet == null"), cacheHeaders);
+    checkNotNull(recordSet, "recordSet == null");
+    List<String> keys = new ArrayList<>(recordSet.size());
+    for (Record record : recordSet) {
+      keys.add(record.key());
+    }
+    saveReplacedRecords(keys);
+    if (activeCollector != null) {
+      activeCollector.recordsWritten(recordSet);
+    }
+    recordsChanged();
+    return normalizedCache.merge(recordSet, cacheHeaders);
+  }
+
+  /**
+   * Saves records that are about to be replaced or removed in the current snapshot, for readers that pinned it or an
+   * older one. Records are read with {@link NormalizedCache#peekRecords(Collection)}, so saving them is not counted as
+   * a cache access. Must be called while holding the write lock.
+   */
+  void saveReplacedRecords(List<String> keys) {
+    StoreSnapshot currentSnapshot = snapshot;
+    if (currentSnapshot.trySeal()) {
+      return;
+    }
+    List<String> unsavedKeys = new ArrayList<>(keys.size());
+    for (String key : keys) {
+      if (!currentSnapshot.isReplaced(key)) {
+        unsavedKeys.add(key);
+      }
+    }
+    if (unsavedKeys.isEmpty()) {
+      return;
+    }
+
+    Map<String, Record> records = new HashMap<>();
+    for (Record record : normalizedCache.peekRecords(unsavedKeys)) {
+      records.put(record.key(), record);
+    }
+    for (String key : unsavedKeys) {
+      currentSnapshot.saveReplaced(key, records.get(key));
+    }
   }
 
   @Override public CacheKeyResolver cacheKeyResolver() {
     return cacheKeyResolver;
   }
 
+  @Override public ApolloStoreStats stats() {
+    return new ApolloStoreStats(readTransactionTime.snapshot(), writeLockWaitTime.snapshot(),
+        writeLockHoldTime.snapshot(), normalizedCache.stats());
+  }
+
   @Nullable @Override public <D extends Operation.Data, T, V extends Operation.Variables> T read(
       @Nonnull final Operation<D, T, V> operation) {
     checkNotNull(operation, "operation == null");
@@ -189,7 +409,8 @@ public final class RealApolloStore implements ApolloStore, ReadableStore, Writea
     checkNotNull(customTypeAdapters, "customTypeAdapters == null");
 
     return readTransaction(new Transaction<ReadableStore, Response<T>>() {
-      @Nonnull @Override public Response<T> execute(ReadableStore cache) {
+      @Nonnull @Override public Response<T> execute(ReadableStore store) {
+        ReadableStore cache = MaxAgeReadableStore.wrap(store, cacheHeaders);
         Record rootRecord = cache.read(CacheKeyResolver.rootKeyForOperation(operation).key(), cacheHeaders);
         if (rootRecord == null) {
           return Response.<T>builder(operation).fromCache(true).build();
@@ -288,4 +509,40 @@ public final class RealApolloStore implements ApolloStore, ReadableStore, Writea
     Set<String> changedKeys = write(fragment, cacheKey, variables);
     publish(changedKeys);
   }
+
+  private final class SnapshotReadableStore implements ReadableStore {
+    private final StoreSnapshot snapshot;
+
+    SnapshotReadableStore(StoreSnapshot snapshot) {
+      this.snapshot = snapshot;
+    }
+
+    @Nullable @Override public Record read(@Nonnull String key, @Nonnull CacheHeaders cacheHeaders) {
+      checkNotNull(key, "key == null");
+      return snapshot.resolve(key, normalizedCache.loadRecord(key, cacheHeaders));
+    }
+
+    @Override public Collection<Record> read(@Nonnull Collection<String> keys, @Nonnull CacheHeaders cacheHeaders) {
+      checkNotNull(keys, "keys == null");
+      Map<String, Record> cachedRecords = new HashMap<>();
+      for (Record record : normalizedCache.loadRecords(keys, cacheHeaders)) {
+        cachedRecords.put(record.key(), record);
+      }
+      List<Record> records = new ArrayList<>(keys.size());
+      for (String key : keys) {
+        Record record = snapshot.resolve(key, cachedRecords.get(key));
+        if (record != null) {
+          records.add(record);
+        }
+      }
+      return records;
+    }
+  }
+
+  // carries the failure of a snapshot read out of the write transaction
+  private static final class SnapshotReadException extends RuntimeException {
+    SnapshotReadException(IOException cause) {
+      super(cause);
+    }
+  }
 }
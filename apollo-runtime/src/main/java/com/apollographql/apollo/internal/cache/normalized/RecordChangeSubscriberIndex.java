@@ -0,0 +1,120 @@
+package com.apollographql.apollo.internal.cache.normalized;
+
+import com.apollographql.apollo.cache.normalized.ApolloStore.RecordChangeSubscriber;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Index of {@link RecordChangeSubscriber}s by the record and field keys they depend on. Looking up subscribers of
+ * changed keys costs a hash lookup per changed key, independent of the number of subscribers. Subscribers are
+ * referenced weakly, subscriptions of garbage collected subscribers are dropped from the index.
+ */
+final class RecordChangeSubscriberIndex {
+  private final Map<RecordChangeSubscriber, Subscription> subscriptions = new WeakHashMap<>();
+  private final Map<String, Set<Subscription>> subscriptionsByKey = new HashMap<>();
+  private final Set<Subscription> allKeysSubscriptions = new LinkedHashSet<>();
+  private final ReferenceQueue<RecordChangeSubscriber> collectedSubscribers = new ReferenceQueue<>();
+
+  /**
+   * Subscribes to changes of the provided keys, replacing any previous subscription of the subscriber.
+   *
+   * @param subscriber subscriber to notify
+   * @param keys       keys the subscriber depends on, {@code null} to depend on all keys
+   */
+  synchronized void subscribe(RecordChangeSubscriber subscriber, Set<String> keys) {
+    removeCollectedSubscriptions();
+    Subscription previous = subscriptions.remove(subscriber);
+    if (previous != null) {
+      remove(previous);
+    }
+
+    Subscription subscription = new Subscription(subscriber, keys != null ? keys.toArray(new String[keys.size()])
+        : null, collectedSubscribers);
+    subscriptions.put(subscriber, subscription);
+    if (subscription.keys == null) {
+      allKeysSubscriptions.add(subscription);
+      return;
+    }
+    for (String key : subscription.keys) {
+      Set<Subscription> keySubscriptions = subscriptionsByKey.get(key);
+      if (keySubscriptions == null) {
+        keySubscriptions = new LinkedHashSet<>();
+        subscriptionsByKey.put(key, keySubscriptions);
+      }
+      keySubscriptions.add(subscription);
+    }
+  }
+
+  synchronized void unsubscribe(RecordChangeSubscriber subscriber) {
+    removeCollectedSubscriptions();
+    Subscription subscription = subscriptions.remove(subscriber);
+    if (subscription != null) {
+      remove(subscription);
+    }
+  }
+
+  /**
+   * @param changedKeys keys of changed records and record fields
+   * @return subscribers that depend on any of the changed keys
+   */
+  synchronized Set<RecordChangeSubscriber> subscribers(Set<String> changedKeys) {
+    removeCollectedSubscriptions();
+    if (subscriptions.isEmpty()) {
+      return Collections.emptySet();
+    }
+
+    Set<RecordChangeSubscriber> subscribers = new LinkedHashSet<>();
+    addSubscribers(allKeysSubscriptions, subscribers);
+    for (String key : changedKeys) {
+      Set<Subscription> keySubscriptions = subscriptionsByKey.get(key);
+      if (keySubscriptions != null) {
+        addSubscribers(keySubscriptions, subscribers);
+      }
+    }
+    return subscribers;
+  }
+
+  private void removeCollectedSubscriptions() {
+    for (Object collected = collectedSubscribers.poll(); collected != null; collected = collectedSubscribers.poll()) {
+      remove((Subscription) collected);
+    }
+  }
+
+  private void remove(Subscription subscription) {
+    if (subscription.keys == null) {
+      allKeysSubscriptions.remove(subscription);
+      return;
+    }
+    for (String key : subscription.keys) {
+      Set<Subscription> keySubscriptions = subscriptionsByKey.get(key);
+      if (keySubscriptions != null && keySubscriptions.remove(subscription) && keySubscriptions.isEmpty()) {
+        subscriptionsByKey.remove(key);
+      }
+    }
+  }
+
+  private static void addSubscribers(Set<Subscription> subscriptions, Set<RecordChangeSubscriber> subscribers) {
+    for (Subscription subscription : subscriptions) {
+      RecordChangeSubscriber subscriber = subscription.get();
+      if (subscriber != null) {
+        subscribers.add(subscriber);
+      }
+    }
+  }
+
+  private static final class Subscription extends WeakReference<RecordChangeSubscriber> {
+    final String[] keys;
+
+    Subscription(RecordChangeSubscriber subscriber, String[] keys, ReferenceQueue<RecordChangeSubscriber> queue) {
+      super(subscriber, queue);
+      this.keys = keys;
+    }
+  }
+}
@@ -1,50 +1,159 @@
 package com.apollographql.apollo.internal.cache.normalized;
 
 import com.apollographql.apollo.cache.normalized.CacheReference;
-import com.apollographql.apollo.cache.normalized.Record;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 
+/**
+ * Estimates the heap retained by records and their fields without allocating.
+ *
+ * <p>The sizes model HotSpot on a 64 bit JVM with compressed references and compact strings: 12 byte object headers,
+ * 4 byte references, 16 byte array headers and objects aligned to 8 bytes, strings backed by an array of one byte per
+ * character if all characters are Latin-1 and two otherwise. Android's ART uses 8 byte object headers and keeps the
+ * characters of a string inline, so on Android the estimate is somewhat larger than the heap actually retained, which
+ * is the safe side for a cache bounded by size.</p>
+ *
+ * <p>Field maps are counted as {@link java.util.LinkedHashMap}s grown by puts, lists as {@link java.util.ArrayList}s.
+ * Field keys are counted with every record: records decoded from a persistent cache or a snapshot own their keys, as
+ * do keys built from arguments, while records normalized from a response may share them with the
+ * {@link com.apollographql.apollo.api.ResponseField}s of the operation, and are over estimated then. Shared instances
+ * such as {@link Boolean#TRUE} are not counted.</p>
+ */
 public final class RecordWeigher {
 
-  private static final int SIZE_OF_BOOLEAN = 16;
-  private static final int SIZE_OF_BIG_DECIMAL = 32;
-  private static final int SIZE_OF_ARRAY_OVERHEAD = 16;
-  private static final int SIZE_OF_RECORD_OVERHEAD = 16;
-  private static final int SIZE_OF_CACHE_REFERENCE_OVERHEAD = 16;
+  private static final int SIZE_OF_REFERENCE = 4;
+  private static final int SIZE_OF_ARRAY_HEADER = 16;
+  private static final int OBJECT_ALIGNMENT = 8;
 
+  private static final int SIZE_OF_STRING = 24;
+  private static final int SIZE_OF_BOXED_INT = 16;
+  private static final int SIZE_OF_BOXED_LONG = 24;
+  private static final int SIZE_OF_BIG_DECIMAL = 40;
+  private static final int SIZE_OF_BIG_INTEGER = 40;
+  private static final int SIZE_OF_CACHE_REFERENCE = 16;
+  private static final int SIZE_OF_ARRAY_LIST = 24;
+  private static final int SIZE_OF_LINKED_HASH_MAP = 56;
+  private static final int SIZE_OF_LINKED_HASH_MAP_ENTRY = 40;
+  private static final int SIZE_OF_UNMODIFIABLE_MAP = 32;
+  private static final int SIZE_OF_RECORD = 32;
+  private static final int MIN_HASH_TABLE_CAPACITY = 16;
+  // a compact BigDecimal keeps its unscaled value in a long, which holds any 18 digit number
+  private static final int MAX_COMPACT_DECIMAL_PRECISION = 18;
+
+  private RecordWeigher() {
+  }
+
+  /**
+   * @param key        key of the record
+   * @param fieldCount number of fields of the record
+   * @return bytes of a record without the keys and values of its fields
+   */
+  public static int recordBytes(String key, int fieldCount) {
+    return SIZE_OF_RECORD + SIZE_OF_UNMODIFIABLE_MAP + sizeOf(key) + mapBytes(fieldCount);
+  }
+
+  /**
+   * @return bytes of a field of a record: its key, its value and its map entry
+   */
+  public static int fieldBytes(String fieldKey, Object value) {
+    return SIZE_OF_LINKED_HASH_MAP_ENTRY + sizeOf(fieldKey) + weighField(value);
+  }
+
+  /**
+   * @return change in bytes when the value of an existing field is replaced
+   */
   public static int byteChange(Object newValue, Object oldValue) {
     return weighField(newValue) - weighField(oldValue);
   }
 
-  public static int calculateBytes(Record record) {
-    int size = SIZE_OF_RECORD_OVERHEAD + record.key().getBytes().length;
-    for (Map.Entry<String, Object> field : record.fields().entrySet()) {
-      size += (field.getKey().getBytes().length + weighField(field.getValue()));
+  /**
+   * @return change in bytes of the hash table of a field map when fields are added
+   */
+  public static int fieldCountChange(int oldFieldCount, int newFieldCount) {
+    return mapBytes(newFieldCount) - mapBytes(oldFieldCount);
+  }
+
+  /**
+   * @return bytes of a string and its character array
+   */
+  public static int sizeOf(String value) {
+    int length = value.length();
+    int bytesPerChar = 1;
+    for (int i = 0; i < length; i++) {
+      if (value.charAt(i) > 0xFF) {
+        bytesPerChar = 2;
+        break;
+      }
     }
-    return size;
+    return SIZE_OF_STRING + align(SIZE_OF_ARRAY_HEADER + length * bytesPerChar);
   }
 
   private static int weighField(Object field) {
-    if (field instanceof List) {
-      int size = SIZE_OF_ARRAY_OVERHEAD;
-      for (Object listItem : (List) field) {
-        size += weighField(listItem);
+    if (field == null || field instanceof Boolean) {
+      return 0;
+    } else if (field instanceof String) {
+      return sizeOf((String) field);
+    } else if (field instanceof Long || field instanceof Double) {
+      return SIZE_OF_BOXED_LONG;
+    } else if (field instanceof Integer || field instanceof Float) {
+      return SIZE_OF_BOXED_INT;
+    } else if (field instanceof BigDecimal) {
+      return bigDecimalBytes((BigDecimal) field);
+    } else if (field instanceof CacheReference) {
+      return SIZE_OF_CACHE_REFERENCE + sizeOf(((CacheReference) field).key());
+    } else if (field instanceof List) {
+      return listBytes((List<?>) field);
+    } else if (field instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) field;
+      int size = mapBytes(map.size());
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        size += fieldBytes(String.valueOf(entry.getKey()), entry.getValue());
       }
       return size;
     }
-    if (field instanceof String) {
-      return ((String) field).getBytes().length;
-    } else if (field instanceof Boolean) {
-      return SIZE_OF_BOOLEAN;
-    } else if (field instanceof BigDecimal) {
+    throw new IllegalStateException("Unknown field type in Record. " + field.getClass().getName());
+  }
+
+  private static int listBytes(List<?> list) {
+    int count = list.size();
+    int size = SIZE_OF_ARRAY_LIST + align(SIZE_OF_ARRAY_HEADER + count * SIZE_OF_REFERENCE);
+    if (list instanceof RandomAccess) {
+      for (int i = 0; i < count; i++) {
+        size += weighField(list.get(i));
+      }
+    } else {
+      for (Object item : list) {
+        size += weighField(item);
+      }
+    }
+    return size;
+  }
+
+  private static int bigDecimalBytes(BigDecimal value) {
+    int precision = value.precision();
+    if (precision <= MAX_COMPACT_DECIMAL_PRECISION) {
       return SIZE_OF_BIG_DECIMAL;
-    } else if (field instanceof CacheReference) {
-      return SIZE_OF_CACHE_REFERENCE_OVERHEAD + ((CacheReference) field).key().getBytes().length;
     }
-    throw new IllegalStateException("Unknown field type in Record. " + field.getClass().getName());
+    // log2(10) bits per digit, stored as 32 bit magnitude words
+    int words = (precision * 3322 + 31999) / 32000;
+    return SIZE_OF_BIG_DECIMAL + SIZE_OF_BIG_INTEGER + align(SIZE_OF_ARRAY_HEADER + words * 4);
   }
 
+  private static int mapBytes(int count) {
+    if (count == 0) {
+      return SIZE_OF_LINKED_HASH_MAP;
+    }
+    int capacity = MIN_HASH_TABLE_CAPACITY;
+    while (count > capacity - (capacity >> 2)) {
+      capacity <<= 1;
+    }
+    return SIZE_OF_LINKED_HASH_MAP + align(SIZE_OF_ARRAY_HEADER + capacity * SIZE_OF_REFERENCE);
+  }
+
+  private static int align(int size) {
+    return (size + OBJECT_ALIGNMENT - 1) & ~(OBJECT_ALIGNMENT - 1);
+  }
 }
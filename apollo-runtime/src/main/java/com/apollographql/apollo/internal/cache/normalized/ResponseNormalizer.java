@@ -12,6 +12,7 @@ import com.apollographql.apollo.internal.reader.ResponseReaderShadow;
 import com.apollographql.apollo.internal.util.SimpleStack;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -21,21 +22,73 @@ import java.util.Set;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+/**
+ * {@link ResponseReaderShadow} that normalizes the response being read into {@link Record}s. Normalization happens
+ * for every field of every response, so the path of the current field is kept in reusable {@link StringBuilder}s and
+ * dependent keys are built from the resolved records only once they are requested.
+ */
 public abstract class ResponseNormalizer<R> implements ResponseReaderShadow<R> {
-  private SimpleStack<List<String>> pathStack;
-  private SimpleStack<Record> recordStack;
+  private final boolean collectRecords;
+  private final SimpleStack<StringBuilder> sparePaths = new SimpleStack<>();
+  private SimpleStack<StringBuilder> pathStack;
+  private SimpleStack<Record.Builder> recordStack;
+  private SimpleStack<String> fieldKeyStack;
   private SimpleStack<Object> valueStack;
-  private List<String> path;
+  private StringBuilder path;
+  private int[] pathLengths = new int[16];
+  private int pathDepth;
   private Record.Builder currentRecordBuilder;
+  private Record.Builder rootRecordBuilder;
+  private Record rootRecord;
+  private boolean rootResolved;
+  private List<Record> resolvedRecords;
+  private int dependentKeyCount;
+  private long receivedAtMillis = Record.UNKNOWN_RECEIVED_AT;
 
   private RecordSet recordSet = new RecordSet();
   private Set<String> dependentKeys = Collections.emptySet();
 
+  protected ResponseNormalizer() {
+    this(true);
+  }
+
+  /**
+   * @param collectRecords {@code false} to collect only dependent keys of the response, without field values and
+   *                       records
+   */
+  protected ResponseNormalizer(boolean collectRecords) {
+    this.collectRecords = collectRecords;
+  }
+
+  /**
+   * @return normalizer that resolves cache keys the same way as this one, but collects only dependent keys of the
+   * response. Meant for responses whose records can never reach the store.
+   */
+  public ResponseNormalizer<R> dependentKeysNormalizer() {
+    return new ResponseNormalizer<R>(false) {
+      @Nonnull @Override public CacheKey resolveCacheKey(@Nonnull ResponseField field, @Nonnull R record) {
+        return ResponseNormalizer.this.resolveCacheKey(field, record);
+      }
+    };
+  }
+
   public Collection<Record> records() {
+    completeRootRecord();
     return recordSet.allRecords();
   }
 
   public Set<String> dependentKeys() {
+    if (dependentKeys == null) {
+      completeRootRecord();
+      dependentKeys = new HashSet<>(dependentKeyCount * 4 / 3 + 1);
+      if (rootRecord != null) {
+        addFieldKeys(rootRecord, dependentKeys);
+      }
+      for (Record record : resolvedRecords) {
+        dependentKeys.add(record.key());
+        addFieldKeys(record, dependentKeys);
+      }
+    }
     return dependentKeys;
   }
 
@@ -45,24 +98,25 @@ public abstract class ResponseNormalizer<R> implements ResponseReaderShadow<R> {
 
   @Override public void willResolve(ResponseField field, Operation.Variables variables) {
     String key = field.cacheKey(variables);
-    path.add(key);
+    fieldKeyStack.push(key);
+    pushPathSegment().append(key);
   }
 
   @Override public void didResolve(ResponseField field, Operation.Variables variables) {
-    path.remove(path.size() - 1);
+    popPathSegment();
     Object value = valueStack.pop();
-    String cacheKey = field.cacheKey(variables);
-    String dependentKey = currentRecordBuilder.key() + "." + cacheKey;
-    dependentKeys.add(dependentKey);
-    currentRecordBuilder.addField(cacheKey, value);
+    currentRecordBuilder.addField(fieldKeyStack.pop(), value);
+    dependentKeyCount++;
 
     if (recordStack.isEmpty()) {
-      recordSet.merge(currentRecordBuilder.build());
+      // the root record is built once all of its fields are resolved
+      rootRecord = null;
+      rootResolved = true;
     }
   }
 
   @Override public void didResolveScalar(@Nullable Object value) {
-    valueStack.push(value);
+    valueStack.push(collectRecords ? value : null);
   }
 
   @Override public void willResolveObject(ResponseField field, Optional<R> objectSource) {
@@ -71,38 +125,56 @@ public abstract class ResponseNormalizer<R> implements ResponseReaderShadow<R> {
     CacheKey cacheKey = objectSource.isPresent() ? resolveCacheKey(field, objectSource.get()) : CacheKey.NO_KEY;
     String cacheKeyValue = cacheKey.key();
     if (cacheKey == CacheKey.NO_KEY) {
-      cacheKeyValue = pathToString();
+      cacheKeyValue = path.toString();
     } else {
-      path = new ArrayList<>();
-      path.add(cacheKeyValue);
+      path = sparePaths.isEmpty() ? new StringBuilder() : sparePaths.pop();
+      path.append(cacheKeyValue);
     }
-    recordStack.push(currentRecordBuilder.build());
-    currentRecordBuilder = Record.builder(cacheKeyValue);
+    recordStack.push(currentRecordBuilder);
+    currentRecordBuilder = Record.builder(cacheKeyValue).receivedAtMillis(receivedAtMillis);
   }
 
   @Override public void didResolveObject(ResponseField field, Optional<R> objectSource) {
-    path = pathStack.pop();
+    StringBuilder parentPath = pathStack.pop();
+    if (parentPath != path) {
+      path.setLength(0);
+      sparePaths.push(path);
+      path = parentPath;
+    }
     Record completedRecord = currentRecordBuilder.build();
-    valueStack.push(new CacheReference(completedRecord.key()));
-    dependentKeys.add(completedRecord.key());
-    recordSet.merge(completedRecord);
-    currentRecordBuilder = recordStack.pop().toBuilder();
+    resolvedRecords.add(completedRecord);
+    dependentKeyCount++;
+    if (collectRecords) {
+      valueStack.push(new CacheReference(completedRecord.key()));
+      recordSet.merge(completedRecord);
+    } else {
+      valueStack.push(null);
+    }
+    currentRecordBuilder = recordStack.pop();
   }
 
   @Override public void didResolveList(List array) {
+    if (!collectRecords) {
+      for (int i = 0, size = array.size(); i < size; i++) {
+        valueStack.pop();
+      }
+      valueStack.push(null);
+      return;
+    }
     List<Object> parsedArray = new ArrayList<>(array.size());
     for (int i = 0, size = array.size(); i < size; i++) {
-      parsedArray.add(0, valueStack.pop());
+      parsedArray.add(valueStack.pop());
     }
+    Collections.reverse(parsedArray);
     valueStack.push(parsedArray);
   }
 
   @Override public void willResolveElement(int atIndex) {
-    path.add(Integer.toString(atIndex));
+    pushPathSegment().append(atIndex);
   }
 
   @Override public void didResolveElement(int atIndex) {
-    path.remove(path.size() - 1);
+    popPathSegment();
   }
 
   @Override public void didResolveNull() {
@@ -111,27 +183,65 @@ public abstract class ResponseNormalizer<R> implements ResponseReaderShadow<R> {
 
   @Nonnull public abstract CacheKey resolveCacheKey(@Nonnull ResponseField field, @Nonnull R record);
 
+  /**
+   * @return The time normalized records are stamped with, see {@link Record#receivedAtMillis()}. Called once per
+   * response, records of responses that were not received from the network keep an unknown time.
+   */
+  protected long receivedAtMillis() {
+    return Record.UNKNOWN_RECEIVED_AT;
+  }
+
   void willResolveRecord(CacheKey cacheKey) {
     pathStack = new SimpleStack<>();
     recordStack = new SimpleStack<>();
+    fieldKeyStack = new SimpleStack<>();
     valueStack = new SimpleStack<>();
-    dependentKeys = new HashSet<>();
+    resolvedRecords = new ArrayList<>();
+    dependentKeys = null;
+    dependentKeyCount = 0;
 
-    path = new ArrayList<>();
-    currentRecordBuilder = Record.builder(cacheKey.key());
+    if (path == null) {
+      path = new StringBuilder();
+    }
+    path.setLength(0);
+    pathDepth = 0;
+    receivedAtMillis = receivedAtMillis();
+    currentRecordBuilder = Record.builder(cacheKey.key()).receivedAtMillis(receivedAtMillis);
+    rootRecordBuilder = currentRecordBuilder;
+    rootRecord = null;
+    rootResolved = false;
     recordSet = new RecordSet();
   }
 
-  private String pathToString() {
-    StringBuilder stringBuilder = new StringBuilder();
-    for (int i = 0, size = path.size(); i < size; i++) {
-      String pathPiece = path.get(i);
-      stringBuilder.append(pathPiece);
-      if (i < size - 1) {
-        stringBuilder.append(".");
+  private void completeRootRecord() {
+    if (rootResolved && rootRecord == null) {
+      rootRecord = rootRecordBuilder.build();
+      if (collectRecords) {
+        recordSet.merge(rootRecord);
       }
     }
-    return stringBuilder.toString();
+  }
+
+  private StringBuilder pushPathSegment() {
+    if (pathDepth == pathLengths.length) {
+      pathLengths = Arrays.copyOf(pathLengths, pathDepth * 2);
+    }
+    pathLengths[pathDepth++] = path.length();
+    if (path.length() > 0) {
+      path.append('.');
+    }
+    return path;
+  }
+
+  private void popPathSegment() {
+    path.setLength(pathLengths[--pathDepth]);
+  }
+
+  private static void addFieldKeys(Record record, Set<String> dependentKeys) {
+    String prefix = record.key() + ".";
+    for (String fieldKey : record.fields().keySet()) {
+      dependentKeys.add(prefix + fieldKey);
+    }
   }
 
   @SuppressWarnings("unchecked") public static final ResponseNormalizer NO_OP_NORMALIZER = new ResponseNormalizer() {
@@ -173,6 +283,10 @@ public abstract class ResponseNormalizer<R> implements ResponseReaderShadow<R> {
       return Collections.emptySet();
     }
 
+    @Override public ResponseNormalizer dependentKeysNormalizer() {
+      return this;
+    }
+
     @Nonnull @Override public CacheKey resolveCacheKey(@Nonnull ResponseField field, @Nonnull Object record) {
       return CacheKey.NO_KEY;
     }
@@ -0,0 +1,143 @@
+package com.apollographql.apollo.internal.cache.normalized;
+
+import com.apollographql.apollo.cache.normalized.Record;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+/**
+ * Version of the store content pinned by readers, so that reads never wait for writes. Writes don't copy the cache:
+ * before the single active writer replaces or removes a record in the cache, it saves the record in the current
+ * snapshot, and once the write completes it publishes the next snapshot. A reader that pinned an older snapshot reads
+ * a record from the cache first and then looks it up in the records saved by this and all newer snapshots. The first
+ * saved record is the record as of the pinned version, if none is saved the cached record has not changed since.
+ *
+ * <p>Snapshots are linked only from older to newer versions, so records saved for old versions are garbage collected
+ * together with the readers that pinned them.</p>
+ *
+ * <p>Saving records is only needed while a reader may resolve them. Each snapshot counts its pins: the readers pinned
+ * to it, one while it is the current snapshot, and one while the previous snapshot is pinned. A current snapshot
+ * pinned once has no reader of it or of any older version, and the writer seals it instead of saving records. A
+ * sealed snapshot can not be pinned, readers wait for the write to publish the next snapshot.</p>
+ */
+final class StoreSnapshot {
+  private static final Object ABSENT = new Object();
+  private static final int SEALED = -1;
+
+  final long version;
+  private final ConcurrentMap<String, Object> replacedRecords = new ConcurrentHashMap<>();
+  private final AtomicInteger pins;
+  private volatile StoreSnapshot next;
+
+  /**
+   * Creates the first, current, snapshot.
+   */
+  StoreSnapshot() {
+    this(0, 1);
+  }
+
+  private StoreSnapshot(long version, int pins) {
+    this.version = version;
+    this.pins = new AtomicInteger(pins);
+  }
+
+  /**
+   * Pins this snapshot for a reader, which must {@link #unpin()} it once done.
+   *
+   * @return {@code false} if this snapshot is sealed, or is no longer current and not pinned by any reader
+   */
+  boolean tryPin() {
+    while (true) {
+      int count = pins.get();
+      if (count <= 0) {
+        return false;
+      }
+      if (pins.compareAndSet(count, count + 1)) {
+        return true;
+      }
+    }
+  }
+
+  void unpin() {
+    // the last pin of a snapshot releases the pin it holds on the next one
+    StoreSnapshot snapshot = this;
+    while (snapshot != null && snapshot.pins.decrementAndGet() == 0) {
+      snapshot = snapshot.next;
+    }
+  }
+
+  boolean isSealed() {
+    return pins.get() == SEALED;
+  }
+
+  /**
+   * Seals this snapshot if no reader can resolve records through it. Must be called by the writer, on the current
+   * snapshot, before the cache is modified.
+   *
+   * @return whether this snapshot is sealed, in which case replaced records don't need to be saved
+   */
+  boolean trySeal() {
+    return pins.compareAndSet(1, SEALED) || isSealed();
+  }
+
+  /**
+   * Saves the record as of this snapshot before a write replaces or removes it. Must be called by the writer before
+   * the cache is modified.
+   *
+   * @param key    key of the record
+   * @param record record as of this snapshot, {@code null} if there is none
+   */
+  void saveReplaced(String key, @Nullable Record record) {
+    replacedRecords.putIfAbsent(key, record != null ? record : ABSENT);
+  }
+
+  boolean isReplaced(String key) {
+    return replacedRecords.containsKey(key);
+  }
+
+  /**
+   * Creates the next snapshot if records have been replaced since this one. Once the next snapshot is current, the
+   * writer must {@link #retire()} this one.
+   *
+   * @return the next snapshot, or this snapshot if no record has been replaced
+   */
+  StoreSnapshot createNext() {
+    if (isSealed()) {
+      // no reader of this or an older snapshot, which the next one would have to save records for
+      return new StoreSnapshot(version + 1, 1);
+    }
+    if (replacedRecords.isEmpty()) {
+      return this;
+    }
+    StoreSnapshot nextSnapshot = new StoreSnapshot(version + 1, 2);
+    next = nextSnapshot;
+    return nextSnapshot;
+  }
+
+  /**
+   * Releases the pin this snapshot holds as the current snapshot.
+   */
+  void retire() {
+    if (!isSealed()) {
+      unpin();
+    }
+  }
+
+  /**
+   * @param key          key of the record
+   * @param cachedRecord record read from the cache after this snapshot has been pinned
+   * @return the record as of this snapshot
+   */
+  @Nullable Record resolve(String key, @Nullable Record cachedRecord) {
+    for (StoreSnapshot snapshot = this; snapshot != null; snapshot = snapshot.next) {
+      Object replacedRecord = snapshot.replacedRecords.get(key);
+      if (replacedRecord != null) {
+        return replacedRecord != ABSENT ? (Record) replacedRecord : null;
+      }
+    }
+    return cachedRecord;
+  }
+}
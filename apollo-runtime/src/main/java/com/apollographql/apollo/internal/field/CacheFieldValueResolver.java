@@ -10,13 +10,29 @@ import com.apollographql.apollo.cache.normalized.Record;
 import com.apollographql.apollo.internal.cache.normalized.ReadableStore;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Resolves field values of records read from the cache. Referenced records are loaded breadth-first: records loaded
+ * together, such as the elements of a list, form a batch, and when a field is resolved for one record of a batch the
+ * records referenced by the same field of all records in the batch are loaded with a single
+ * {@link ReadableStore#read(Collection, CacheHeaders)}. A list of objects with nested references takes a read per
+ * nesting level instead of a read per referenced record.
+ */
 public final class CacheFieldValueResolver implements FieldValueResolver<Record> {
   private final ReadableStore readableCache;
   private final Operation.Variables variables;
   private final CacheKeyResolver cacheKeyResolver;
   private final CacheHeaders cacheHeaders;
+  private final Map<String, Record> loadedRecords = new HashMap<>();
+  private final Map<Record, List<Record>> batches = new IdentityHashMap<>();
 
   public CacheFieldValueResolver(ReadableStore readableCache, Operation.Variables variables,
       CacheKeyResolver cacheKeyResolver, CacheHeaders cacheHeaders) {
@@ -46,14 +62,15 @@ public final class CacheFieldValueResolver implements FieldValueResolver<Record>
     }
 
     if (cacheReference != null) {
-      Record referencedRecord = readableCache.read(cacheReference.key(), cacheHeaders);
-      if (referencedRecord == null) {
-        // we are unable to find record in the cache by reference,
-        // means it was removed intentionally by using imperative store API or
-        // evicted from LRU cache, we must prevent of further resolving cache response as it's broken
-        throw new IllegalStateException("Cache MISS: failed to find record in cache by reference");
+      if (!loadedRecords.containsKey(cacheReference.key())) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(cacheReference.key());
+        if (fieldCacheKey == CacheKey.NO_KEY) {
+          addBatchReferences(record, field, keys);
+        }
+        load(keys);
       }
-      return referencedRecord;
+      return referencedRecord(cacheReference);
     }
 
     return null;
@@ -65,20 +82,86 @@ public final class CacheFieldValueResolver implements FieldValueResolver<Record>
       return null;
     }
 
-    List<Record> result = new ArrayList<>();
+    Set<String> keys = new LinkedHashSet<>();
     for (CacheReference reference : values) {
-      Record referencedRecord = readableCache.read(reference.key(), cacheHeaders);
-      if (referencedRecord == null) {
-        // we are unable to find record in the cache by reference,
-        // means it was removed intentionally by using imperative store API or
-        // evicted from LRU cache, we must prevent of further resolving cache response as it's broken
-        throw new IllegalStateException("Cache MISS: failed to find record in cache by reference");
+      if (!loadedRecords.containsKey(reference.key())) {
+        keys.add(reference.key());
       }
-      result.add(referencedRecord);
+    }
+    if (!keys.isEmpty()) {
+      addBatchReferences(record, field, keys);
+      load(keys);
+    }
+
+    List<Record> result = new ArrayList<>(values.size());
+    for (CacheReference reference : values) {
+      result.add(referencedRecord(reference));
     }
     return result;
   }
 
+  /**
+   * Adds keys of records referenced by the field of all records loaded in the same batch as the record, that have
+   * not been loaded yet.
+   */
+  private void addBatchReferences(Record record, ResponseField field, Set<String> keys) {
+    List<Record> batch = batches.get(record);
+    if (batch == null) {
+      return;
+    }
+    String fieldKey = field.cacheKey(variables);
+    for (Record batchRecord : batch) {
+      Object value = batchRecord.field(fieldKey);
+      if (value instanceof CacheReference) {
+        addUnloadedKey((CacheReference) value, keys);
+      } else if (value instanceof List) {
+        for (Object item : (List) value) {
+          if (item instanceof CacheReference) {
+            addUnloadedKey((CacheReference) item, keys);
+          }
+        }
+      }
+    }
+  }
+
+  private void addUnloadedKey(CacheReference reference, Set<String> keys) {
+    if (!loadedRecords.containsKey(reference.key())) {
+      keys.add(reference.key());
+    }
+  }
+
+  private void load(Set<String> keys) {
+    Collection<Record> records = keys.size() == 1
+        ? Collections.singletonList(readableCache.read(keys.iterator().next(), cacheHeaders))
+        : readableCache.read(keys, cacheHeaders);
+    List<Record> batch = new ArrayList<>(records.size());
+    for (Record record : records) {
+      if (record != null) {
+        batch.add(record);
+      }
+    }
+    for (Record record : batch) {
+      loadedRecords.put(record.key(), record);
+      batches.put(record, batch);
+    }
+    for (String key : keys) {
+      if (!loadedRecords.containsKey(key)) {
+        loadedRecords.put(key, null);
+      }
+    }
+  }
+
+  private Record referencedRecord(CacheReference reference) {
+    Record referencedRecord = loadedRecords.get(reference.key());
+    if (referencedRecord == null) {
+      // we are unable to find record in the cache by reference,
+      // means it was removed intentionally by using imperative store API or
+      // evicted from LRU cache, we must prevent of further resolving cache response as it's broken
+      throw new IllegalStateException("Cache MISS: failed to find record in cache by reference");
+    }
+    return referencedRecord;
+  }
+
   @SuppressWarnings("unchecked") private <T> T fieldValue(Record record, ResponseField field) {
     String fieldKey = field.cacheKey(variables);
     if (!record.hasField(fieldKey)) {
@@ -6,6 +6,7 @@ import com.apollographql.apollo.api.Response;
 import com.apollographql.apollo.api.ResponseFieldMapper;
 import com.apollographql.apollo.api.ScalarType;
 import com.apollographql.apollo.api.internal.Optional;
+import com.apollographql.apollo.cache.ApolloCacheHeaders;
 import com.apollographql.apollo.cache.CacheHeaders;
 import com.apollographql.apollo.cache.normalized.ApolloStore;
 import com.apollographql.apollo.cache.normalized.CacheControl;
@@ -13,15 +14,22 @@ import com.apollographql.apollo.cache.normalized.Record;
 import com.apollographql.apollo.exception.ApolloException;
 import com.apollographql.apollo.interceptor.ApolloInterceptor;
 import com.apollographql.apollo.interceptor.ApolloInterceptorChain;
+import com.apollographql.apollo.internal.cache.normalized.MaxAgeReadableStore;
+import com.apollographql.apollo.internal.cache.normalized.PendingCacheWrites;
+import com.apollographql.apollo.internal.cache.normalized.PendingRevalidations;
 import com.apollographql.apollo.internal.cache.normalized.ResponseNormalizer;
 import com.apollographql.apollo.internal.cache.normalized.Transaction;
 import com.apollographql.apollo.internal.cache.normalized.WriteableStore;
 import com.apollographql.apollo.internal.util.ApolloLogger;
+import com.apollographql.apollo.internal.util.DirectExecutor;
+import com.apollographql.apollo.internal.util.StageExecutor;
 
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -47,7 +55,17 @@ import static com.apollographql.apollo.api.internal.Utils.checkNotNull;
  * <li><b>NETWORK_ONLY</b>: First tries to get the data from the network. If the network request fails, it throws an
  * exception.</li>
  *
+ * <li><b>STALE_WHILE_REVALIDATE</b>: First tries to get fresh data from the normalized cache. If only stale data
+ * exists, it returns it and revalidates it with a network request in the background, that the
+ * {@link PendingRevalidations} share between calls. If no data exists, it makes a network request.</li>
+ *
  * </ol>
+ *
+ * <p>Asynchronous cache reads and writes are performed on the provided cache {@link Executor}, while cache change
+ * notifications are published on the dispatcher.</p>
+ *
+ * <p>If {@link PendingCacheWrites} are provided, network responses are returned before their records are merged into
+ * the store. The merge runs on the dispatcher afterwards, and every cache read first completes pending writes.</p>
  */
 public final class ApolloCacheInterceptor implements ApolloInterceptor {
   private final ApolloStore apolloStore;
@@ -56,25 +74,36 @@ public final class ApolloCacheInterceptor implements ApolloInterceptor {
   private final ResponseFieldMapper responseFieldMapper;
   private final Map<ScalarType, CustomTypeAdapter> customTypeAdapters;
   private final ExecutorService dispatcher;
+  private final Executor cacheExecutor;
+  private final Optional<PendingCacheWrites> pendingCacheWrites;
+  private final PendingRevalidations pendingRevalidations;
   private final ApolloLogger logger;
+  private final boolean hasMaxAge;
 
   public ApolloCacheInterceptor(@Nonnull ApolloStore apolloStore, @Nonnull CacheControl cacheControl,
       @Nonnull CacheHeaders cacheHeaders,
       @Nonnull ResponseFieldMapper responseFieldMapper,
       @Nonnull Map<ScalarType, CustomTypeAdapter> customTypeAdapters,
-      @Nonnull ExecutorService dispatcher, @Nonnull ApolloLogger logger) {
+      @Nonnull ExecutorService dispatcher, @Nonnull Executor cacheExecutor,
+      @Nonnull Optional<PendingCacheWrites> pendingCacheWrites, @Nonnull PendingRevalidations pendingRevalidations,
+      @Nonnull ApolloLogger logger) {
     this.apolloStore = checkNotNull(apolloStore, "cache == null");
     this.cacheControl = checkNotNull(cacheControl, "cacheControl == null");
     this.cacheHeaders = checkNotNull(cacheHeaders, "cacheHeaders == null");
     this.responseFieldMapper = checkNotNull(responseFieldMapper, "responseFieldMapper == null");
     this.customTypeAdapters = checkNotNull(customTypeAdapters, "customTypeAdapters == null");
     this.dispatcher = checkNotNull(dispatcher, "dispatcher == null");
+    this.cacheExecutor = checkNotNull(cacheExecutor, "cacheExecutor == null");
+    this.pendingCacheWrites = checkNotNull(pendingCacheWrites, "pendingCacheWrites == null");
+    this.pendingRevalidations = checkNotNull(pendingRevalidations, "pendingRevalidations == null");
     this.logger = checkNotNull(logger, "logger == null");
+    this.hasMaxAge = MaxAgeReadableStore.maxAgeMillis(cacheHeaders) != MaxAgeReadableStore.NO_MAX_AGE;
   }
 
   @Nonnull @Override public InterceptorResponse intercept(Operation operation, ApolloInterceptorChain chain)
       throws ApolloException {
-    InterceptorResponse cachedResponse = resolveCacheFirstResponse(operation);
+    InterceptorResponse cachedResponse = cacheControl == CacheControl.STALE_WHILE_REVALIDATE
+        ? resolveStaleWhileRevalidateResponse(operation, chain, dispatcher) : resolveCacheFirstResponse(operation);
     if (cachedResponse != null) {
       return cachedResponse;
     }
@@ -96,21 +125,37 @@ public final class ApolloCacheInterceptor implements ApolloInterceptor {
   @Override
   public void interceptAsync(@Nonnull final Operation operation, @Nonnull final ApolloInterceptorChain chain,
       @Nonnull final ExecutorService dispatcher, @Nonnull final CallBack callBack) {
-    dispatcher.execute(new Runnable() {
+    // the default cache executor runs inline, which would read the cache on the thread enqueuing the call
+    Executor executor = cacheExecutor == DirectExecutor.INSTANCE ? dispatcher : cacheExecutor;
+    StageExecutor.execute(executor, new Runnable() {
       @Override public void run() {
         //Imperative strategy
-        final InterceptorResponse cachedResponse = resolveCacheFirstResponse(operation);
+        final InterceptorResponse cachedResponse = cacheControl == CacheControl.STALE_WHILE_REVALIDATE
+            ? resolveStaleWhileRevalidateResponse(operation, chain, dispatcher)
+            : resolveCacheFirstResponse(operation);
         if (cachedResponse != null) {
           callBack.onResponse(cachedResponse);
           return;
         }
+        proceedAsync(operation, chain, dispatcher, callBack);
+      }
+    }, callBack);
+  }
 
-        chain.proceedAsync(dispatcher, new CallBack() {
-          @Override public void onResponse(@Nonnull InterceptorResponse response) {
+  private void proceedAsync(final Operation operation, ApolloInterceptorChain chain, ExecutorService dispatcher,
+      final CallBack callBack) {
+    chain.proceedAsync(dispatcher, new CallBack() {
+      @Override public void onResponse(@Nonnull final InterceptorResponse response) {
+        StageExecutor.execute(cacheExecutor, new Runnable() {
+          @Override public void run() {
             callBack.onResponse(handleNetworkResponse(operation, response));
           }
+        }, callBack);
+      }
 
-          @Override public void onFailure(@Nonnull ApolloException e) {
+      @Override public void onFailure(@Nonnull final ApolloException e) {
+        StageExecutor.execute(cacheExecutor, new Runnable() {
+          @Override public void run() {
             InterceptorResponse response = resolveNetworkFirstCacheResponse(operation);
             if (response != null) {
               logger.d(e, "Failed to fetch network response for operation %s, return cached one", operation);
@@ -119,7 +164,7 @@ public final class ApolloCacheInterceptor implements ApolloInterceptor {
               callBack.onFailure(e);
             }
           }
-        });
+        }, callBack);
       }
     });
   }
@@ -132,7 +177,7 @@ public final class ApolloCacheInterceptor implements ApolloInterceptor {
     if (cacheControl == CacheControl.CACHE_ONLY || cacheControl == CacheControl.CACHE_FIRST) {
       ResponseNormalizer<Record> responseNormalizer = apolloStore.cacheResponseNormalizer();
 
-      Response cachedResponse = apolloStore.read(operation, responseFieldMapper, responseNormalizer, cacheHeaders);
+      Response cachedResponse = readCache(operation, responseNormalizer);
       if (cachedResponse.data() != null) {
         logger.d("Cache HIT for operation %s", operation);
       }
@@ -145,12 +190,70 @@ public final class ApolloCacheInterceptor implements ApolloInterceptor {
     return null;
   }
 
-  private InterceptorResponse handleNetworkResponse(Operation operation, InterceptorResponse networkResponse) {
+  private InterceptorResponse resolveStaleWhileRevalidateResponse(Operation operation, ApolloInterceptorChain chain,
+      ExecutorService dispatcher) {
+    if (hasMaxAge) {
+      ResponseNormalizer<Record> responseNormalizer = apolloStore.cacheResponseNormalizer();
+      Response cachedResponse = readCache(operation, responseNormalizer);
+      if (cachedResponse.data() != null) {
+        logger.d("Cache HIT for operation %s", operation);
+        return new InterceptorResponse(null, cachedResponse, responseNormalizer.records());
+      }
+    }
+
+    ResponseNormalizer<Record> responseNormalizer = apolloStore.cacheResponseNormalizer();
+    Response staleResponse = readCache(operation, responseNormalizer,
+        cacheHeaders.toBuilder().removeHeader(ApolloCacheHeaders.MAX_AGE).build());
+    if (staleResponse.data() == null) {
+      logger.d("Cache MISS for operation %s", operation);
+      return null;
+    }
+    logger.d("Stale cache HIT for operation %s", operation);
+    revalidate(operation, chain, dispatcher);
+    return new InterceptorResponse(null, staleResponse, responseNormalizer.records());
+  }
+
+  /**
+   * Fetches the operation from the network and writes the response to the store, unless a call of the same client is
+   * already revalidating it.
+   */
+  private void revalidate(final Operation operation, ApolloInterceptorChain chain, ExecutorService dispatcher) {
+    if (!pendingRevalidations.start(operation)) {
+      return;
+    }
+    chain.proceedAsync(dispatcher, new CallBack() {
+      @Override public void onResponse(@Nonnull final InterceptorResponse response) {
+        try {
+          cacheExecutor.execute(new Runnable() {
+            @Override public void run() {
+              try {
+                if (response.httpResponse.isPresent() && response.httpResponse.get().isSuccessful()) {
+                  cacheResponse(response);
+                }
+              } finally {
+                pendingRevalidations.finish(operation);
+              }
+            }
+          });
+        } catch (RejectedExecutionException e) {
+          pendingRevalidations.finish(operation);
+          logger.d(e, "Failed to cache revalidated response for operation %s", operation);
+        }
+      }
+
+      @Override public void onFailure(@Nonnull ApolloException e) {
+        pendingRevalidations.finish(operation);
+        logger.d(e, "Failed to revalidate cached response for operation %s", operation);
+      }
+    });
+  }
+
+  private InterceptorResponse handleNetworkResponse(Operation operation, final InterceptorResponse networkResponse) {
     boolean networkFailed = (!networkResponse.httpResponse.isPresent()
         || !networkResponse.httpResponse.get().isSuccessful());
     if (networkFailed && cacheControl != CacheControl.NETWORK_ONLY) {
       ResponseNormalizer<Record> responseNormalizer = apolloStore.cacheResponseNormalizer();
-      Response cachedResponse = apolloStore.read(operation, responseFieldMapper, responseNormalizer, cacheHeaders);
+      Response cachedResponse = readCache(operation, responseNormalizer);
       if (cachedResponse.data() != null) {
         logger.d("Cache HIT for operation %s", operation);
         return new InterceptorResponse(networkResponse.httpResponse.get(), cachedResponse,
@@ -161,12 +264,32 @@ public final class ApolloCacheInterceptor implements ApolloInterceptor {
     }
 
     if (!networkFailed) {
-      cacheResponse(networkResponse);
+      if (pendingCacheWrites.isPresent() && networkResponse.cacheRecords.isPresent()) {
+        dispatcher.execute(pendingCacheWrites.get().add(new Runnable() {
+          @Override public void run() {
+            cacheResponse(networkResponse);
+          }
+        }));
+      } else {
+        cacheResponse(networkResponse);
+      }
     }
 
     return networkResponse;
   }
 
+  private Response readCache(Operation operation, ResponseNormalizer<Record> responseNormalizer) {
+    return readCache(operation, responseNormalizer, cacheHeaders);
+  }
+
+  private Response readCache(Operation operation, ResponseNormalizer<Record> responseNormalizer,
+      CacheHeaders cacheHeaders) {
+    if (pendingCacheWrites.isPresent()) {
+      pendingCacheWrites.get().await();
+    }
+    return apolloStore.read(operation, responseFieldMapper, responseNormalizer, cacheHeaders);
+  }
+
   private void cacheResponse(final InterceptorResponse networkResponse) {
     final Optional<Collection<Record>> records = networkResponse.cacheRecords;
     if (!records.isPresent()) {
@@ -199,7 +322,7 @@ public final class ApolloCacheInterceptor implements ApolloInterceptor {
   private InterceptorResponse resolveNetworkFirstCacheResponse(Operation operation) {
     if (cacheControl == CacheControl.NETWORK_FIRST) {
       ResponseNormalizer<Record> responseNormalizer = apolloStore.cacheResponseNormalizer();
-      Response cachedResponse = apolloStore.read(operation, responseFieldMapper, responseNormalizer, cacheHeaders);
+      Response cachedResponse = readCache(operation, responseNormalizer);
       if (cachedResponse.data() != null) {
         logger.d("Cache HIT for operation %s", operation);
         return new InterceptorResponse(null, cachedResponse, responseNormalizer.records());
@@ -13,9 +13,11 @@ import com.apollographql.apollo.interceptor.ApolloInterceptorChain;
 import com.apollographql.apollo.internal.cache.http.HttpCache;
 import com.apollographql.apollo.internal.cache.normalized.ResponseNormalizer;
 import com.apollographql.apollo.internal.util.ApolloLogger;
+import com.apollographql.apollo.internal.util.StageExecutor;
 
 import java.io.Closeable;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 
 import javax.annotation.Nonnull;
@@ -24,21 +26,25 @@ import javax.annotation.Nonnull;
  * ApolloParseInterceptor is a concrete {@link ApolloInterceptor} responsible for inflating the http responses into
  * models. To get the http responses, it hands over the control to the next interceptor in the chain and proceeds to
  * then parse the returned response.
+ *
+ * <p>Asynchronous responses are parsed on the provided parse {@link Executor}.</p>
  */
 public final class ApolloParseInterceptor implements ApolloInterceptor {
   private final HttpCache httpCache;
   private final ResponseNormalizer<Map<String, Object>> normalizer;
   private final ResponseFieldMapper responseFieldMapper;
   private final Map<ScalarType, CustomTypeAdapter> customTypeAdapters;
+  private final Executor parseExecutor;
   private final ApolloLogger logger;
 
   public ApolloParseInterceptor(HttpCache httpCache, ResponseNormalizer<Map<String, Object>> normalizer,
       ResponseFieldMapper responseFieldMapper, Map<ScalarType, CustomTypeAdapter> customTypeAdapters,
-      ApolloLogger logger) {
+      Executor parseExecutor, ApolloLogger logger) {
     this.httpCache = httpCache;
     this.normalizer = normalizer;
     this.responseFieldMapper = responseFieldMapper;
     this.customTypeAdapters = customTypeAdapters;
+    this.parseExecutor = parseExecutor;
     this.logger = logger;
   }
 
@@ -52,13 +58,19 @@ public final class ApolloParseInterceptor implements ApolloInterceptor {
   public void interceptAsync(@Nonnull final Operation operation, @Nonnull ApolloInterceptorChain chain,
       @Nonnull ExecutorService dispatcher, @Nonnull final CallBack callBack) {
     chain.proceedAsync(dispatcher, new CallBack() {
-      @Override public void onResponse(@Nonnull InterceptorResponse response) {
-        try {
-          InterceptorResponse result = parse(operation, response.httpResponse.get());
-          callBack.onResponse(result);
-        } catch (ApolloException e) {
-          onFailure(e);
-        }
+      @Override public void onResponse(@Nonnull final InterceptorResponse response) {
+        StageExecutor.execute(parseExecutor, new Runnable() {
+          @Override public void run() {
+            InterceptorResponse result;
+            try {
+              result = parse(operation, response.httpResponse.get());
+            } catch (ApolloException e) {
+              callBack.onFailure(e);
+              return;
+            }
+            callBack.onResponse(result);
+          }
+        }, callBack);
       }
 
       @Override public void onFailure(@Nonnull ApolloException e) {
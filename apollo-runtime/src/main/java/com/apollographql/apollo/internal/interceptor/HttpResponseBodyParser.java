@@ -11,14 +11,16 @@ import com.apollographql.apollo.internal.field.MapFieldValueResolver;
 import com.apollographql.apollo.internal.json.BufferedSourceJsonReader;
 import com.apollographql.apollo.internal.json.ResponseJsonStreamReader;
 import com.apollographql.apollo.internal.reader.RealResponseReader;
+import com.apollographql.apollo.internal.reader.StreamingResponseReader;
 
 import java.io.IOException;
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import okio.BufferedSource;
+
 import static com.apollographql.apollo.internal.json.ApolloJsonReader.responseJsonStreamReader;
 
 final class HttpResponseBodyParser<D extends Operation.Data, W> {
@@ -35,10 +37,26 @@ final class HttpResponseBodyParser<D extends Operation.Data, W> {
 
   public Response<W> parse(okhttp3.Response response,
       final ResponseNormalizer<Map<String, Object>> networkResponseNormalizer) throws IOException {
+    BufferedSource source = response.body().source();
+    try {
+      // buffer the whole body first, so it can be read again by the map based reader if streaming fails
+      source.request(Long.MAX_VALUE);
+      try {
+        return parse(source.buffer().clone(), true, response.cacheResponse() != null, networkResponseNormalizer);
+      } catch (StreamingResponseReader.ConsumedFieldException e) {
+        return parse(source, false, response.cacheResponse() != null, networkResponseNormalizer);
+      }
+    } finally {
+      source.close();
+    }
+  }
+
+  private Response<W> parse(BufferedSource source, final boolean streaming, boolean fromCache,
+      final ResponseNormalizer<Map<String, Object>> networkResponseNormalizer) throws IOException {
     networkResponseNormalizer.willResolveRootQuery(operation);
     BufferedSourceJsonReader jsonReader = null;
     try {
-      jsonReader = new BufferedSourceJsonReader(response.body().source());
+      jsonReader = new BufferedSourceJsonReader(source);
       jsonReader.beginObject();
 
       ResponseJsonStreamReader responseStreamReader = responseJsonStreamReader(jsonReader);
@@ -50,11 +68,8 @@ final class HttpResponseBodyParser<D extends Operation.Data, W> {
           //noinspection unchecked
           data = (D) responseStreamReader.nextObject(true, new ResponseJsonStreamReader.ObjectReader<Object>() {
             @Override public Object read(ResponseJsonStreamReader reader) throws IOException {
-              Map<String, Object> buffer = reader.toMap();
-              RealResponseReader<Map<String, Object>> realResponseReader = new RealResponseReader<>(
-                  operation.variables(), buffer, new MapFieldValueResolver(), customTypeAdapters,
-                  networkResponseNormalizer);
-              return responseFieldMapper.map(realResponseReader);
+              return streaming ? readStreaming(reader, networkResponseNormalizer)
+                  : readBuffered(reader, networkResponseNormalizer);
             }
           });
         } else if ("errors".equals(name)) {
@@ -66,7 +81,7 @@ final class HttpResponseBodyParser<D extends Operation.Data, W> {
       jsonReader.endObject();
       return Response.<W>builder(operation)
           .data(operation.wrapData(data))
-          .fromCache(response.cacheResponse() != null)
+          .fromCache(fromCache)
           .errors(errors)
           .dependentKeys(networkResponseNormalizer.dependentKeys())
           .build();
@@ -77,6 +92,23 @@ final class HttpResponseBodyParser<D extends Operation.Data, W> {
     }
   }
 
+  private Object readStreaming(ResponseJsonStreamReader reader,
+      ResponseNormalizer<Map<String, Object>> networkResponseNormalizer) throws IOException {
+    StreamingResponseReader streamingResponseReader = new StreamingResponseReader(reader, operation.variables(),
+        customTypeAdapters, networkResponseNormalizer);
+    Object data = responseFieldMapper.map(streamingResponseReader);
+    streamingResponseReader.skipRemaining();
+    return data;
+  }
+
+  private Object readBuffered(ResponseJsonStreamReader reader,
+      ResponseNormalizer<Map<String, Object>> networkResponseNormalizer) throws IOException {
+    Map<String, Object> buffer = reader.toMap();
+    RealResponseReader<Map<String, Object>> realResponseReader = new RealResponseReader<>(operation.variables(),
+        buffer, new MapFieldValueResolver(), customTypeAdapters, networkResponseNormalizer);
+    return responseFieldMapper.map(realResponseReader);
+  }
+
   private List<Error> readResponseErrors(ResponseJsonStreamReader reader) throws IOException {
     return reader.nextList(true, new ResponseJsonStreamReader.ListReader<Error>() {
       @Override public Error read(ResponseJsonStreamReader reader) throws IOException {
@@ -120,9 +152,9 @@ final class HttpResponseBodyParser<D extends Operation.Data, W> {
     if (data != null) {
       for (Map.Entry<String, Object> entry : data.entrySet()) {
         if ("line".equals(entry.getKey())) {
-          line = ((BigDecimal) entry.getValue()).longValue();
+          line = ((Number) entry.getValue()).longValue();
         } else if ("column".equals(entry.getKey())) {
-          column = ((BigDecimal) entry.getValue()).longValue();
+          column = ((Number) entry.getValue()).longValue();
         }
       }
     }
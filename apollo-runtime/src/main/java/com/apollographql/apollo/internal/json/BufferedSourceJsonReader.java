@@ -20,6 +20,8 @@ import com.apollographql.apollo.json.JsonEncodingException;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
 
 import okio.Buffer;
 import okio.BufferedSource;
@@ -28,6 +30,9 @@ import okio.ByteString;
 /** TODO add Modifications copyright **/
 public final class BufferedSourceJsonReader extends JsonReader {
   private static final long MIN_INCOMPLETE_INTEGER = Long.MIN_VALUE / 10;
+  /** Decimal numbers with at most this many significant digits survive a round trip through {@code double}. */
+  private static final int MAX_DOUBLE_SIGNIFICANT_DIGITS = 15;
+  private static final MathContext DOUBLE_DIGITS = new MathContext(MAX_DOUBLE_SIGNIFICANT_DIGITS);
 
   private static final ByteString SINGLE_QUOTE_OR_SLASH = ByteString.encodeUtf8("'\\");
   private static final ByteString DOUBLE_QUOTE_OR_SLASH = ByteString.encodeUtf8("\"\\");
@@ -55,6 +60,8 @@ public final class BufferedSourceJsonReader extends JsonReader {
   private static final int PEEKED_LONG = 15;
   private static final int PEEKED_NUMBER = 16;
   private static final int PEEKED_EOF = 17;
+  /** When this is returned, the name is stored in peekedString. */
+  private static final int PEEKED_BUFFERED_NAME = 18;
 
   /* State machine when parsing numbers */
   private static final int NUMBER_CHAR_NONE = 0;
@@ -219,6 +226,7 @@ public final class BufferedSourceJsonReader extends JsonReader {
       case PEEKED_SINGLE_QUOTED_NAME:
       case PEEKED_DOUBLE_QUOTED_NAME:
       case PEEKED_UNQUOTED_NAME:
+      case PEEKED_BUFFERED_NAME:
         return Token.NAME;
       case PEEKED_TRUE:
       case PEEKED_FALSE:
@@ -549,6 +557,9 @@ public final class BufferedSourceJsonReader extends JsonReader {
       result = nextQuotedValue(DOUBLE_QUOTE_OR_SLASH);
     } else if (p == PEEKED_SINGLE_QUOTED_NAME) {
       result = nextQuotedValue(SINGLE_QUOTE_OR_SLASH);
+    } else if (p == PEEKED_BUFFERED_NAME) {
+      result = peekedString;
+      peekedString = null;
     } else {
       throw new JsonDataException("Expected a name but was " + peek() + " at path " + getPath());
     }
@@ -557,6 +568,56 @@ public final class BufferedSourceJsonReader extends JsonReader {
     return result;
   }
 
+  @Override public int selectName(Options options) throws IOException {
+    int p = peeked;
+    if (p == PEEKED_NONE) {
+      p = doPeek();
+    }
+    if (p == PEEKED_BUFFERED_NAME) {
+      return findName(peekedString, options);
+    }
+    if (p != PEEKED_DOUBLE_QUOTED_NAME && p != PEEKED_SINGLE_QUOTED_NAME && p != PEEKED_UNQUOTED_NAME) {
+      return -1;
+    }
+
+    if (p == PEEKED_DOUBLE_QUOTED_NAME) {
+      int result = source.select(options.doubleQuoteSuffix);
+      if (result != -1) {
+        peeked = PEEKED_NONE;
+        pathNames[stackSize - 1] = options.strings[result];
+        return result;
+      }
+    }
+
+    // The name is either unknown, escaped or not double quoted. Keep the last path name, so the peek state can be
+    // restored if there is no match.
+    String lastPathName = pathNames[stackSize - 1];
+    String name = nextName();
+    int result = findName(name, options);
+    if (result == -1) {
+      peeked = PEEKED_BUFFERED_NAME;
+      peekedString = name;
+      pathNames[stackSize - 1] = lastPathName;
+    }
+    return result;
+  }
+
+  /**
+   * If {@code name} is in {@code options} this consumes it and returns its index. Otherwise this returns -1 and no
+   * name is consumed.
+   */
+  private int findName(String name, Options options) {
+    for (int i = 0, size = options.strings.length; i < size; i++) {
+      if (name.equals(options.strings[i])) {
+        peeked = PEEKED_NONE;
+        peekedString = null;
+        pathNames[stackSize - 1] = name;
+        return i;
+      }
+    }
+    return -1;
+  }
+
   @Override public String nextString() throws IOException {
     int p = peeked;
     if (p == PEEKED_NONE) {
@@ -823,6 +884,67 @@ public final class BufferedSourceJsonReader extends JsonReader {
     return result;
   }
 
+  @Override public Number nextNumber() throws IOException {
+    int p = peeked;
+    if (p == PEEKED_NONE) {
+      p = doPeek();
+    }
+
+    if (p == PEEKED_LONG) {
+      peeked = PEEKED_NONE;
+      pathIndices[stackSize - 1]++;
+      return peekedLong;
+    }
+
+    String number;
+    if (p == PEEKED_NUMBER) {
+      number = buffer.readUtf8(peekedNumberLength);
+    } else if (p == PEEKED_BUFFERED) {
+      number = peekedString;
+    } else {
+      throw new JsonDataException("Expected a number but was " + peek() + " at path " + getPath());
+    }
+    peekedString = null;
+    peeked = PEEKED_NONE;
+    pathIndices[stackSize - 1]++;
+    return decimalNumber(number);
+  }
+
+  /**
+   * Returns {@code number} as {@link Double} if it doesn't lose precision when parsed as a double and its text can be
+   * rebuilt from the double, see {@link #decimalText(Double)}, otherwise as {@link BigDecimal}. Numbers with an
+   * exponent or with trailing zeros in their fraction are returned as {@link BigDecimal}, which keeps their scale.
+   */
+  private static Number decimalNumber(String number) {
+    int significantDigits = 0;
+    char last = 0;
+    for (int i = 0, length = number.length(); i < length; i++) {
+      char c = number.charAt(i);
+      if (c == 'e' || c == 'E') {
+        return new BigDecimal(number);
+      } else if (c >= '1' && c <= '9' || c == '0' && significantDigits > 0) {
+        significantDigits++;
+      }
+      last = c;
+    }
+    if (significantDigits <= MAX_DOUBLE_SIGNIFICANT_DIGITS && last != '0') {
+      double value = Double.parseDouble(number);
+      if (!Double.isInfinite(value) && (value != 0d || significantDigits == 0)) {
+        return value;
+      }
+    }
+    return new BigDecimal(number);
+  }
+
+  /**
+   * Returns the text of a decimal number returned as {@link Double} by {@link #nextNumber()}. Such a number has at most
+   * {@value #MAX_DOUBLE_SIGNIFICANT_DIGITS} significant digits and no trailing zeros, so rounding the double to that
+   * many digits gives back the number, whatever the platform's {@link Double#toString(double)} prints.
+   */
+  public static String decimalText(Double value) {
+    return new BigDecimal(value).round(DOUBLE_DIGITS).stripTrailingZeros().toPlainString();
+  }
+
   @Override public void close() throws IOException {
     peeked = PEEKED_NONE;
     stack[0] = JsonScope.CLOSED;
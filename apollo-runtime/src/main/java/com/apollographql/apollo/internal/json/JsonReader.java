@@ -21,6 +21,9 @@ import com.apollographql.apollo.json.JsonDataException;
 import java.io.Closeable;
 import java.io.IOException;
 
+import okio.Buffer;
+import okio.ByteString;
+
 /**
  * Reads a JSON (<a href="http://www.ietf.org/rfc/rfc7159.txt">RFC 7159</a>)
  * encoded value as a stream of tokens. This stream includes both literal
@@ -264,6 +267,15 @@ public abstract class JsonReader implements Closeable {
    */
   public abstract String nextName() throws IOException;
 
+  /**
+   * If the next token is a {@linkplain Token#NAME property name} that's in {@code options}, this
+   * consumes it and returns its index. Otherwise this returns -1 and no name is consumed.
+   *
+   * <p>Names are matched against the encoded bytes of {@code options} without being decoded to a
+   * {@link String}, so known names don't allocate.
+   */
+  public abstract int selectName(Options options) throws IOException;
+
   /**
    * Returns the {@linkplain Token#STRING string} value of the next token, consuming it. If the next
    * token is a number, this method will return its string form.
@@ -317,6 +329,17 @@ public abstract class JsonReader implements Closeable {
    */
   public abstract int nextInt() throws IOException;
 
+  /**
+   * Returns the {@linkplain Token#NUMBER number} value of the next token, consuming it. Integral
+   * values that fit into a Java {@code long} are returned as {@link Long}, decimal values that can
+   * be represented by a {@code double} without loss of precision as {@link Double}. Any other
+   * value, including decimals with an exponent or trailing zeros, is returned as
+   * {@link java.math.BigDecimal}.
+   *
+   * @throws JsonDataException if the next token is not a number.
+   */
+  public abstract Number nextNumber() throws IOException;
+
   /**
    * Skips the next value recursively. If it is an object or array, all nested elements are skipped.
    * This method is intended for use when the JSON token stream contains unrecognized or unhandled
@@ -339,6 +362,30 @@ public abstract class JsonReader implements Closeable {
    */
   abstract void promoteNameToValue() throws IOException;
 
+  /**
+   * A set of names to be chosen with {@link #selectName}. This prepares the encoded values of the
+   * names in advance. Names are expected to be GraphQL response names, which never need escaping.
+   */
+  public static final class Options {
+    final String[] strings;
+    final okio.Options doubleQuoteSuffix;
+
+    private Options(String[] strings, okio.Options doubleQuoteSuffix) {
+      this.strings = strings;
+      this.doubleQuoteSuffix = doubleQuoteSuffix;
+    }
+
+    public static Options of(String... strings) {
+      ByteString[] result = new ByteString[strings.length];
+      Buffer buffer = new Buffer();
+      for (int i = 0; i < strings.length; i++) {
+        // The leading double quote is consumed when the name is peeked, keep the trailing one.
+        result[i] = buffer.writeUtf8(strings[i]).writeByte('"').readByteString();
+      }
+      return new Options(strings.clone(), okio.Options.of(result));
+    }
+  }
+
   /**
    * A structure, name, or value type in a JSON-encoded string.
    */
@@ -1,7 +1,6 @@
 package com.apollographql.apollo.internal.json;
 
 import java.io.IOException;
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -22,6 +21,16 @@ public class ResponseJsonStreamReader {
     return jsonReader.nextName();
   }
 
+  /**
+   * Consumes the next name if it's one of the provided options.
+   *
+   * @return index of the name in {@code options} or {@code -1} if the next name is not one of them, in which case it
+   * has to be read with {@link #nextName()}
+   */
+  public int selectName(JsonReader.Options options) throws IOException {
+    return jsonReader.selectName(options);
+  }
+
   public void skipNext() throws IOException {
     jsonReader.skipValue();
   }
@@ -114,7 +123,7 @@ public class ResponseJsonStreamReader {
     } else if (isNextBoolean()) {
       return nextBoolean(false);
     } else if (isNextNumber()) {
-      return new BigDecimal(nextString(false));
+      return jsonReader.nextNumber();
     } else {
       return nextString(false);
     }
@@ -128,29 +137,36 @@ public class ResponseJsonStreamReader {
     Map<String, Object> result = new LinkedHashMap<>();
     while (hasNext()) {
       String name = nextName();
-      if (isNextNull()) {
-        skipNext();
-        result.put(name, null);
-      } else if (isNextObject()) {
-        result.put(name, readObject(this));
-      } else if (isNextList()) {
-        result.put(name, readScalarList(this));
-      } else {
-        result.put(name, nextScalar(true));
-      }
+      result.put(name, nextValue());
     }
     return result;
   }
 
-  private boolean isNextObject() throws IOException {
+  /**
+   * Reads the next value of any kind. Objects are read as {@link Map}, lists as {@link List}.
+   */
+  public Object nextValue() throws IOException {
+    if (isNextNull()) {
+      skipNext();
+      return null;
+    } else if (isNextObject()) {
+      return readObject(this);
+    } else if (isNextList()) {
+      return readScalarList(this);
+    } else {
+      return nextScalar(true);
+    }
+  }
+
+  public boolean isNextObject() throws IOException {
     return jsonReader.peek() == JsonReader.Token.BEGIN_OBJECT;
   }
 
-  private boolean isNextList() throws IOException {
+  public boolean isNextList() throws IOException {
     return jsonReader.peek() == JsonReader.Token.BEGIN_ARRAY;
   }
 
-  private boolean isNextNull() throws IOException {
+  public boolean isNextNull() throws IOException {
     return jsonReader.peek() == JsonReader.Token.NULL;
   }
 
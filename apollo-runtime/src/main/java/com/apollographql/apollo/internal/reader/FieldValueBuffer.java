@@ -0,0 +1,145 @@
+package com.apollographql.apollo.internal.reader;
+
+import com.apollographql.apollo.api.ResponseField;
+import com.apollographql.apollo.api.ResponseFieldTable;
+import com.apollographql.apollo.internal.json.JsonReader;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Field values of a JSON object read ahead by {@link StreamingResponseReader}. Once bound to the
+ * {@link ResponseFieldTable} of the selection set being read, values of the fields from the table are stored by their
+ * ordinal. Values of any other fields are stored by response name.
+ */
+final class FieldValueBuffer extends AbstractMap<String, Object> {
+  private static final Object ABSENT = new Object();
+
+  private ResponseFieldTable table;
+  private JsonReader.Options nameOptions;
+  private Object[] values;
+  private Map<String, Object> extras;
+
+  /**
+   * Binds this buffer to the provided table unless it has been bound already. Values buffered by response name that
+   * belong to the table are moved to their ordinals.
+   */
+  void bind(ResponseFieldTable table) {
+    if (this.table != null) {
+      return;
+    }
+    this.table = table;
+    nameOptions = nameOptions(table);
+    values = new Object[table.size()];
+    Arrays.fill(values, ABSENT);
+    if (extras != null) {
+      for (Iterator<Entry<String, Object>> iterator = extras.entrySet().iterator(); iterator.hasNext(); ) {
+        Entry<String, Object> entry = iterator.next();
+        int ordinal = table.ordinal(entry.getKey());
+        if (ordinal >= 0) {
+          values[ordinal] = entry.getValue();
+          iterator.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * @return options to select names of the bound table by ordinal, {@code null} if this buffer is not bound yet
+   */
+  JsonReader.Options nameOptions() {
+    return nameOptions;
+  }
+
+  int ordinal(String responseName) {
+    return table != null ? table.ordinal(responseName) : -1;
+  }
+
+  int ordinal(ResponseField field) {
+    if (table == null) {
+      return -1;
+    }
+    return field.table() == table ? field.ordinal() : table.ordinal(field.responseName());
+  }
+
+  boolean contains(String responseName, int ordinal) {
+    if (ordinal >= 0) {
+      return values[ordinal] != ABSENT;
+    }
+    return extras != null && extras.containsKey(responseName);
+  }
+
+  Object get(String responseName, int ordinal) {
+    if (ordinal >= 0) {
+      Object value = values[ordinal];
+      return value != ABSENT ? value : null;
+    }
+    return extras != null ? extras.get(responseName) : null;
+  }
+
+  Object get(ResponseField field) {
+    return get(field.responseName(), ordinal(field));
+  }
+
+  void put(String responseName, int ordinal, Object value) {
+    if (ordinal >= 0) {
+      values[ordinal] = value;
+    } else {
+      if (extras == null) {
+        extras = new HashMap<>();
+      }
+      extras.put(responseName, value);
+    }
+  }
+
+  @Override public Object get(Object key) {
+    String responseName = (String) key;
+    return get(responseName, ordinal(responseName));
+  }
+
+  @Override public boolean containsKey(Object key) {
+    String responseName = (String) key;
+    return contains(responseName, ordinal(responseName));
+  }
+
+  @Override public Object put(String key, Object value) {
+    int ordinal = ordinal(key);
+    Object previousValue = get(key, ordinal);
+    put(key, ordinal, value);
+    return previousValue;
+  }
+
+  @Override public Set<Entry<String, Object>> entrySet() {
+    Map<String, Object> entries = new LinkedHashMap<>();
+    if (table != null) {
+      for (int i = 0; i < values.length; i++) {
+        if (values[i] != ABSENT) {
+          entries.put(table.responseName(i), values[i]);
+        }
+      }
+    }
+    if (extras != null) {
+      entries.putAll(extras);
+    }
+    return entries.entrySet();
+  }
+
+  private static JsonReader.Options nameOptions(ResponseFieldTable table) {
+    // concurrent readers may both build the options, they are equal
+    JsonReader.Options options = (JsonReader.Options) table.readerOptions();
+    if (options == null) {
+      String[] responseNames = new String[table.size()];
+      for (int i = 0; i < responseNames.length; i++) {
+        responseNames[i] = table.responseName(i);
+      }
+      options = JsonReader.Options.of(responseNames);
+      table.readerOptions(options);
+    }
+    return options;
+  }
+}
@@ -7,6 +7,7 @@ import com.apollographql.apollo.api.ResponseReader;
 import com.apollographql.apollo.api.ScalarType;
 import com.apollographql.apollo.api.internal.Optional;
 import com.apollographql.apollo.internal.field.FieldValueResolver;
+import com.apollographql.apollo.internal.json.BufferedSourceJsonReader;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -46,7 +47,7 @@ import java.util.Map;
 
   @Override public Integer readInt(ResponseField field) {
     willResolve(field);
-    BigDecimal value = fieldValueResolver.valueFor(recordSet, field);
+    Number value = fieldValueResolver.valueFor(recordSet, field);
     checkValue(value, field.optional());
     if (value == null) {
       readerShadow.didResolveNull();
@@ -59,7 +60,7 @@ import java.util.Map;
 
   @Override public Long readLong(ResponseField field) {
     willResolve(field);
-    BigDecimal value = fieldValueResolver.valueFor(recordSet, field);
+    Number value = fieldValueResolver.valueFor(recordSet, field);
     checkValue(value, field.optional());
     if (value == null) {
       readerShadow.didResolveNull();
@@ -72,7 +73,7 @@ import java.util.Map;
 
   @Override public Double readDouble(ResponseField field) {
     willResolve(field);
-    BigDecimal value = fieldValueResolver.valueFor(recordSet, field);
+    Number value = fieldValueResolver.valueFor(recordSet, field);
     checkValue(value, field.optional());
     if (value == null) {
       readerShadow.didResolveNull();
@@ -156,7 +157,7 @@ import java.util.Map;
         result = (T) value;
       } else {
         readerShadow.didResolveScalar(value);
-        result = typeAdapter.decode(value.toString());
+        result = typeAdapter.decode(customTypeValue(value));
       }
     }
     didResolve(field);
@@ -216,17 +217,17 @@ import java.util.Map;
 
     @Override public Integer readInt() {
       readerShadow.didResolveScalar(value);
-      return ((BigDecimal) value).intValue();
+      return ((Number) value).intValue();
     }
 
     @Override public Long readLong() {
       readerShadow.didResolveScalar(value);
-      return ((BigDecimal) value).longValue();
+      return ((Number) value).longValue();
     }
 
     @Override public Double readDouble() {
       readerShadow.didResolveScalar(value);
-      return ((BigDecimal) value).doubleValue();
+      return ((Number) value).doubleValue();
     }
 
     @Override public Boolean readBoolean() {
@@ -241,7 +242,7 @@ import java.util.Map;
         throw new RuntimeException("Can't resolve custom type adapter for " + scalarType.typeName());
       }
       readerShadow.didResolveScalar(value);
-      return typeAdapter.decode(value.toString());
+      return typeAdapter.decode(customTypeValue(value));
     }
 
     @SuppressWarnings("unchecked")
@@ -254,4 +255,16 @@ import java.util.Map;
       return item;
     }
   }
+
+  /**
+   * @return the text custom type adapters decode the value from, decimal numbers in plain notation
+   */
+  static String customTypeValue(Object value) {
+    if (value instanceof Double) {
+      return BufferedSourceJsonReader.decimalText((Double) value);
+    } else if (value instanceof BigDecimal) {
+      return ((BigDecimal) value).toPlainString();
+    }
+    return value.toString();
+  }
 }
@@ -0,0 +1,400 @@
+package com.apollographql.apollo.internal.reader;
+
+import com.apollographql.apollo.CustomTypeAdapter;
+import com.apollographql.apollo.api.Operation;
+import com.apollographql.apollo.api.ResponseField;
+import com.apollographql.apollo.api.ResponseReader;
+import com.apollographql.apollo.api.ScalarType;
+import com.apollographql.apollo.api.internal.Optional;
+import com.apollographql.apollo.internal.field.FieldValueResolver;
+import com.apollographql.apollo.internal.json.JsonReader;
+import com.apollographql.apollo.internal.json.ResponseJsonStreamReader;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link ResponseReader} that resolves fields straight from a {@link ResponseJsonStreamReader} positioned inside a
+ * JSON object, in the order the generated mappers request them.
+ *
+ * <p>Object and list fields found at the head of the stream are read in place without materializing them. Fields
+ * that arrive before they are requested are buffered and served by a map based {@link RealResponseReader}. Scalar
+ * values are kept as well, as fragments read fields of the same object again. Fields of generated selection sets are
+ * matched and buffered by their {@link com.apollographql.apollo.api.ResponseFieldTable} ordinal.</p>
+ *
+ * <p>An object or list field that has been streamed can't be read a second time. In that case
+ * {@link ConsumedFieldException} is thrown and the response has to be read again with the map based reader.</p>
+ */
+@SuppressWarnings("WeakerAccess") public final class StreamingResponseReader implements ResponseReader {
+  private static final Object CONSUMED = new Object();
+  private static final FieldValueResolver<Map<String, Object>> BUFFER_VALUE_RESOLVER =
+      new FieldValueResolver<Map<String, Object>>() {
+        @SuppressWarnings("unchecked") @Override
+        public <T> T valueFor(Map<String, Object> map, ResponseField field) {
+          if (map instanceof FieldValueBuffer) {
+            return (T) ((FieldValueBuffer) map).get(field);
+          }
+          return (T) map.get(field.responseName());
+        }
+      };
+
+  private final ResponseJsonStreamReader streamReader;
+  private final Operation.Variables operationVariables;
+  private final Map<ScalarType, CustomTypeAdapter> customTypeAdapters;
+  private final ResponseReaderShadow<Map<String, Object>> readerShadow;
+  private FieldValueBuffer buffer;
+  private RealResponseReader<Map<String, Object>> bufferReader;
+  private ObjectSource objectSource;
+
+  public StreamingResponseReader(ResponseJsonStreamReader streamReader, Operation.Variables operationVariables,
+      Map<ScalarType, CustomTypeAdapter> customTypeAdapters, ResponseReaderShadow<Map<String, Object>> readerShadow) {
+    this.streamReader = streamReader;
+    this.operationVariables = operationVariables;
+    this.customTypeAdapters = customTypeAdapters;
+    this.readerShadow = readerShadow;
+  }
+
+  @Override public String readString(ResponseField field) {
+    bufferNextValue(field);
+    return bufferReader().readString(field);
+  }
+
+  @Override public Integer readInt(ResponseField field) {
+    bufferNextValue(field);
+    return bufferReader().readInt(field);
+  }
+
+  @Override public Long readLong(ResponseField field) {
+    bufferNextValue(field);
+    return bufferReader().readLong(field);
+  }
+
+  @Override public Double readDouble(ResponseField field) {
+    bufferNextValue(field);
+    return bufferReader().readDouble(field);
+  }
+
+  @Override public Boolean readBoolean(ResponseField field) {
+    bufferNextValue(field);
+    return bufferReader().readBoolean(field);
+  }
+
+  @SuppressWarnings("unchecked") @Override
+  public <T> T readObject(final ResponseField field, final ResponseReader.ObjectReader<T> objectReader) {
+    try {
+      int ordinal = ordinal(field);
+      if (!seek(field.responseName(), ordinal)) {
+        return bufferReader().readObject(field, objectReader);
+      }
+      if (streamReader.isNextNull()) {
+        buffer().put(field.responseName(), ordinal, streamReader.nextValue());
+        return bufferReader().readObject(field, objectReader);
+      }
+
+      readerShadow.willResolve(field, operationVariables);
+      buffer().put(field.responseName(), ordinal, CONSUMED);
+      T parsedValue = streamReader.nextObject(false, new ResponseJsonStreamReader.ObjectReader<T>() {
+        @Override public T read(ResponseJsonStreamReader reader) throws IOException {
+          return readNestedObject(reader, field, objectReader);
+        }
+      });
+      readerShadow.didResolve(field, operationVariables);
+      return parsedValue;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override public <T> List<T> readList(final ResponseField field, final ListReader listReader) {
+    try {
+      int ordinal = ordinal(field);
+      if (!seek(field.responseName(), ordinal)) {
+        return bufferReader().readList(field, listReader);
+      }
+      if (streamReader.isNextNull()) {
+        buffer().put(field.responseName(), ordinal, streamReader.nextValue());
+        return bufferReader().readList(field, listReader);
+      }
+
+      readerShadow.willResolve(field, operationVariables);
+      buffer().put(field.responseName(), ordinal, CONSUMED);
+      List<T> result = streamReader.nextList(false, new ResponseJsonStreamReader.ListReader<T>() {
+        int index;
+
+        @Override public T read(ResponseJsonStreamReader reader) throws IOException {
+          readerShadow.willResolveElement(index);
+          if (reader.isNextNull()) {
+            reader.skipNext();
+            index++;
+            return null;
+          }
+          T item = (T) listReader.read(new ListItemReader(field, reader));
+          readerShadow.didResolveElement(index);
+          index++;
+          return item;
+        }
+      });
+      // the shadow only needs to know how many elements have been resolved
+      readerShadow.didResolveList(Collections.nCopies(result.size(), null));
+      for (Iterator<T> iterator = result.iterator(); iterator.hasNext(); ) {
+        if (iterator.next() == null) {
+          iterator.remove();
+        }
+      }
+      readerShadow.didResolve(field, operationVariables);
+      return Collections.unmodifiableList(result);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override public <T> T readCustomType(ResponseField.CustomTypeField field) {
+    bufferNextValue(field);
+    return bufferReader().readCustomType(field);
+  }
+
+  @SuppressWarnings("unchecked") @Override
+  public <T> T readConditional(ResponseField.ConditionalTypeField field,
+      ConditionalTypeReader<T> conditionalTypeReader) {
+    bufferNextValue(field);
+    readerShadow.willResolve(field, operationVariables);
+    String value = (String) buffer().get(field);
+    if (!field.optional() && value == null) {
+      throw new NullPointerException("corrupted response reader, expected non null value");
+    }
+    final T result;
+    if (value == null) {
+      readerShadow.didResolveNull();
+      readerShadow.didResolve(field, operationVariables);
+      result = null;
+    } else if (field.type() == ResponseField.Type.INLINE_FRAGMENT && !field.conditionalTypes().contains(value)) {
+      readerShadow.didResolveScalar(value);
+      readerShadow.didResolve(field, operationVariables);
+      result = null;
+    } else {
+      readerShadow.didResolveScalar(value);
+      readerShadow.didResolve(field, operationVariables);
+      result = conditionalTypeReader.read(value, this);
+    }
+    return result;
+  }
+
+  /**
+   * Skips all the fields of the current object that haven't been requested.
+   */
+  public void skipRemaining() throws IOException {
+    JsonReader.Options nameOptions = buffer != null ? buffer.nameOptions() : null;
+    while (streamReader.hasNext()) {
+      if (nameOptions == null || streamReader.selectName(nameOptions) < 0) {
+        streamReader.nextName();
+      }
+      streamReader.skipNext();
+    }
+  }
+
+  private <T> T readNestedObject(ResponseJsonStreamReader reader, ResponseField field,
+      ResponseReader.ObjectReader<T> objectReader) throws IOException {
+    StreamingResponseReader nestedReader = new StreamingResponseReader(reader, operationVariables,
+        customTypeAdapters, readerShadow);
+    Optional<Map<String, Object>> objectSource = Optional.<Map<String, Object>>of(nestedReader.objectSource());
+    readerShadow.willResolveObject(field, objectSource);
+    T parsedValue = objectReader.read(nestedReader);
+    nestedReader.skipRemaining();
+    readerShadow.didResolveObject(field, objectSource);
+    return parsedValue;
+  }
+
+  /**
+   * Moves the stream to the value of the field with provided response name, buffering every field in between.
+   *
+   * @param ordinal ordinal of the field in the table the buffer is bound to, {@code -1} to match the field by name
+   * @return {@code true} if the stream is positioned at the value of the field, {@code false} if the field has
+   * already been read or is not present in the response
+   */
+  private boolean seek(String responseName, int ordinal) throws IOException {
+    FieldValueBuffer buffer = buffer();
+    if (buffer.contains(responseName, ordinal)) {
+      if (buffer.get(responseName, ordinal) == CONSUMED) {
+        throw new ConsumedFieldException(responseName);
+      }
+      return false;
+    }
+    JsonReader.Options nameOptions = buffer.nameOptions();
+    while (streamReader.hasNext()) {
+      // names from the bound table are matched by ordinal without being decoded
+      int nameOrdinal = nameOptions != null ? streamReader.selectName(nameOptions) : -1;
+      String name = nameOrdinal < 0 ? streamReader.nextName() : null;
+      if (ordinal >= 0 ? nameOrdinal == ordinal : responseName.equals(name)) {
+        return true;
+      }
+      buffer.put(name, nameOrdinal, streamReader.nextValue());
+    }
+    return false;
+  }
+
+  private void bufferNextValue(ResponseField field) {
+    try {
+      int ordinal = ordinal(field);
+      if (seek(field.responseName(), ordinal)) {
+        buffer().put(field.responseName(), ordinal, streamReader.nextValue());
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Resolves ordinal of the field, binding the buffer to the table of the first field from a generated selection set.
+   */
+  private int ordinal(ResponseField field) {
+    if (field.table() != null) {
+      buffer().bind(field.table());
+    }
+    return buffer().ordinal(field);
+  }
+
+  private FieldValueBuffer buffer() {
+    if (buffer == null) {
+      buffer = new FieldValueBuffer();
+    }
+    return buffer;
+  }
+
+  private RealResponseReader<Map<String, Object>> bufferReader() {
+    if (bufferReader == null) {
+      bufferReader = new RealResponseReader<Map<String, Object>>(operationVariables, buffer(), BUFFER_VALUE_RESOLVER,
+          customTypeAdapters, readerShadow);
+    }
+    return bufferReader;
+  }
+
+  private ObjectSource objectSource() {
+    if (objectSource == null) {
+      objectSource = new ObjectSource();
+    }
+    return objectSource;
+  }
+
+  /**
+   * Thrown when an object or list field that has already been streamed is requested again.
+   */
+  public static final class ConsumedFieldException extends IllegalStateException {
+    ConsumedFieldException(String responseName) {
+      super("Field `" + responseName + "` has already been consumed by streaming reader");
+    }
+  }
+
+  /**
+   * Map view of the object being read, handed to the {@link ResponseReaderShadow} as an object source. Looking up a
+   * field reads the stream up to that field, so cache key resolution doesn't need the whole object up front.
+   */
+  private final class ObjectSource extends AbstractMap<String, Object> {
+
+    @Override public Object get(Object key) {
+      String responseName = (String) key;
+      int ordinal = buffer().ordinal(responseName);
+      try {
+        if (seek(responseName, ordinal)) {
+          buffer().put(responseName, ordinal, streamReader.nextValue());
+        }
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+      return buffer().get(responseName, ordinal);
+    }
+
+    @Override public boolean containsKey(Object key) {
+      get(key);
+      return buffer().containsKey(key);
+    }
+
+    @Override public Set<Entry<String, Object>> entrySet() {
+      try {
+        while (streamReader.hasNext()) {
+          String name = streamReader.nextName();
+          buffer().put(name, buffer().ordinal(name), streamReader.nextValue());
+        }
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+      return Collections.unmodifiableMap(buffer()).entrySet();
+    }
+  }
+
+  private final class ListItemReader implements ResponseReader.ListItemReader {
+    private final ResponseField field;
+    private final ResponseJsonStreamReader reader;
+
+    ListItemReader(ResponseField field, ResponseJsonStreamReader reader) {
+      this.field = field;
+      this.reader = reader;
+    }
+
+    @Override public String readString() {
+      Object value = nextValue();
+      readerShadow.didResolveScalar(value);
+      return (String) value;
+    }
+
+    @Override public Integer readInt() {
+      Object value = nextValue();
+      readerShadow.didResolveScalar(value);
+      return ((Number) value).intValue();
+    }
+
+    @Override public Long readLong() {
+      Object value = nextValue();
+      readerShadow.didResolveScalar(value);
+      return ((Number) value).longValue();
+    }
+
+    @Override public Double readDouble() {
+      Object value = nextValue();
+      readerShadow.didResolveScalar(value);
+      return ((Number) value).doubleValue();
+    }
+
+    @Override public Boolean readBoolean() {
+      Object value = nextValue();
+      readerShadow.didResolveScalar(value);
+      return (Boolean) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override public <T> T readCustomType(ScalarType scalarType) {
+      CustomTypeAdapter<T> typeAdapter = customTypeAdapters.get(scalarType);
+      if (typeAdapter == null) {
+        throw new RuntimeException("Can't resolve custom type adapter for " + scalarType.typeName());
+      }
+      Object value = nextValue();
+      readerShadow.didResolveScalar(value);
+      return typeAdapter.decode(RealResponseReader.customTypeValue(value));
+    }
+
+    @Override public <T> T readObject(final ObjectReader<T> objectReader) {
+      try {
+        return reader.nextObject(false, new ResponseJsonStreamReader.ObjectReader<T>() {
+          @Override public T read(ResponseJsonStreamReader reader) throws IOException {
+            return readNestedObject(reader, field, objectReader);
+          }
+        });
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    private Object nextValue() {
+      try {
+        return reader.nextValue();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.apollographql.apollo.internal.util;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Default executors of the background work of normalized caches, such as writing behind and compacting.
+ */
+public final class BackgroundExecutor {
+  private BackgroundExecutor() {
+  }
+
+  /**
+   * @return an executor running tasks in order on a single daemon thread, which is stopped after a minute without work
+   * so an idle cache does not keep a thread
+   */
+  public static Executor create(final String threadName) {
+    return new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+        new ThreadFactory() {
+          @Override public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+  }
+}
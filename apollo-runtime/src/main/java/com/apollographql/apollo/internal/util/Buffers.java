@@ -0,0 +1,20 @@
+package com.apollographql.apollo.internal.util;
+
+import java.nio.Buffer;
+
+/**
+ * Helpers for {@link java.nio.ByteBuffer}s, compiled against a newer JDK than some of the runtimes they run on.
+ */
+public final class Buffers {
+  private Buffers() {
+  }
+
+  /**
+   * Sets the position of the buffer. {@code ByteBuffer} overrides {@link Buffer#position(int)} with a covariant
+   * return type since Java 9, so calling it on a {@code ByteBuffer} compiled with a newer JDK fails with a
+   * {@link NoSuchMethodError} on older runtimes. Calling it through {@link Buffer} links on all of them.
+   */
+  public static void position(Buffer buffer, int position) {
+    buffer.position(position);
+  }
+}
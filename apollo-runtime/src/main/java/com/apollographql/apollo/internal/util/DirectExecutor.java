@@ -0,0 +1,19 @@
+package com.apollographql.apollo.internal.util;
+
+import java.util.concurrent.Executor;
+
+import javax.annotation.Nonnull;
+
+/**
+ * {@link Executor} that runs each command immediately on the thread that submits it.
+ */
+public final class DirectExecutor implements Executor {
+  public static final Executor INSTANCE = new DirectExecutor();
+
+  private DirectExecutor() {
+  }
+
+  @Override public void execute(@Nonnull Runnable command) {
+    command.run();
+  }
+}
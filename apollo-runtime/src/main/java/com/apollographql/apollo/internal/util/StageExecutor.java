@@ -0,0 +1,27 @@
+package com.apollographql.apollo.internal.util;
+
+import com.apollographql.apollo.exception.ApolloException;
+import com.apollographql.apollo.interceptor.ApolloInterceptor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Submits a stage of a call, such as parsing or cache I/O, to its {@link Executor}. An executor provided by the user
+ * may reject the stage, the call then fails instead of never completing.
+ */
+public final class StageExecutor {
+  private StageExecutor() {
+  }
+
+  /**
+   * Runs the stage on the executor, or delivers an {@link ApolloException} to the callback if the executor rejects it.
+   */
+  public static void execute(Executor executor, Runnable stage, ApolloInterceptor.CallBack callBack) {
+    try {
+      executor.execute(stage);
+    } catch (RejectedExecutionException e) {
+      callBack.onFailure(new ApolloException("Executor rejected the call", e));
+    }
+  }
+}
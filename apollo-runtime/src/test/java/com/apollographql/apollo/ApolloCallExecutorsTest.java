@@ -0,0 +1,179 @@
+package com.apollographql.apollo;
+
+import com.apollographql.apollo.api.OperationName;
+import com.apollographql.apollo.api.Query;
+import com.apollographql.apollo.api.Response;
+import com.apollographql.apollo.api.ResponseFieldMapper;
+import com.apollographql.apollo.api.ResponseReader;
+import com.apollographql.apollo.exception.ApolloException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnull;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class ApolloCallExecutorsTest {
+  private static final int TIMEOUT_SECONDS = 2;
+  private static final Query EMPTY_QUERY = new Query() {
+    @Override public String queryDocument() {
+      return "";
+    }
+
+    @Override public Variables variables() {
+      return EMPTY_VARIABLES;
+    }
+
+    @Override public ResponseFieldMapper<Data> responseFieldMapper() {
+      return new ResponseFieldMapper<Data>() {
+        @Override public Data map(ResponseReader responseReader) {
+          return null;
+        }
+      };
+    }
+
+    @Override public Object wrapData(Data data) {
+      return data;
+    }
+
+    @Nonnull @Override public OperationName name() {
+      return null;
+    }
+  };
+
+  private static final Executor REJECTING_EXECUTOR = new Executor() {
+    @Override public void execute(@Nonnull Runnable command) {
+      throw new RejectedExecutionException("shut down");
+    }
+  };
+
+  private MockWebServer server;
+  private final List<String> stages = Collections.synchronizedList(new ArrayList<String>());
+  private final List<ExecutorService> executors = new ArrayList<>();
+
+  @Before
+  public void setUp() throws Exception {
+    server = new MockWebServer();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    server.shutdown();
+    for (ExecutorService executor : executors) {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void callHopsBetweenStageExecutors() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(200).setBody("{\"data\":null}"));
+    ApolloClient apolloClient = ApolloClient.builder()
+        .serverUrl(server.url("/"))
+        .okHttpClient(new OkHttpClient())
+        .parseExecutor(stageExecutor("parse"))
+        .cacheExecutor(stageExecutor("cache"))
+        .callbackExecutor(stageExecutor("callback"))
+        .build();
+
+    final CountDownLatch latch = new CountDownLatch(1);
+    final AtomicReference<String> callbackThread = new AtomicReference<>();
+    apolloClient.query(EMPTY_QUERY).enqueue(new ApolloCall.Callback<Object>() {
+      @Override public void onResponse(@Nonnull Response<Object> response) {
+        callbackThread.set(Thread.currentThread().getName());
+        latch.countDown();
+      }
+
+      @Override public void onFailure(@Nonnull ApolloException e) {
+        latch.countDown();
+      }
+    });
+
+    assertThat(latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+    assertThat(callbackThread.get()).isEqualTo("callback");
+    assertThat(stages).containsExactly("cache", "parse", "cache", "callback").inOrder();
+  }
+
+  @Test
+  public void rejectedCacheStageFailsCall() throws Exception {
+    ApolloClient apolloClient = ApolloClient.builder()
+        .serverUrl(server.url("/"))
+        .okHttpClient(new OkHttpClient())
+        .cacheExecutor(REJECTING_EXECUTOR)
+        .build();
+
+    ApolloException failure = enqueueExpectingFailure(apolloClient);
+    assertThat(failure.getCause()).isInstanceOf(RejectedExecutionException.class);
+  }
+
+  @Test
+  public void rejectedCallbackStageFailsCall() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(200).setBody("{\"data\":null}"));
+    ApolloClient apolloClient = ApolloClient.builder()
+        .serverUrl(server.url("/"))
+        .okHttpClient(new OkHttpClient())
+        .callbackExecutor(REJECTING_EXECUTOR)
+        .build();
+
+    ApolloException failure = enqueueExpectingFailure(apolloClient);
+    assertThat(failure.getCause()).isInstanceOf(RejectedExecutionException.class);
+  }
+
+  private ApolloException enqueueExpectingFailure(ApolloClient apolloClient) throws InterruptedException {
+    final CountDownLatch idle = new CountDownLatch(1);
+    apolloClient.idleCallback(new IdleResourceCallback() {
+      @Override public void onIdle() {
+        idle.countDown();
+      }
+    });
+    final CountDownLatch latch = new CountDownLatch(1);
+    final AtomicReference<ApolloException> failure = new AtomicReference<>();
+    apolloClient.query(EMPTY_QUERY).enqueue(new ApolloCall.Callback<Object>() {
+      @Override public void onResponse(@Nonnull Response<Object> response) {
+        latch.countDown();
+      }
+
+      @Override public void onFailure(@Nonnull ApolloException e) {
+        failure.set(e);
+        latch.countDown();
+      }
+    });
+    assertThat(latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+    // the call is unregistered once its callback returns
+    assertThat(idle.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+    assertThat(failure.get()).isNotNull();
+    return failure.get();
+  }
+
+  private Executor stageExecutor(final String name) {
+    final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      @Override public Thread newThread(@Nonnull Runnable runnable) {
+        return new Thread(runnable, name);
+      }
+    });
+    executors.add(executor);
+    return new Executor() {
+      @Override public void execute(@Nonnull Runnable command) {
+        stages.add(name);
+        executor.execute(command);
+      }
+    };
+  }
+}
@@ -0,0 +1,142 @@
+package com.apollographql.apollo;
+
+import com.apollographql.apollo.api.Operation;
+import com.apollographql.apollo.api.OperationName;
+import com.apollographql.apollo.api.Query;
+import com.apollographql.apollo.api.Response;
+import com.apollographql.apollo.api.ResponseField;
+import com.apollographql.apollo.api.ResponseFieldMapper;
+import com.apollographql.apollo.api.ResponseFieldMarshaller;
+import com.apollographql.apollo.api.ResponseReader;
+import com.apollographql.apollo.api.ResponseWriter;
+import com.apollographql.apollo.cache.ApolloCacheHeaders;
+import com.apollographql.apollo.cache.CacheHeaders;
+import com.apollographql.apollo.cache.normalized.ApolloStore;
+import com.apollographql.apollo.cache.normalized.CacheControl;
+import com.apollographql.apollo.cache.normalized.lru.EvictionPolicy;
+import com.apollographql.apollo.cache.normalized.lru.LruNormalizedCacheFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class StaleWhileRevalidateTest {
+  private static final int TIMEOUT_SECONDS = 2;
+  private static final ResponseField NAME_FIELD = ResponseField.forString("name", "name", null, false);
+  private static final Query NAME_QUERY = new Query() {
+    @Override public String queryDocument() {
+      return "query { name }";
+    }
+
+    @Override public Variables variables() {
+      return EMPTY_VARIABLES;
+    }
+
+    @Override public ResponseFieldMapper<Data> responseFieldMapper() {
+      return new ResponseFieldMapper<Data>() {
+        @Override public Data map(ResponseReader responseReader) {
+          return new NameData(responseReader.readString(NAME_FIELD));
+        }
+      };
+    }
+
+    @Override public Object wrapData(Data data) {
+      return data;
+    }
+
+    @Nonnull @Override public OperationName name() {
+      return null;
+    }
+  };
+
+  private MockWebServer server;
+  private ApolloClient apolloClient;
+
+  @Before public void setUp() {
+    server = new MockWebServer();
+    apolloClient = ApolloClient.builder()
+        .serverUrl(server.url("/"))
+        .okHttpClient(new OkHttpClient())
+        .normalizedCache(new LruNormalizedCacheFactory(EvictionPolicy.NO_EVICTION))
+        .build();
+  }
+
+  @After public void tearDown() throws Exception {
+    server.shutdown();
+  }
+
+  @Test public void freshDataIsServedFromCache() throws Exception {
+    server.enqueue(nameResponse("Luke"));
+    CacheHeaders maxAge = CacheHeaders.builder().addHeader(ApolloCacheHeaders.MAX_AGE, "60").build();
+
+    assertThat(name(query(CacheControl.STALE_WHILE_REVALIDATE, maxAge))).isEqualTo("Luke");
+    assertThat(name(query(CacheControl.STALE_WHILE_REVALIDATE, maxAge))).isEqualTo("Luke");
+    assertThat(name(query(CacheControl.CACHE_FIRST, maxAge))).isEqualTo("Luke");
+    assertThat(server.getRequestCount()).isEqualTo(1);
+  }
+
+  @Test public void staleDataIsServedAndRevalidated() throws Exception {
+    server.enqueue(nameResponse("Luke"));
+    server.enqueue(nameResponse("Han"));
+    assertThat(name(query(CacheControl.NETWORK_ONLY, CacheHeaders.NONE))).isEqualTo("Luke");
+
+    final CountDownLatch revalidated = new CountDownLatch(1);
+    apolloClient.apolloStore().subscribe(new ApolloStore.RecordChangeSubscriber() {
+      @Override public void onCacheRecordsChanged(Set<String> changedRecordKeys) {
+        revalidated.countDown();
+      }
+    });
+    assertThat(name(query(CacheControl.STALE_WHILE_REVALIDATE, CacheHeaders.NONE))).isEqualTo("Luke");
+
+    assertThat(revalidated.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+    assertThat(server.getRequestCount()).isEqualTo(2);
+    assertThat(name(query(CacheControl.CACHE_ONLY, CacheHeaders.NONE))).isEqualTo("Han");
+  }
+
+  @Test public void missingDataIsFetched() throws Exception {
+    server.enqueue(nameResponse("Luke"));
+    assertThat(name(query(CacheControl.STALE_WHILE_REVALIDATE, CacheHeaders.NONE))).isEqualTo("Luke");
+    assertThat(server.getRequestCount()).isEqualTo(1);
+  }
+
+  private Response<Object> query(CacheControl cacheControl, CacheHeaders cacheHeaders) throws Exception {
+    //noinspection unchecked
+    return apolloClient.query(NAME_QUERY).cacheControl(cacheControl).cacheHeaders(cacheHeaders).execute();
+  }
+
+  private static String name(Response<Object> response) {
+    return ((NameData) response.data()).name;
+  }
+
+  private static MockResponse nameResponse(String name) {
+    return new MockResponse().setResponseCode(200).setBody("{\"data\":{\"name\":\"" + name + "\"}}");
+  }
+
+  private static final class NameData implements Operation.Data {
+    final String name;
+
+    NameData(String name) {
+      this.name = name;
+    }
+
+    @Override public ResponseFieldMarshaller marshaller() {
+      return new ResponseFieldMarshaller() {
+        @Override public void marshal(ResponseWriter writer) {
+          writer.writeString(NAME_FIELD, name);
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package com.apollographql.apollo.cache.normalized;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+import com.squareup.moshi.Moshi;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+public class BinaryRecordCodecTest {
+  private BinaryRecordCodec codec;
+
+  @Before public void setUp() {
+    Moshi moshi = new Moshi.Builder().add(TestCustomScalar.class, new JsonAdapter<TestCustomScalar>() {
+      @Override public TestCustomScalar fromJson(JsonReader reader) throws IOException {
+        return new TestCustomScalar(reader.nextString());
+      }
+
+      @Override public void toJson(JsonWriter writer, TestCustomScalar value) throws IOException {
+        writer.value("#" + value.fieldOne);
+      }
+    }).build();
+    codec = BinaryRecordCodec.create(RecordFieldAdapter.create(moshi));
+  }
+
+  @Test public void encodeDecode() throws IOException {
+    Map<String, Object> nested = new LinkedHashMap<>();
+    nested.put("name", "nested");
+    Record record = Record.builder("root")
+        .addField("bigDecimal", new BigDecimal("12345678901234567890.123456789"))
+        .addField("long", Long.MIN_VALUE)
+        .addField("negative", -42L)
+        .addField("double", 1.23)
+        .addField("string", "StringValue ☃")
+        .addField("empty", "")
+        .addField("true", true)
+        .addField("false", false)
+        .addField("null", null)
+        .addField("cacheReference", new CacheReference("foo"))
+        .addField("referenceList", Arrays.asList(new CacheReference("bar"), null, new CacheReference("baz")))
+        .addField("nestedList", Arrays.asList(Arrays.asList("a", "b"), Collections.emptyList()))
+        .addField("map", nested)
+        .addField("hero(episode:JEDI)", "R2-D2")
+        .build();
+
+    Record decoded = codec.decode("root", codec.encode(record.fields()));
+
+    assertThat(decoded.key()).isEqualTo("root");
+    assertThat(decoded.fields()).containsExactlyEntriesIn(record.fields()).inOrder();
+  }
+
+  @Test public void stringThatLooksLikeReferenceStaysString() throws IOException {
+    String value = new CacheReference("foo").serialize();
+    Record decoded = codec.decode("root", codec.encode(Collections.<String, Object>singletonMap("field", value)));
+    assertThat(decoded.field("field")).isEqualTo(value);
+  }
+
+  @Test public void customScalarIsReadBackSerialized() throws IOException {
+    Record decoded = codec.decode("root", codec.encode(Collections.<String, Object>singletonMap("custom",
+        new TestCustomScalar("fieldOne"))));
+    assertThat(decoded.field("custom")).isEqualTo("#fieldOne");
+  }
+
+  @Test public void encodeDecodeValue() throws IOException {
+    Object value = Arrays.asList(new CacheReference("foo"), 42L, null);
+    assertThat(codec.decodeValue(codec.encodeValue(value))).isEqualTo(value);
+    assertThat(codec.decodeValue(codec.encodeValue(null))).isNull();
+  }
+
+  @Test public void encodeDecodeReceivedAt() throws IOException {
+    Record record = Record.builder("root").addField("field", "value").receivedAtMillis(1500000000000L).build();
+    Record decoded = codec.decode("root", codec.encode(record));
+    assertThat(decoded.receivedAtMillis()).isEqualTo(1500000000000L);
+    assertThat(decoded.fields()).containsExactlyEntriesIn(record.fields());
+
+    decoded = codec.decode("root", codec.encode(record.fields()));
+    assertThat(decoded.receivedAtMillis()).isEqualTo(Record.UNKNOWN_RECEIVED_AT);
+  }
+
+  @Test public void decodeFirstFormatVersion() throws IOException {
+    // version 1, one field "f" with the string "v"
+    byte[] bytes = {1, 1, 1, 'f', 1, 1, 'v'};
+    Record decoded = codec.decode("root", bytes);
+    assertThat(decoded.fields()).containsExactly("f", "v");
+    assertThat(decoded.receivedAtMillis()).isEqualTo(Record.UNKNOWN_RECEIVED_AT);
+  }
+
+  @Test public void decodeTruncatedFails() {
+    byte[] bytes = codec.encode(Collections.<String, Object>singletonMap("field", "value"));
+    try {
+      codec.decode("root", bytes, 0, bytes.length - 1);
+      fail("expected IOException");
+    } catch (IOException expected) {
+      // expected
+    }
+  }
+}
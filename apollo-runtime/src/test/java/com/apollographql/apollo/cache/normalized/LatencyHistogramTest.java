@@ -0,0 +1,52 @@
+package com.apollographql.apollo.cache.normalized;
+
+import com.apollographql.apollo.internal.cache.normalized.LatencyRecorder;
+
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBuckets() {
+    assertThat(LatencyHistogram.bucketOf(0)).isEqualTo(0);
+    assertThat(LatencyHistogram.bucketOf(1)).isEqualTo(1);
+    assertThat(LatencyHistogram.bucketOf(2)).isEqualTo(2);
+    assertThat(LatencyHistogram.bucketOf(3)).isEqualTo(2);
+    assertThat(LatencyHistogram.bucketOf(1000)).isEqualTo(10);
+    assertThat(LatencyHistogram.bucketOf(Long.MAX_VALUE)).isEqualTo(LatencyHistogram.BUCKET_COUNT - 1);
+    assertThat(LatencyHistogram.bucketUpperBoundNanos(10)).isEqualTo(1023);
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyRecorder recorder = new LatencyRecorder();
+    for (int i = 0; i < 99; i++) {
+      recorder.record(1000);
+    }
+    recorder.record(1000000);
+
+    LatencyHistogram histogram = recorder.snapshot();
+    assertThat(histogram.count()).isEqualTo(100);
+    assertThat(histogram.totalNanos()).isEqualTo(99 * 1000 + 1000000);
+    assertThat(histogram.meanNanos()).isEqualTo(10990);
+    assertThat(histogram.percentileNanos(50)).isEqualTo(1023);
+    assertThat(histogram.percentileNanos(99)).isEqualTo(1023);
+    assertThat(histogram.percentileNanos(100)).isEqualTo((1L << 20) - 1);
+    assertThat(LatencyHistogram.EMPTY.percentileNanos(99)).isEqualTo(0);
+  }
+
+  @Test
+  public void testSince() {
+    LatencyRecorder recorder = new LatencyRecorder();
+    recorder.record(1000);
+    LatencyHistogram earlier = recorder.snapshot();
+    recorder.record(1000000);
+
+    LatencyHistogram interval = recorder.snapshot().since(earlier);
+    assertThat(interval.count()).isEqualTo(1);
+    assertThat(interval.totalNanos()).isEqualTo(1000000);
+    assertThat(interval.bucketCount(LatencyHistogram.bucketOf(1000000))).isEqualTo(1);
+  }
+}
@@ -11,6 +11,7 @@ import org.junit.Test;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -53,6 +54,8 @@ public class RecordFieldAdapterTest {
   public void testFieldsAdapterSerializationDeserialization() throws IOException {
     Record.Builder recordBuilder = Record.builder("root");
     BigDecimal expectedBigDecimal = new BigDecimal(1.23);
+    Long expectedLongValue = Long.MAX_VALUE;
+    Double expectedDoubleValue = 1.23;
     String expectedStringValue = "StringValue";
     Boolean expectedBooleanValue = true;
     CacheReference expectedCacheReference = new CacheReference("foo");
@@ -62,6 +65,8 @@ public class RecordFieldAdapterTest {
     TestCustomScalar customScalar = new TestCustomScalar("fieldOne");
 
     recordBuilder.addField("bigDecimal", expectedBigDecimal);
+    recordBuilder.addField("long", expectedLongValue);
+    recordBuilder.addField("double", expectedDoubleValue);
     recordBuilder.addField("string", expectedStringValue);
     recordBuilder.addField("boolean", expectedBooleanValue);
     recordBuilder.addField("cacheReference", expectedCacheReference);
@@ -74,6 +79,8 @@ public class RecordFieldAdapterTest {
     String json = recordFieldAdapter.toJson(record.fields());
     Map<String, Object> deserializedMap = recordFieldAdapter.from(json);
     assertThat(deserializedMap.get("bigDecimal")).isEqualTo(expectedBigDecimal);
+    assertThat(deserializedMap.get("long")).isEqualTo(expectedLongValue);
+    assertThat(deserializedMap.get("double")).isEqualTo(expectedDoubleValue);
     assertThat(deserializedMap.get("string")).isEqualTo(expectedStringValue);
     assertThat(deserializedMap.get("boolean")).isEqualTo(expectedBooleanValue);
     assertThat(deserializedMap.get("cacheReference")).isEqualTo(expectedCacheReference);
@@ -85,4 +92,26 @@ public class RecordFieldAdapterTest {
     //We expect that custom scalars are read back still in their serialized format.
     assertThat(deserializedMap.get("customScalar")).isEqualTo(customTypeAdapter.encode(customScalar));
   }
+
+  @Test
+  public void testDoublesReadBackAsDoubles() throws IOException {
+    Map<String, Object> fields = new HashMap<>();
+    fields.put("large", 12345678.9);
+    fields.put("small", 0.0000001);
+    Map<String, Object> deserializedMap = recordFieldAdapter.from(recordFieldAdapter.toJson(fields));
+    assertThat(deserializedMap.get("large")).isEqualTo(12345678.9);
+    assertThat(((BigDecimal) deserializedMap.get("small")).toPlainString()).isEqualTo("0.0000001");
+  }
+
+  @Test
+  public void testNumbersDeserialization() throws IOException {
+    Map<String, Object> deserializedMap = recordFieldAdapter.from("{\"int\":1,\"negative\":-42,\"decimal\":0.001,"
+        + "\"exponent\":1.5e3,\"tooBigForLong\":12345678901234567890,\"tooPreciseForDouble\":0.1234567890123456789}");
+    assertThat(deserializedMap.get("int")).isEqualTo(1L);
+    assertThat(deserializedMap.get("negative")).isEqualTo(-42L);
+    assertThat(deserializedMap.get("decimal")).isEqualTo(0.001);
+    assertThat(deserializedMap.get("exponent")).isEqualTo(new BigDecimal("1.5e3"));
+    assertThat(deserializedMap.get("tooBigForLong")).isEqualTo(new BigDecimal("12345678901234567890"));
+    assertThat(deserializedMap.get("tooPreciseForDouble")).isEqualTo(new BigDecimal("0.1234567890123456789"));
+  }
 }
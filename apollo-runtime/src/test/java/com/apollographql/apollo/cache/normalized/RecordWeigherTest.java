@@ -1,12 +1,12 @@
 package com.apollographql.apollo.cache.normalized;
 
-import com.apollographql.apollo.cache.normalized.CacheReference;
-import com.apollographql.apollo.cache.normalized.Record;
+import com.apollographql.apollo.internal.cache.normalized.RecordWeigher;
 
 import org.junit.Test;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 
 
@@ -18,6 +18,8 @@ public class RecordWeigherTest {
   public void testRecordWeigher() {
     Record.Builder recordBuilder = Record.builder("root");
     BigDecimal expectedBigDecimal = new BigDecimal(1.23);
+    Long expectedLongValue = 42L;
+    Double expectedDoubleValue = 1.23;
     String expectedStringValue = "StringValue";
     Boolean expectedBooleanValue = true;
     CacheReference expectedCacheReference = new CacheReference("foo");
@@ -26,6 +28,8 @@ public class RecordWeigherTest {
     List<Object> expectedScalarList = Arrays.<Object>asList("scalarOne", "scalarTwo");
 
     recordBuilder.addField("bigDecimal", expectedBigDecimal);
+    recordBuilder.addField("long", expectedLongValue);
+    recordBuilder.addField("double", expectedDoubleValue);
     recordBuilder.addField("string", expectedStringValue);
     recordBuilder.addField("boolean", expectedBooleanValue);
     recordBuilder.addField("cacheReference", expectedCacheReference);
@@ -37,4 +41,42 @@ public class RecordWeigherTest {
     //It's difficult to say what the "right" size estimate is, so just checking it is has been calculate at all.
     assertThat(record.sizeEstimateBytes()).isNotEqualTo(-1);
   }
+
+  @Test
+  public void testStringSize() {
+    assertThat(RecordWeigher.sizeOf("")).isEqualTo(40);
+    assertThat(RecordWeigher.sizeOf("12345678")).isEqualTo(48);
+    assertThat(RecordWeigher.sizeOf("1234567é")).isEqualTo(48);
+    assertThat(RecordWeigher.sizeOf("1234567☃")).isEqualTo(56);
+  }
+
+  @Test
+  public void testFieldKeysAreCounted() {
+    Record shortKey = Record.builder("root").addField("a", "value").build();
+    Record longKey = Record.builder("root").addField("hero({\"episode\":\"JEDI\"})", "value").build();
+    assertThat(longKey.sizeEstimateBytes() - shortKey.sizeEstimateBytes())
+        .isEqualTo(RecordWeigher.sizeOf("hero({\"episode\":\"JEDI\"})") - RecordWeigher.sizeOf("a"));
+  }
+
+  @Test
+  public void testMergedRecordSizeMatchesCalculatedSize() {
+    Record record = Record.builder("root")
+        .addField("string", "value")
+        .addField("null", null)
+        .addField("long", 1L)
+        .build();
+    record.sizeEstimateBytes();
+
+    Record.Builder update = Record.builder("root")
+        .addField("string", "updated value")
+        .addField("null", new CacheReference("foo"))
+        .addField("long", null);
+    for (int i = 0; i < 20; i++) {
+      update.addField("field" + i, Arrays.asList("item" + i, new BigDecimal("1234567890123456789012345." + i)));
+    }
+    Record merged = record.mergeWith(update.build(), new HashSet<String>());
+
+    assertThat(merged.sizeEstimateBytes()).isEqualTo(new Record("root", merged.fields()).sizeEstimateBytes());
+    assertThat(merged.sizeEstimateBytes()).isGreaterThan(record.sizeEstimateBytes());
+  }
 }
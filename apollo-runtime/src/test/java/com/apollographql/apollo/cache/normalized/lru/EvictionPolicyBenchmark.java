@@ -0,0 +1,133 @@
+package com.apollographql.apollo.cache.normalized.lru;
+
+import com.apollographql.apollo.CustomTypeAdapter;
+import com.apollographql.apollo.Logger;
+import com.apollographql.apollo.api.ScalarType;
+import com.apollographql.apollo.api.internal.Optional;
+import com.apollographql.apollo.cache.CacheHeaders;
+import com.apollographql.apollo.cache.normalized.CacheKeyResolver;
+import com.apollographql.apollo.cache.normalized.NormalizedCacheStats;
+import com.apollographql.apollo.cache.normalized.Record;
+import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
+import com.apollographql.apollo.internal.cache.normalized.ReadableStore;
+import com.apollographql.apollo.internal.cache.normalized.RealApolloStore;
+import com.apollographql.apollo.internal.cache.normalized.Transaction;
+import com.apollographql.apollo.internal.cache.normalized.WriteableStore;
+import com.apollographql.apollo.internal.util.ApolloLogger;
+import com.squareup.moshi.Moshi;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the hit rates of {@link LruNormalizedCache} with LRU eviction and with
+ * {@link EvictionPolicy.Builder#frequencyAdmission(boolean)}, by replaying a trace of record keys through a
+ * {@link RealApolloStore}, so that reads the store makes on its own behalf count as they do in an application. Every
+ * key is read in a read transaction, and written in a write transaction when missing, as a network response would be.
+ *
+ * <p>Run with {@code java -cp <test classpath> EvictionPolicyBenchmark [max entries] [trace file]}. A trace file has
+ * one record key per line, for example extracted from access logs. Without one, a synthetic trace is replayed:
+ * Zipf distributed reads of a few thousand records, interrupted by searches reading hundreds of records once.</p>
+ */
+public final class EvictionPolicyBenchmark {
+  private static final int SYNTHETIC_KEY_COUNT = 5000;
+  private static final int SYNTHETIC_READ_COUNT = 500000;
+  private static final int SEARCH_INTERVAL = 2000;
+  private static final int SEARCH_RESULT_COUNT = 500;
+  private static final double ZIPF_EXPONENT = 0.9;
+
+  private EvictionPolicyBenchmark() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    int maxEntries = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    List<String> trace = args.length > 1 ? readTrace(args[1]) : syntheticTrace(new Random(42));
+    System.out.println(String.format("reads: %d, max entries: %d", trace.size(), maxEntries));
+    replay("lru", EvictionPolicy.builder().maxEntries(maxEntries).build(), trace);
+    replay("w-tinylfu", EvictionPolicy.builder().maxEntries(maxEntries).frequencyAdmission(true).build(), trace);
+  }
+
+  private static void replay(String name, EvictionPolicy evictionPolicy, List<String> trace) {
+    RealApolloStore store = new RealApolloStore(new LruNormalizedCacheFactory(evictionPolicy)
+        .createNormalizedCache(RecordFieldAdapter.create(new Moshi.Builder().build())), CacheKeyResolver.DEFAULT,
+        Collections.<ScalarType, CustomTypeAdapter>emptyMap(), new ApolloLogger(Optional.<Logger>absent()));
+    long startNanos = System.nanoTime();
+    for (final String key : trace) {
+      Record record = store.readTransaction(new Transaction<ReadableStore, Record>() {
+        @Override public Record execute(ReadableStore cache) {
+          return cache.read(key, CacheHeaders.NONE);
+        }
+      });
+      if (record == null) {
+        store.writeTransaction(new Transaction<WriteableStore, Void>() {
+          @Override public Void execute(WriteableStore cache) {
+            cache.merge(Collections.singletonList(Record.builder(key).addField("id", key).build()),
+                CacheHeaders.NONE);
+            return null;
+          }
+        });
+      }
+    }
+    long elapsedNanos = System.nanoTime() - startNanos;
+    NormalizedCacheStats stats = store.stats().normalizedCacheStats().get();
+    System.out.println(String.format("%s: hit rate %.2f%%, evictions %d, nanoseconds per read %.1f", name,
+        100d * stats.hitCount() / (stats.hitCount() + stats.missCount()), stats.evictionCount(),
+        (double) elapsedNanos / trace.size()));
+  }
+
+  private static List<String> readTrace(String path) throws IOException {
+    List<String> trace = new ArrayList<>();
+    BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(path), "UTF-8"));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.isEmpty()) {
+          trace.add(line);
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    return trace;
+  }
+
+  private static List<String> syntheticTrace(Random random) {
+    double[] cumulativeWeights = new double[SYNTHETIC_KEY_COUNT];
+    double totalWeight = 0;
+    for (int i = 0; i < SYNTHETIC_KEY_COUNT; i++) {
+      totalWeight += 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+      cumulativeWeights[i] = totalWeight;
+    }
+    List<String> trace = new ArrayList<>(SYNTHETIC_READ_COUNT);
+    for (int read = 0; read < SYNTHETIC_READ_COUNT; read++) {
+      if (read % SEARCH_INTERVAL == 0) {
+        for (int i = 0; i < SEARCH_RESULT_COUNT; i++) {
+          trace.add("SearchResult:" + read / SEARCH_INTERVAL + ":" + i);
+        }
+      }
+      int index = binarySearch(cumulativeWeights, random.nextDouble() * totalWeight);
+      trace.add("Character:" + index);
+    }
+    return trace;
+  }
+
+  private static int binarySearch(double[] cumulativeWeights, double value) {
+    int low = 0;
+    int high = cumulativeWeights.length - 1;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (cumulativeWeights[middle] < value) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+}
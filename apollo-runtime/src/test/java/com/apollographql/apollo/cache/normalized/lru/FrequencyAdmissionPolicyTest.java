@@ -0,0 +1,94 @@
+package com.apollographql.apollo.cache.normalized.lru;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class FrequencyAdmissionPolicyTest {
+
+  @Test
+  public void testNewKeysFillTheCache() {
+    FrequencyAdmissionPolicy policy = new FrequencyAdmissionPolicy(100, false);
+    for (int i = 0; i < 100; i++) {
+      assertThat(policy.recordWrite("key" + i, 1)).isEmpty();
+    }
+
+    assertThat(policy.recordWrite("key100", 1)).hasSize(1);
+  }
+
+  @Test
+  public void testRejectsCandidateSeenLessOftenThanVictim() {
+    FrequencyAdmissionPolicy policy = new FrequencyAdmissionPolicy(100, false);
+    for (int i = 0; i < 100; i++) {
+      policy.recordWrite("hot" + i, 1);
+      policy.recordAccess("hot" + i);
+    }
+
+    // the window holds one key, so the previous one-off key is the candidate
+    policy.recordWrite("cold0", 1);
+    List<String> evictedKeys = policy.recordWrite("cold1", 1);
+
+    assertThat(evictedKeys).contains("cold0");
+    for (String key : evictedKeys) {
+      assertThat(key).startsWith("cold");
+    }
+  }
+
+  @Test
+  public void testAdmitsCandidateSeenMoreOftenThanVictim() {
+    FrequencyAdmissionPolicy policy = new FrequencyAdmissionPolicy(100, false);
+    for (int i = 0; i < 100; i++) {
+      policy.recordWrite("key" + i, 1);
+    }
+    for (int i = 0; i < 5; i++) {
+      policy.recordAccess("frequent");
+    }
+
+    policy.recordWrite("frequent", 1);
+    List<String> evictedKeys = policy.recordWrite("other", 1);
+
+    assertThat(evictedKeys).doesNotContain("frequent");
+  }
+
+  @Test
+  public void testConcurrentAccessesAreCounted() throws InterruptedException {
+    final FrequencyAdmissionPolicy policy = new FrequencyAdmissionPolicy(100, false);
+    for (int i = 0; i < 100; i++) {
+      policy.recordWrite("key" + i, 1);
+    }
+    List<Thread> readers = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Thread reader = new Thread(new Runnable() {
+        @Override public void run() {
+          for (int j = 0; j < 1000; j++) {
+            policy.recordAccess("frequent");
+          }
+        }
+      });
+      reader.start();
+      readers.add(reader);
+    }
+    for (Thread reader : readers) {
+      reader.join();
+    }
+
+    // reads lost when the buffer is lapped leave the key far more frequent than any other
+    policy.recordWrite("frequent", 1);
+    List<String> evictedKeys = policy.recordWrite("other", 1);
+
+    assertThat(evictedKeys).doesNotContain("frequent");
+  }
+
+  @Test
+  public void testRemovedKeysFreeTheirWeight() {
+    FrequencyAdmissionPolicy policy = new FrequencyAdmissionPolicy(100, true);
+    assertThat(policy.recordWrite("key1", 60)).isEmpty();
+    policy.recordRemoval("key1");
+
+    assertThat(policy.recordWrite("key2", 60)).isEmpty();
+    assertThat(policy.recordWrite("key3", 200)).containsExactly("key3");
+  }
+}
@@ -0,0 +1,39 @@
+package com.apollographql.apollo.cache.normalized.lru;
+
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class FrequencySketchTest {
+
+  @Test
+  public void testCountsIncrements() {
+    FrequencySketch sketch = new FrequencySketch(64);
+    for (int i = 0; i < 3; i++) {
+      sketch.increment("key");
+    }
+
+    assertThat(sketch.frequency("key")).isEqualTo(3);
+    assertThat(sketch.frequency("other")).isEqualTo(0);
+  }
+
+  @Test
+  public void testGrowingKeepsFrequencies() {
+    FrequencySketch sketch = new FrequencySketch(64);
+    int[] frequencies = new int[32];
+    for (int i = 0; i < frequencies.length; i++) {
+      for (int j = 0; j < i % 8; j++) {
+        sketch.increment("key" + i);
+      }
+      frequencies[i] = sketch.frequency("key" + i);
+    }
+
+    sketch.ensureCapacity(4096);
+
+    for (int i = 0; i < frequencies.length; i++) {
+      assertThat(sketch.frequency("key" + i)).isEqualTo(frequencies[i]);
+    }
+    sketch.increment("key1");
+    assertThat(sketch.frequency("key1")).isEqualTo(frequencies[1] + 1);
+  }
+}
@@ -1,8 +1,12 @@
 package com.apollographql.apollo.cache.normalized.lru;
 
+import com.apollographql.apollo.api.internal.Optional;
 import com.apollographql.apollo.cache.ApolloCacheHeaders;
 import com.apollographql.apollo.cache.CacheHeaders;
+import com.apollographql.apollo.cache.normalized.CacheKey;
 import com.apollographql.apollo.cache.normalized.NormalizedCache;
+import com.apollographql.apollo.cache.normalized.NormalizedCacheFactory;
+import com.apollographql.apollo.cache.normalized.NormalizedCacheStats;
 import com.apollographql.apollo.cache.normalized.Record;
 import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
 import com.squareup.moshi.Moshi;
@@ -10,10 +14,21 @@ import com.squareup.moshi.Moshi;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import static com.google.common.truth.Truth.assertThat;
 
@@ -45,6 +60,50 @@ public class LruNormalizedCacheTest {
     assertThat(policy.expireAfterWriteTimeUnit().get()).isEqualTo(TimeUnit.DAYS);
   }
 
+  @Test(expected = IllegalArgumentException.class)
+  public void testEvictionPolicyBuilder_frequencyAdmissionRequiresSingleBound() {
+    EvictionPolicy.builder().maxSizeBytes(100).maxEntries(50).frequencyAdmission(true).build();
+  }
+
+  @Test
+  public void testFrequencyAdmission_oneOffRecordsDoNotEvictFrequentRecords() {
+    LruNormalizedCache lruCache = new LruNormalizedCacheFactory(EvictionPolicy.builder().maxEntries(100)
+        .frequencyAdmission(true).build()).createNormalizedCache(basicFieldAdapter);
+    for (int i = 0; i < 90; i++) {
+      lruCache.merge(createTestRecord("hot" + i), CacheHeaders.NONE);
+    }
+    for (int access = 0; access < 3; access++) {
+      for (int i = 0; i < 90; i++) {
+        assertThat(lruCache.loadRecord("keyhot" + i, CacheHeaders.NONE)).isNotNull();
+      }
+    }
+
+    for (int i = 0; i < 500; i++) {
+      lruCache.merge(createTestRecord("search" + i), CacheHeaders.NONE);
+    }
+
+    for (int i = 0; i < 90; i++) {
+      assertThat(lruCache.loadRecord("keyhot" + i, CacheHeaders.NONE)).isNotNull();
+    }
+    NormalizedCacheStats stats = lruCache.stats().get();
+    assertThat(stats.recordCount()).isAtMost(100L);
+    assertThat(stats.evictionCount()).isEqualTo(590 - stats.recordCount());
+  }
+
+  @Test
+  public void testFrequencyAdmission_maxSizeBytes() {
+    Record record = createTestRecord("0");
+    LruNormalizedCache lruCache = new LruNormalizedCacheFactory(EvictionPolicy.builder()
+        .maxSizeBytes(10 * weigh(record)).frequencyAdmission(true).build()).createNormalizedCache(basicFieldAdapter);
+    for (int i = 0; i < 100; i++) {
+      lruCache.merge(createTestRecord(String.valueOf(i)), CacheHeaders.NONE);
+    }
+
+    assertThat(lruCache.stats().get().sizeEstimateBytes()).isAtMost(10 * weigh(record));
+    lruCache.clearPrimaryCache();
+    assertThat(lruCache.stats().get().sizeEstimateBytes()).isEqualTo(0);
+  }
+
   @Test
   public void testSaveAndLoad_singleRecord() {
     LruNormalizedCache lruCache = new LruNormalizedCacheFactory(EvictionPolicy.builder().maxSizeBytes(10 * 1024).build
@@ -56,6 +115,95 @@ public class LruNormalizedCacheTest {
     assertTestRecordPresentAndAccurate(testRecord, lruCache);
   }
 
+  @Test
+  public void testMerge_unchangedFieldsRefreshReceivedAt() {
+    LruNormalizedCache lruCache = new LruNormalizedCacheFactory(EvictionPolicy.builder().maxSizeBytes(10 * 1024).build
+        ()).createNormalizedCache(basicFieldAdapter);
+    lruCache.merge(Record.builder("key").addField("field", "value").receivedAtMillis(1000).build(), CacheHeaders.NONE);
+
+    Set<String> changedKeys = lruCache.merge(Record.builder("key").addField("field", "value").receivedAtMillis(2000)
+        .build(), CacheHeaders.NONE);
+    assertThat(changedKeys).isEmpty();
+    assertThat(lruCache.loadRecord("key", CacheHeaders.NONE).receivedAtMillis()).isEqualTo(2000);
+
+    lruCache.merge(Record.builder("key").addField("field", "other").receivedAtMillis(1500).build(), CacheHeaders.NONE);
+    Record record = lruCache.loadRecord("key", CacheHeaders.NONE);
+    assertThat(record.field("field")).isEqualTo("other");
+    assertThat(record.receivedAtMillis()).isEqualTo(2000);
+  }
+
+  @Test
+  public void testMerge_partialRecordKeepsOlderReceivedAt() {
+    LruNormalizedCache lruCache = new LruNormalizedCacheFactory(EvictionPolicy.builder().maxSizeBytes(10 * 1024).build
+        ()).createNormalizedCache(basicFieldAdapter);
+    lruCache.merge(Record.builder("key").addField("field", "value").addField("other", "value")
+        .receivedAtMillis(1000).build(), CacheHeaders.NONE);
+
+    lruCache.merge(Record.builder("key").addField("field", "new").receivedAtMillis(5000).build(), CacheHeaders.NONE);
+    Record record = lruCache.loadRecord("key", CacheHeaders.NONE);
+    assertThat(record.field("field")).isEqualTo("new");
+    assertThat(record.receivedAtMillis()).isEqualTo(1000);
+    assertThat(record.isStale(5500, 1000)).isTrue();
+
+    lruCache.merge(Record.builder("key").addField("field", "new").addField("other", "new").receivedAtMillis(6000)
+        .build(), CacheHeaders.NONE);
+    record = lruCache.loadRecord("key", CacheHeaders.NONE);
+    assertThat(record.receivedAtMillis()).isEqualTo(6000);
+    assertThat(record.isStale(6500, 1000)).isFalse();
+  }
+
+  @Test
+  public void testSnapshot_loadsRecordsInMemoryOnly() throws IOException {
+    LruNormalizedCache lruCache = new LruNormalizedCacheFactory(EvictionPolicy.NO_EVICTION)
+        .createNormalizedCache(basicFieldAdapter);
+    lruCache.merge(Record.builder("key1").addField("field", "value1").receivedAtMillis(2000).build(),
+        CacheHeaders.NONE);
+    lruCache.merge(Record.builder("key2").addField("field", 2).receivedAtMillis(1000).build(), CacheHeaders.NONE);
+    ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+    assertThat(lruCache.writeSnapshot(snapshot)).isEqualTo(2);
+
+    LruNormalizedCache restoredCache = new LruNormalizedCacheFactory(EvictionPolicy.NO_EVICTION,
+        new LruNormalizedCacheFactory(EvictionPolicy.NO_EVICTION)).createNormalizedCache(basicFieldAdapter);
+    restoredCache.merge(Record.builder("key2").addField("field", 3).build(), CacheHeaders.NONE);
+    assertThat(restoredCache.readSnapshot(new ByteArrayInputStream(snapshot.toByteArray()))).isEqualTo(2);
+
+    Record record = restoredCache.loadRecord("key1", CacheHeaders.NONE);
+    assertThat(record.field("field")).isEqualTo("value1");
+    assertThat(record.receivedAtMillis()).isEqualTo(2000);
+    assertThat(restoredCache.loadRecord("key2", CacheHeaders.NONE).field("field")).isEqualTo(3);
+    assertThat(restoredCache.secondaryCache().loadRecord("key1", CacheHeaders.NONE)).isNull();
+  }
+
+  @Test
+  public void testSnapshot_writesRecordsInAccessOrder() throws IOException {
+    LruNormalizedCache lruCache = new LruNormalizedCacheFactory(EvictionPolicy.NO_EVICTION)
+        .createNormalizedCache(basicFieldAdapter);
+    lruCache.merge(Record.builder("key1").addField("field", "value1").receivedAtMillis(3000).build(),
+        CacheHeaders.NONE);
+    lruCache.merge(Record.builder("key2").addField("field", "value2").receivedAtMillis(2000).build(),
+        CacheHeaders.NONE);
+    lruCache.merge(Record.builder("key3").addField("field", "value3").receivedAtMillis(1000).build(),
+        CacheHeaders.NONE);
+    lruCache.loadRecord("key1", CacheHeaders.NONE);
+    ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+    assertThat(lruCache.writeSnapshot(snapshot)).isEqualTo(3);
+
+    LruNormalizedCache restoredCache = new LruNormalizedCacheFactory(EvictionPolicy.builder().maxEntries(2).build())
+        .createNormalizedCache(basicFieldAdapter);
+    assertThat(restoredCache.readSnapshot(new ByteArrayInputStream(snapshot.toByteArray()))).isEqualTo(3);
+
+    assertThat(restoredCache.loadRecord("key1", CacheHeaders.NONE)).isNotNull();
+    assertThat(restoredCache.loadRecord("key2", CacheHeaders.NONE)).isNull();
+    assertThat(restoredCache.loadRecord("key3", CacheHeaders.NONE)).isNotNull();
+  }
+
+  @Test(expected = IOException.class)
+  public void testSnapshot_invalidSnapshotThrows() throws IOException {
+    LruNormalizedCache lruCache = new LruNormalizedCacheFactory(EvictionPolicy.NO_EVICTION)
+        .createNormalizedCache(basicFieldAdapter);
+    lruCache.readSnapshot(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5}));
+  }
+
   @Test
   public void testSaveAndLoad_multipleRecord_readSingle() {
     LruNormalizedCache lruCache = new LruNormalizedCacheFactory(EvictionPolicy.builder().maxSizeBytes(10 * 1024).build
@@ -131,7 +279,7 @@ public class LruNormalizedCacheTest {
 
   @Test
   public void testEviction_recordChange() {
-    LruNormalizedCache lruCache = new LruNormalizedCacheFactory(EvictionPolicy.builder().maxSizeBytes(2000)
+    LruNormalizedCache lruCache = new LruNormalizedCacheFactory(EvictionPolicy.builder().maxSizeBytes(8000)
         .build()).createNormalizedCache(basicFieldAdapter);
 
     Record.Builder testRecord1Builder = Record.builder("key1");
@@ -228,6 +376,68 @@ public class LruNormalizedCacheTest {
     assertThat(primaryCacheStore.loadRecord("not_present_id", CacheHeaders.NONE)).isNull();
   }
 
+  @Test
+  public void testDualCache_missSkipsSecondaryCache() {
+    final LruNormalizedCache secondaryCache = new LruNormalizedCacheFactory(EvictionPolicy.NO_EVICTION)
+        .createNormalizedCache(basicFieldAdapter);
+    secondaryCache.merge(createTestRecord("1"), CacheHeaders.NONE);
+    final List<String> secondaryReads = new ArrayList<>();
+    NormalizedCacheFactory<NormalizedCache> secondaryCacheFactory = new NormalizedCacheFactory<NormalizedCache>() {
+      @Override public NormalizedCache createNormalizedCache(RecordFieldAdapter recordFieldAdapter) {
+        return new ForwardingNormalizedCache(secondaryCache) {
+          @Nullable @Override public Record loadRecord(@Nonnull String key, @Nonnull CacheHeaders cacheHeaders) {
+            secondaryReads.add(key);
+            return super.loadRecord(key, cacheHeaders);
+          }
+
+          @Nonnull @Override public Collection<Record> loadRecords(@Nonnull Collection<String> keys,
+              @Nonnull CacheHeaders cacheHeaders) {
+            secondaryReads.addAll(keys);
+            return super.loadRecords(keys, cacheHeaders);
+          }
+        };
+      }
+    };
+    LruNormalizedCache primaryCache = new LruNormalizedCacheFactory(EvictionPolicy.NO_EVICTION,
+        secondaryCacheFactory).createNormalizedCache(basicFieldAdapter);
+
+    assertThat(primaryCache.loadRecord("key2", CacheHeaders.NONE)).isNull();
+    assertThat(primaryCache.loadRecords(Arrays.asList("key2", "key3"), CacheHeaders.NONE)).isEmpty();
+    assertThat(secondaryReads).isEmpty();
+
+    assertTestRecordPresentAndAccurate(createTestRecord("1"), primaryCache);
+    primaryCache.merge(createTestRecord("2"), CacheHeaders.NONE);
+    primaryCache.clearPrimaryCache();
+    assertTestRecordPresentAndAccurate(createTestRecord("2"), primaryCache);
+    assertThat(secondaryReads).containsExactly("key1", "key2");
+  }
+
+  @Test
+  public void testDualCache_loadRecordsKeepsRecordMergedDuringSecondaryRead() {
+    final LruNormalizedCache secondaryCache = new LruNormalizedCacheFactory(EvictionPolicy.NO_EVICTION)
+        .createNormalizedCache(basicFieldAdapter);
+    secondaryCache.merge(Record.builder("root").addField("bar", "old").build(), CacheHeaders.NONE);
+    final AtomicReference<LruNormalizedCache> primaryCache = new AtomicReference<>();
+    NormalizedCacheFactory<NormalizedCache> secondaryCacheFactory = new NormalizedCacheFactory<NormalizedCache>() {
+      @Override public NormalizedCache createNormalizedCache(RecordFieldAdapter recordFieldAdapter) {
+        return new ForwardingNormalizedCache(secondaryCache) {
+          @Nonnull @Override public Collection<Record> loadRecords(@Nonnull Collection<String> keys,
+              @Nonnull CacheHeaders cacheHeaders) {
+            Collection<Record> records = super.loadRecords(keys, cacheHeaders);
+            primaryCache.get().merge(Record.builder("root").addField("bar", "new").build(), CacheHeaders.NONE);
+            return records;
+          }
+        };
+      }
+    };
+    primaryCache.set(new LruNormalizedCacheFactory(EvictionPolicy.NO_EVICTION, secondaryCacheFactory)
+        .createNormalizedCache(basicFieldAdapter));
+
+    Collection<Record> records = primaryCache.get().loadRecords(Arrays.asList("root"), CacheHeaders.NONE);
+    assertThat(records.iterator().next().field("bar")).isEqualTo("new");
+    assertThat(primaryCache.get().loadRecord("root", CacheHeaders.NONE).field("bar")).isEqualTo("new");
+  }
+
   @Test
   public void testClearAll() {
     LruNormalizedCacheFactory secondaryCacheFactory = new LruNormalizedCacheFactory(EvictionPolicy.NO_EVICTION);
@@ -273,6 +483,176 @@ public class LruNormalizedCacheTest {
     assertThat(primaryCache.secondaryCache().loadRecord("key", CacheHeaders.NONE)).isNull();
   }
 
+  @Test
+  public void testWriteBehind_coalescesQueuedRecords() {
+    QueueExecutor executor = new QueueExecutor();
+    LruNormalizedCache primaryCache = createWriteBehindCache(WriteBehindPolicy.builder().executor(executor).build());
+
+    primaryCache.merge(Record.builder("key").addField("a", "a1").build(), CacheHeaders.NONE);
+    primaryCache.merge(Record.builder("key").addField("a", "a2").addField("b", "b").build(), CacheHeaders.NONE);
+
+    assertThat(primaryCache.secondaryCache().loadRecord("key", CacheHeaders.NONE)).isNull();
+    assertThat(executor.tasks).hasSize(1);
+
+    executor.runAll();
+
+    Record record = primaryCache.secondaryCache().loadRecord("key", CacheHeaders.NONE);
+    assertThat(record.field("a")).isEqualTo("a2");
+    assertThat(record.field("b")).isEqualTo("b");
+  }
+
+  @Test
+  public void testWriteBehind_readsQueuedRecords() {
+    QueueExecutor executor = new QueueExecutor();
+    LruNormalizedCache primaryCache = createWriteBehindCache(WriteBehindPolicy.builder().executor(executor).build());
+    primaryCache.merge(Record.builder("key1").addField("a", "a1").build(), CacheHeaders.NONE);
+    executor.runAll();
+
+    primaryCache.merge(Record.builder("key1").addField("b", "b1").build(), CacheHeaders.NONE);
+    primaryCache.merge(Record.builder("key2").addField("a", "a2").build(), CacheHeaders.NONE);
+    primaryCache.clearPrimaryCache();
+
+    Record record = primaryCache.loadRecord("key1", CacheHeaders.NONE);
+    assertThat(record.field("a")).isEqualTo("a1");
+    assertThat(record.field("b")).isEqualTo("b1");
+
+    primaryCache.clearPrimaryCache();
+    assertThat(primaryCache.loadRecords(Arrays.asList("key1", "key2", "key3"), CacheHeaders.NONE)).hasSize(2);
+  }
+
+  @Test
+  public void testWriteBehind_readsRecordsWrittenDuringSecondaryRead() {
+    final QueueExecutor executor = new QueueExecutor();
+    final LruNormalizedCache secondaryCache = new LruNormalizedCacheFactory(EvictionPolicy.NO_EVICTION)
+        .createNormalizedCache(basicFieldAdapter);
+    NormalizedCacheFactory<NormalizedCache> secondaryCacheFactory = new NormalizedCacheFactory<NormalizedCache>() {
+      @Override public NormalizedCache createNormalizedCache(RecordFieldAdapter recordFieldAdapter) {
+        return new ForwardingNormalizedCache(secondaryCache) {
+          @Nullable @Override public Record loadRecord(@Nonnull String key, @Nonnull CacheHeaders cacheHeaders) {
+            Record record = super.loadRecord(key, cacheHeaders);
+            executor.runAll();
+            return record;
+          }
+        };
+      }
+    };
+    LruNormalizedCache primaryCache = new LruNormalizedCacheFactory(EvictionPolicy.NO_EVICTION,
+        secondaryCacheFactory, WriteBehindPolicy.builder().executor(executor).build())
+        .createNormalizedCache(basicFieldAdapter);
+    primaryCache.merge(createTestRecord("1"), CacheHeaders.NONE);
+    primaryCache.clearPrimaryCache();
+
+    assertTestRecordPresentAndAccurate(createTestRecord("1"), primaryCache);
+  }
+
+  @Test
+  public void testWriteBehind_rejectedFlushWritesOnCallingThread() {
+    LruNormalizedCache primaryCache = createWriteBehindCache(WriteBehindPolicy.builder()
+        .executor(new Executor() {
+          @Override public void execute(Runnable command) {
+            throw new RejectedExecutionException();
+          }
+        })
+        .build());
+
+    primaryCache.merge(createTestRecord("1"), CacheHeaders.NONE);
+    primaryCache.merge(createTestRecord("2"), CacheHeaders.NONE);
+
+    assertTestRecordPresentAndAccurate(createTestRecord("1"), primaryCache.secondaryCache());
+    assertTestRecordPresentAndAccurate(createTestRecord("2"), primaryCache.secondaryCache());
+  }
+
+  @Test
+  public void testWriteBehind_flush() {
+    QueueExecutor executor = new QueueExecutor();
+    LruNormalizedCache primaryCache = createWriteBehindCache(WriteBehindPolicy.builder().executor(executor).build());
+    primaryCache.merge(createTestRecord("1"), CacheHeaders.NONE);
+
+    primaryCache.flush();
+
+    assertTestRecordPresentAndAccurate(createTestRecord("1"), primaryCache.secondaryCache());
+    executor.runAll();
+    assertTestRecordPresentAndAccurate(createTestRecord("1"), primaryCache.secondaryCache());
+  }
+
+  @Test
+  public void testWriteBehind_fullQueueWritesOnCallingThread() {
+    QueueExecutor executor = new QueueExecutor();
+    LruNormalizedCache primaryCache = createWriteBehindCache(WriteBehindPolicy.builder()
+        .maxPendingRecords(2)
+        .executor(executor)
+        .build());
+
+    primaryCache.merge(createTestRecord("1"), CacheHeaders.NONE);
+    assertThat(primaryCache.secondaryCache().loadRecord("key1", CacheHeaders.NONE)).isNull();
+    primaryCache.merge(createTestRecord("2"), CacheHeaders.NONE);
+
+    assertTestRecordPresentAndAccurate(createTestRecord("1"), primaryCache.secondaryCache());
+    assertTestRecordPresentAndAccurate(createTestRecord("2"), primaryCache.secondaryCache());
+  }
+
+  @Test
+  public void testWriteBehind_shutdown() {
+    QueueExecutor executor = new QueueExecutor();
+    LruNormalizedCache primaryCache = createWriteBehindCache(WriteBehindPolicy.builder().executor(executor).build());
+    primaryCache.merge(createTestRecord("1"), CacheHeaders.NONE);
+
+    primaryCache.shutdown();
+    primaryCache.merge(createTestRecord("2"), CacheHeaders.NONE);
+
+    assertTestRecordPresentAndAccurate(createTestRecord("1"), primaryCache.secondaryCache());
+    assertTestRecordPresentAndAccurate(createTestRecord("2"), primaryCache.secondaryCache());
+  }
+
+  @Test
+  public void testWriteBehind_removeAndClearDropQueuedRecords() {
+    QueueExecutor executor = new QueueExecutor();
+    LruNormalizedCache primaryCache = createWriteBehindCache(WriteBehindPolicy.builder().executor(executor).build());
+    primaryCache.merge(createTestRecord("1"), CacheHeaders.NONE);
+    primaryCache.merge(createTestRecord("2"), CacheHeaders.NONE);
+
+    assertThat(primaryCache.remove(CacheKey.from("key1"))).isTrue();
+    primaryCache.clearSecondaryCache();
+    primaryCache.merge(createTestRecord("3"), CacheHeaders.NONE);
+    executor.runAll();
+
+    assertThat(primaryCache.secondaryCache().loadRecord("key1", CacheHeaders.NONE)).isNull();
+    assertThat(primaryCache.secondaryCache().loadRecord("key2", CacheHeaders.NONE)).isNull();
+    assertTestRecordPresentAndAccurate(createTestRecord("3"), primaryCache.secondaryCache());
+  }
+
+  @Test
+  public void testStats() {
+    LruNormalizedCacheFactory secondaryCacheFactory = new LruNormalizedCacheFactory(EvictionPolicy.NO_EVICTION);
+    LruNormalizedCache primaryCache = new LruNormalizedCacheFactory(EvictionPolicy.builder().maxEntries(2).build(),
+        secondaryCacheFactory).createNormalizedCache(basicFieldAdapter);
+    primaryCache.merge(createTestRecord("1"), CacheHeaders.NONE);
+    primaryCache.merge(createTestRecord("2"), CacheHeaders.NONE);
+    primaryCache.merge(createTestRecord("3"), CacheHeaders.NONE);
+    primaryCache.remove(CacheKey.from("key3"));
+
+    assertThat(primaryCache.loadRecord("key2", CacheHeaders.NONE)).isNotNull();
+    assertThat(primaryCache.loadRecords(Arrays.asList("key1", "key2", "key4"), CacheHeaders.NONE)).hasSize(2);
+
+    NormalizedCacheStats stats = primaryCache.stats().get();
+    assertThat(stats.hitCount()).isEqualTo(2);
+    assertThat(stats.missCount()).isEqualTo(2);
+    assertThat(stats.evictionCount()).isEqualTo(1);
+    assertThat(stats.recordCount()).isEqualTo(2);
+    assertThat(stats.sizeEstimateBytes()).isEqualTo(weigh(createTestRecord("1")) + weigh(createTestRecord("2")));
+    assertThat(stats.loadLatency().count()).isEqualTo(2);
+    NormalizedCacheStats secondaryCacheStats = stats.secondaryCacheStats().get();
+    assertThat(secondaryCacheStats.hitCount()).isEqualTo(1);
+    assertThat(secondaryCacheStats.missCount()).isEqualTo(0);
+    assertThat(secondaryCacheStats.recordCount()).isEqualTo(2);
+
+    primaryCache.clearPrimaryCache();
+    stats = primaryCache.stats().get();
+    assertThat(stats.evictionCount()).isEqualTo(1);
+    assertThat(stats.recordCount()).isEqualTo(0);
+    assertThat(stats.sizeEstimateBytes()).isEqualTo(0);
+  }
+
   // Tests for StandardCacheHeader compliance.
 
   @Test
@@ -306,6 +686,16 @@ public class LruNormalizedCacheTest {
     assertThat(record).isNull();
   }
 
+  private LruNormalizedCache createWriteBehindCache(WriteBehindPolicy writeBehindPolicy) {
+    LruNormalizedCacheFactory secondaryCacheFactory = new LruNormalizedCacheFactory(EvictionPolicy.NO_EVICTION);
+    return new LruNormalizedCacheFactory(EvictionPolicy.NO_EVICTION, secondaryCacheFactory, writeBehindPolicy)
+        .createNormalizedCache(basicFieldAdapter);
+  }
+
+  private static long weigh(Record record) {
+    return 96 + record.sizeEstimateBytes();
+  }
+
   private void assertTestRecordPresentAndAccurate(Record testRecord, NormalizedCache store) {
     final Record cacheRecord1 = store.loadRecord(testRecord.key(), CacheHeaders.NONE);
     assertThat(cacheRecord1.key()).isEqualTo(testRecord.key());
@@ -319,4 +709,52 @@ public class LruNormalizedCacheTest {
     testRecord.addField("b", "stringValueB" + id);
     return testRecord.build();
   }
+
+  private static class ForwardingNormalizedCache extends NormalizedCache {
+    private final NormalizedCache delegate;
+
+    ForwardingNormalizedCache(NormalizedCache delegate) {
+      super(null);
+      this.delegate = delegate;
+    }
+
+    @Nullable @Override public Record loadRecord(@Nonnull String key, @Nonnull CacheHeaders cacheHeaders) {
+      return delegate.loadRecord(key, cacheHeaders);
+    }
+
+    @Nonnull @Override public Collection<Record> loadRecords(@Nonnull Collection<String> keys,
+        @Nonnull CacheHeaders cacheHeaders) {
+      return delegate.loadRecords(keys, cacheHeaders);
+    }
+
+    @Nonnull @Override public Set<String> merge(@Nonnull Record record, @Nonnull CacheHeaders cacheHeaders) {
+      return delegate.merge(record, cacheHeaders);
+    }
+
+    @Nonnull @Override public Optional<Set<String>> recordKeys() {
+      return delegate.recordKeys();
+    }
+
+    @Override public void clearAll() {
+      delegate.clearAll();
+    }
+
+    @Override public boolean remove(@Nonnull CacheKey cacheKey) {
+      return delegate.remove(cacheKey);
+    }
+  }
+
+  private static class QueueExecutor implements Executor {
+    final List<Runnable> tasks = new ArrayList<>();
+
+    @Override public void execute(Runnable command) {
+      tasks.add(command);
+    }
+
+    void runAll() {
+      while (!tasks.isEmpty()) {
+        tasks.remove(0).run();
+      }
+    }
+  }
 }
@@ -0,0 +1,64 @@
+package com.apollographql.apollo.cache.normalized.lru;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class RecordKeyFilterTest {
+
+  @Test
+  public void testContainsInitialKeys() {
+    RecordKeyFilter filter = new RecordKeyFilter(Arrays.asList("QUERY_ROOT", "Character:1", "Character:2"));
+
+    assertThat(filter.mightContain("QUERY_ROOT")).isTrue();
+    assertThat(filter.mightContain("Character:1")).isTrue();
+    assertThat(filter.mightContain("Character:2")).isTrue();
+    assertThat(filter.mightContain("Character:3")).isFalse();
+  }
+
+  @Test
+  public void testNoFalseNegativesWhenGrown() {
+    RecordKeyFilter filter = new RecordKeyFilter(Collections.<String>emptyList());
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 100 * RecordKeyFilter.MIN_CAPACITY; i++) {
+      keys.add("Character:" + i);
+      filter.add("Character:" + i);
+    }
+
+    for (String key : keys) {
+      assertThat(filter.mightContain(key)).isTrue();
+    }
+  }
+
+  @Test
+  public void testFalsePositiveRate() {
+    int keyCount = 10 * RecordKeyFilter.MIN_CAPACITY;
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < keyCount; i++) {
+      keys.add("Character:" + i);
+    }
+    RecordKeyFilter filter = new RecordKeyFilter(keys);
+
+    int falsePositives = 0;
+    for (int i = 0; i < keyCount; i++) {
+      if (filter.mightContain("Droid:" + i)) {
+        falsePositives++;
+      }
+    }
+    assertThat(falsePositives).isLessThan(keyCount / 50);
+  }
+
+  @Test
+  public void testClear() {
+    RecordKeyFilter filter = new RecordKeyFilter(Collections.singletonList("QUERY_ROOT"));
+
+    filter.clear();
+
+    assertThat(filter.mightContain("QUERY_ROOT")).isFalse();
+  }
+}
@@ -0,0 +1,214 @@
+package com.apollographql.apollo.cache.normalized.mmap;
+
+import com.apollographql.apollo.cache.ApolloCacheHeaders;
+import com.apollographql.apollo.cache.CacheHeaders;
+import com.apollographql.apollo.cache.normalized.CacheKey;
+import com.apollographql.apollo.cache.normalized.CacheReference;
+import com.apollographql.apollo.cache.normalized.Record;
+import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
+import com.squareup.moshi.Moshi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class MappedNormalizedCacheTest {
+  private static final int SEGMENT_SIZE = 4096;
+  private static final Executor DIRECT_EXECUTOR = new Executor() {
+    @Override public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private RecordFieldAdapter basicFieldAdapter;
+  private File directory;
+  private MappedNormalizedCache cache;
+
+  @Before public void setUp() throws IOException {
+    basicFieldAdapter = RecordFieldAdapter.create(new Moshi.Builder().build());
+    directory = temporaryFolder.newFolder();
+    cache = open();
+  }
+
+  @After public void tearDown() throws IOException {
+    cache.close();
+  }
+
+  @Test
+  public void testSaveAndLoad_afterReopen() throws IOException {
+    Record record = Record.builder("key1")
+        .addField("a", "stringValueA")
+        .addField("reference", new CacheReference("key2"))
+        .build();
+    cache.merge(record, CacheHeaders.NONE);
+    assertThat(cache.loadRecord("key1", CacheHeaders.NONE).fields()).containsExactlyEntriesIn(record.fields());
+
+    reopen();
+    assertThat(cache.loadRecord("key1", CacheHeaders.NONE).fields()).containsExactlyEntriesIn(record.fields());
+    assertThat(cache.loadRecord("key2", CacheHeaders.NONE)).isNull();
+  }
+
+  @Test
+  public void testRecordKeys_afterReopen() throws IOException {
+    cache.merge(Arrays.asList(Record.builder("key1").addField("a", "a").build(),
+        Record.builder("key2").addField("a", "a").build()), CacheHeaders.NONE);
+    cache.remove(CacheKey.from("key1"));
+
+    reopen();
+    assertThat(cache.recordKeys().get()).containsExactly("key2");
+  }
+
+  @Test
+  public void testMerge() throws IOException {
+    cache.merge(Record.builder("key1").addField("a", "a").addField("b", "b").build(), CacheHeaders.NONE);
+
+    Set<String> changedKeys = cache.merge(Arrays.asList(
+        Record.builder("key1").addField("a", "a").build(),
+        Record.builder("key1").addField("b", "updated").addField("c", 1L).build()), CacheHeaders.NONE);
+    assertThat(changedKeys).containsExactly("key1.b", "key1.c");
+
+    reopen();
+    Record record = cache.loadRecord("key1", CacheHeaders.NONE);
+    assertThat(record.field("a")).isEqualTo("a");
+    assertThat(record.field("b")).isEqualTo("updated");
+    assertThat(record.field("c")).isEqualTo(1L);
+  }
+
+  @Test
+  public void testRemoveAndClearAll_afterReopen() throws IOException {
+    cache.merge(Arrays.asList(createTestRecord("1"), createTestRecord("2")), CacheHeaders.NONE);
+    assertThat(cache.remove(CacheKey.from("key1"))).isTrue();
+    assertThat(cache.remove(CacheKey.from("key1"))).isFalse();
+
+    reopen();
+    assertThat(cache.loadRecord("key1", CacheHeaders.NONE)).isNull();
+    assertThat(cache.loadRecord("key2", CacheHeaders.NONE)).isNotNull();
+
+    cache.clearAll();
+    cache.merge(createTestRecord("3"), CacheHeaders.NONE);
+    reopen();
+    assertThat(cache.loadRecord("key2", CacheHeaders.NONE)).isNull();
+    assertThat(cache.loadRecord("key3", CacheHeaders.NONE)).isNotNull();
+  }
+
+  @Test
+  public void testRecovery_tornWrite() throws IOException {
+    cache.merge(createTestRecord("1"), CacheHeaders.NONE);
+    cache.merge(createTestRecord("2"), CacheHeaders.NONE);
+    cache.close();
+
+    // corrupts the last byte of the second entry
+    File segment = segmentFiles().get(0);
+    RandomAccessFile file = new RandomAccessFile(segment, "rw");
+    try {
+      int firstEntrySize = readEntrySize(file, 0);
+      int secondEntrySize = readEntrySize(file, firstEntrySize);
+      file.seek(firstEntrySize + secondEntrySize - 1);
+      file.write(0x7F);
+    } finally {
+      file.close();
+    }
+
+    cache = open();
+    assertThat(cache.loadRecord("key1", CacheHeaders.NONE)).isNotNull();
+    assertThat(cache.loadRecord("key2", CacheHeaders.NONE)).isNull();
+
+    cache.merge(createTestRecord("3"), CacheHeaders.NONE);
+    reopen();
+    assertThat(cache.loadRecord("key1", CacheHeaders.NONE)).isNotNull();
+    assertThat(cache.loadRecord("key3", CacheHeaders.NONE)).isNotNull();
+  }
+
+  @Test
+  public void testCompaction() throws IOException {
+    for (int i = 0; i < 1000; i++) {
+      cache.merge(Record.builder("key" + i % 10).addField("a", "value" + i).build(), CacheHeaders.NONE);
+    }
+    cache.remove(CacheKey.from("key0"));
+    assertThat(segmentFiles().size()).isLessThan(5);
+
+    cache.compact();
+    assertThat(segmentFiles()).hasSize(1);
+
+    reopen();
+    assertThat(cache.loadRecord("key0", CacheHeaders.NONE)).isNull();
+    for (int i = 1; i < 10; i++) {
+      assertThat(cache.loadRecord("key" + i, CacheHeaders.NONE).field("a")).isEqualTo("value" + (990 + i));
+    }
+  }
+
+  @Test
+  public void testRecordLargerThanSegment() throws IOException {
+    String largeValue = new String(new char[3 * SEGMENT_SIZE]).replace('\0', 'x');
+    cache.merge(createTestRecord("1"), CacheHeaders.NONE);
+    cache.merge(Record.builder("large").addField("a", largeValue).build(), CacheHeaders.NONE);
+
+    reopen();
+    assertThat(cache.loadRecord("large", CacheHeaders.NONE).field("a")).isEqualTo(largeValue);
+    assertThat(cache.loadRecord("key1", CacheHeaders.NONE)).isNotNull();
+  }
+
+  // Tests for StandardCacheHeader compliance.
+
+  @Test
+  public void testHeader_evictAfterRead() {
+    cache.merge(createTestRecord("1"), CacheHeaders.NONE);
+
+    CacheHeaders evictAfterRead = CacheHeaders.builder().addHeader(ApolloCacheHeaders.EVICT_AFTER_READ, "true")
+        .build();
+    assertThat(cache.loadRecord("key1", evictAfterRead)).isNotNull();
+    assertThat(cache.loadRecord("key1", evictAfterRead)).isNull();
+  }
+
+  @Test
+  public void testHeader_noCache() {
+    cache.merge(createTestRecord("1"),
+        CacheHeaders.builder().addHeader(ApolloCacheHeaders.DO_NOT_STORE, "true").build());
+
+    assertThat(cache.loadRecord("key1", CacheHeaders.NONE)).isNull();
+  }
+
+  private MappedNormalizedCache open() {
+    return new MappedNormalizedCacheFactory(directory, SEGMENT_SIZE, DIRECT_EXECUTOR)
+        .createNormalizedCache(basicFieldAdapter);
+  }
+
+  private void reopen() throws IOException {
+    cache.close();
+    cache = open();
+  }
+
+  private List<File> segmentFiles() {
+    List<File> files = new ArrayList<>(Arrays.asList(directory.listFiles()));
+    Collections.sort(files);
+    return files;
+  }
+
+  private static int readEntrySize(RandomAccessFile file, int offset) throws IOException {
+    file.seek(offset + 4);
+    return 13 + file.readInt() + file.readInt();
+  }
+
+  private static Record createTestRecord(String id) {
+    return Record.builder("key" + id)
+        .addField("a", "stringValueA" + id)
+        .addField("b", "stringValueB" + id)
+        .build();
+  }
+}
@@ -0,0 +1,187 @@
+package com.apollographql.apollo.cache.normalized.offheap;
+
+import com.apollographql.apollo.cache.ApolloCacheHeaders;
+import com.apollographql.apollo.cache.CacheHeaders;
+import com.apollographql.apollo.cache.normalized.CacheKey;
+import com.apollographql.apollo.cache.normalized.CacheReference;
+import com.apollographql.apollo.cache.normalized.Record;
+import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
+import com.apollographql.apollo.cache.normalized.lru.EvictionPolicy;
+import com.apollographql.apollo.cache.normalized.lru.LruNormalizedCache;
+import com.apollographql.apollo.cache.normalized.lru.LruNormalizedCacheFactory;
+import com.squareup.moshi.Moshi;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class OffHeapNormalizedCacheTest {
+  private RecordFieldAdapter basicFieldAdapter;
+
+  @Before public void createFieldAdapter() {
+    basicFieldAdapter = RecordFieldAdapter.create(new Moshi.Builder().build());
+  }
+
+  @Test
+  public void testSaveAndLoad() {
+    OffHeapNormalizedCache cache = new OffHeapNormalizedCacheFactory(1024 * 1024, 4096)
+        .createNormalizedCache(basicFieldAdapter);
+    Record record = Record.builder("key1")
+        .addField("a", "stringValueA")
+        .addField("reference", new CacheReference("key2"))
+        .addField("list", Arrays.asList(1L, 2.5))
+        .build();
+    cache.merge(record, CacheHeaders.NONE);
+
+    assertThat(cache.loadRecord("key1", CacheHeaders.NONE).fields()).containsExactlyEntriesIn(record.fields());
+    assertThat(cache.loadRecord("key2", CacheHeaders.NONE)).isNull();
+  }
+
+  @Test
+  public void testMerge() {
+    OffHeapNormalizedCache cache = new OffHeapNormalizedCacheFactory(1024 * 1024, 4096)
+        .createNormalizedCache(basicFieldAdapter);
+    cache.merge(Record.builder("key1").addField("a", "a").addField("b", "b").build(), CacheHeaders.NONE);
+
+    Set<String> changedKeys = cache.merge(Record.builder("key1").addField("a", "a").build(), CacheHeaders.NONE);
+    assertThat(changedKeys).isEmpty();
+
+    // grows the record into a larger size class
+    StringBuilder largeValue = new StringBuilder();
+    for (int i = 0; i < 500; i++) {
+      largeValue.append('x');
+    }
+    changedKeys = cache.merge(Record.builder("key1").addField("b", largeValue.toString()).addField("c", true)
+        .build(), CacheHeaders.NONE);
+    assertThat(changedKeys).containsExactly("key1.b", "key1.c");
+
+    Record record = cache.loadRecord("key1", CacheHeaders.NONE);
+    assertThat(record.field("a")).isEqualTo("a");
+    assertThat(record.field("b")).isEqualTo(largeValue.toString());
+    assertThat(record.field("c")).isEqualTo(true);
+  }
+
+  @Test
+  public void testLoadRecords() {
+    OffHeapNormalizedCache cache = new OffHeapNormalizedCacheFactory(1024 * 1024, 4096)
+        .createNormalizedCache(basicFieldAdapter);
+    List<Record> records = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      records.add(createTestRecord(String.valueOf(i)));
+    }
+    cache.merge(records, CacheHeaders.NONE);
+
+    Collection<Record> loaded = cache.loadRecords(Arrays.asList("key4999", "missing", "key0"), CacheHeaders.NONE);
+    assertThat(loaded).hasSize(2);
+    assertThat(loaded.iterator().next().field("a")).isEqualTo("stringValueA4999");
+  }
+
+  @Test
+  public void testRemoveAndClearAll() {
+    OffHeapNormalizedCache cache = new OffHeapNormalizedCacheFactory(1024 * 1024, 4096)
+        .createNormalizedCache(basicFieldAdapter);
+    for (int i = 0; i < 100; i++) {
+      cache.merge(createTestRecord(String.valueOf(i)), CacheHeaders.NONE);
+    }
+
+    assertThat(cache.remove(CacheKey.from("key50"))).isTrue();
+    assertThat(cache.remove(CacheKey.from("key50"))).isFalse();
+    assertThat(cache.loadRecord("key50", CacheHeaders.NONE)).isNull();
+    for (int i = 0; i < 100; i++) {
+      if (i != 50) {
+        assertThat(cache.loadRecord("key" + i, CacheHeaders.NONE)).isNotNull();
+      }
+    }
+
+    cache.clearAll();
+    assertThat(cache.loadRecord("key1", CacheHeaders.NONE)).isNull();
+    cache.merge(createTestRecord("1"), CacheHeaders.NONE);
+    assertThat(cache.loadRecord("key1", CacheHeaders.NONE).field("a")).isEqualTo("stringValueA1");
+  }
+
+  @Test
+  public void testEviction_referencedRecordsStay() {
+    // two slabs of 1024 bytes, 64 byte chunks
+    OffHeapNormalizedCache cache = new OffHeapNormalizedCacheFactory(2048, 1024)
+        .createNormalizedCache(basicFieldAdapter);
+    cache.merge(createTestRecord("hot"), CacheHeaders.NONE);
+    for (int i = 0; i < 100; i++) {
+      assertThat(cache.loadRecord("keyhot", CacheHeaders.NONE)).isNotNull();
+      cache.merge(createTestRecord(String.valueOf(i)), CacheHeaders.NONE);
+    }
+
+    assertThat(cache.loadRecord("keyhot", CacheHeaders.NONE)).isNotNull();
+    assertThat(cache.loadRecord("key99", CacheHeaders.NONE)).isNotNull();
+    assertThat(cache.loadRecord("key0", CacheHeaders.NONE)).isNull();
+  }
+
+  @Test
+  public void testEviction_slabMovesToSizeClassWithoutSlabs() {
+    OffHeapNormalizedCache cache = new OffHeapNormalizedCacheFactory(1024, 1024)
+        .createNormalizedCache(basicFieldAdapter);
+    cache.merge(createTestRecord("1"), CacheHeaders.NONE);
+    Record large = Record.builder("large").addField("a", new String(new char[600]).replace('\0', 'x')).build();
+    cache.merge(large, CacheHeaders.NONE);
+
+    assertThat(cache.loadRecord("key1", CacheHeaders.NONE)).isNull();
+    assertThat(cache.loadRecord("large", CacheHeaders.NONE).field("a")).isEqualTo(large.field("a"));
+  }
+
+  @Test
+  public void testRecordLargerThanSlabNotStored() {
+    OffHeapNormalizedCache cache = new OffHeapNormalizedCacheFactory(4096, 1024)
+        .createNormalizedCache(basicFieldAdapter);
+    cache.merge(Record.builder("key1").addField("a", "small").build(), CacheHeaders.NONE);
+    cache.merge(Record.builder("key1").addField("a", new String(new char[2000])).build(), CacheHeaders.NONE);
+
+    assertThat(cache.loadRecord("key1", CacheHeaders.NONE)).isNull();
+  }
+
+  @Test
+  public void testAsSecondaryCache() {
+    LruNormalizedCache lruCache = new LruNormalizedCacheFactory(EvictionPolicy.NO_EVICTION,
+        new OffHeapNormalizedCacheFactory(1024 * 1024)).createNormalizedCache(basicFieldAdapter);
+    lruCache.merge(createTestRecord("1"), CacheHeaders.NONE);
+    lruCache.clearPrimaryCache();
+
+    assertThat(lruCache.loadRecord("key1", CacheHeaders.NONE).field("a")).isEqualTo("stringValueA1");
+  }
+
+  // Tests for StandardCacheHeader compliance.
+
+  @Test
+  public void testHeader_evictAfterRead() {
+    OffHeapNormalizedCache cache = new OffHeapNormalizedCacheFactory(1024 * 1024)
+        .createNormalizedCache(basicFieldAdapter);
+    cache.merge(createTestRecord("1"), CacheHeaders.NONE);
+
+    CacheHeaders evictAfterRead = CacheHeaders.builder().addHeader(ApolloCacheHeaders.EVICT_AFTER_READ, "true")
+        .build();
+    assertThat(cache.loadRecord("key1", evictAfterRead)).isNotNull();
+    assertThat(cache.loadRecord("key1", evictAfterRead)).isNull();
+  }
+
+  @Test
+  public void testHeader_noCache() {
+    OffHeapNormalizedCache cache = new OffHeapNormalizedCacheFactory(1024 * 1024)
+        .createNormalizedCache(basicFieldAdapter);
+    cache.merge(createTestRecord("1"),
+        CacheHeaders.builder().addHeader(ApolloCacheHeaders.DO_NOT_STORE, "true").build());
+
+    assertThat(cache.loadRecord("key1", CacheHeaders.NONE)).isNull();
+  }
+
+  private static Record createTestRecord(String id) {
+    return Record.builder("key" + id)
+        .addField("a", "stringValueA" + id)
+        .addField("b", "stringValueB" + id)
+        .build();
+  }
+}
@@ -0,0 +1,80 @@
+package com.apollographql.apollo.internal.cache.normalized;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class PendingCacheWritesTest {
+  private final PendingCacheWrites pendingCacheWrites = new PendingCacheWrites();
+
+  @Test public void awaitRunsNotStartedWrite() {
+    final AtomicReference<Thread> writeThread = new AtomicReference<>();
+    Runnable write = pendingCacheWrites.add(new Runnable() {
+      @Override public void run() {
+        writeThread.set(Thread.currentThread());
+      }
+    });
+
+    pendingCacheWrites.await();
+    assertThat(writeThread.get()).isSameAs(Thread.currentThread());
+
+    writeThread.set(null);
+    write.run();
+    assertThat(writeThread.get()).isNull();
+  }
+
+  @Test public void awaitWaitsForStartedWrite() throws Exception {
+    final CountDownLatch writeStarted = new CountDownLatch(1);
+    final CountDownLatch finishWrite = new CountDownLatch(1);
+    final AtomicInteger writes = new AtomicInteger();
+    final Runnable write = pendingCacheWrites.add(new Runnable() {
+      @Override public void run() {
+        writeStarted.countDown();
+        try {
+          finishWrite.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+        writes.incrementAndGet();
+      }
+    });
+    new Thread(write).start();
+    assertThat(writeStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+    Thread releaser = new Thread(new Runnable() {
+      @Override public void run() {
+        try {
+          Thread.sleep(100);
+        } catch (InterruptedException ignored) {
+        }
+        finishWrite.countDown();
+      }
+    });
+    releaser.start();
+    pendingCacheWrites.await();
+    assertThat(writes.get()).isEqualTo(1);
+  }
+
+  @Test public void failedWriteDoesNotFailAwait() {
+    final AtomicInteger writes = new AtomicInteger();
+    pendingCacheWrites.add(new Runnable() {
+      @Override public void run() {
+        throw new IllegalStateException();
+      }
+    });
+    pendingCacheWrites.add(new Runnable() {
+      @Override public void run() {
+        writes.incrementAndGet();
+      }
+    });
+
+    pendingCacheWrites.await();
+    pendingCacheWrites.await();
+    assertThat(writes.get()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,436 @@
+package com.apollographql.apollo.internal.cache.normalized;
+
+import com.apollographql.apollo.CustomTypeAdapter;
+import com.apollographql.apollo.Logger;
+import com.apollographql.apollo.api.ScalarType;
+import com.apollographql.apollo.api.internal.Optional;
+import com.apollographql.apollo.cache.CacheHeaders;
+import com.apollographql.apollo.cache.normalized.ApolloStoreStats;
+import com.apollographql.apollo.cache.normalized.CacheKey;
+import com.apollographql.apollo.cache.normalized.CacheKeyResolver;
+import com.apollographql.apollo.cache.normalized.CacheReference;
+import com.apollographql.apollo.cache.normalized.GarbageCollection;
+import com.apollographql.apollo.cache.normalized.NormalizedCacheStats;
+import com.apollographql.apollo.cache.normalized.Record;
+import com.apollographql.apollo.cache.normalized.RecordFieldAdapter;
+import com.apollographql.apollo.cache.normalized.lru.EvictionPolicy;
+import com.apollographql.apollo.cache.normalized.lru.LruNormalizedCacheFactory;
+import com.apollographql.apollo.internal.util.ApolloLogger;
+import com.squareup.moshi.Moshi;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class RealApolloStoreTest {
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+  private RealApolloStore store;
+
+  @Before public void setUp() {
+    store = createStore();
+    write(Record.builder("1").addField("name", "Luke").build());
+  }
+
+  @Test public void readTransactionDoesNotSeeConcurrentWrites() throws Exception {
+    store.readTransaction(new Transaction<ReadableStore, Void>() {
+      @Override public Void execute(ReadableStore cache) {
+        Record record = cache.read("1", CacheHeaders.NONE);
+        assertThat(record.field("name")).isEqualTo("Luke");
+
+        writeConcurrently(Arrays.asList(Record.builder("1").addField("name", "Leia").build(),
+            Record.builder("2").addField("name", "Han").build()));
+        store.remove(CacheKey.from("1"));
+
+        assertThat(record.field("name")).isEqualTo("Luke");
+        assertThat(cache.read("1", CacheHeaders.NONE).field("name")).isEqualTo("Luke");
+        assertThat(cache.read("2", CacheHeaders.NONE)).isNull();
+        Collection<Record> records = cache.read(Arrays.asList("1", "2"), CacheHeaders.NONE);
+        assertThat(records).hasSize(1);
+        assertThat(records.iterator().next().field("name")).isEqualTo("Luke");
+        return null;
+      }
+    });
+
+    store.readTransaction(new Transaction<ReadableStore, Void>() {
+      @Override public Void execute(ReadableStore cache) {
+        assertThat(cache.read("1", CacheHeaders.NONE)).isNull();
+        assertThat(cache.read("2", CacheHeaders.NONE).field("name")).isEqualTo("Han");
+        return null;
+      }
+    });
+  }
+
+  @Test public void readTransactionDoesNotWaitForWriteTransactionWhileReaderIsPinned() throws Exception {
+    final CountDownLatch readerPinned = new CountDownLatch(1);
+    final CountDownLatch finishRead = new CountDownLatch(1);
+    Thread reader = new Thread(new Runnable() {
+      @Override public void run() {
+        store.readTransaction(new Transaction<ReadableStore, Void>() {
+          @Override public Void execute(ReadableStore cache) {
+            readerPinned.countDown();
+            await(finishRead);
+            return null;
+          }
+        });
+      }
+    });
+    reader.start();
+    assertThat(readerPinned.await(5, TimeUnit.SECONDS)).isTrue();
+
+    final CountDownLatch recordMerged = new CountDownLatch(1);
+    final CountDownLatch finishWrite = new CountDownLatch(1);
+    Thread writer = new Thread(new Runnable() {
+      @Override public void run() {
+        store.writeTransaction(new Transaction<WriteableStore, Void>() {
+          @Override public Void execute(WriteableStore cache) {
+            cache.merge(Collections.singletonList(Record.builder("1").addField("name", "Leia").build()),
+                CacheHeaders.NONE);
+            recordMerged.countDown();
+            await(finishWrite);
+            return null;
+          }
+        });
+      }
+    });
+    writer.start();
+    assertThat(recordMerged.await(5, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(read("1").field("name")).isEqualTo("Luke");
+    finishWrite.countDown();
+    writer.join();
+    finishRead.countDown();
+    reader.join();
+    assertThat(read("1").field("name")).isEqualTo("Leia");
+  }
+
+  @Test public void readTransactionWaitsForWriteTransactionNotSavingRecords() throws Exception {
+    final CountDownLatch recordMerged = new CountDownLatch(1);
+    final CountDownLatch finishWrite = new CountDownLatch(1);
+    Thread writer = new Thread(new Runnable() {
+      @Override public void run() {
+        store.writeTransaction(new Transaction<WriteableStore, Void>() {
+          @Override public Void execute(WriteableStore cache) {
+            cache.merge(Collections.singletonList(Record.builder("1").addField("name", "Leia").build()),
+                CacheHeaders.NONE);
+            recordMerged.countDown();
+            await(finishWrite);
+            cache.merge(Collections.singletonList(Record.builder("2").addField("name", "Han").build()),
+                CacheHeaders.NONE);
+            return null;
+          }
+        });
+      }
+    });
+    writer.start();
+    assertThat(recordMerged.await(5, TimeUnit.SECONDS)).isTrue();
+
+    final AtomicReference<Collection<Record>> records = new AtomicReference<>();
+    Thread reader = new Thread(new Runnable() {
+      @Override public void run() {
+        records.set(store.readTransaction(new Transaction<ReadableStore, Collection<Record>>() {
+          @Override public Collection<Record> execute(ReadableStore cache) {
+            return cache.read(Arrays.asList("1", "2"), CacheHeaders.NONE);
+          }
+        }));
+      }
+    });
+    reader.start();
+    for (int i = 0; i < 500 && reader.getState() != Thread.State.WAITING; i++) {
+      Thread.sleep(10);
+    }
+    assertThat(reader.getState()).isEqualTo(Thread.State.WAITING);
+    finishWrite.countDown();
+    writer.join();
+    reader.join();
+    assertThat(records.get()).hasSize(2);
+  }
+
+  @Test public void readTransactionInsideWriteTransactionSeesWrites() {
+    store.writeTransaction(new Transaction<WriteableStore, Void>() {
+      @Override public Void execute(WriteableStore cache) {
+        cache.merge(Collections.singletonList(Record.builder("1").addField("name", "Leia").build()),
+            CacheHeaders.NONE);
+        assertThat(read("1").field("name")).isEqualTo("Leia");
+        return null;
+      }
+    });
+  }
+
+  @Test public void statsRecordTransactionsAndCacheCounters() {
+    store.writeTransaction(new Transaction<WriteableStore, Void>() {
+      @Override public Void execute(WriteableStore cache) {
+        write(Record.builder("2").addField("name", "Han").build());
+        return null;
+      }
+    });
+    assertThat(read("1")).isNotNull();
+    assertThat(read("3")).isNull();
+
+    ApolloStoreStats stats = store.stats();
+    assertThat(stats.writeLockWaitTime().count()).isEqualTo(2);
+    assertThat(stats.writeLockHoldTime().count()).isEqualTo(2);
+    assertThat(stats.readTransactionTime().count()).isEqualTo(2);
+    NormalizedCacheStats cacheStats = stats.normalizedCacheStats().get();
+    assertThat(cacheStats.recordCount()).isEqualTo(2);
+    assertThat(cacheStats.hitCount()).isEqualTo(1);
+    assertThat(cacheStats.missCount()).isEqualTo(1);
+  }
+
+  @Test public void savingReplacedRecordsIsNotCountedAsCacheAccess() {
+    store.readTransaction(new Transaction<ReadableStore, Void>() {
+      @Override public Void execute(ReadableStore cache) {
+        writeConcurrently(Collections.singletonList(Record.builder("1").addField("name", "Leia").build()));
+        assertThat(cache.read("1", CacheHeaders.NONE).field("name")).isEqualTo("Luke");
+        return null;
+      }
+    });
+
+    NormalizedCacheStats cacheStats = store.stats().normalizedCacheStats().get();
+    assertThat(cacheStats.hitCount()).isEqualTo(1);
+    assertThat(cacheStats.missCount()).isEqualTo(0);
+  }
+
+  @Test public void gcRemovesUnreachableRecords() {
+    write(Record.builder("QUERY_ROOT")
+        .addField("hero", new CacheReference("2"))
+        .addField("friends", Arrays.asList(new CacheReference("3"), null))
+        .build());
+    write(Record.builder("2").addField("name", "Han").build());
+    write(Record.builder("3").addField("ships", Arrays.asList(Arrays.asList(new CacheReference("4")))).build());
+    write(Record.builder("4").addField("name", "Falcon").build());
+    write(Record.builder("5").addField("name", "Leia").build());
+
+    assertThat(store.gc()).isEqualTo(2);
+    assertThat(read("1")).isNull();
+    assertThat(read("5")).isNull();
+    assertThat(read("QUERY_ROOT")).isNotNull();
+    assertThat(read("2")).isNotNull();
+    assertThat(read("3")).isNotNull();
+    assertThat(read("4")).isNotNull();
+  }
+
+  @Test public void incrementalGcKeepsRecordsReferencedBetweenSlices() {
+    write(Record.builder("QUERY_ROOT").addField("hero", new CacheReference("2")).build());
+    write(Record.builder("2").addField("name", "Han").build());
+    write(Record.builder("3").addField("name", "Leia").build());
+
+    GarbageCollection collection = store.incrementalGc();
+    assertThat(collection.runFor(0, TimeUnit.NANOSECONDS)).isFalse();
+    write(Record.builder("QUERY_ROOT").addField("princess", new CacheReference("3")).build());
+    for (int i = 0; i < 10 && !collection.isComplete(); i++) {
+      collection.runFor(0, TimeUnit.NANOSECONDS);
+    }
+
+    assertThat(collection.isComplete()).isTrue();
+    assertThat(collection.removedCount()).isEqualTo(1);
+    assertThat(read("1")).isNull();
+    assertThat(read("2")).isNotNull();
+    assertThat(read("3")).isNotNull();
+  }
+
+  @Test public void incrementalGcKeepsRemovedRecordsForReadTransactionsInProgress() {
+    final GarbageCollection collection = store.incrementalGc();
+    store.readTransaction(new Transaction<ReadableStore, Void>() {
+      @Override public Void execute(ReadableStore cache) {
+        assertThat(collection.runFor(Long.MAX_VALUE, TimeUnit.DAYS)).isTrue();
+        assertThat(collection.removedCount()).isEqualTo(1);
+        assertThat(cache.read("1", CacheHeaders.NONE).field("name")).isEqualTo("Luke");
+        return null;
+      }
+    });
+
+    assertThat(read("1")).isNull();
+  }
+
+  @Test public void gcFinishesWhileReadTransactionsOverlap() throws Exception {
+    for (int i = 0; i < 250; i++) {
+      write(Record.builder("unreachable" + i).addField("name", "Luke").build());
+    }
+    final AtomicBoolean done = new AtomicBoolean();
+    List<Thread> readers = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      Thread reader = new Thread(new Runnable() {
+        @Override public void run() {
+          while (!done.get()) {
+            store.readTransaction(new Transaction<ReadableStore, Void>() {
+              @Override public Void execute(ReadableStore cache) {
+                cache.read("1", CacheHeaders.NONE);
+                try {
+                  Thread.sleep(1);
+                } catch (InterruptedException e) {
+                  throw new RuntimeException(e);
+                }
+                return null;
+              }
+            });
+          }
+        }
+      });
+      reader.start();
+      readers.add(reader);
+    }
+
+    final AtomicInteger removedCount = new AtomicInteger(-1);
+    Thread collector = new Thread(new Runnable() {
+      @Override public void run() {
+        removedCount.set(store.gc());
+      }
+    });
+    collector.start();
+    collector.join(TimeUnit.SECONDS.toMillis(5));
+    done.set(true);
+    for (Thread reader : readers) {
+      reader.join();
+    }
+
+    assertThat(collector.isAlive()).isFalse();
+    assertThat(removedCount.get()).isEqualTo(251);
+  }
+
+  @Test public void gcIsNotCountedAsCacheAccess() {
+    write(Record.builder("QUERY_ROOT").addField("hero", new CacheReference("2")).build());
+
+    assertThat(store.gc()).isEqualTo(1);
+
+    NormalizedCacheStats cacheStats = store.stats().normalizedCacheStats().get();
+    assertThat(cacheStats.hitCount()).isEqualTo(0);
+    assertThat(cacheStats.missCount()).isEqualTo(0);
+  }
+
+  @Test public void snapshotIsLoadedOnce() throws IOException {
+    File file = new File(temporaryFolder.getRoot(), "snapshot");
+    assertThat(store.writeSnapshot(file)).isEqualTo(1);
+
+    RealApolloStore restoredStore = createStore();
+    assertThat(restoredStore.loadSnapshot(file)).isEqualTo(1);
+    assertThat(file.exists()).isFalse();
+    assertThat(restoredStore.read("1", CacheHeaders.NONE).field("name")).isEqualTo("Luke");
+    assertThat(restoredStore.loadSnapshot(file)).isEqualTo(0);
+  }
+
+  @Test public void snapshotIsDeletedByLaterWrite() throws IOException {
+    File file = new File(temporaryFolder.getRoot(), "snapshot");
+    assertThat(store.writeSnapshot(file)).isEqualTo(1);
+
+    write(Record.builder("1").addField("name", "Leia").build());
+
+    assertThat(file.exists()).isFalse();
+    assertThat(createStore().loadSnapshot(file)).isEqualTo(0);
+  }
+
+  @Test public void snapshotIsDeletedWhenNoRecordsAreWritten() throws IOException {
+    File file = new File(temporaryFolder.getRoot(), "snapshot");
+    assertThat(store.writeSnapshot(file)).isEqualTo(1);
+
+    assertThat(createStore().writeSnapshot(file)).isEqualTo(0);
+
+    assertThat(file.exists()).isFalse();
+  }
+
+  @Test public void savingReplacedRecordsDoesNotCountForFrequencyAdmission() {
+    // a pinned reader makes every write save the record it replaces, reading it once more than it is written
+    assertThat(frequentRecordsKeptAfterScan(true)).isEqualTo(frequentRecordsKeptAfterScan(false));
+  }
+
+  private static RealApolloStore createStore() {
+    return createStore(EvictionPolicy.NO_EVICTION);
+  }
+
+  private static RealApolloStore createStore(EvictionPolicy evictionPolicy) {
+    return new RealApolloStore(new LruNormalizedCacheFactory(evictionPolicy)
+        .createNormalizedCache(RecordFieldAdapter.create(new Moshi.Builder().build())), CacheKeyResolver.DEFAULT,
+        Collections.<ScalarType, CustomTypeAdapter>emptyMap(), new ApolloLogger(Optional.<Logger>absent()));
+  }
+
+  private void write(final Record record) {
+    store.writeTransaction(new Transaction<WriteableStore, Void>() {
+      @Override public Void execute(WriteableStore cache) {
+        cache.merge(Collections.singletonList(record), CacheHeaders.NONE);
+        return null;
+      }
+    });
+  }
+
+  private int frequentRecordsKeptAfterScan(boolean pinReader) {
+    store = createStore(EvictionPolicy.builder().maxEntries(100).frequencyAdmission(true).build());
+    for (int i = 0; i < 90; i++) {
+      write(Record.builder("hot" + i).addField("name", "hot").build());
+    }
+    for (int access = 0; access < 3; access++) {
+      for (int i = 0; i < 90; i++) {
+        read("hot" + i);
+      }
+    }
+
+    final List<Record> records = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      for (int write = 0; write < 3; write++) {
+        records.add(Record.builder("search" + i).addField("name", "search" + write).build());
+      }
+    }
+    if (pinReader) {
+      store.readTransaction(new Transaction<ReadableStore, Void>() {
+        @Override public Void execute(ReadableStore cache) {
+          writeConcurrently(records);
+          return null;
+        }
+      });
+    } else {
+      writeConcurrently(records);
+    }
+
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 90; i++) {
+      keys.add("hot" + i);
+    }
+    return store.normalizedCache().peekRecords(keys).size();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void writeConcurrently(final Collection<Record> records) {
+    Thread writer = new Thread(new Runnable() {
+      @Override public void run() {
+        for (Record record : records) {
+          write(record);
+        }
+      }
+    });
+    writer.start();
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private Record read(final String key) {
+    return store.readTransaction(new Transaction<ReadableStore, Record>() {
+      @Override public Record execute(ReadableStore cache) {
+        return cache.read(key, CacheHeaders.NONE);
+      }
+    });
+  }
+}
@@ -0,0 +1,60 @@
+package com.apollographql.apollo.internal.cache.normalized;
+
+import com.apollographql.apollo.cache.normalized.ApolloStore.RecordChangeSubscriber;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class RecordChangeSubscriberIndexTest {
+  private final RecordChangeSubscriberIndex index = new RecordChangeSubscriberIndex();
+  private final RecordChangeSubscriber first = new TestSubscriber();
+  private final RecordChangeSubscriber second = new TestSubscriber();
+
+  @Test public void subscribersOfChangedKeys() {
+    index.subscribe(first, keys("1002", "1002.name"));
+    index.subscribe(second, keys("1003.name"));
+
+    assertThat(index.subscribers(keys("1002.name"))).containsExactly(first);
+    assertThat(index.subscribers(keys("1003.name", "1002"))).containsExactly(first, second);
+    assertThat(index.subscribers(keys("1003", "1004.name"))).isEmpty();
+  }
+
+  @Test public void subscribeAgainReplacesKeys() {
+    index.subscribe(first, keys("1002.name"));
+    index.subscribe(first, keys("1003.name"));
+
+    assertThat(index.subscribers(keys("1002.name"))).isEmpty();
+    assertThat(index.subscribers(keys("1003.name"))).containsExactly(first);
+  }
+
+  @Test public void subscriberOfAllKeys() {
+    index.subscribe(first, null);
+    index.subscribe(second, keys("1002.name"));
+
+    assertThat(index.subscribers(keys("1003.name"))).containsExactly(first);
+    assertThat(index.subscribers(keys("1002.name"))).containsExactly(first, second);
+  }
+
+  @Test public void unsubscribe() {
+    index.subscribe(first, keys("1002.name"));
+    index.subscribe(second, null);
+    index.unsubscribe(first);
+    index.unsubscribe(second);
+
+    assertThat(index.subscribers(keys("1002.name"))).isEmpty();
+  }
+
+  private static Set<String> keys(String... keys) {
+    return new HashSet<>(Arrays.asList(keys));
+  }
+
+  private static final class TestSubscriber implements RecordChangeSubscriber {
+    @Override public void onCacheRecordsChanged(Set<String> changedRecordKeys) {
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package com.apollographql.apollo.internal.cache.normalized;
+
+import com.apollographql.apollo.cache.normalized.CacheReference;
+import com.apollographql.apollo.cache.normalized.Record;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validates {@link Record#sizeEstimateBytes()} against measured heap. Retains records shaped like records decoded
+ * from a persistent cache, each owning its field keys, compares the heap they retain after a full collection with the
+ * sum of their estimates, and measures heap allocated while estimating.
+ *
+ * <p>Run with {@code java -cp <test classpath> RecordWeigherBenchmark [records]} on a HotSpot JVM with compressed
+ * references, the layout the estimate models.</p>
+ */
+public final class RecordWeigherBenchmark {
+  private static final String[] EPISODES = {"NEWHOPE", "EMPIRE", "JEDI"};
+
+  private RecordWeigherBenchmark() {
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    int recordCount = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+    MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+
+    long heapBefore = usedHeap(memoryMXBean);
+    Record[] records = new Record[recordCount];
+    for (int i = 0; i < recordCount; i++) {
+      records[i] = createRecord(i);
+    }
+    long heapAfter = usedHeap(memoryMXBean);
+
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+    long startNanos = System.nanoTime();
+    long estimated = 0;
+    for (Record record : records) {
+      estimated += record.sizeEstimateBytes();
+    }
+    long elapsedNanos = System.nanoTime() - startNanos;
+    long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+    // the array holding the records is not part of any estimate
+    long measured = heapAfter - heapBefore - (16 + 4L * recordCount);
+
+    System.out.println(String.format("records: %d", recordCount));
+    System.out.println(String.format("measured bytes per record: %.1f", (double) measured / recordCount));
+    System.out.println(String.format("estimated bytes per record: %.1f", (double) estimated / recordCount));
+    System.out.println(String.format("estimate / measured: %.3f", (double) estimated / measured));
+    System.out.println(String.format("allocated bytes per estimate: %.2f", (double) allocated / recordCount));
+    System.out.println(String.format("nanoseconds per estimate: %.1f", (double) elapsedNanos / recordCount));
+  }
+
+  private static Record createRecord(int index) {
+    List<Object> appearsIn = new ArrayList<>();
+    for (String episode : EPISODES) {
+      appearsIn.add(new String(episode));
+    }
+    List<Object> friends = new ArrayList<>();
+    for (int i = 1; i <= 3; i++) {
+      friends.add(new CacheReference("Character:" + (index + i)));
+    }
+    return Record.builder("Character:" + index)
+        .addField(new String("__typename"), new String(index % 2 == 0 ? "Human" : "Droid"))
+        .addField(new String("name"), "Character name " + index)
+        .addField(new String("height"), 1.5 + index % 100 / 100d)
+        .addField(new String("mass"), (long) index)
+        .addField(new String("credits"), new BigDecimal(index).movePointLeft(2))
+        .addField(new String("isFavorite"), index % 3 == 0)
+        .addField(new String("primaryFunction"), null)
+        .addField(new String("appearsIn"), appearsIn)
+        .addField(new String("friends"), friends)
+        .addField(new String("starship"), new CacheReference("Starship:" + index))
+        .build();
+  }
+
+  private static long usedHeap(MemoryMXBean memoryMXBean) throws InterruptedException {
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      Thread.sleep(50);
+      used = Math.min(used, memoryMXBean.getHeapMemoryUsage().getUsed());
+    }
+    return used;
+  }
+}
@@ -0,0 +1,169 @@
+package com.apollographql.apollo.internal.cache.normalized;
+
+import com.apollographql.apollo.api.Operation;
+import com.apollographql.apollo.api.OperationName;
+import com.apollographql.apollo.api.Query;
+import com.apollographql.apollo.api.ResponseField;
+import com.apollographql.apollo.api.ResponseFieldMapper;
+import com.apollographql.apollo.api.internal.Optional;
+import com.apollographql.apollo.cache.normalized.CacheKey;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Measures heap allocated by {@link ResponseNormalizer} per normalized field. Replays the shadow callbacks of a list
+ * heavy response: a list of heroes, every other hero with a cache key, each with scalar fields, a list of appearances
+ * and a nested object without cache key.
+ *
+ * <p>Run with {@code java -cp <test classpath> ResponseNormalizerBenchmark [heroes] [iterations]} on a HotSpot
+ * JVM.</p>
+ */
+public final class ResponseNormalizerBenchmark {
+  private static final ResponseField HEROES = ResponseField.forObjectList("heroes", "heroes", null, false);
+  private static final ResponseField ID = ResponseField.forString("id", "id", null, false);
+  private static final ResponseField NAME = ResponseField.forString("name", "name", null, false);
+  private static final ResponseField HEIGHT = ResponseField.forDouble("height", "height", null, true);
+  private static final ResponseField APPEARS_IN = ResponseField.forScalarList("appearsIn", "appearsIn", null, false);
+  private static final ResponseField SHIP = ResponseField.forObject("ship", "ship", null, true);
+  private static final List<String> EPISODES = Arrays.asList("NEWHOPE", "EMPIRE", "JEDI");
+  private static final Double HEIGHT_VALUE = 1.72;
+
+  private final int heroCount;
+  private final List<String> heroIds;
+  private final List<Optional<Map<String, Object>>> heroSources;
+  private final Optional<Map<String, Object>> shipSource;
+  private final List<Object> heroes;
+  private int fieldCount;
+
+  private ResponseNormalizerBenchmark(int heroCount) {
+    this.heroCount = heroCount;
+    heroIds = new ArrayList<>(heroCount);
+    heroSources = new ArrayList<>(heroCount);
+    heroes = new ArrayList<>(heroCount);
+    for (int i = 0; i < heroCount; i++) {
+      Map<String, Object> hero = new LinkedHashMap<>();
+      heroIds.add("hero" + i);
+      if (i % 2 == 0) {
+        hero.put("id", heroIds.get(i));
+      }
+      heroSources.add(Optional.of(hero));
+      heroes.add(hero);
+    }
+    shipSource = Optional.<Map<String, Object>>of(Collections.<String, Object>emptyMap());
+  }
+
+  public static void main(String[] args) {
+    int heroCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+    ResponseNormalizerBenchmark benchmark = new ResponseNormalizerBenchmark(heroCount);
+    for (int i = 0; i < iterations; i++) {
+      benchmark.normalize();
+    }
+
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    benchmark.fieldCount = 0;
+    long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+    long startNanos = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      benchmark.normalize();
+    }
+    long elapsedNanos = System.nanoTime() - startNanos;
+    long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+    System.out.println(String.format("heroes: %d, iterations: %d, fields per response: %d", heroCount, iterations,
+        benchmark.fieldCount / iterations));
+    System.out.println(String.format("allocated bytes per normalized field: %.1f",
+        (double) allocated / benchmark.fieldCount));
+    System.out.println(String.format("nanoseconds per normalized field: %.1f",
+        (double) elapsedNanos / benchmark.fieldCount));
+  }
+
+  private void normalize() {
+    ResponseNormalizer<Map<String, Object>> normalizer = new ResponseNormalizer<Map<String, Object>>() {
+      @Nonnull @Override public CacheKey resolveCacheKey(@Nonnull ResponseField field,
+          @Nonnull Map<String, Object> record) {
+        Object id = record.get("id");
+        return id != null ? CacheKey.from((String) id) : CacheKey.NO_KEY;
+      }
+    };
+    Operation.Variables variables = QUERY.variables();
+    normalizer.willResolveRootQuery(QUERY);
+
+    normalizer.willResolve(HEROES, variables);
+    for (int i = 0; i < heroCount; i++) {
+      normalizer.willResolveElement(i);
+      Optional<Map<String, Object>> heroSource = heroSources.get(i);
+      normalizer.willResolveObject(HEROES, heroSource);
+      scalar(normalizer, ID, variables, heroIds.get(i));
+      scalar(normalizer, NAME, variables, "Luke");
+      scalar(normalizer, HEIGHT, variables, HEIGHT_VALUE);
+
+      normalizer.willResolve(APPEARS_IN, variables);
+      for (int j = 0; j < EPISODES.size(); j++) {
+        normalizer.willResolveElement(j);
+        normalizer.didResolveScalar(EPISODES.get(j));
+        normalizer.didResolveElement(j);
+      }
+      normalizer.didResolveList(EPISODES);
+      normalizer.didResolve(APPEARS_IN, variables);
+      fieldCount++;
+
+      normalizer.willResolve(SHIP, variables);
+      normalizer.willResolveObject(SHIP, shipSource);
+      scalar(normalizer, NAME, variables, "X-Wing");
+      normalizer.didResolveObject(SHIP, shipSource);
+      normalizer.didResolve(SHIP, variables);
+      fieldCount++;
+
+      normalizer.didResolveObject(HEROES, heroSource);
+      normalizer.didResolveElement(i);
+    }
+    normalizer.didResolveList(heroes);
+    normalizer.didResolve(HEROES, variables);
+    fieldCount++;
+
+    if (normalizer.records().isEmpty() || normalizer.dependentKeys().isEmpty()) {
+      throw new AssertionError();
+    }
+  }
+
+  private void scalar(ResponseNormalizer<Map<String, Object>> normalizer, ResponseField field,
+      Operation.Variables variables, Object value) {
+    normalizer.willResolve(field, variables);
+    normalizer.didResolveScalar(value);
+    normalizer.didResolve(field, variables);
+    fieldCount++;
+  }
+
+  private static final Query QUERY = new Query() {
+    @Override public String queryDocument() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override public Variables variables() {
+      return EMPTY_VARIABLES;
+    }
+
+    @Override public ResponseFieldMapper responseFieldMapper() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override public Object wrapData(Data data) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override public OperationName name() {
+      return null;
+    }
+  };
+}
@@ -0,0 +1,106 @@
+package com.apollographql.apollo.internal.field;
+
+import com.apollographql.apollo.api.Operation;
+import com.apollographql.apollo.api.ResponseField;
+import com.apollographql.apollo.cache.CacheHeaders;
+import com.apollographql.apollo.cache.normalized.CacheKeyResolver;
+import com.apollographql.apollo.cache.normalized.CacheReference;
+import com.apollographql.apollo.cache.normalized.Record;
+import com.apollographql.apollo.internal.cache.normalized.ReadableStore;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+public class CacheFieldValueResolverTest {
+  private static final ResponseField HEROES = ResponseField.forObjectList("heroes", "heroes", null, false);
+  private static final ResponseField FRIEND = ResponseField.forObject("friend", "friend", null, true);
+  private static final ResponseField SHIP = ResponseField.forObject("ship", "ship", null, true);
+  private static final ResponseField HOME = ResponseField.forObject("home", "home", null, true);
+  private static final int HERO_COUNT = 100;
+
+  private final Map<String, Record> records = new HashMap<>();
+  private final List<Integer> reads = new ArrayList<>();
+  private CacheFieldValueResolver resolver;
+
+  @Before public void setUp() {
+    List<CacheReference> heroes = new ArrayList<>();
+    for (int i = 0; i < HERO_COUNT; i++) {
+      heroes.add(new CacheReference("hero" + i));
+      add(Record.builder("hero" + i)
+          .addField("friend", new CacheReference("friend" + i))
+          .addField("ship", new CacheReference("ship" + i % 10))
+          .build());
+      add(Record.builder("friend" + i).addField("home", new CacheReference("planet" + i % 3)).build());
+    }
+    for (int i = 0; i < 10; i++) {
+      add(Record.builder("ship" + i).build());
+    }
+    for (int i = 0; i < 3; i++) {
+      add(Record.builder("planet" + i).build());
+    }
+    add(Record.builder("QUERY_ROOT").addField("heroes", heroes).build());
+
+    resolver = new CacheFieldValueResolver(new ReadableStore() {
+      @Nullable @Override public Record read(@Nonnull String key, @Nonnull CacheHeaders cacheHeaders) {
+        reads.add(1);
+        return records.get(key);
+      }
+
+      @Override public Collection<Record> read(@Nonnull Collection<String> keys, @Nonnull CacheHeaders cacheHeaders) {
+        reads.add(keys.size());
+        List<Record> result = new ArrayList<>();
+        for (String key : keys) {
+          if (records.containsKey(key)) {
+            result.add(records.get(key));
+          }
+        }
+        return result;
+      }
+    }, Operation.EMPTY_VARIABLES, CacheKeyResolver.DEFAULT, CacheHeaders.NONE);
+  }
+
+  @Test public void loadsReferencedRecordsPerLevel() {
+    List<Record> heroes = resolver.valueFor(records.get("QUERY_ROOT"), HEROES);
+    assertThat(heroes).hasSize(HERO_COUNT);
+    for (int i = 0; i < HERO_COUNT; i++) {
+      Record hero = heroes.get(i);
+      assertThat(hero.key()).isEqualTo("hero" + i);
+      Record friend = resolver.valueFor(hero, FRIEND);
+      assertThat(friend.key()).isEqualTo("friend" + i);
+      assertThat(resolver.<Record>valueFor(friend, HOME).key()).isEqualTo("planet" + i % 3);
+      assertThat(resolver.<Record>valueFor(hero, SHIP).key()).isEqualTo("ship" + i % 10);
+    }
+
+    assertThat(reads).containsExactly(HERO_COUNT, HERO_COUNT, 3, 10).inOrder();
+  }
+
+  @Test public void missingReferencedRecordFailsOnlyWhenResolved() {
+    records.remove("friend1");
+    List<Record> heroes = resolver.valueFor(records.get("QUERY_ROOT"), HEROES);
+
+    assertThat(resolver.<Record>valueFor(heroes.get(0), FRIEND).key()).isEqualTo("friend0");
+    try {
+      resolver.valueFor(heroes.get(1), FRIEND);
+      fail("expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      // expected
+    }
+    assertThat(reads).hasSize(2);
+  }
+
+  private void add(Record record) {
+    records.put(record.key(), record);
+  }
+}
@@ -0,0 +1,71 @@
+package com.apollographql.apollo.internal.json;
+
+import org.junit.Test;
+
+import okio.Buffer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class BufferedSourceJsonReaderTest {
+  private static final JsonReader.Options OPTIONS = JsonReader.Options.of("name", "nameAlias", "id");
+
+  @Test public void selectName() throws Exception {
+    JsonReader reader = jsonReader("{\"nameAlias\":1,\"name\":2,\"id\":3}");
+    reader.beginObject();
+    assertThat(reader.selectName(OPTIONS)).isEqualTo(1);
+    assertThat(reader.nextLong()).isEqualTo(1L);
+    assertThat(reader.selectName(OPTIONS)).isEqualTo(0);
+    assertThat(reader.nextLong()).isEqualTo(2L);
+    assertThat(reader.selectName(OPTIONS)).isEqualTo(2);
+    assertThat(reader.getPath()).isEqualTo("$.id");
+    assertThat(reader.nextLong()).isEqualTo(3L);
+    reader.endObject();
+  }
+
+  @Test public void decimalNumbersKeepTheirText() throws Exception {
+    JsonReader reader = jsonReader("[12345678.9,0.0000001,-2.5,1.50,1e5,12345678901234567.8]");
+    reader.beginArray();
+    Number number = reader.nextNumber();
+    assertThat(number).isInstanceOf(Double.class);
+    assertThat(BufferedSourceJsonReader.decimalText((Double) number)).isEqualTo("12345678.9");
+    assertThat(BufferedSourceJsonReader.decimalText((Double) reader.nextNumber())).isEqualTo("0.0000001");
+    assertThat(BufferedSourceJsonReader.decimalText((Double) reader.nextNumber())).isEqualTo("-2.5");
+    assertThat(reader.nextNumber().toString()).isEqualTo("1.50");
+    assertThat(reader.nextNumber().toString()).isEqualTo("1E+5");
+    assertThat(reader.nextNumber().toString()).isEqualTo("12345678901234567.8");
+    reader.endArray();
+  }
+
+  @Test public void selectUnknownName() throws Exception {
+    JsonReader reader = jsonReader("{\"friend\":1,\"name\":2}");
+    reader.beginObject();
+    assertThat(reader.selectName(OPTIONS)).isEqualTo(-1);
+    assertThat(reader.selectName(OPTIONS)).isEqualTo(-1);
+    assertThat(reader.peek()).isEqualTo(JsonReader.Token.NAME);
+    assertThat(reader.nextName()).isEqualTo("friend");
+    reader.skipValue();
+    assertThat(reader.selectName(OPTIONS)).isEqualTo(0);
+    reader.skipValue();
+    reader.endObject();
+  }
+
+  @Test public void selectEscapedName() throws Exception {
+    JsonReader reader = jsonReader("{\"n\\u0061me\":1}");
+    reader.beginObject();
+    assertThat(reader.selectName(OPTIONS)).isEqualTo(0);
+    assertThat(reader.nextLong()).isEqualTo(1L);
+    reader.endObject();
+  }
+
+  @Test public void selectNameOfValue() throws Exception {
+    JsonReader reader = jsonReader("[\"name\"]");
+    reader.beginArray();
+    assertThat(reader.selectName(OPTIONS)).isEqualTo(-1);
+    assertThat(reader.nextString()).isEqualTo("name");
+    reader.endArray();
+  }
+
+  private static JsonReader jsonReader(String json) {
+    return new BufferedSourceJsonReader(new Buffer().writeUtf8(json));
+  }
+}
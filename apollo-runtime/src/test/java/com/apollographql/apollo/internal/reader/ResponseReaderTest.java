@@ -186,6 +186,24 @@ public class ResponseReaderTest {
     }
   }
 
+  @Test public void readCustomTypeNumbersInPlainNotation() throws Exception {
+    ResponseField doubleField = ResponseField.forCustomType("double", "double", null, false, DECIMAL_TYPE);
+    ResponseField bigDecimalField = ResponseField.forCustomType("bigDecimal", "bigDecimal", null, false, DECIMAL_TYPE);
+    ResponseField longField = ResponseField.forCustomType("long", "long", null, false, DECIMAL_TYPE);
+
+    Map<String, Object> recordSet = new HashMap<>();
+    recordSet.put("double", 12345678.9);
+    recordSet.put("bigDecimal", new BigDecimal("1.50E-7"));
+    recordSet.put("long", 42L);
+
+    RealResponseReader<Map<String, Object>> responseReader = responseReader(recordSet);
+    assertThat((Object) responseReader.readCustomType((ResponseField.CustomTypeField) doubleField))
+        .isEqualTo("12345678.9");
+    assertThat((Object) responseReader.readCustomType((ResponseField.CustomTypeField) bigDecimalField))
+        .isEqualTo("0.000000150");
+    assertThat((Object) responseReader.readCustomType((ResponseField.CustomTypeField) longField)).isEqualTo("42");
+  }
+
   @Test public void readConditional() throws Exception {
     final Object responseObject1 = new Object();
     final Object responseObject2 = new Object();
@@ -587,6 +605,15 @@ public class ResponseReaderTest {
   @SuppressWarnings("unchecked") private static RealResponseReader<Map<String, Object>> responseReader(
       Map<String, Object> recordSet) {
     Map<ScalarType, CustomTypeAdapter> customTypeAdapters = new HashMap<>();
+    customTypeAdapters.put(DECIMAL_TYPE, new CustomTypeAdapter() {
+      @Override public Object decode(String value) {
+        return value;
+      }
+
+      @Override public String encode(Object value) {
+        return null;
+      }
+    });
     customTypeAdapters.put(CUSTOM_TYPE, new CustomTypeAdapter() {
       @Override public Object decode(String value) {
         try {
@@ -614,6 +641,16 @@ public class ResponseReaderTest {
     }
   };
 
+  private static final ScalarType DECIMAL_TYPE = new ScalarType() {
+    @Override public String typeName() {
+      return "Decimal";
+    }
+
+    @Override public Class javaType() {
+      return String.class;
+    }
+  };
+
   private static final SimpleDateFormat DATE_TIME_FORMAT = new SimpleDateFormat("yyyyy-mm-dd");
 
   private static final Operation EMPTY_OPERATION = new Operation() {
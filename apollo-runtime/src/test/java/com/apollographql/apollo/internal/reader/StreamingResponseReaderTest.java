@@ -0,0 +1,268 @@
+package com.apollographql.apollo.internal.reader;
+
+import com.apollographql.apollo.CustomTypeAdapter;
+import com.apollographql.apollo.api.Operation;
+import com.apollographql.apollo.api.OperationName;
+import com.apollographql.apollo.api.Query;
+import com.apollographql.apollo.api.ResponseField;
+import com.apollographql.apollo.api.ResponseFieldMapper;
+import com.apollographql.apollo.api.ResponseFieldTable;
+import com.apollographql.apollo.api.ResponseReader;
+import com.apollographql.apollo.api.ScalarType;
+import com.apollographql.apollo.api.internal.Optional;
+import com.apollographql.apollo.cache.normalized.CacheKey;
+import com.apollographql.apollo.internal.cache.normalized.ResponseNormalizer;
+import com.apollographql.apollo.internal.json.BufferedSourceJsonReader;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import okio.Buffer;
+
+import static com.apollographql.apollo.internal.json.ApolloJsonReader.responseJsonStreamReader;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+public class StreamingResponseReaderTest {
+  private static final ResponseField NAME = ResponseField.forString("name", "name", null, false);
+  private static final ResponseField AGE = ResponseField.forInt("age", "age", null, true);
+  private static final ResponseField FRIEND = ResponseField.forObject("friend", "friend", null, true);
+  private static final ResponseField FRIENDS = ResponseField.forObjectList("friends", "friends", null, true);
+  private static final ResponseField TAGS = ResponseField.forScalarList("tags", "tags", null, true);
+  private static final ResponseField FRAGMENTS = ResponseField.forFragment("__typename", "__typename",
+      Collections.singletonList("Human"));
+
+  @Test public void readFieldsInOrder() throws Exception {
+    BufferedSourceJsonReader jsonReader = jsonReader("{\"name\":\"Luke\",\"age\":19,"
+        + "\"friend\":{\"name\":\"Han\",\"age\":32},"
+        + "\"friends\":[{\"name\":\"Leia\"},null,{\"name\":\"R2-D2\"}],"
+        + "\"tags\":[\"jedi\",\"pilot\"]}");
+    StreamingResponseReader reader = streamingReader(jsonReader);
+
+    assertThat(reader.readString(NAME)).isEqualTo("Luke");
+    assertThat(reader.readInt(AGE)).isEqualTo(19);
+    assertThat(reader.readObject(FRIEND, new ResponseReader.ObjectReader<String>() {
+      @Override public String read(ResponseReader reader) {
+        return reader.readString(NAME) + ":" + reader.readInt(AGE);
+      }
+    })).isEqualTo("Han:32");
+    assertThat(reader.readList(FRIENDS, new ResponseReader.ListReader<String>() {
+      @Override public String read(ResponseReader.ListItemReader reader) {
+        return reader.readObject(new ResponseReader.ObjectReader<String>() {
+          @Override public String read(ResponseReader reader) {
+            return reader.readString(NAME);
+          }
+        });
+      }
+    })).isEqualTo(Arrays.asList("Leia", "R2-D2"));
+    assertThat(reader.readList(TAGS, new ResponseReader.ListReader<String>() {
+      @Override public String read(ResponseReader.ListItemReader reader) {
+        return reader.readString();
+      }
+    })).isEqualTo(Arrays.asList("jedi", "pilot"));
+    reader.skipRemaining();
+    jsonReader.endObject();
+  }
+
+  @Test public void readFieldsOutOfOrder() throws Exception {
+    BufferedSourceJsonReader jsonReader = jsonReader("{\"friend\":{\"age\":32,\"name\":\"Han\"},"
+        + "\"unknown\":[1,2,3],\"age\":19,\"name\":\"Luke\"}");
+    StreamingResponseReader reader = streamingReader(jsonReader);
+
+    assertThat(reader.readString(NAME)).isEqualTo("Luke");
+    assertThat(reader.readInt(AGE)).isEqualTo(19);
+    assertThat(reader.readObject(FRIEND, new ResponseReader.ObjectReader<String>() {
+      @Override public String read(ResponseReader reader) {
+        return reader.readString(NAME) + ":" + reader.readInt(AGE);
+      }
+    })).isEqualTo("Han:32");
+    reader.skipRemaining();
+    jsonReader.endObject();
+  }
+
+  @Test public void readMissingFields() throws Exception {
+    BufferedSourceJsonReader jsonReader = jsonReader("{\"name\":\"Luke\",\"friend\":null}");
+    StreamingResponseReader reader = streamingReader(jsonReader);
+
+    assertThat(reader.readInt(AGE)).isNull();
+    assertThat(reader.readObject(FRIEND, new ResponseReader.ObjectReader<String>() {
+      @Override public String read(ResponseReader reader) {
+        throw new AssertionError();
+      }
+    })).isNull();
+    assertThat(reader.readString(NAME)).isEqualTo("Luke");
+    reader.skipRemaining();
+    jsonReader.endObject();
+  }
+
+  @Test public void fragmentReadsFieldsAgain() throws Exception {
+    BufferedSourceJsonReader jsonReader = jsonReader("{\"__typename\":\"Human\",\"name\":\"Luke\",\"age\":19}");
+    StreamingResponseReader reader = streamingReader(jsonReader);
+
+    assertThat(reader.readString(ResponseField.forString("__typename", "__typename", null, false)))
+        .isEqualTo("Human");
+    assertThat(reader.readString(NAME)).isEqualTo("Luke");
+    assertThat(reader.readConditional((ResponseField.ConditionalTypeField) FRAGMENTS,
+        new ResponseReader.ConditionalTypeReader<String>() {
+          @Override public String read(String conditionalType, ResponseReader reader) {
+            return conditionalType + ":" + reader.readString(NAME) + ":" + reader.readInt(AGE);
+          }
+        })).isEqualTo("Human:Luke:19");
+    reader.skipRemaining();
+    jsonReader.endObject();
+  }
+
+  @Test public void readConsumedObjectFieldAgain() throws Exception {
+    BufferedSourceJsonReader jsonReader = jsonReader("{\"friend\":{\"name\":\"Han\"}}");
+    StreamingResponseReader reader = streamingReader(jsonReader);
+    ResponseReader.ObjectReader<String> objectReader = new ResponseReader.ObjectReader<String>() {
+      @Override public String read(ResponseReader reader) {
+        return reader.readString(NAME);
+      }
+    };
+
+    assertThat(reader.readObject(FRIEND, objectReader)).isEqualTo("Han");
+    try {
+      reader.readObject(FRIEND, objectReader);
+      fail("expected ConsumedFieldException");
+    } catch (StreamingResponseReader.ConsumedFieldException expected) {
+      // expected
+    }
+  }
+
+  @Test public void objectSourceReadsAhead() throws Exception {
+    BufferedSourceJsonReader jsonReader = jsonReader("{\"friend\":{\"name\":\"Han\",\"id\":\"1002\"}}");
+    final List<Object> resolvedIds = new ArrayList<>();
+    ResponseNormalizer<Map<String, Object>> normalizer = new ResponseNormalizer<Map<String, Object>>() {
+      @Override public void willResolveObject(ResponseField field, Optional<Map<String, Object>> objectSource) {
+        resolvedIds.add(objectSource.get().get("id"));
+        super.willResolveObject(field, objectSource);
+      }
+
+      @Override public CacheKey resolveCacheKey(ResponseField field, Map<String, Object> record) {
+        return CacheKey.from((String) record.get("id"));
+      }
+    };
+    normalizer.willResolveRootQuery(QUERY);
+    StreamingResponseReader reader = new StreamingResponseReader(responseJsonStreamReader(jsonReader),
+        QUERY.variables(), Collections.<ScalarType, CustomTypeAdapter>emptyMap(), normalizer);
+
+    assertThat(reader.readObject(FRIEND, new ResponseReader.ObjectReader<String>() {
+      @Override public String read(ResponseReader reader) {
+        return reader.readString(NAME);
+      }
+    })).isEqualTo("Han");
+    reader.skipRemaining();
+    jsonReader.endObject();
+
+    assertThat(resolvedIds).containsExactly("1002");
+    assertThat(normalizer.dependentKeys()).containsExactly("QUERY_ROOT.friend", "1002", "1002.name");
+  }
+
+  @Test public void dependentKeysNormalizerSkipsRecords() throws Exception {
+    BufferedSourceJsonReader jsonReader = jsonReader("{\"name\":\"Luke\","
+        + "\"friend\":{\"name\":\"Han\",\"id\":\"1002\"}}");
+    ResponseNormalizer<Map<String, Object>> normalizer = new ResponseNormalizer<Map<String, Object>>() {
+      @Override public CacheKey resolveCacheKey(ResponseField field, Map<String, Object> record) {
+        return CacheKey.from((String) record.get("id"));
+      }
+    }.dependentKeysNormalizer();
+    normalizer.willResolveRootQuery(QUERY);
+    StreamingResponseReader reader = new StreamingResponseReader(responseJsonStreamReader(jsonReader),
+        QUERY.variables(), Collections.<ScalarType, CustomTypeAdapter>emptyMap(), normalizer);
+
+    assertThat(reader.readString(NAME)).isEqualTo("Luke");
+    assertThat(reader.readObject(FRIEND, new ResponseReader.ObjectReader<String>() {
+      @Override public String read(ResponseReader reader) {
+        return reader.readString(NAME);
+      }
+    })).isEqualTo("Han");
+    reader.skipRemaining();
+    jsonReader.endObject();
+
+    assertThat(normalizer.records()).isEmpty();
+    assertThat(normalizer.dependentKeys()).containsExactly("QUERY_ROOT.name", "QUERY_ROOT.friend", "1002",
+        "1002.name");
+  }
+
+  @Test public void readFieldsByOrdinal() throws Exception {
+    final ResponseField[] fields = {
+        ResponseField.forString("__typename", "__typename", null, false),
+        ResponseField.forString("name", "name", null, false),
+        ResponseField.forObject("friend", "friend", null, true),
+        ResponseField.forFragment("__typename", "__typename", Collections.singletonList("Human"))
+    };
+    ResponseFieldTable table = new ResponseFieldTable(fields) {
+      @Override public int ordinal(String responseName) {
+        switch (responseName) {
+          case "__typename": return 0;
+          case "name": return 1;
+          case "friend": return 2;
+          default: return -1;
+        }
+      }
+    };
+    assertThat(table.size()).isEqualTo(3);
+    assertThat(fields[3].ordinal()).isEqualTo(0);
+
+    BufferedSourceJsonReader jsonReader = jsonReader("{\"friend\":{\"name\":\"Han\"},\"unknown\":1,"
+        + "\"name\":\"Luke\",\"__typename\":\"Human\"}");
+    StreamingResponseReader reader = streamingReader(jsonReader);
+
+    assertThat(reader.readString(fields[0])).isEqualTo("Human");
+    assertThat(reader.readString(fields[1])).isEqualTo("Luke");
+    assertThat(reader.readObject(fields[2], new ResponseReader.ObjectReader<String>() {
+      @Override public String read(ResponseReader reader) {
+        return reader.readString(NAME);
+      }
+    })).isEqualTo("Han");
+    assertThat(reader.readConditional((ResponseField.ConditionalTypeField) fields[3],
+        new ResponseReader.ConditionalTypeReader<String>() {
+          @Override public String read(String conditionalType, ResponseReader reader) {
+            return conditionalType + ":" + reader.readString(NAME);
+          }
+        })).isEqualTo("Human:Luke");
+    reader.skipRemaining();
+    jsonReader.endObject();
+  }
+
+  private static BufferedSourceJsonReader jsonReader(String json) throws IOException {
+    BufferedSourceJsonReader jsonReader = new BufferedSourceJsonReader(new Buffer().writeUtf8(json));
+    jsonReader.beginObject();
+    return jsonReader;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static StreamingResponseReader streamingReader(BufferedSourceJsonReader jsonReader) {
+    return new StreamingResponseReader(responseJsonStreamReader(jsonReader), QUERY.variables(),
+        Collections.<ScalarType, CustomTypeAdapter>emptyMap(), ResponseNormalizer.NO_OP_NORMALIZER);
+  }
+
+  private static final Operation QUERY = new Query() {
+    @Override public String queryDocument() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override public Variables variables() {
+      return EMPTY_VARIABLES;
+    }
+
+    @Override public ResponseFieldMapper responseFieldMapper() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override public Object wrapData(Data data) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override public OperationName name() {
+      return null;
+    }
+  };
+}